@@ -2,13 +2,24 @@ package com.robin.ds.hashing;
 
 /**
  * Class forms the base implementation for Array based Hash Tables.
+ * <p/>
+ * By default each slot of values points to an {@link Entry}. A table created
+ * with the parallel arrays layout keeps no entry objects: values holds the key
+ * of each slot, and the element and hashCode of the key sit in parallel arrays
+ * at the same index. An insert then allocates nothing, and a probe compares
+ * the cached hashCode before calling equals on a key. The hashCode is read
+ * once per operation and a rehash reuses the cached ones. Either way values
+ * holds null for an empty slot and DELETED for a freed one, so the probing,
+ * rehash and cursor code is shared by both layouts; the subclasses read and
+ * write the slots through {@link #matchesAt(int, Object, int)},
+ * {@link #elementAt(int)} and the related methods.
  * 
  * @author robin
  * 
  * @param <K>
  * @param <E>
  */
-public abstract class AbstractArrayHashTable<K, E> implements HashTable<K, E> {
+public abstract class AbstractArrayHashTable<K, E> implements IterableHashTable<K, E>, InstrumentedHashTable<K, E> {
 
    /**
     * Class represents an entry in the values.
@@ -31,9 +42,269 @@ public abstract class AbstractArrayHashTable<K, E> implements HashTable<K, E> {
       }
    }
 
+   /**
+    * Cursor over the slots of the values array, and of the old array while an
+    * incremental rehash is in progress. Slots holding null or DELETED are
+    * skipped.
+    * 
+    * @author robin
+    * 
+    */
+   private class ArrayCursor implements HashTableCursor<K, E> {
+      private Object[] slots;
+      private Object[] oldSlots;
+      // the elements of slots and oldSlots, for the parallel arrays layout
+      private Object[] slotElements;
+      private Object[] oldSlotElements;
+      private int index; // runs over slots and then over oldSlots
+      private int end;
+      private Object current;
+      private Object currentElement;
+
+      ArrayCursor() {
+         reset();
+      }
+
+      ArrayCursor(ArrayCursor parent, int from, int end) {
+         this.slots = parent.slots;
+         this.oldSlots = parent.oldSlots;
+         this.slotElements = parent.slotElements;
+         this.oldSlotElements = parent.oldSlotElements;
+         this.index = from - 1;
+         this.end = end;
+      }
+
+      public boolean advance() {
+         while (++index < end) {
+            boolean inSlots = index < slots.length;
+            int slotIndex = inSlots ? index : index - slots.length;
+            Object slot = inSlots ? slots[slotIndex] : oldSlots[slotIndex];
+            if (slot != null && slot != DELETED) {
+               current = slot;
+               if (parallelArrays) {
+                  currentElement = inSlots ? slotElements[slotIndex] : oldSlotElements[slotIndex];
+               }
+               return true;
+            }
+         }
+         current = null;
+         return false;
+      }
+
+      @SuppressWarnings("unchecked")
+      public K key() {
+         checkOnEntry();
+         return parallelArrays ? unmaskKey(current) : ((Entry) current).key;
+      }
+
+      @SuppressWarnings("unchecked")
+      public E value() {
+         checkOnEntry();
+         return parallelArrays ? (E) currentElement : ((Entry) current).element;
+      }
+
+      public void reset() {
+         slots = values;
+         oldSlots = oldValues == null ? NO_SLOTS : oldValues;
+         slotElements = elements;
+         oldSlotElements = oldElements;
+         index = -1;
+         end = slots.length + oldSlots.length;
+         current = null;
+      }
+
+      public HashTableCursor<K, E> trySplit() {
+         int from = index + 1;
+         if (end - from < MIN_SPLIT_SLOTS) {
+            return null;
+         }
+         int middle = (from + end) >>> 1;
+         ArrayCursor split = new ArrayCursor(this, middle, end);
+         end = middle;
+         return split;
+      }
+
+      private void checkOnEntry() {
+         if (current == null) {
+            throw new IllegalStateException("Cursor is not on an entry");
+         }
+      }
+   }
+
+   private static final Object[] NO_SLOTS = new Object[0];
+   // stands for the null key in the parallel arrays layout
+   private static final Object NULL_KEY = new Object();
+   // a cursor is not split below this number of slots
+   private static final int MIN_SPLIT_SLOTS = 1024;
+   // number of old buckets moved by each operation during an incremental rehash
+   private static final int MIGRATION_STEP = 16;
+   // load at which the incremental rehash is started
+   private static final double INCREMENTAL_LOAD_FACTOR = 0.75;
+   // share of DELETED slots at which the table is rebuilt
+   private static final double DEFAULT_MAX_TOMBSTONE_RATIO = 0.25;
+
    protected int count;
    protected Object[] values;
    protected final Object DELETED = new Object();
+   // number of DELETED marks in values, kept up to date by the subclasses
+   // that reuse the marked slots
+   protected int tombstones;
+
+   private final boolean powerOfTwoLength;
+   private final boolean parallelArrays;
+   // the parallel arrays layout keeps the keys in values, and the elements and
+   // hashCodes of the keys here
+   private Object[] elements;
+   private int[] hashes;
+   private boolean incrementalRehash;
+   private double maxTombstoneRatio = DEFAULT_MAX_TOMBSTONE_RATIO;
+   private HashTableStatistics statistics;
+   // the array being drained while an incremental rehash is in progress
+   private Object[] oldValues;
+   private Object[] oldElements;
+   private int[] oldHashes;
+   private int migrationIndex;
+
+   /**
+    * Creates a table whose array lengths are prime numbers.
+    */
+   protected AbstractArrayHashTable() {
+      this(false);
+   }
+
+   /**
+    * Creates a table whose array lengths are either prime numbers or powers of
+    * 2. Power of 2 lengths suit hash functions like {@link FibonacciHash} that
+    * take the top bits of a product, and let the probes wrap with a mask.
+    * 
+    * @param powerOfTwoLength
+    */
+   protected AbstractArrayHashTable(boolean powerOfTwoLength) {
+      this(powerOfTwoLength, false);
+   }
+
+   /**
+    * Creates a table whose array lengths are either prime numbers or powers of
+    * 2, using the parallel arrays layout if requested.
+    * 
+    * @param powerOfTwoLength
+    * @param parallelArrays
+    */
+   protected AbstractArrayHashTable(boolean powerOfTwoLength, boolean parallelArrays) {
+      this.powerOfTwoLength = powerOfTwoLength;
+      this.parallelArrays = parallelArrays;
+   }
+
+   public E lookUp(K key) {
+      migrateBuckets();
+      return lookUp(key, cachedHash(key));
+   }
+
+   private E lookUp(K key, int hash) {
+      int index = indexOf(key, hash);
+      if (index >= 0) {
+         return elementAt(index);
+      }
+      if (oldValues != null) {
+         index = indexInOldValues(key, hash);
+         if (index >= 0) {
+            return elementIn(oldValues, oldElements, index);
+         }
+      }
+      return null;
+   }
+
+   public E insert(K key, E element) {
+      return insert(key, element, cachedHash(key));
+   }
+
+   private E insert(K key, E element, int hash) {
+      migrateBuckets();
+      if (needsRehash()) {
+         rehash();
+      } else if (hasTooManyTombstones()) {
+         purgeTombstones();
+      }
+      // a key still waiting in the old array is moved over by the insert
+      Entry moved = removeFromOldValues(key, hash);
+      E oldValue = null;
+      try {
+         oldValue = insertEntry(key, element, hash);
+      } catch (IllegalStateException illegalStateException) {
+         // need to rehash the table
+         rehash();
+         if (moved == null) {
+            moved = removeFromOldValues(key, hash);
+         }
+         oldValue = insertEntry(key, element, hash);
+      }
+      return moved == null ? oldValue : moved.element;
+   }
+
+   /**
+    * Method reads the first slot probed for every key of the batch in a first
+    * pass, these loads do not depend on each other and can overlap. A second
+    * pass settles the keys found in (or missing from) that slot, recording a
+    * probe of one slot for each, the others are looked up one at a time.
+    */
+   @SuppressWarnings("unchecked")
+   public void lookUpAll(K[] keys, E[] results) {
+      Batches.checkBatch(keys, results);
+      if (oldValues != null) {
+         Batches.lookUpEach(this, keys, results);
+         return;
+      }
+      int[] keyHashes = new int[keys.length];
+      int[] homeIndexes = new int[keys.length];
+      Object[] homes = new Object[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+         keyHashes[i] = cachedHash(keys[i]);
+         homeIndexes[i] = homeIndex(keys[i], keyHashes[i]);
+         homes[i] = values[homeIndexes[i]];
+      }
+      for (int i = 0; i < keys.length; i++) {
+         Object home = homes[i];
+         if (home == null) {
+            results[i] = null; // the probe would stop right there
+            recordProbe(1);
+         } else if (home != DELETED && matchesAt(homeIndexes[i], keys[i], keyHashes[i])) {
+            results[i] = elementAt(homeIndexes[i]);
+            recordProbe(1);
+         } else {
+            results[i] = lookUp(keys[i], keyHashes[i]);
+         }
+      }
+   }
+
+   /**
+    * Method grows the table once for the whole batch, instead of every time it
+    * fills up, and then inserts the entries.
+    */
+   public void insertAll(K[] keys, E[] elements) {
+      Batches.checkBatch(keys, elements);
+      int minimumLength = 2 * (count + keys.length);
+      if (oldValues == null && !incrementalRehash && minimumLength > values.length) {
+         rehash(tableLengthFor(minimumLength));
+      }
+      for (int i = 0; i < keys.length; i++) {
+         insert(keys[i], elements[i]);
+      }
+   }
+
+   public void delete(K key) {
+      migrateBuckets();
+      int hash = cachedHash(key);
+      int index = indexOf(key, hash);
+      if (index >= 0) {
+         removeAt(index);
+         count--;
+         if (hasTooManyTombstones()) {
+            purgeTombstones();
+         }
+      } else {
+         removeFromOldValues(key, hash);
+      }
+   }
 
    public int count() {
       return this.count;
@@ -43,38 +314,372 @@ public abstract class AbstractArrayHashTable<K, E> implements HashTable<K, E> {
       return count() == 0;
    }
 
+   /**
+    * Method returns a cursor over the entries, which also covers the entries
+    * still waiting in the old array during an incremental rehash.
+    */
+   public HashTableCursor<K, E> cursor() {
+      return new ArrayCursor();
+   }
+
+   /**
+    * Returns the number of slots marked DELETED.
+    * 
+    * @return int value
+    */
+   public int tombstoneCount() {
+      return tombstones;
+   }
+
+   public double loadFactor() {
+      return (double) count / values.length;
+   }
+
+   public void setStatistics(HashTableStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   /**
+    * Returns the share of the slots marked DELETED. Probes run through these
+    * slots as if they were taken, so a high ratio makes look-ups of missing
+    * keys slow even when the table holds few entries.
+    * 
+    * @return double value
+    */
+   public double tombstoneRatio() {
+      return (double) tombstones / values.length;
+   }
+
+   /**
+    * Method sets the share of DELETED slots at which the table is rebuilt to
+    * clear them out. The rebuild keeps the length of the array, unless the
+    * entries alone fill half of it.
+    * 
+    * @param maxTombstoneRatio
+    */
+   public void setMaxTombstoneRatio(double maxTombstoneRatio) {
+      if (!(maxTombstoneRatio > 0) || maxTombstoneRatio > 1) {
+         throw new IllegalArgumentException("Invalid tombstone ratio");
+      }
+      this.maxTombstoneRatio = maxTombstoneRatio;
+   }
+
+   /**
+    * Method switches the table between the stop-the-world rehash, where the
+    * insert that finds the table full moves every entry into the grown array,
+    * and the incremental rehash. In the incremental mode the old array is kept
+    * next to the grown one and every later operation moves a bounded number of
+    * buckets across, until the old array has been drained.
+    * 
+    * @param incrementalRehash
+    */
+   public void setIncrementalRehash(boolean incrementalRehash) {
+      this.incrementalRehash = incrementalRehash;
+   }
+
+   /**
+    * Method indicates if an incremental rehash is still moving entries out of
+    * the old array.
+    * 
+    * @return boolean value
+    */
+   public boolean isRehashInProgress() {
+      return oldValues != null;
+   }
+
+   /**
+    * Method will return the index in values holding the key, or -1 if the key
+    * is not present.
+    * 
+    * @param key
+    * @param hash
+    *           - the {@link #cachedHash(Object)} of the key
+    * @return int value
+    */
+   protected abstract int indexOf(K key, int hash);
+
+   /**
+    * Method will return the first index probed for the key.
+    * 
+    * @param key
+    * @param hash
+    *           - the {@link #cachedHash(Object)} of the key
+    * @return int value
+    */
+   protected abstract int homeIndex(K key, int hash);
+
+   /**
+    * Method will insert an entry in values, replacing the element if the key
+    * already exists.
+    * 
+    * @param key
+    * @param element
+    * @param hash
+    *           - the {@link #cachedHash(Object)} of the key
+    * @return E the old value
+    * @throws IllegalStateException
+    *            when no free slot could be found
+    */
+   protected abstract E insertEntry(K key, E element, int hash) throws IllegalStateException;
+
+   /**
+    * Method frees the slot at the passed index. By default the slot is marked
+    * as DELETED so that the probe sequences running through it stay intact.
+    * 
+    * @param index
+    */
+   protected void removeAt(int index) {
+      values[index] = DELETED;
+      if (parallelArrays) {
+         elements[index] = null; // let the element be collected
+      }
+      tombstones++;
+   }
+
+   /**
+    * Method allocates empty arrays of the passed length, for the layout of the
+    * table.
+    * 
+    * @param length
+    */
+   protected final void allocate(int length) {
+      values = new Object[length];
+      if (parallelArrays) {
+         elements = new Object[length];
+         hashes = new int[length];
+      }
+   }
+
+   /**
+    * Returns the hashCode the parallel arrays layout caches for the key, or 0
+    * for the entry layout, which does not need it. It is read once per
+    * operation and passed down, see {@link #cachesHashCodes()}.
+    * 
+    * @param key
+    * @return int value
+    */
+   protected final int cachedHash(K key) {
+      return parallelArrays && key != null ? key.hashCode() : 0;
+   }
+
+   /**
+    * Method indicates if the hash passed to {@link #indexOf(Object, int)} and
+    * {@link #insertEntry(Object, Object, int)} is the hashCode of the key, so
+    * that the index can be derived from it without calling hashCode() again.
+    * 
+    * @return boolean value
+    */
+   protected final boolean cachesHashCodes() {
+      return parallelArrays;
+   }
+
+   /**
+    * Method indicates if the slot at the passed index, which must hold a key,
+    * holds the passed key. The parallel arrays layout only calls equals when
+    * the cached hashCodes match.
+    * 
+    * @param index
+    * @param key
+    * @param hash
+    *           - the {@link #cachedHash(Object)} of the key
+    * @return boolean value
+    */
+   @SuppressWarnings("unchecked")
+   protected final boolean matchesAt(int index, K key, int hash) {
+      if (parallelArrays) {
+         return hashes[index] == hash && nullSafeEquals(key, unmaskKey(values[index]));
+      }
+      return nullSafeEquals(key, ((Entry) values[index]).key);
+   }
+
+   /**
+    * Returns the element of the slot at the passed index.
+    * 
+    * @param index
+    * @return E
+    */
+   protected final E elementAt(int index) {
+      return elementIn(values, elements, index);
+   }
+
+   /**
+    * Method replaces the element of the slot at the passed index.
+    * 
+    * @param index
+    * @param element
+    * @return E the old element
+    */
+   @SuppressWarnings("unchecked")
+   protected final E replaceElementAt(int index, E element) {
+      E oldElement;
+      if (parallelArrays) {
+         oldElement = (E) elements[index];
+         elements[index] = element;
+      } else {
+         Entry entry = (Entry) values[index];
+         oldElement = entry.element;
+         entry.element = element;
+      }
+      return oldElement;
+   }
+
+   /**
+    * Method stores a new entry in the slot at the passed index.
+    * 
+    * @param index
+    * @param key
+    * @param element
+    * @param hash
+    *           - the {@link #cachedHash(Object)} of the key
+    */
+   protected final void putAt(int index, K key, E element, int hash) {
+      if (parallelArrays) {
+         values[index] = key == null ? NULL_KEY : key;
+         elements[index] = element;
+         hashes[index] = hash;
+      } else {
+         values[index] = new Entry(key, element);
+      }
+   }
+
+   /**
+    * Method indicates if the table should be rehashed before the next insert.
+    * By default the table is only rehashed once an insert fails, but the
+    * incremental rehash has to start before the table is full - otherwise
+    * every search in the old array would have to scan all of it.
+    * 
+    * @return boolean value
+    */
+   protected boolean needsRehash() {
+      return incrementalRehash && oldValues == null && count + 1 > values.length * INCREMENTAL_LOAD_FACTOR;
+   }
+
    /**
     * This method is called to reinitialize the HashTable settings after the
-    * array has been grown to the specified parameter value.
+    * array has been grown to the specified parameter value. The settings of
+    * the previous length must be kept, for {@link #swapRehashSettings()}.
     * 
     * @param newLength
     */
    protected abstract void updateRehashSettings(int newLength);
 
    /**
-    * This method is called to rehash the HashTable.
+    * Method exchanges the settings in use with the ones kept for the previous
+    * length. It is called around each search of the array being drained by an
+    * incremental rehash, so it should not recompute anything.
+    */
+   protected abstract void swapRehashSettings();
+
+   /**
+    * Method will return an independent copy of the passed hash or probe
+    * function, or null if it cannot be copied.
+    * 
+    * @param function
+    * @return T
     */
    @SuppressWarnings("unchecked")
+   static <T> T copyOf(T function) {
+      if (!(function instanceof ICopyableFunction)) {
+         return null;
+      }
+      Object copy = ((ICopyableFunction<?>) function).copy();
+      // a subclass that does not override copy() would lose its behaviour
+      return copy.getClass() == function.getClass() ? (T) copy : null;
+   }
+
+   /**
+    * This method is called to rehash the HashTable.
+    */
    protected void rehash() {
-      int newLength = this.findPrimeBiggerThan(values.length * 2);
-      // System.out.println("Count of elements is " + count +
-      // " in aray of size " + values.length + " Raising it to " + newLength);
-      Object[] newArray = new Object[newLength];
-      updateRehashSettings(newLength);
+      int newLength = tableLengthFor(values.length * 2);
+      if (incrementalRehash && oldValues == null) {
+         long start = statistics == null ? 0 : System.nanoTime();
+         // keep the old array around and drain it over the next operations
+         oldValues = values;
+         oldElements = elements;
+         oldHashes = hashes;
+         migrationIndex = 0;
+         allocate(newLength);
+         tombstones = 0;
+         updateRehashSettings(newLength);
+         if (statistics != null) {
+            statistics.recordRehash(start);
+         }
+      } else {
+         rehash(newLength);
+      }
+   }
 
-      // int originalCount = this.count;
+   /**
+    * Method moves every entry into a new array of the passed length.
+    * 
+    * @param newLength
+    */
+   protected void rehash(int newLength) {
+      long start = statistics == null ? 0 : System.nanoTime();
       Object[] originalArray = this.values;
-      this.values = newArray;
+      Object[] originalElements = this.elements;
+      int[] originalHashes = this.hashes;
+      Object[] originalOldArray = this.oldValues;
+      Object[] originalOldElements = this.oldElements;
+      int[] originalOldHashes = this.oldHashes;
+      allocate(newLength);
+      updateRehashSettings(newLength);
+      this.oldValues = null;
+      this.oldElements = null;
+      this.oldHashes = null;
       this.count = 0;
+      this.tombstones = 0;
 
-      for (Object object : originalArray) {
-         if (object == null || object == DELETED) {
-            continue;
-         }
-         Entry e = (Entry) object;
-         insert(e.key, e.element);
+      reinsert(originalArray, originalElements, originalHashes);
+      if (originalOldArray != null) {
+         reinsert(originalOldArray, originalOldElements, originalOldHashes);
+      }
+      if (statistics != null) {
+         statistics.recordRehash(start);
       }
-      // assert (this.count == originalCount) : " Value loss during rehash";
+   }
+
+   /**
+    * Method indicates if the share of DELETED slots calls for a rebuild. The
+    * check waits while an incremental rehash is in progress, as it replaces
+    * the array anyway.
+    * 
+    * @return boolean value
+    */
+   private boolean hasTooManyTombstones() {
+      return oldValues == null && tombstones > values.length * maxTombstoneRatio;
+   }
+
+   /**
+    * Method rebuilds the table to clear out the DELETED marks, into an array
+    * of the same length unless the entries alone fill half of it.
+    */
+   private void purgeTombstones() {
+      rehash(count * 2 > values.length ? tableLengthFor(values.length * 2) : values.length);
+   }
+
+   /**
+    * Method records the length of a search, if statistics are attached.
+    * 
+    * @param length
+    *           - the number of slots read
+    */
+   protected final void recordProbe(int length) {
+      if (statistics != null) {
+         statistics.recordProbe(length);
+      }
+   }
+
+   /**
+    * Method will return the array length to use for the passed minimum length -
+    * a prime number or a power of 2, depending on how the table was created.
+    * 
+    * @param minimumLength
+    * @return int value
+    */
+   protected int tableLengthFor(int minimumLength) {
+      return powerOfTwoLength ? FibonacciHash.powerOfTwoAtLeast(minimumLength) : findPrimeBiggerThan(minimumLength);
    }
 
    /**
@@ -84,21 +689,7 @@ public abstract class AbstractArrayHashTable<K, E> implements HashTable<K, E> {
     * @return int value
     */
    protected int findPrimeBiggerThan(int i) {
-      int number = i + 1;
-      while (true) {
-         boolean hasfactorial = false;
-         for (int divisor = 2; divisor <= (int) Math.sqrt(number); divisor++) {
-            if (number % divisor == 0) {
-               hasfactorial = true;
-               break;
-            }
-         }
-         if (!hasfactorial) {
-            return number; // a prime number
-         }
-         number++;// try next number
-      }
-      // Return smallest prime number
+      return Primes.nextPrime(i);
    }
 
    /**
@@ -114,4 +705,150 @@ public abstract class AbstractArrayHashTable<K, E> implements HashTable<K, E> {
             /* are actually equal and key1 is not null */
             || (key1 != null && key1.equals(key2));
    }
+
+   /**
+    * Method inserts the entries of an array being replaced. The parallel arrays
+    * layout passes the hashCodes stored with them, so hashCode() is not called
+    * again.
+    * 
+    * @param originalArray
+    * @param originalElements
+    * @param originalHashes
+    */
+   private void reinsert(Object[] originalArray, Object[] originalElements, int[] originalHashes) {
+      for (int i = 0; i < originalArray.length; i++) {
+         Object object = originalArray[i];
+         if (object == null || object == DELETED) {
+            continue;
+         }
+         insert(keyOf(object), elementIn(originalArray, originalElements, i), hashIn(originalHashes, i));
+      }
+   }
+
+   private int hashIn(int[] slotHashes, int index) {
+      return parallelArrays ? slotHashes[index] : 0;
+   }
+
+   /**
+    * Returns the key held by a slot of values, or of the old array.
+    * 
+    * @param slot
+    * @return K
+    */
+   @SuppressWarnings("unchecked")
+   private K keyOf(Object slot) {
+      return parallelArrays ? unmaskKey(slot) : ((Entry) slot).key;
+   }
+
+   /**
+    * Returns the element of the slot at the passed index of values, or of the
+    * old array, with its parallel elements array.
+    * 
+    * @param slots
+    * @param slotElements
+    * @param index
+    * @return E
+    */
+   @SuppressWarnings("unchecked")
+   private E elementIn(Object[] slots, Object[] slotElements, int index) {
+      return parallelArrays ? (E) slotElements[index] : ((Entry) slots[index]).element;
+   }
+
+   @SuppressWarnings("unchecked")
+   private K unmaskKey(Object slot) {
+      return slot == NULL_KEY ? null : (K) slot;
+   }
+
+   /**
+    * Method moves the next few buckets of the old array into values, while an
+    * incremental rehash is in progress.
+    */
+   private void migrateBuckets() {
+      if (oldValues == null) {
+         return;
+      }
+      int end = Math.min(migrationIndex + MIGRATION_STEP, oldValues.length);
+      for (; migrationIndex < end; migrationIndex++) {
+         Object object = oldValues[migrationIndex];
+         if (object == null || object == DELETED) {
+            continue;
+         }
+         E element = elementIn(oldValues, oldElements, migrationIndex);
+         // mark rather than clear, the old probe sequences must stay intact
+         oldValues[migrationIndex] = DELETED;
+         count--;
+         try {
+            insertEntry(keyOf(object), element, hashIn(oldHashes, migrationIndex));
+         } catch (IllegalStateException illegalStateException) {
+            // the new array filled up first - put the entry back and finish
+            // the job in one go
+            oldValues[migrationIndex] = object;
+            count++;
+            rehash(tableLengthFor(values.length * 2));
+            return;
+         }
+         if (parallelArrays) {
+            oldElements[migrationIndex] = null;
+         }
+      }
+      if (migrationIndex == oldValues.length) {
+         oldValues = null; // fully drained
+      }
+   }
+
+   /**
+    * Method looks the key up in the old array, using the settings the old
+    * array was hashed with. Those are kept by the subclass from the start of
+    * the rehash and only swapped in, so the look-up recomputes nothing.
+    * 
+    * @param key
+    * @param hash
+    * @return int value
+    */
+   private int indexInOldValues(K key, int hash) {
+      Object[] currentValues = values;
+      Object[] currentElements = elements;
+      int[] currentHashes = hashes;
+      values = oldValues;
+      elements = oldElements;
+      hashes = oldHashes;
+      swapRehashSettings();
+      try {
+         return indexOf(key, hash);
+      } finally {
+         values = currentValues;
+         elements = currentElements;
+         hashes = currentHashes;
+         swapRehashSettings();
+      }
+   }
+
+   /**
+    * Method removes the key from the old array, if an incremental rehash is in
+    * progress and the key has not been moved yet.
+    * 
+    * @param key
+    * @param hash
+    * @return the removed Entry or null
+    */
+   @SuppressWarnings("unchecked")
+   private Entry removeFromOldValues(K key, int hash) {
+      if (oldValues == null) {
+         return null;
+      }
+      int index = indexInOldValues(key, hash);
+      if (index < 0) {
+         return null;
+      }
+      Entry e;
+      if (parallelArrays) {
+         e = new Entry(key, (E) oldElements[index]);
+         oldElements[index] = null;
+      } else {
+         e = (Entry) oldValues[index];
+      }
+      oldValues[index] = DELETED;
+      count--;
+      return e;
+   }
 }
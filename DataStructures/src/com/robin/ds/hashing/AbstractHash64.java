@@ -0,0 +1,234 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class represents a hash function that mixes all the bits of the key into a
+ * 64 bit hash, and then maps that hash to the limit. <blockquote>The
+ * {@link DivisionHash} and the {@link MultiplicationHash} only post-process
+ * the hashCode of the key, so keys whose hashCodes differ in a few bits - such
+ * as sequential Long ids - or share a hashCode outright still cluster.
+ * </blockquote>
+ * <p/>
+ * The content of a byte[] or a {@link CharSequence} key is hashed directly
+ * rather than through its hashCode, and a Long key is hashed as all of its 64
+ * bits. A CharSequence hashes to the same value as the UTF-16LE bytes of its
+ * chars. Other keys are hashed through their hashCode. No objects are created
+ * per call.
+ * <p/>
+ * The 64 bit hash is mapped to the limit from its top bits - a shift when the
+ * limit is a power of 2, a multiply otherwise.
+ *
+ * @author robin
+ *
+ * @param <K>
+ */
+public abstract class AbstractHash64<K> implements IHashFunction<K> {
+
+   protected final long seed;
+   private int hashLimit;
+   private int shift; // 0 when the limit is not a power of 2
+
+   /**
+    * Default access - can only be extended within the package
+    *
+    * @param hashLimit
+    * @param seed
+    */
+   AbstractHash64(int hashLimit, long seed) {
+      this.seed = seed;
+      setHashLimit(hashLimit);
+   }
+
+   @Override
+   public int hash(K key) {
+      if (key == null) {
+         return NULL_HASH;
+      }
+      long hash = hash64(key);
+      if (shift != 0) {
+         return (int) (hash >>> shift);
+      }
+      // scale the top 32 bits of the hash to [0, hashLimit)
+      return (int) (((hash >>> 32) * hashLimit) >>> 32);
+   }
+
+   @Override
+   public void setHashLimit(int hashLimit) {
+      if (hashLimit < 1) {
+         throw new IllegalArgumentException("Invalid hash limit");
+      }
+      this.hashLimit = hashLimit;
+      boolean powerOfTwo = hashLimit > 1 && (hashLimit & (hashLimit - 1)) == 0;
+      this.shift = powerOfTwo ? 64 - Integer.numberOfTrailingZeros(hashLimit) : 0;
+   }
+
+   int hashLimit() {
+      return hashLimit;
+   }
+
+   /**
+    * Method will generate the full 64 bit hash of the passed key.
+    *
+    * @param key
+    * @return long value
+    */
+   public long hash64(Object key) {
+      // the final classes are checked first - a failed instanceof check against
+      // an interface is slow
+      if (key instanceof String) {
+         return hashChars((String) key);
+      }
+      if (key instanceof Long) {
+         return hashLong((Long) key);
+      }
+      if (key instanceof Integer) {
+         return hashLong((Integer) key);
+      }
+      if (key instanceof byte[]) {
+         byte[] bytes = (byte[]) key;
+         return hashBytes(bytes, 0, bytes.length);
+      }
+      if (key instanceof CharSequence) {
+         return hashChars((CharSequence) key);
+      }
+      return hashLong(key == null ? NULL_HASH : key.hashCode());
+   }
+
+   /**
+    * Method will hash the content of a range of the array.
+    *
+    * @param bytes
+    * @param offset
+    * @param length
+    * @return long value
+    */
+   public long hashBytes(byte[] bytes, int offset, int length) {
+      if (offset < 0 || length < 0 || offset > bytes.length - length) {
+         throw new IllegalArgumentException("Invalid range");
+      }
+      return hash(BYTES, bytes, offset, length);
+   }
+
+   /**
+    * Method will hash the chars of the sequence, read as UTF-16LE bytes.
+    *
+    * @param chars
+    * @return long value
+    */
+   public long hashChars(CharSequence chars) {
+      return hash(CHARS, chars, 0, chars.length() << 1);
+   }
+
+   /**
+    * Method will hash the 8 bytes of the value, read as little-endian - the
+    * result matches {@link #hashBytes(byte[], int, int)} of those bytes.
+    *
+    * @param value
+    * @return long value
+    */
+   public abstract long hashLong(long value);
+
+   /**
+    * Method will hash length bytes of the input, starting at the offset.
+    *
+    * @param input
+    *           - reads the bytes of the data
+    * @param data
+    * @param offset
+    * @param length
+    * @return long value
+    */
+   abstract long hash(Input input, Object data, int offset, int length);
+
+   /**
+    * Class reads the bytes of a key as little-endian values, so that the hash
+    * functions can run over a byte[] and a CharSequence alike.
+    *
+    * @author robin
+    *
+    */
+   abstract static class Input {
+
+      /**
+       * Returns the byte at the index, as an unsigned value.
+       */
+      abstract int getByte(Object data, int index);
+
+      /**
+       * Returns the 4 bytes from the index, as an unsigned value.
+       */
+      long getInt(Object data, int index) {
+         return (getByte(data, index) | getByte(data, index + 1) << 8 | getByte(data, index + 2) << 16
+               | (long) getByte(data, index + 3) << 24);
+      }
+
+      /**
+       * Returns the 8 bytes from the index.
+       */
+      long getLong(Object data, int index) {
+         return getInt(data, index) | getInt(data, index + 4) << 32;
+      }
+
+      /**
+       * Returns the count bytes from the index (count of 0 to 8) in the low
+       * bytes of the value.
+       */
+      long getPartial(Object data, int index, int count) {
+         long value = 0;
+         for (int i = count - 1; i >= 0; i--) {
+            value = value << 8 | getByte(data, index + i);
+         }
+         return value;
+      }
+   }
+
+   static final Input BYTES = new Input() {
+      @Override
+      int getByte(Object data, int index) {
+         return ((byte[]) data)[index] & 0xFF;
+      }
+
+      @Override
+      long getInt(Object data, int index) {
+         byte[] bytes = (byte[]) data;
+         return (bytes[index] & 0xFF | (bytes[index + 1] & 0xFF) << 8 | (bytes[index + 2] & 0xFF) << 16
+               | (long) (bytes[index + 3] & 0xFF) << 24);
+      }
+
+      @Override
+      long getLong(Object data, int index) {
+         byte[] bytes = (byte[]) data;
+         return (bytes[index] & 0xFFL) | (bytes[index + 1] & 0xFFL) << 8 | (bytes[index + 2] & 0xFFL) << 16
+               | (bytes[index + 3] & 0xFFL) << 24 | (bytes[index + 4] & 0xFFL) << 32
+               | (bytes[index + 5] & 0xFFL) << 40 | (bytes[index + 6] & 0xFFL) << 48
+               | (bytes[index + 7] & 0xFFL) << 56;
+      }
+   };
+
+   static final Input CHARS = new Input() {
+      @Override
+      int getByte(Object data, int index) {
+         return ((CharSequence) data).charAt(index >>> 1) >>> ((index & 1) << 3) & 0xFF;
+      }
+
+      @Override
+      long getInt(Object data, int index) {
+         if ((index & 1) != 0) {
+            return super.getInt(data, index); // straddles the chars
+         }
+         CharSequence chars = (CharSequence) data;
+         int at = index >>> 1;
+         return chars.charAt(at) | (long) chars.charAt(at + 1) << 16;
+      }
+
+      @Override
+      long getLong(Object data, int index) {
+         if ((index & 1) != 0) {
+            return super.getLong(data, index);
+         }
+         CharSequence chars = (CharSequence) data;
+         int at = index >>> 1;
+         return chars.charAt(at) | (long) chars.charAt(at + 1) << 16 | (long) chars.charAt(at + 2) << 32
+               | (long) chars.charAt(at + 3) << 48;
+      }
+   };
+}
@@ -0,0 +1,54 @@
+package com.robin.ds.hashing;
+
+/**
+ * Helpers for the batch operations of the {@link HashTable}s, used by the
+ * tables that have nothing to gain from splitting a batch into passes.
+ * 
+ * @author robin
+ * 
+ */
+final class Batches {
+
+   private Batches() {
+   }
+
+   /**
+    * Method checks that there is a value for every key of the batch.
+    * 
+    * @param keys
+    * @param values
+    */
+   static void checkBatch(Object[] keys, Object[] values) {
+      if (keys == null || values == null || values.length < keys.length) {
+         throw new IllegalArgumentException("Invalid batch");
+      }
+   }
+
+   /**
+    * Method looks-up the keys one at a time.
+    * 
+    * @param table
+    * @param keys
+    * @param values
+    */
+   static <K, E> void lookUpEach(HashTable<K, E> table, K[] keys, E[] values) {
+      checkBatch(keys, values);
+      for (int i = 0; i < keys.length; i++) {
+         values[i] = table.lookUp(keys[i]);
+      }
+   }
+
+   /**
+    * Method inserts the keys one at a time.
+    * 
+    * @param table
+    * @param keys
+    * @param values
+    */
+   static <K, E> void insertEach(HashTable<K, E> table, K[] keys, E[] values) {
+      checkBatch(keys, values);
+      for (int i = 0; i < keys.length; i++) {
+         table.insert(keys[i], values[i]);
+      }
+   }
+}
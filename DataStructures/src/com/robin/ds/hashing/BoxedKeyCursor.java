@@ -0,0 +1,40 @@
+package com.robin.ds.hashing;
+
+/**
+ * A {@link HashTableCursor} view of an {@link IntKeyCursor}. Only
+ * {@link #key()} boxes, and the view splits along with the cursor it wraps.
+ * 
+ * @author robin
+ * 
+ * @param <E>
+ *           the element
+ */
+final class BoxedKeyCursor<E> implements HashTableCursor<Integer, E> {
+
+   private final IntKeyCursor<E> cursor;
+
+   BoxedKeyCursor(IntKeyCursor<E> cursor) {
+      this.cursor = cursor;
+   }
+
+   public boolean advance() {
+      return cursor.advance();
+   }
+
+   public Integer key() {
+      return cursor.key();
+   }
+
+   public E value() {
+      return cursor.value();
+   }
+
+   public void reset() {
+      cursor.reset();
+   }
+
+   public HashTableCursor<Integer, E> trySplit() {
+      IntKeyCursor<E> split = cursor.trySplit();
+      return split == null ? null : new BoxedKeyCursor<E>(split);
+   }
+}
@@ -0,0 +1,83 @@
+package com.robin.ds.hashing;
+
+import java.util.Arrays;
+
+/**
+ * An append only store for the key bytes of a {@link ByteKeyHashTable}.
+ * <blockquote>Keys are copied one after the other into shared slabs of 64KB,
+ * so a key costs its bytes and no array header of its own. A key longer than a
+ * slab gets a slab to itself.</blockquote>
+ * <p/>
+ * A key is addressed by a long reference holding the slab number in the high
+ * 32 bits and the offset in the low 32 bits. The bytes of a removed key are
+ * only freed by copying the live keys to a new arena.
+ *
+ * @author robin
+ *
+ */
+final class ByteArena {
+
+   static final int SLAB_SIZE = 1 << 16;
+
+   private byte[][] slabs = new byte[4][];
+   private int slabCount;
+   private int position; // the next free byte of the last slab
+   private long allocatedBytes;
+
+   /**
+    * Method copies the bytes into the arena.
+    *
+    * @param bytes
+    * @param offset
+    * @param length
+    * @return long value - the reference of the copy
+    */
+   long append(byte[] bytes, int offset, int length) {
+      if (slabCount == 0 || length > slabs[slabCount - 1].length - position) {
+         addSlab(Math.max(SLAB_SIZE, length));
+      }
+      int slab = slabCount - 1;
+      int start = position;
+      System.arraycopy(bytes, offset, slabs[slab], start, length);
+      position += length;
+      return (long) slab << 32 | start;
+   }
+
+   /**
+    * Returns the slab that holds the referenced bytes.
+    *
+    * @param reference
+    * @return byte[]
+    */
+   byte[] slab(long reference) {
+      return slabs[(int) (reference >>> 32)];
+   }
+
+   /**
+    * Returns the offset of the referenced bytes within their slab.
+    *
+    * @param reference
+    * @return int value
+    */
+   static int offset(long reference) {
+      return (int) reference;
+   }
+
+   /**
+    * Returns the bytes held by the slabs.
+    *
+    * @return long value
+    */
+   long allocatedBytes() {
+      return allocatedBytes;
+   }
+
+   private void addSlab(int length) {
+      if (slabCount == slabs.length) {
+         slabs = Arrays.copyOf(slabs, slabCount * 2);
+      }
+      slabs[slabCount++] = new byte[length];
+      position = 0;
+      allocatedBytes += length;
+   }
+}
@@ -0,0 +1,434 @@
+package com.robin.ds.hashing;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An open addressing table keyed by byte sequences, which are looked up in
+ * place - a slice of a byte[], the remaining bytes of a {@link ByteBuffer} or
+ * the UTF-8 bytes of a {@link CharSequence}. <blockquote>No key object is
+ * created to look up a key. The bytes are hashed with {@link WyHash} and
+ * compared against the stored key directly.</blockquote>
+ * <p/>
+ * A key is only copied on insert, into a {@link ByteArena} of shared slabs. A
+ * slot holds the reference of the key bytes, their length and the hash in
+ * parallel arrays, so a probe compares the hash and the length before it
+ * touches the bytes. Collisions are resolved using linear probing. The arena
+ * is compacted whenever the table is rehashed.
+ * <p/>
+ * A direct ByteBuffer, and a CharSequence, are first copied or encoded into a
+ * scratch array owned by the table - the table is not thread-safe.
+ *
+ * @author robin
+ *
+ * @param <E>
+ *           the element
+ */
+public class ByteKeyHashTable<E> {
+   // represents a null valued Element
+   private static final Object NULL = new Object();
+   private static final Object DELETED = new Object();
+
+   private final WyHash<Object> hashFunction = new WyHash<Object>(1);
+   private ByteArena arena;
+   private long[] keyReferences;
+   private int[] keyLengths;
+   private int[] hashes; // the high 32 bits of the hash of each key
+   private Object[] values;
+   private int count;
+   private int usedSlots; // slots holding a value or a DELETED mark
+   private int shift; // keeps the top bits of the 32 bit hash
+   private byte[] scratch = new byte[64];
+
+   /**
+    * Creates a {@link ByteKeyHashTable} that can hold the specified number of
+    * keys before growing.
+    *
+    * @param size
+    */
+   public ByteKeyHashTable(int size) {
+      if (size < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      init(FibonacciHash.powerOfTwoAtLeast(2 * size));
+   }
+
+   /**
+    * Method looks-up the key held in the whole array.
+    *
+    * @param key
+    * @return E
+    */
+   public E lookUp(byte[] key) {
+      return lookUp(key, 0, key.length);
+   }
+
+   /**
+    * Method looks-up the key held in a range of the array and returns the
+    * value associated. In case the key does not exists it will return null
+    *
+    * @param bytes
+    * @param offset
+    * @param length
+    * @return E
+    */
+   @SuppressWarnings("unchecked")
+   public E lookUp(byte[] bytes, int offset, int length) {
+      int index = indexOf(bytes, offset, length, hash(bytes, offset, length));
+      if (index < 0) {
+         return null;
+      }
+      Object value = values[index];
+      return value == NULL ? null : (E) value;
+   }
+
+   /**
+    * Method looks-up the key held in the remaining bytes of the buffer. The
+    * position of the buffer is left as it was.
+    *
+    * @param buffer
+    * @return E
+    */
+   public E lookUp(ByteBuffer buffer) {
+      if (buffer.hasArray()) {
+         return lookUp(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      }
+      return lookUp(scratch, 0, copyToScratch(buffer));
+   }
+
+   /**
+    * Method looks-up the key held in the UTF-8 bytes of the chars.
+    *
+    * @param key
+    * @return E
+    */
+   public E lookUp(CharSequence key) {
+      return lookUp(scratch, 0, encodeToScratch(key));
+   }
+
+   /**
+    * Method will insert a value in the table, copying the key held in the
+    * whole array.
+    *
+    * @param key
+    * @param element
+    * @return E the old value
+    */
+   public E insert(byte[] key, E element) {
+      return insert(key, 0, key.length, element);
+   }
+
+   /**
+    * Method will insert a value in the table, copying the key held in a range
+    * of the array if it is not present.
+    *
+    * @param bytes
+    * @param offset
+    * @param length
+    * @param element
+    * @return E the old value
+    */
+   @SuppressWarnings("unchecked")
+   public E insert(byte[] bytes, int offset, int length, E element) {
+      Object value = element == null ? NULL : element;
+      int hash = hash(bytes, offset, length);
+      int mask = values.length - 1;
+      int probeLocn = hash >>> shift;
+      int freeLocn = -1;
+      for (int i = 0; i <= mask; i++) {
+         Object current = values[probeLocn];
+         if (current == null) {
+            if (freeLocn < 0) {
+               freeLocn = probeLocn;
+            }
+            break; // key not present
+         } else if (current == DELETED) {
+            if (freeLocn < 0) {
+               freeLocn = probeLocn; // reuse the first deleted slot
+            }
+         } else if (matches(probeLocn, bytes, offset, length, hash)) {
+            values[probeLocn] = value; // update the existing key
+            return current == NULL ? null : (E) current;
+         }
+         probeLocn = (probeLocn + 1) & mask;
+      }
+      if (values[freeLocn] == null) {
+         usedSlots++;
+      }
+      keyReferences[freeLocn] = arena.append(bytes, offset, length);
+      keyLengths[freeLocn] = length;
+      hashes[freeLocn] = hash;
+      values[freeLocn] = value;
+      count++;
+      if (usedSlots * 2 > values.length) {
+         rehash();
+      }
+      return null;
+   }
+
+   /**
+    * Method will insert a value in the table, copying the key held in the
+    * remaining bytes of the buffer. The position of the buffer is left as it
+    * was.
+    *
+    * @param buffer
+    * @param element
+    * @return E the old value
+    */
+   public E insert(ByteBuffer buffer, E element) {
+      if (buffer.hasArray()) {
+         return insert(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), element);
+      }
+      return insert(scratch, 0, copyToScratch(buffer), element);
+   }
+
+   /**
+    * Method will insert a value in the table, copying the UTF-8 bytes of the
+    * chars as the key.
+    *
+    * @param key
+    * @param element
+    * @return E the old value
+    */
+   public E insert(CharSequence key, E element) {
+      return insert(scratch, 0, encodeToScratch(key), element);
+   }
+
+   /**
+    * Method will delete the key held in the whole array.
+    *
+    * @param key
+    */
+   public void delete(byte[] key) {
+      delete(key, 0, key.length);
+   }
+
+   /**
+    * Method will delete the key held in a range of the array, freeing up the
+    * slot. The bytes of the key stay in the arena until the next rehash.
+    *
+    * @param bytes
+    * @param offset
+    * @param length
+    */
+   public void delete(byte[] bytes, int offset, int length) {
+      int index = indexOf(bytes, offset, length, hash(bytes, offset, length));
+      if (index >= 0) {
+         values[index] = DELETED;
+         count--;
+      }
+   }
+
+   /**
+    * Method will delete the key held in the remaining bytes of the buffer.
+    *
+    * @param buffer
+    */
+   public void delete(ByteBuffer buffer) {
+      if (buffer.hasArray()) {
+         delete(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      } else {
+         delete(scratch, 0, copyToScratch(buffer));
+      }
+   }
+
+   /**
+    * Method will delete the key held in the UTF-8 bytes of the chars.
+    *
+    * @param key
+    */
+   public void delete(CharSequence key) {
+      delete(scratch, 0, encodeToScratch(key));
+   }
+
+   /**
+    * Returns the number of items in the table.
+    *
+    * @return int value
+    */
+   public int count() {
+      return this.count;
+   }
+
+   /**
+    * Method checks if the table is empty.
+    *
+    * @return boolean value
+    */
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Returns the bytes allocated for the keys, including the bytes of deleted
+    * keys not yet compacted away.
+    *
+    * @return long value
+    */
+   public long keyBytes() {
+      return arena.allocatedBytes();
+   }
+
+   /**
+    * Method will return the slot holding the key or -1 if it is not present.
+    *
+    * @param bytes
+    * @param offset
+    * @param length
+    * @param hash
+    * @return int value
+    */
+   private int indexOf(byte[] bytes, int offset, int length, int hash) {
+      if (count == 0) {
+         return -1;
+      }
+      int mask = values.length - 1;
+      int probeLocn = hash >>> shift;
+      for (int i = 0; i <= mask; i++) {
+         Object current = values[probeLocn];
+         if (current == null) {
+            break;// value not there
+         } else if (current != DELETED && matches(probeLocn, bytes, offset, length, hash)) {
+            return probeLocn;
+         }
+         probeLocn = (probeLocn + 1) & mask;
+      }
+      return -1;
+   }
+
+   /**
+    * Method returns the high 32 bits of the hash of the bytes.
+    *
+    * @param bytes
+    * @param offset
+    * @param length
+    * @return int value
+    */
+   private int hash(byte[] bytes, int offset, int length) {
+      return (int) (hashFunction.hashBytes(bytes, offset, length) >>> 32);
+   }
+
+   /**
+    * Method compares the key of the slot with the passed bytes - the hash and
+    * the length first, the bytes only when both match.
+    */
+   private boolean matches(int index, byte[] bytes, int offset, int length, int hash) {
+      if (hashes[index] != hash || keyLengths[index] != length) {
+         return false;
+      }
+      long reference = keyReferences[index];
+      byte[] slab = arena.slab(reference);
+      int start = ByteArena.offset(reference);
+      for (int i = 0; i < length; i++) {
+         if (slab[start + i] != bytes[offset + i]) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Method copies the remaining bytes of the buffer into the scratch array,
+    * leaving the position of the buffer as it was.
+    *
+    * @param buffer
+    * @return int value - the number of bytes copied
+    */
+   private int copyToScratch(ByteBuffer buffer) {
+      int length = buffer.remaining();
+      ensureScratch(length);
+      int position = buffer.position();
+      buffer.get(scratch, 0, length);
+      buffer.position(position);
+      return length;
+   }
+
+   /**
+    * Method encodes the chars as UTF-8 into the scratch array. A lone
+    * surrogate is encoded as '?', as {@link String#getBytes} does.
+    *
+    * @param chars
+    * @return int value - the number of bytes encoded
+    */
+   private int encodeToScratch(CharSequence chars) {
+      int length = chars.length();
+      ensureScratch(length * 3);
+      byte[] out = scratch;
+      int size = 0;
+      for (int i = 0; i < length; i++) {
+         char c = chars.charAt(i);
+         if (c < 0x80) {
+            out[size++] = (byte) c;
+         } else if (c < 0x800) {
+            out[size++] = (byte) (0xC0 | c >> 6);
+            out[size++] = (byte) (0x80 | c & 0x3F);
+         } else if (Character.isSurrogate(c)) {
+            char low = i + 1 < length ? chars.charAt(i + 1) : 0;
+            if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+               int codePoint = Character.toCodePoint(c, low);
+               out[size++] = (byte) (0xF0 | codePoint >> 18);
+               out[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+               out[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+               out[size++] = (byte) (0x80 | codePoint & 0x3F);
+               i++;
+            } else {
+               out[size++] = '?';
+            }
+         } else {
+            out[size++] = (byte) (0xE0 | c >> 12);
+            out[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+            out[size++] = (byte) (0x80 | c & 0x3F);
+         }
+      }
+      return size;
+   }
+
+   private void ensureScratch(int length) {
+      if (scratch.length < length) {
+         scratch = new byte[Math.max(length, scratch.length * 2)];
+      }
+   }
+
+   /**
+    * Method compacts the arena: the bytes of the live keys are copied into a
+    * new one, those of the deleted keys are dropped. The slots are doubled
+    * when the live keys fill more than a quarter of them.
+    */
+   private void rehash() {
+      ByteArena originalArena = arena;
+      long[] originalReferences = keyReferences;
+      int[] originalLengths = keyLengths;
+      int[] originalHashes = hashes;
+      Object[] originalValues = values;
+      init(count * 4 > values.length ? values.length * 2 : values.length);
+      int mask = values.length - 1;
+      for (int i = 0; i < originalValues.length; i++) {
+         Object value = originalValues[i];
+         if (value != null && value != DELETED) {
+            long reference = originalReferences[i];
+            // the keys are unique, so only an empty slot has to be found
+            int probeLocn = originalHashes[i] >>> shift;
+            while (values[probeLocn] != null) {
+               probeLocn = (probeLocn + 1) & mask;
+            }
+            keyReferences[probeLocn] = arena.append(originalArena.slab(reference), ByteArena.offset(reference),
+                  originalLengths[i]);
+            keyLengths[probeLocn] = originalLengths[i];
+            hashes[probeLocn] = originalHashes[i];
+            values[probeLocn] = value;
+            count++;
+            usedSlots++;
+         }
+      }
+   }
+
+   private void init(int length) {
+      arena = new ByteArena();
+      keyReferences = new long[length];
+      keyLengths = new int[length];
+      hashes = new int[length];
+      values = new Object[length];
+      shift = 32 - Integer.numberOfTrailingZeros(length);
+      count = 0;
+      usedSlots = 0;
+   }
+}
@@ -2,6 +2,19 @@ package com.robin.ds.hashing;
 
 /**
  * Class uses a hash based table with chaining used for collision resolutions.
+ * <p/>
+ * A chain that grows past {@value #TREEIFY_THRESHOLD} entries is turned into a
+ * balanced (AVL) tree ordered by hashCode, then by class and natural order of
+ * {@link Comparable} keys, so that keys crowding into one bucket cost O(log n)
+ * rather than O(n) per operation. The tree is turned back into a chain once it
+ * shrinks to {@value #UNTREEIFY_THRESHOLD} entries. Keys that share a hashCode
+ * and are not mutually comparable are still searched one by one.
+ * <p/>
+ * The number of buckets is doubled when the load (entries per bucket) goes
+ * above the maximum load factor and halved when it drops below the minimum
+ * one, see {@link #setLoadFactors(double, double)}. The hash function is
+ * pointed at the new number of buckets through
+ * {@link IHashFunction#setHashLimit(int)}.
  * 
  * @author robin
  * 
@@ -10,7 +23,7 @@ package com.robin.ds.hashing;
  * @param <K>
  *           Key - must be unique
  */
-public class ChainHashTable<K, E> implements HashTable<K, E> {
+public class ChainHashTable<K, E> implements IterableHashTable<K, E>, InstrumentedHashTable<K, E> {
 
    IHashFunction<K> hashFunction;
    private int count;
@@ -33,6 +46,320 @@ public class ChainHashTable<K, E> implements HashTable<K, E> {
       }
    }
 
+   /**
+    * Cursor that walks the chains bucket by bucket, and the old buckets too
+    * while an incremental resize is in progress.
+    * 
+    * @author robin
+    * 
+    */
+   private class ChainCursor implements HashTableCursor<K, E> {
+      private Object[] buckets;
+      private Object[] oldBuckets;
+      private int index; // runs over buckets and then over oldBuckets
+      private int end;
+      private Entry current;
+
+      ChainCursor() {
+         reset();
+      }
+
+      ChainCursor(Object[] buckets, Object[] oldBuckets, int from, int end) {
+         this.buckets = buckets;
+         this.oldBuckets = oldBuckets;
+         this.index = from - 1;
+         this.end = end;
+      }
+
+      public boolean advance() {
+         if (current != null && current.next != null) {
+            current = current.next;
+            return true;
+         }
+         while (++index < end) {
+            Object bucket = index < buckets.length ? buckets[index] : oldBuckets[index - buckets.length];
+            if (bucket != null) {
+               current = firstEntry(bucket);
+               return true;
+            }
+         }
+         current = null;
+         return false;
+      }
+
+      public K key() {
+         return entry().key;
+      }
+
+      public E value() {
+         return entry().element;
+      }
+
+      public void reset() {
+         buckets = values;
+         oldBuckets = oldValues == null ? NO_BUCKETS : oldValues;
+         index = -1;
+         end = buckets.length + oldBuckets.length;
+         current = null;
+      }
+
+      public HashTableCursor<K, E> trySplit() {
+         int from = index + 1;
+         if (end - from < MIN_SPLIT_BUCKETS) {
+            return null;
+         }
+         int middle = (from + end) >>> 1;
+         ChainCursor split = new ChainCursor(buckets, oldBuckets, middle, end);
+         end = middle;
+         return split;
+      }
+
+      private Entry entry() {
+         if (current == null) {
+            throw new IllegalStateException("Cursor is not on an entry");
+         }
+         return current;
+      }
+   }
+
+   /**
+    * Entry of a bucket that has been turned into a tree. The prev and next
+    * links of the entry keep the nodes in a list, which is walked by cursors
+    * and used to turn the tree back into a chain.
+    * 
+    * @author robin
+    * 
+    */
+   private class TreeNode extends Entry {
+      int hash; // hashCode of the key, 0 for null
+      long sequence; // orders nodes whose keys compare as equal
+      TreeNode left, right;
+      int height = 1;
+   }
+
+   /**
+    * A bucket holding its entries in an AVL tree.
+    * 
+    * @author robin
+    * 
+    */
+   private class TreeBin {
+      TreeNode root;
+      TreeNode first; // head of the list of all nodes
+      int size;
+      long nextSequence;
+
+      /**
+       * Creates a tree from the entries of a chain.
+       * 
+       * @param chain
+       */
+      TreeBin(Entry chain) {
+         for (Entry e = chain; e != null; e = e.next) {
+            add(e.key, e.element);
+         }
+      }
+
+      /**
+       * Method searches the tree for the key, adding the number of nodes read
+       * to visits[0] unless visits is null. The count is kept by the caller,
+       * so that concurrent searches share no state.
+       * 
+       * @param key
+       * @param visits
+       * @return TreeNode holding the key or null
+       */
+      TreeNode find(K key, int[] visits) {
+         return find(root, key, hashOf(key), visits);
+      }
+
+      /**
+       * Method walks down the tree, only taking both branches of a node whose
+       * key ties with the searched key but is not equal to it.
+       * 
+       * @param node
+       * @param key
+       * @param hash
+       * @param visits
+       * @return TreeNode holding the key or null
+       */
+      private TreeNode find(TreeNode node, K key, int hash, int[] visits) {
+         while (node != null) {
+            if (visits != null) {
+               visits[0]++;
+            }
+            int c = compareKeys(key, hash, node.key, node.hash);
+            if (c < 0) {
+               node = node.left;
+            } else if (c > 0) {
+               node = node.right;
+            } else if (nullSafeEquals(key, node.key)) {
+               return node;
+            } else {
+               TreeNode found = find(node.left, key, hash, visits);
+               return found != null ? found : find(node.right, key, hash, visits);
+            }
+         }
+         return null;
+      }
+
+      /**
+       * Method adds a key that is not in the tree yet.
+       * 
+       * @param key
+       * @param element
+       */
+      void add(K key, E element) {
+         TreeNode node = new TreeNode();
+         node.key = key;
+         node.element = element;
+         node.hash = hashOf(key);
+         node.sequence = nextSequence++;
+         node.next = first;
+         if (first != null) {
+            first.prev = node;
+         }
+         first = node;
+         root = insert(root, node);
+         size++;
+      }
+
+      void remove(TreeNode node) {
+         if (node.prev == null) {
+            first = (TreeNode) node.next;
+         } else {
+            node.prev.next = node.next;
+         }
+         if (node.next != null) {
+            node.next.prev = node.prev;
+         }
+         root = remove(root, node);
+         size--;
+      }
+
+      private TreeNode insert(TreeNode node, TreeNode added) {
+         if (node == null) {
+            return added;
+         }
+         if (order(added, node) < 0) {
+            node.left = insert(node.left, added);
+         } else {
+            node.right = insert(node.right, added);
+         }
+         return balance(node);
+      }
+
+      private TreeNode remove(TreeNode node, TreeNode removed) {
+         int c = order(removed, node);
+         if (c < 0) {
+            node.left = remove(node.left, removed);
+         } else if (c > 0) {
+            node.right = remove(node.right, removed);
+         } else {
+            if (node.left == null) {
+               return node.right;
+            } else if (node.right == null) {
+               return node.left;
+            }
+            TreeNode successor = node.right;
+            while (successor.left != null) {
+               successor = successor.left;
+            }
+            successor.right = removeFirst(node.right);
+            successor.left = node.left;
+            return balance(successor);
+         }
+         return balance(node);
+      }
+
+      private TreeNode removeFirst(TreeNode node) {
+         if (node.left == null) {
+            return node.right;
+         }
+         node.left = removeFirst(node.left);
+         return balance(node);
+      }
+
+      private TreeNode balance(TreeNode node) {
+         int skew = height(node.left) - height(node.right);
+         if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+               node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+         } else if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+               node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+         }
+         updateHeight(node);
+         return node;
+      }
+
+      private TreeNode rotateLeft(TreeNode node) {
+         TreeNode pivot = node.right;
+         node.right = pivot.left;
+         pivot.left = node;
+         updateHeight(node);
+         updateHeight(pivot);
+         return pivot;
+      }
+
+      private TreeNode rotateRight(TreeNode node) {
+         TreeNode pivot = node.left;
+         node.left = pivot.right;
+         pivot.right = node;
+         updateHeight(node);
+         updateHeight(pivot);
+         return pivot;
+      }
+
+      private void updateHeight(TreeNode node) {
+         node.height = Math.max(height(node.left), height(node.right)) + 1;
+      }
+
+      private int height(TreeNode node) {
+         return node == null ? 0 : node.height;
+      }
+
+      /**
+       * Method orders two nodes of the tree, nodes with keys that compare as
+       * equal are ordered by the sequence they were added in.
+       * 
+       * @param node1
+       * @param node2
+       * @return int value
+       */
+      private int order(TreeNode node1, TreeNode node2) {
+         int c = compareKeys(node1.key, node1.hash, node2.key, node2.hash);
+         return c != 0 ? c : Long.compare(node1.sequence, node2.sequence);
+      }
+   }
+
+   // a chain is turned into a tree when it grows past this length
+   static final int TREEIFY_THRESHOLD = 8;
+   // and a tree back into a chain when it shrinks to this size
+   static final int UNTREEIFY_THRESHOLD = 6;
+   // a cursor is not split below this number of buckets
+   private static final int MIN_SPLIT_BUCKETS = 1024;
+   // growing and shrinking defaults, the table does not shrink unless asked to
+   private static final double DEFAULT_MAX_LOAD_FACTOR = 0.75;
+   private static final double DEFAULT_MIN_LOAD_FACTOR = 0;
+   // number of old buckets moved by each operation during an incremental rehash
+   private static final int MIGRATION_STEP = 16;
+   private static final int MAX_BUCKETS = 1 << 30;
+   private static final Object[] NO_BUCKETS = new Object[0];
+
+   private final int minimumBuckets; // the table never shrinks below this
+   private double maxLoadFactor = DEFAULT_MAX_LOAD_FACTOR;
+   private double minLoadFactor = DEFAULT_MIN_LOAD_FACTOR;
+   private boolean incrementalRehash;
+   // the buckets being drained while an incremental rehash is in progress
+   private Object[] oldValues;
+   private int migrationIndex;
+   private HashTableStatistics statistics;
+
    /**
     * Creates a ChainHashTable with specified number of buckets. Uses Division
     * Hashing Technique.
@@ -57,99 +384,517 @@ public class ChainHashTable<K, E> implements HashTable<K, E> {
       }
       values = new Object[size];
       count = 0;
+      minimumBuckets = size;
       this.hashFunction = hashFunction;
    }
 
-   @SuppressWarnings("unchecked")
    public E lookUp(K key) {
-      int index = hash(key);
-      Entry e = (Entry) values[index];
-      if (null == e) {
-         return null; // key not present
+      migrateBuckets();
+      Entry e = find(values, hash(key), key);
+      if (e == null && oldValues != null) {
+         e = find(oldValues, indexInOldValues(key), key);
       }
+      return e == null ? null : e.element;
+   }
 
-      while (e != null) {
-         if (nullSafeEquals(key, e.key)) {
-            return e.element;
+   /**
+    * Method hashes the whole batch and loads the bucket heads in a first pass,
+    * these loads do not depend on each other and can overlap. The chains are
+    * walked in a second pass, recording the number of entries read.
+    */
+   @SuppressWarnings("unchecked")
+   public void lookUpAll(K[] keys, E[] results) {
+      Batches.checkBatch(keys, results);
+      if (oldValues != null) {
+         Batches.lookUpEach(this, keys, results);
+         return;
+      }
+      Object[] heads = new Object[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+         heads[i] = values[hash(keys[i])];
+      }
+      for (int i = 0; i < keys.length; i++) {
+         if (heads[i] instanceof ChainHashTable.TreeBin) {
+            results[i] = lookUp(keys[i]);
+            continue;
+         }
+         E element = null;
+         int length = 0;
+         for (Entry e = (Entry) heads[i]; e != null; e = e.next) {
+            length++;
+            if (nullSafeEquals(keys[i], e.key)) {
+               element = e.element;
+               break;
+            }
          }
-         e = e.next;
+         recordProbe(length);
+         results[i] = element;
       }
-      return null; // no match found after collision either
    }
 
-   @SuppressWarnings("unchecked")
    public E insert(K key, E value) {
-      E oldValue = null;
-      int index = hash(key);
-      Entry e = (Entry) values[index];
-      if (null == e) {// no entries in chain
-         Entry entry = new Entry();
-         entry.key = key;
-         entry.element = value;
-         values[index] = entry;
-         count++;
-      } else {
-         // check if the item is already in - if yes update
-         boolean insertDone = false;
-         Entry temp = e;
-         while (temp != null) {
-            if (nullSafeEquals(key, temp.key)) {
-               oldValue = temp.element;
-               temp.element = value;
-               insertDone = true;
-               break;
-            }
-            temp = temp.next;
+      migrateBuckets();
+      return insertAt(hash(key), key, value);
+   }
+
+   /**
+    * Method grows the table once for the whole batch, hashes the batch in a
+    * first pass and inserts the entries in a second one.
+    */
+   public void insertAll(K[] keys, E[] elements) {
+      Batches.checkBatch(keys, elements);
+      migrateBuckets();
+      if (oldValues == null && !incrementalRehash && count + keys.length > values.length * maxLoadFactor) {
+         resize(grownLength(count + keys.length));
+      }
+      int[] indexes = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+         indexes[i] = hash(keys[i]);
+      }
+      int length = values.length;
+      for (int i = 0; i < keys.length; i++) {
+         if (values.length != length) {
+            // the table was resized, the remaining indexes are stale
+            insert(keys[i], elements[i]);
+         } else {
+            insertAt(indexes[i], keys[i], elements[i]);
          }
-         if (!insertDone) { // do an insert
-            Entry entry = new Entry();
-            entry.key = key;
-            entry.element = value;
-            entry.next = e;
-            e.prev = entry;
-            values[index] = entry;// added in beginning of list
-            count++;
+      }
+   }
+
+   /**
+    * Method will insert the value in the bucket at the passed index, moving
+    * the key over from the old buckets if it is still there, and grows the
+    * table when it becomes too loaded.
+    * 
+    * @param index
+    * @param key
+    * @param value
+    * @return E the old value
+    */
+   private E insertAt(int index, K key, E value) {
+      Entry e = find(values, index, key);
+      if (e != null) {
+         E oldValue = e.element;
+         e.element = value;
+         return oldValue;
+      }
+      E oldValue = null;
+      if (oldValues != null) {
+         Entry moved = remove(oldValues, indexInOldValues(key), key);
+         if (moved != null) {
+            oldValue = moved.element;
+            count--;
          }
       }
+      add(index, key, value);
+      count++;
+      if (count > values.length * maxLoadFactor && values.length < MAX_BUCKETS) {
+         resize(grownLength(count));
+      }
       return oldValue;
    }
 
-   @SuppressWarnings("unchecked")
    public void delete(K key) {
-      int index = hash(key);
-      Entry e = (Entry) values[index];
-      if (null == e) {
-         return; // key not present
+      migrateBuckets();
+      Entry removed = remove(values, hash(key), key);
+      if (removed == null && oldValues != null) {
+         removed = remove(oldValues, indexInOldValues(key), key);
+      }
+      if (removed == null) {
+         return;
+      }
+      count--;
+      if (count < values.length * minLoadFactor && values.length > minimumBuckets) {
+         resize(shrunkLength());
       }
+   }
 
-      while (e != null) {
+   public int count() {
+      return this.count;
+   }
+
+   /**
+    * Method returns a cursor over the entries, which also covers the entries
+    * still waiting in the old buckets during an incremental rehash.
+    */
+   public HashTableCursor<K, E> cursor() {
+      return new ChainCursor();
+   }
+
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Method sets the load factors (entries per bucket) at which the table is
+    * grown and shrunk. The number of buckets is doubled when the load goes
+    * above maxLoadFactor and halved when it drops below minLoadFactor, but
+    * never below the size the table was created with. A minLoadFactor of 0
+    * turns shrinking off, a maxLoadFactor of infinity turns growing off.
+    * 
+    * @param minLoadFactor
+    *           - at most a quarter of maxLoadFactor, so that a resize is not
+    *           undone by the next few operations
+    * @param maxLoadFactor
+    */
+   public void setLoadFactors(double minLoadFactor, double maxLoadFactor) {
+      if (!(maxLoadFactor > 0) || !(minLoadFactor >= 0) || minLoadFactor * 4 > maxLoadFactor) {
+         throw new IllegalArgumentException("Invalid load factors");
+      }
+      this.minLoadFactor = minLoadFactor;
+      this.maxLoadFactor = maxLoadFactor;
+   }
+
+   /**
+    * Method switches the table between the stop-the-world resize, where the
+    * operation that crosses a load factor moves every entry into the new
+    * buckets, and the incremental resize. In the incremental mode the old
+    * buckets are kept next to the new ones and every later operation moves a
+    * bounded number of buckets across, until the old buckets have been
+    * drained.
+    * 
+    * @param incrementalRehash
+    */
+   public void setIncrementalRehash(boolean incrementalRehash) {
+      this.incrementalRehash = incrementalRehash;
+   }
+
+   /**
+    * Method indicates if an incremental resize is still moving entries out of
+    * the old buckets.
+    * 
+    * @return boolean value
+    */
+   public boolean isRehashInProgress() {
+      return oldValues != null;
+   }
+
+   /**
+    * Returns the number of entries per bucket.
+    */
+   public double loadFactor() {
+      return (double) count / values.length;
+   }
+
+   /**
+    * Returns 0, a delete unlinks the entry from its chain.
+    */
+   public int tombstoneCount() {
+      return 0;
+   }
+
+   public void setStatistics(HashTableStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   /**
+    * Returns the number of buckets of the table.
+    * 
+    * @return int value
+    */
+   public int bucketCount() {
+      return values.length;
+   }
+
+   /**
+    * Method will return the entry holding the key in the bucket at the passed
+    * index, or null if it is not there.
+    * 
+    * @param buckets
+    * @param index
+    * @param key
+    * @return Entry
+    */
+   @SuppressWarnings("unchecked")
+   private Entry find(Object[] buckets, int index, K key) {
+      Object bucket = buckets[index];
+      if (bucket instanceof ChainHashTable.TreeBin) {
+         int[] visits = statistics == null ? null : new int[1];
+         TreeNode node = ((TreeBin) bucket).find(key, visits);
+         if (visits != null) {
+            recordProbe(visits[0]);
+         }
+         return node;
+      }
+      int length = 0;
+      for (Entry e = (Entry) bucket; e != null; e = e.next) {
+         length++;
          if (nullSafeEquals(key, e.key)) {
-            if (e == (Entry) values[index]) {
-               values[index] = e.next;
-               if (null != e.next) {
-                  e.next.prev = null;
-               }
-            } else {
-               e.prev.next = e.next;
-               if (null != e.next) {
-                  e.next.prev = e.prev;
-               }
+            recordProbe(length);
+            return e;
+         }
+      }
+      recordProbe(length);
+      return null; // no match found after collision either
+   }
+
+   /**
+    * Method adds a key that is not present to the bucket at the passed index,
+    * turning the chain into a tree once it is too long.
+    * 
+    * @param index
+    * @param key
+    * @param value
+    */
+   @SuppressWarnings("unchecked")
+   private void add(int index, K key, E value) {
+      if (values[index] instanceof ChainHashTable.TreeBin) {
+         ((TreeBin) values[index]).add(key, value);
+         return;
+      }
+      Entry entry = new Entry();
+      entry.key = key;
+      entry.element = value;
+      push(index, entry);
+   }
+
+   /**
+    * Method puts the entry at the beginning of the chain of the bucket at the
+    * passed index.
+    * 
+    * @param index
+    * @param entry
+    */
+   @SuppressWarnings("unchecked")
+   private void push(int index, Entry entry) {
+      Entry head = (Entry) values[index];
+      entry.prev = null;
+      entry.next = head;
+      if (head != null) {
+         head.prev = entry;
+      }
+      values[index] = entry;// added in beginning of list
+      if (isLongerThan(entry, TREEIFY_THRESHOLD)) {
+         values[index] = new TreeBin(entry);
+      }
+   }
+
+   /**
+    * Method will remove the key from the bucket at the passed index, turning a
+    * tree back into a chain once it is small.
+    * 
+    * @param buckets
+    * @param index
+    * @param key
+    * @return the removed Entry or null
+    */
+   @SuppressWarnings("unchecked")
+   private Entry remove(Object[] buckets, int index, K key) {
+      Object bucket = buckets[index];
+      if (bucket instanceof ChainHashTable.TreeBin) {
+         TreeBin bin = (TreeBin) bucket;
+         TreeNode node = bin.find(key, null);
+         if (node != null) {
+            bin.remove(node);
+            if (bin.size <= UNTREEIFY_THRESHOLD) {
+               // the nodes are already linked as a chain
+               buckets[index] = bin.first;
             }
-            e = null;
-            count--;
-            break;
          }
-         e = e.next;
+         return node;
+      }
+      Entry e = find(buckets, index, key);
+      if (e == null) {
+         return null; // key not present
+      }
+      if (e.prev == null) {
+         buckets[index] = e.next;
+      } else {
+         e.prev.next = e.next;
+      }
+      if (null != e.next) {
+         e.next.prev = e.prev;
+      }
+      return e;
+   }
+
+   /**
+    * Method moves every entry into a new array of the passed number of
+    * buckets, or starts an incremental resize that moves them over the next
+    * operations.
+    * 
+    * @param newLength
+    */
+   private void resize(int newLength) {
+      long start = statistics == null ? 0 : System.nanoTime();
+      if (incrementalRehash && oldValues == null) {
+         // keep the old buckets around and drain them over the next operations
+         oldValues = values;
+         migrationIndex = 0;
+         values = new Object[newLength];
+         hashFunction.setHashLimit(newLength);
+         recordRehash(start);
+         return;
+      }
+      Object[] originalValues = values;
+      Object[] originalOldValues = oldValues;
+      values = new Object[newLength];
+      oldValues = null;
+      hashFunction.setHashLimit(newLength);
+      for (Object bucket : originalValues) {
+         moveBucket(bucket);
+      }
+      if (originalOldValues != null) {
+         for (Object bucket : originalOldValues) {
+            moveBucket(bucket);
+         }
       }
+      recordRehash(start);
+   }
 
+   private void recordProbe(int length) {
+      if (statistics != null) {
+         statistics.recordProbe(length);
+      }
    }
 
-   public int count() {
-      return this.count;
+   private void recordRehash(long startNanos) {
+      if (statistics != null) {
+         statistics.recordRehash(startNanos);
+      }
    }
 
-   public boolean isEmpty() {
-      return count() == 0;
+   /**
+    * Method moves the next few old buckets into values, while an incremental
+    * resize is in progress.
+    */
+   private void migrateBuckets() {
+      if (oldValues == null) {
+         return;
+      }
+      int end = Math.min(migrationIndex + MIGRATION_STEP, oldValues.length);
+      for (; migrationIndex < end; migrationIndex++) {
+         moveBucket(oldValues[migrationIndex]);
+         oldValues[migrationIndex] = null;
+      }
+      if (migrationIndex == oldValues.length) {
+         oldValues = null; // fully drained
+      }
+   }
+
+   /**
+    * Method rehashes the entries of an old bucket into values. The entries of a
+    * chain are relinked rather than copied.
+    * 
+    * @param bucket
+    */
+   private void moveBucket(Object bucket) {
+      Entry e = firstEntry(bucket);
+      boolean tree = bucket instanceof ChainHashTable.TreeBin;
+      while (e != null) {
+         Entry next = e.next;
+         int index = hash(e.key);
+         if (tree || values[index] instanceof ChainHashTable.TreeBin) {
+            add(index, e.key, e.element); // tree nodes are not reused
+         } else {
+            push(index, e);
+         }
+         e = next;
+      }
+   }
+
+   /**
+    * Method looks the key up in the old buckets, using the hash limit the old
+    * buckets were hashed with.
+    * 
+    * @param key
+    * @return int value
+    */
+   private int indexInOldValues(K key) {
+      hashFunction.setHashLimit(oldValues.length);
+      try {
+         return hash(key);
+      } finally {
+         hashFunction.setHashLimit(values.length);
+      }
+   }
+
+   /**
+    * Method returns the number of buckets to grow to, doubling a power of 2
+    * and picking the next prime otherwise.
+    * 
+    * @param entries
+    * @return int value
+    */
+   private int grownLength(int entries) {
+      int length = values.length;
+      while (length < MAX_BUCKETS && entries > length * maxLoadFactor) {
+         length = isPowerOfTwo(length) ? length * 2 : Primes.nextPrime(length * 2);
+      }
+      return Math.min(length, MAX_BUCKETS);
+   }
+
+   private int shrunkLength() {
+      int length = values.length;
+      length = isPowerOfTwo(length) ? length / 2 : Primes.nextPrime(length / 2);
+      return Math.max(length, minimumBuckets);
+   }
+
+   private static boolean isPowerOfTwo(int length) {
+      return (length & (length - 1)) == 0;
+   }
+
+   /**
+    * Method checks if the chain starting at the entry has more than the passed
+    * number of entries, walking no further than that.
+    * 
+    * @param entry
+    * @param length
+    * @return boolean value
+    */
+   private boolean isLongerThan(Entry entry, int length) {
+      for (Entry e = entry; e != null; e = e.next) {
+         if (length-- == 0) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Returns the first entry of a bucket, whether it holds a chain or a tree.
+    * 
+    * @param bucket
+    * @return Entry
+    */
+   @SuppressWarnings("unchecked")
+   private Entry firstEntry(Object bucket) {
+      return bucket instanceof ChainHashTable.TreeBin ? ((TreeBin) bucket).first : (Entry) bucket;
+   }
+
+   private static int hashOf(Object key) {
+      return key == null ? 0 : key.hashCode();
+   }
+
+   /**
+    * Method compares two keys by hashCode, then by class name and then by their
+    * natural order when they are {@link Comparable}. Keys that cannot be told
+    * apart this way compare as 0.
+    * 
+    * @param key1
+    * @param hash1
+    * @param key2
+    * @param hash2
+    * @return int value
+    */
+   @SuppressWarnings("unchecked")
+   private static int compareKeys(Object key1, int hash1, Object key2, int hash2) {
+      if (hash1 != hash2) {
+         return hash1 < hash2 ? -1 : 1;
+      }
+      if (key1 == null || key2 == null) {
+         return key1 == key2 ? 0 : (key1 == null ? -1 : 1);
+      }
+      Class<?> class1 = key1.getClass();
+      Class<?> class2 = key2.getClass();
+      if (class1 != class2) {
+         return class1.getName().compareTo(class2.getName());
+      }
+      if (key1 instanceof Comparable) {
+         return ((Comparable<Object>) key1).compareTo(key2);
+      }
+      return 0;
    }
 
    /**
@@ -0,0 +1,346 @@
+package com.robin.ds.hashing;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread safe hash table with chaining used for collision resolutions.
+ * <p/>
+ * The hash space is split into segments, each holding its own bucket array
+ * guarded by its own lock (lock striping), so writers only contend when their
+ * keys fall in the same range. Readers take no lock at all: the links of a
+ * chain are never changed once an entry is published, a delete copies the part
+ * of the chain in front of the removed entry instead. Each segment grows on its
+ * own, so a resize only blocks the writers of that segment.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           Key - must be unique
+ * @param <E>
+ *           Element
+ */
+public class ConcurrentChainHashTable<K, E> implements InstrumentedHashTable<K, E> {
+
+   private static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+   private static final double MAX_LOAD_FACTOR = 0.75;
+
+   /**
+    * An entry in a chain. Only the element can change once the entry has been
+    * published.
+    *
+    * @author robin
+    *
+    */
+   private class Entry {
+      final int hash;
+      final K key;
+      volatile E element;
+      final Entry next;
+
+      Entry(int hash, K key, E element, Entry next) {
+         this.hash = hash;
+         this.key = key;
+         this.element = element;
+         this.next = next;
+      }
+
+      @Override
+      public String toString() {
+         return "E [ k: " + key + ", e : " + element + " ]";
+      }
+   }
+
+   /**
+    * A range of the hash space with its own buckets and lock.
+    *
+    * @author robin
+    *
+    */
+   @SuppressWarnings("serial")
+   private class Segment extends ReentrantLock {
+      // replaced as a whole on resize, so readers always see a complete array
+      volatile AtomicReferenceArray<Entry> buckets;
+      int count; // guarded by the lock
+      int threshold;
+
+      Segment(int length) {
+         setBuckets(new AtomicReferenceArray<Entry>(length));
+      }
+
+      void setBuckets(AtomicReferenceArray<Entry> buckets) {
+         this.threshold = (int) (buckets.length() * MAX_LOAD_FACTOR);
+         this.buckets = buckets;
+      }
+   }
+
+   private final Object[] segments;
+   private final int segmentShift;
+   private final StripedCounter count = new StripedCounter();
+   // attach before the table is shared, the field is read without a barrier
+   private HashTableStatistics statistics;
+
+   /**
+    * Creates a ConcurrentChainHashTable sized for the specified number of
+    * entries.
+    *
+    * @param size
+    */
+   public ConcurrentChainHashTable(int size) {
+      this(size, DEFAULT_CONCURRENCY_LEVEL);
+   }
+
+   /**
+    * Creates a ConcurrentChainHashTable sized for the specified number of
+    * entries, with (at least) concurrencyLevel independently locked segments.
+    *
+    * @param size
+    * @param concurrencyLevel
+    */
+   public ConcurrentChainHashTable(int size, int concurrencyLevel) {
+      if (size < 1 || concurrencyLevel < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      int segmentCount = FibonacciHash.powerOfTwoAtLeast(Math.min(concurrencyLevel, 1 << 16));
+      segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+      int perSegment = (int) Math.ceil(size / MAX_LOAD_FACTOR / segmentCount);
+      int segmentLength = FibonacciHash.powerOfTwoAtLeast(Math.max(2, perSegment));
+      segments = new Object[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+         segments[i] = new Segment(segmentLength);
+      }
+   }
+
+   /**
+    * Method looks-up the specified key value without taking any lock.
+    */
+   public E lookUp(K key) {
+      int hash = hash(key);
+      AtomicReferenceArray<Entry> buckets = segmentFor(hash).buckets;
+      Entry e = buckets.get(hash & (buckets.length() - 1));
+      int length = 0;
+      while (e != null) {
+         length++;
+         if (e.hash == hash && nullSafeEquals(key, e.key)) {
+            recordProbe(length);
+            return e.element;
+         }
+         e = e.next;
+      }
+      recordProbe(length);
+      return null;
+   }
+
+   public E insert(K key, E value) {
+      return put(key, value, false);
+   }
+
+   /**
+    * Method will insert the value only if the key is not present yet.
+    *
+    * @param key
+    * @param value
+    * @return E the value already held for the key, or null if the value was
+    *         inserted
+    */
+   public E insertIfAbsent(K key, E value) {
+      return put(key, value, true);
+   }
+
+   public void lookUpAll(K[] keys, E[] values) {
+      Batches.lookUpEach(this, keys, values);
+   }
+
+   public void insertAll(K[] keys, E[] values) {
+      Batches.insertEach(this, keys, values);
+   }
+
+   public void delete(K key) {
+      remove(key, null, false);
+   }
+
+   /**
+    * Method will delete the key only while it still maps to the passed value.
+    *
+    * @param key
+    * @param value
+    * @return boolean value indicating if the entry was removed
+    */
+   public boolean delete(K key, E value) {
+      return remove(key, value, true);
+   }
+
+   /**
+    * Returns the number of items in the table. The value is exact when no
+    * update is in progress.
+    */
+   public int count() {
+      return (int) count.sum();
+   }
+
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Returns the number of entries per bucket, over all the segments.
+    */
+   @SuppressWarnings("unchecked")
+   public double loadFactor() {
+      long buckets = 0;
+      for (Object segment : segments) {
+         buckets += ((Segment) segment).buckets.length();
+      }
+      return count() / (double) buckets;
+   }
+
+   /**
+    * Returns 0, a delete unlinks the entry from its chain.
+    */
+   public int tombstoneCount() {
+      return 0;
+   }
+
+   public void setStatistics(HashTableStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   private E put(K key, E value, boolean onlyIfAbsent) {
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      segment.lock();
+      try {
+         AtomicReferenceArray<Entry> buckets = segment.buckets;
+         int index = hash & (buckets.length() - 1);
+         Entry first = buckets.get(index);
+         for (Entry e = first; e != null; e = e.next) {
+            if (e.hash == hash && nullSafeEquals(key, e.key)) {
+               E oldValue = e.element;
+               if (!onlyIfAbsent) {
+                  e.element = value;
+               }
+               return oldValue;
+            }
+         }
+         buckets.set(index, new Entry(hash, key, value, first)); // added in beginning of list
+         count.increment();
+         if (++segment.count > segment.threshold) {
+            rehash(segment);
+         }
+         return null;
+      } finally {
+         segment.unlock();
+      }
+   }
+
+   private boolean remove(K key, E value, boolean matchValue) {
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      segment.lock();
+      try {
+         AtomicReferenceArray<Entry> buckets = segment.buckets;
+         int index = hash & (buckets.length() - 1);
+         Entry first = buckets.get(index);
+         Entry e = first;
+         while (e != null && (e.hash != hash || !nullSafeEquals(key, e.key))) {
+            e = e.next;
+         }
+         if (e == null || (matchValue && !nullSafeEquals(value, e.element))) {
+            return false;
+         }
+         // copy the entries in front of the removed one, so that readers
+         // walking the old chain are not affected
+         Entry newFirst = e.next;
+         for (Entry p = first; p != e; p = p.next) {
+            newFirst = new Entry(p.hash, p.key, p.element, newFirst);
+         }
+         buckets.set(index, newFirst);
+         segment.count--;
+         count.decrement();
+         return true;
+      } finally {
+         segment.unlock();
+      }
+   }
+
+   /**
+    * Method doubles the buckets of the segment. Must be called holding the
+    * segment lock. The entries at the tail of a chain that all move to the same
+    * new bucket are reused, the others are copied.
+    *
+    * @param segment
+    */
+   private void rehash(Segment segment) {
+      AtomicReferenceArray<Entry> oldBuckets = segment.buckets;
+      int oldLength = oldBuckets.length();
+      if (oldLength >= 1 << 30) {
+         return; // cannot grow any further
+      }
+      long start = statistics == null ? 0 : System.nanoTime();
+      AtomicReferenceArray<Entry> newBuckets = new AtomicReferenceArray<Entry>(oldLength * 2);
+      int mask = oldLength * 2 - 1;
+      for (int i = 0; i < oldLength; i++) {
+         Entry first = oldBuckets.get(i);
+         if (first == null) {
+            continue;
+         }
+         // find the tail run that stays together
+         Entry lastRun = first;
+         int lastIndex = first.hash & mask;
+         for (Entry e = first.next; e != null; e = e.next) {
+            int index = e.hash & mask;
+            if (index != lastIndex) {
+               lastIndex = index;
+               lastRun = e;
+            }
+         }
+         newBuckets.set(lastIndex, lastRun);
+         for (Entry e = first; e != lastRun; e = e.next) {
+            int index = e.hash & mask;
+            newBuckets.set(index, new Entry(e.hash, e.key, e.element, newBuckets.get(index)));
+         }
+      }
+      segment.setBuckets(newBuckets);
+      if (statistics != null) {
+         statistics.recordRehash(start);
+      }
+   }
+
+   private void recordProbe(int length) {
+      if (statistics != null) {
+         statistics.recordProbe(length);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private Segment segmentFor(int hash) {
+      return (Segment) segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+   }
+
+   /**
+    * Method spreads the bits of the key's hashCode over the whole int, the top
+    * bits select the segment and the low bits the bucket.
+    *
+    * @param key
+    * @return int value
+    */
+   private int hash(K key) {
+      int h = key == null ? 0 : key.hashCode();
+      return (int) ((h * FibonacciHash.GOLDEN_RATIO) >>> 32);
+   }
+
+   /**
+    * Method checks if the two values are both null or are they both equivalent
+    * to each other.
+    *
+    * @param value1
+    * @param value2
+    * @return boolean value
+    */
+   private boolean nullSafeEquals(Object value1, Object value2) {
+      return (value1 == null && value2 == null) /* both are null */
+            /* are actually equal and value1 is not null */
+            || (value1 != null && value1.equals(value2));
+   }
+
+}
@@ -0,0 +1,234 @@
+package com.robin.ds.hashing;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe Direct Address Table - holds a set of values whose keys are
+ * unique values in the range of 0 to keyMax-1. <blockquote>Each slot is
+ * updated with a single atomic operation on an
+ * {@link AtomicReferenceArray}, so no update ever takes a lock or blocks a
+ * reader.</blockquote>
+ * <p/>
+ * The count of occupied slots is kept in a {@link StripedCounter}, which
+ * spreads the updates of different threads over separate cells.
+ * {@link #emptySlotCount()} is exact whenever no update is in progress.
+ *
+ * @author robin
+ *
+ * @param <E>
+ *           the Elements in the Table
+ */
+public class ConcurrentDirectAddressTable<E> {
+   // represents a null valued Element
+   private static final Object NULL = new Object();
+
+   private final AtomicReferenceArray<Object> values;
+   private final StripedCounter count = new StripedCounter();
+
+   /**
+    * Constructor: Instance holds keys denoted by T[0,1..., keyMax-1], in which
+    * each position, or slot, corresponds to a key in the universe U.
+    *
+    * @param keyMax
+    */
+   public ConcurrentDirectAddressTable(int keyMax) {
+      if (keyMax < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      values = new AtomicReferenceArray<Object>(keyMax);
+   }
+
+   /**
+    * Method looks-up the specified key value and returns the value there. In
+    * case the key is invalid (key<0 or key> keyMax-1) it will throw an
+    * {@link IllegalArgumentException}
+    *
+    * @param key
+    * @return E
+    * @throws IllegalArgumentException
+    */
+   public E lookUp(int key) throws IllegalArgumentException {
+      checkKey(key, "lookUp");
+      return unmask(values.get(key));
+   }
+
+   /**
+    * Method will insert a value in the table.
+    *
+    * @param value
+    * @param key
+    * @return E the value replaced
+    */
+   public E insert(E value, int key) throws IllegalArgumentException {
+      checkKey(key, "insert");
+      Object oldValue = values.getAndSet(key, mask(value));
+      if (oldValue == null) {
+         count.increment(); // a slot has been occupied
+      }
+      return unmask(oldValue);
+   }
+
+   /**
+    * Method will insert the value only if the slot holds the expected value,
+    * compared with equals. An expected value of null matches an empty slot as
+    * well as a slot holding null.
+    *
+    * @param expected
+    * @param value
+    * @param key
+    * @return boolean value, true if the value was inserted
+    */
+   public boolean compareAndInsert(E expected, E value, int key) throws IllegalArgumentException {
+      checkKey(key, "insert");
+      Object update = mask(value);
+      while (true) {
+         Object current = values.get(key);
+         E currentValue = unmask(current);
+         if (expected == null ? currentValue != null : !expected.equals(currentValue)) {
+            return false;
+         }
+         if (values.compareAndSet(key, current, update)) {
+            if (current == null) {
+               count.increment();
+            }
+            return true;
+         }
+      }
+   }
+
+   /**
+    * Method will insert the value if the slot is empty.
+    *
+    * @param value
+    * @param key
+    * @return E the value already in the slot, or null if the value was
+    *         inserted
+    */
+   public E insertIfAbsent(E value, int key) throws IllegalArgumentException {
+      checkKey(key, "insert");
+      Object update = mask(value);
+      while (true) {
+         Object current = values.get(key);
+         if (current != null) {
+            return unmask(current);
+         }
+         if (values.compareAndSet(key, null, update)) {
+            count.increment();
+            return null;
+         }
+      }
+   }
+
+   /**
+    * Method returns the value of the key, creating it with the factory if the
+    * slot is empty. Threads racing on the same empty slot may each call the
+    * factory, but only one value is inserted and all of them return it. A null
+    * value from the factory leaves the slot empty.
+    *
+    * @param key
+    * @param factory
+    * @return E
+    */
+   public E computeIfAbsent(int key, IValueFactory<E> factory) throws IllegalArgumentException {
+      checkKey(key, "insert");
+      Object current = values.get(key);
+      if (current != null) {
+         return unmask(current);
+      }
+      E value = factory.create(key);
+      if (value == null) {
+         return null;
+      }
+      while (true) {
+         if (values.compareAndSet(key, null, value)) {
+            count.increment();
+            return value;
+         }
+         current = values.get(key);
+         if (current != null) {
+            return unmask(current); // another thread got there first
+         }
+      }
+   }
+
+   /**
+    * Method will delete a value from the table, freeing up the slot.
+    *
+    * @param key
+    */
+   public void delete(int key) throws IllegalArgumentException {
+      checkKey(key, "delete");
+      if (values.getAndSet(key, null) != null) {
+         count.decrement(); // a slot has been freed
+      }
+   }
+
+   /**
+    * Method will delete the key only while its slot holds the passed value,
+    * compared with equals.
+    *
+    * @param expected
+    * @param key
+    * @return boolean value indicating if the slot was freed
+    */
+   public boolean delete(E expected, int key) throws IllegalArgumentException {
+      checkKey(key, "delete");
+      while (true) {
+         Object current = values.get(key);
+         if (current == null) {
+            return false;
+         }
+         E currentValue = unmask(current);
+         if (expected == null ? currentValue != null : !expected.equals(currentValue)) {
+            return false;
+         }
+         if (values.compareAndSet(key, current, null)) {
+            count.decrement();
+            return true;
+         }
+      }
+   }
+
+   /**
+    * Method indicates if a slot is empty.
+    *
+    * @param key
+    * @return boolean value.
+    */
+   public boolean isSlotEmpty(int key) {
+      return values.get(key) == null;
+   }
+
+   /**
+    * Method returns the size of the table.
+    *
+    * @return int value
+    */
+   public int size() {
+      return values.length();
+   }
+
+   /**
+    * Method gives a count of the free slots in the table.
+    *
+    * @return int value
+    */
+   public int emptySlotCount() {
+      return (int) (values.length() - count.sum());
+   }
+
+   private void checkKey(int key, String operation) {
+      if (key < 0 || key >= values.length()) {
+         throw new IllegalArgumentException(operation + " performed at invalid location");
+      }
+   }
+
+   private static Object mask(Object value) {
+      return value == null ? NULL : value;
+   }
+
+   @SuppressWarnings("unchecked")
+   private static <E> E unmask(Object value) {
+      return value == NULL ? null : (E) value;
+   }
+}
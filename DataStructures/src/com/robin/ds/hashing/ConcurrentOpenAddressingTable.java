@@ -0,0 +1,455 @@
+package com.robin.ds.hashing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock free open addressing table that uses linear probing.
+ * <p/>
+ * Keys and values sit next to each other in one {@link AtomicReferenceArray}.
+ * A key slot is claimed with a compare-and-set and, once claimed, never holds
+ * another key - a delete only replaces the value with a TOMBSTONE. This keeps
+ * the probe sequences stable, so look-ups never take a lock and never wait.
+ * <p/>
+ * Resizing is cooperative. <blockquote>A new table is hung off the old one and
+ * every slot of the old table is frozen (its value is wrapped in a Prime) and
+ * copied over. Writers that run into the resize copy a chunk of slots before
+ * carrying on in the new table; readers that meet a frozen slot copy just that
+ * slot. Empty key slots are burnt so that no key can be placed in the old
+ * table once its copy has started.</blockquote> When all slots are copied the
+ * new table is promoted to the top.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           the key
+ * @param <E>
+ *           the element
+ */
+public class ConcurrentOpenAddressingTable<K, E> implements InstrumentedHashTable<K, E> {
+
+   private static final int MIN_LENGTH = 16;
+   private static final int COPY_CHUNK = 1024;
+
+   // stands in for the null key and null elements
+   private static final Object NULL_KEY = new Object();
+   private static final Object NULL_VALUE = new Object();
+   // value of a deleted key, and the key of an empty slot burnt by a resize
+   private static final Object TOMBSTONE = new Object();
+   private static final Object BURNT_KEY = new Object();
+   // expected value that matches anything
+   private static final Object NO_MATCH_OLD = new Object();
+
+   /**
+    * A frozen value - the slot is being copied to the next table and can no
+    * longer be changed in this one.
+    *
+    * @author robin
+    *
+    */
+   private static final class Prime {
+      final Object value;
+
+      Prime(Object value) {
+         this.value = value;
+      }
+   }
+
+   private static final Prime TOMBPRIME = new Prime(TOMBSTONE);
+
+   /**
+    * One generation of the table along with the state of its copy to the next
+    * generation.
+    *
+    * @author robin
+    *
+    */
+   private static final class Table {
+      final AtomicReferenceArray<Object> kvs; // key at 2i, value at 2i + 1
+      final int length;
+      final int threshold;
+      final int reprobeLimit;
+      final AtomicInteger slotsClaimed = new AtomicInteger();
+      final AtomicInteger copyIndex = new AtomicInteger();
+      final AtomicInteger copyDone = new AtomicInteger();
+      final AtomicReference<Table> next = new AtomicReference<Table>();
+      final long createdNanos = System.nanoTime(); // the start of its resize
+
+      Table(int length) {
+         this.kvs = new AtomicReferenceArray<Object>(2 * length);
+         this.length = length;
+         this.threshold = length / 4 * 3;
+         this.reprobeLimit = Math.min(length, 10 + (length >> 2));
+      }
+
+      Object key(int index) {
+         return kvs.get(2 * index);
+      }
+
+      Object value(int index) {
+         return kvs.get(2 * index + 1);
+      }
+
+      boolean casKey(int index, Object expect, Object update) {
+         return kvs.compareAndSet(2 * index, expect, update);
+      }
+
+      boolean casValue(int index, Object expect, Object update) {
+         return kvs.compareAndSet(2 * index + 1, expect, update);
+      }
+   }
+
+   private final AtomicReference<Table> top;
+   private final StripedCounter count = new StripedCounter();
+   // attach before the table is shared, the field is read without a barrier
+   private HashTableStatistics statistics;
+
+   /**
+    * Creates a {@link ConcurrentOpenAddressingTable} sized for the specified
+    * number of entries.
+    *
+    * @param size
+    */
+   public ConcurrentOpenAddressingTable(int size) {
+      if (size < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      top = new AtomicReference<Table>(new Table(FibonacciHash.powerOfTwoAtLeast(Math.max(MIN_LENGTH, 2 * size))));
+   }
+
+   /**
+    * Method looks-up the specified key value without taking any lock.
+    */
+   @SuppressWarnings("unchecked")
+   public E lookUp(K key) {
+      Object k = maskNull(key);
+      Object value = get(top.get(), k, hash(k));
+      return value == null || value == NULL_VALUE ? null : (E) value;
+   }
+
+   public E insert(K key, E value) {
+      return unmask(put(key, value == null ? NULL_VALUE : value, NO_MATCH_OLD));
+   }
+
+   /**
+    * Method will insert the value only if the key is not present yet.
+    *
+    * @param key
+    * @param value
+    * @return E the value already held for the key, or null if the value was
+    *         inserted
+    */
+   public E insertIfAbsent(K key, E value) {
+      return unmask(put(key, value == null ? NULL_VALUE : value, TOMBSTONE));
+   }
+
+   public void lookUpAll(K[] keys, E[] values) {
+      Batches.lookUpEach(this, keys, values);
+   }
+
+   public void insertAll(K[] keys, E[] values) {
+      Batches.insertEach(this, keys, values);
+   }
+
+   public void delete(K key) {
+      put(key, TOMBSTONE, NO_MATCH_OLD);
+   }
+
+   /**
+    * Method will delete the key only while it still maps to the passed value.
+    *
+    * @param key
+    * @param value
+    * @return boolean value indicating if the entry was removed
+    */
+   public boolean delete(K key, E value) {
+      Object expected = value == null ? NULL_VALUE : value;
+      Object old = put(key, TOMBSTONE, expected);
+      return old != null && old != TOMBSTONE && old.equals(expected);
+   }
+
+   /**
+    * Returns the number of items in the table. The value is exact when no
+    * update is in progress.
+    */
+   public int count() {
+      return (int) count.sum();
+   }
+
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Returns the number of entries per slot of the top table.
+    */
+   public double loadFactor() {
+      return count() / (double) top.get().length;
+   }
+
+   /**
+    * Returns the number of claimed key slots of the top table that do not
+    * hold a live entry. A claimed slot keeps its key until the next resize.
+    */
+   public int tombstoneCount() {
+      return Math.max(0, top.get().slotsClaimed.get() - count());
+   }
+
+   public void setStatistics(HashTableStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   private Object put(K key, Object value, Object expected) {
+      Object k = maskNull(key);
+      return putIfMatch(top.get(), k, hash(k), value, expected);
+   }
+
+   private Object get(Table table, Object key, int hash) {
+      int mask = table.length - 1;
+      int index = hash & mask;
+      int reprobes = 0;
+      while (true) {
+         Object k = table.key(index);
+         Object v = table.value(index);
+         if (k == null) {
+            recordProbe(reprobes + 1);
+            return null; // the key would have claimed this slot
+         }
+         if (keysEqual(k, key)) {
+            if (!(v instanceof Prime)) {
+               recordProbe(reprobes + 1);
+               return v == TOMBSTONE ? null : v;
+            }
+            // frozen - finish copying the slot and read the next table
+            Table next = table.next.get();
+            copySlotAndCheck(table, index, next, false);
+            return get(next, key, hash);
+         }
+         if (++reprobes >= table.reprobeLimit || k == BURNT_KEY) {
+            // not in this table, a resize may have moved it on
+            Table next = table.next.get();
+            if (next == null) {
+               recordProbe(reprobes + 1);
+               return null;
+            }
+            return get(next, key, hash);
+         }
+         index = (index + 1) & mask;
+      }
+   }
+
+   /**
+    * Method sets the value of the key if the current value matches the expected
+    * one: NO_MATCH_OLD matches anything, TOMBSTONE matches an absent key and
+    * null (used when copying) only a slot that was never written.
+    *
+    * @param table
+    * @param key
+    * @param hash
+    * @param value
+    * @param expected
+    * @return Object the previous value
+    */
+   private Object putIfMatch(Table table, Object key, int hash, Object value, Object expected) {
+      int mask = table.length - 1;
+      int index = hash & mask;
+      int reprobes = 0;
+      while (true) {
+         Object k = table.key(index);
+         if (k == null) {
+            if (value == TOMBSTONE) {
+               return null; // nothing to delete
+            }
+            if (table.casKey(index, null, key)) {
+               table.slotsClaimed.incrementAndGet();
+               break;
+            }
+            k = table.key(index); // lost the race for the slot
+         }
+         if (keysEqual(k, key)) {
+            break;
+         }
+         if (++reprobes >= table.reprobeLimit || k == BURNT_KEY) {
+            // too full or being copied, carry on in the next table
+            Table next = resize(table);
+            if (expected != null) {
+               helpCopy();
+            }
+            return putIfMatch(next, key, hash, value, expected);
+         }
+         index = (index + 1) & mask;
+      }
+
+      Object v = table.value(index);
+      if (v == value) {
+         return v;
+      }
+      Table next = table.next.get();
+      if (next == null && v == null && table.slotsClaimed.get() >= table.threshold) {
+         next = resize(table);
+      }
+      if (next != null) {
+         copySlotAndCheck(table, index, next, expected != null);
+         return putIfMatch(next, key, hash, value, expected);
+      }
+      while (true) {
+         if (expected != NO_MATCH_OLD && v != expected && !(expected == TOMBSTONE && v == null)
+               && !(expected != null && expected != TOMBSTONE && expected.equals(v))) {
+            return v; // does not match
+         }
+         if (table.casValue(index, v, value)) {
+            if (expected != null) { // copies do not change the count
+               boolean wasLive = v != null && v != TOMBSTONE;
+               boolean isLive = value != TOMBSTONE;
+               if (!wasLive && isLive) {
+                  count.increment();
+               } else if (wasLive && !isLive) {
+                  count.decrement();
+               }
+            }
+            return v;
+         }
+         v = table.value(index);
+         if (v instanceof Prime) {
+            next = table.next.get();
+            copySlotAndCheck(table, index, next, expected != null);
+            return putIfMatch(next, key, hash, value, expected);
+         }
+      }
+   }
+
+   /**
+    * Method returns the table that the passed one is being copied into,
+    * creating it if needed. The new table is only grown when the live keys
+    * need the room, otherwise the copy just drops the TOMBSTONEs.
+    *
+    * @param table
+    * @return Table the next table
+    */
+   private Table resize(Table table) {
+      Table next = table.next.get();
+      if (next != null) {
+         return next;
+      }
+      int length = table.length;
+      int live = count();
+      int newLength = length;
+      if (live >= length >> 1) {
+         newLength = length << 2;
+      } else if (live >= length >> 2) {
+         newLength = length << 1;
+      }
+      newLength = Math.min(newLength, 1 << 30);
+      table.next.compareAndSet(null, new Table(newLength));
+      return table.next.get();
+   }
+
+   /**
+    * Method copies a chunk of the top table, if it is being resized, and
+    * promotes the next table once the copy is complete.
+    */
+   private void helpCopy() {
+      Table table = top.get();
+      Table next = table.next.get();
+      if (next == null) {
+         return;
+      }
+      int copied = 0;
+      if (table.copyIndex.get() < table.length) {
+         int start = table.copyIndex.getAndAdd(COPY_CHUNK);
+         int end = Math.min(start + COPY_CHUNK, table.length);
+         for (int i = start; i < end; i++) {
+            if (copySlot(table, i, next)) {
+               copied++;
+            }
+         }
+      }
+      copyCheckAndPromote(table, copied);
+   }
+
+   private void copySlotAndCheck(Table table, int index, Table next, boolean help) {
+      if (copySlot(table, index, next)) {
+         copyCheckAndPromote(table, 1);
+      }
+      if (help) {
+         helpCopy();
+      }
+   }
+
+   /**
+    * Method freezes the slot and copies its value into the next table.
+    *
+    * @param table
+    * @param index
+    * @param next
+    * @return boolean value, true for the one call that completed the slot
+    */
+   private boolean copySlot(Table table, int index, Table next) {
+      Object key;
+      while ((key = table.key(index)) == null) {
+         table.casKey(index, null, BURNT_KEY);
+      }
+      Object v = table.value(index);
+      while (!(v instanceof Prime)) {
+         Prime frozen = v == null || v == TOMBSTONE ? TOMBPRIME : new Prime(v);
+         if (table.casValue(index, v, frozen)) {
+            if (frozen == TOMBPRIME) {
+               return true; // nothing to copy
+            }
+            v = frozen;
+            break;
+         }
+         v = table.value(index);
+      }
+      if (v == TOMBPRIME) {
+         return false; // copied by another thread
+      }
+      // only lands if no newer value was written to the next table
+      boolean copied = putIfMatch(next, key, hash(key), ((Prime) v).value, null) == null;
+      while (v != TOMBPRIME && !table.casValue(index, v, TOMBPRIME)) {
+         v = table.value(index);
+      }
+      return copied;
+   }
+
+   private void copyCheckAndPromote(Table table, int copied) {
+      int done = copied > 0 ? table.copyDone.addAndGet(copied) : table.copyDone.get();
+      if (done == table.length) {
+         Table next = table.next.get();
+         if (top.compareAndSet(table, next) && statistics != null) {
+            statistics.recordRehash(next.createdNanos);
+         }
+      }
+   }
+
+   private void recordProbe(int length) {
+      if (statistics != null) {
+         statistics.recordProbe(length);
+      }
+   }
+
+   /**
+    * Method spreads the bits of the key's hashCode, the low bits select the
+    * home slot.
+    *
+    * @param key
+    * @return int value
+    */
+   private static int hash(Object key) {
+      return (int) ((key.hashCode() * FibonacciHash.GOLDEN_RATIO) >>> 32);
+   }
+
+   private static Object maskNull(Object key) {
+      return key == null ? NULL_KEY : key;
+   }
+
+   @SuppressWarnings("unchecked")
+   private E unmask(Object value) {
+      return value == null || value == TOMBSTONE || value == NULL_VALUE ? null : (E) value;
+   }
+
+   private static boolean keysEqual(Object slotKey, Object key) {
+      return slotKey == key || (slotKey != BURNT_KEY && key.equals(slotKey));
+   }
+}
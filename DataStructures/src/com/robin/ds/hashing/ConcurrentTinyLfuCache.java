@@ -0,0 +1,524 @@
+package com.robin.ds.hashing;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe cache holding at most a fixed number of entries, which only
+ * admits a new entry if it is used more often than the one it would evict
+ * (W-TinyLFU). <blockquote>New entries go into a small LRU window, 1% of the
+ * capacity. An entry pushed out of the window becomes a candidate for the main
+ * region, and is only kept if a {@link FrequencySketch} has seen its key more
+ * often than the key of the main region's next victim - otherwise the
+ * candidate is evicted instead.</blockquote>
+ * <p/>
+ * The main region is a segmented LRU: entries start on probation and move to
+ * a protected segment, 80% of the region, when they are hit again. A one-off
+ * scan therefore passes through the window without flushing the popular
+ * entries, while the window still keeps bursts of recent keys.
+ * <p/>
+ * The entries are held in a {@link ConcurrentChainHashTable}, so get and put
+ * never wait on a lock. The access order and the sketch are only updated
+ * under a lock, in batches: a hit is recorded in a lossy lock-free
+ * {@link ReadBuffer} and a put or invalidate in a write queue, and whichever
+ * thread fills a buffer and gets the lock replays them. Until then the cache
+ * may briefly hold more than capacity entries. Reads dropped by a full buffer
+ * only make the order a little less exact.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           Key - must be unique
+ * @param <E>
+ *           Element
+ */
+public class ConcurrentTinyLfuCache<K, E> {
+
+   private static final double LOAD_FACTOR = 0.75;
+   private static final int MAX_PENDING_WRITES = 256;
+   private static final int ADMIT_FREQUENCY = 5; // colder candidates never win ties
+
+   // the region an entry is in, only read and changed under the eviction lock
+   private static final int NEW = 0;
+   private static final int WINDOW = 1;
+   private static final int PROBATION = 2;
+   private static final int PROTECTED = 3;
+   private static final int REMOVED = 4;
+
+   @SuppressWarnings("rawtypes")
+   private static final AtomicReferenceFieldUpdater<Node, Object> ELEMENT = AtomicReferenceFieldUpdater.newUpdater(
+         Node.class, Object.class, "element");
+
+   /**
+    * An entry, also linked into the access list of its region.
+    *
+    * @author robin
+    *
+    */
+   private static final class Node<K> {
+      final K key;
+      volatile Object element;
+      int region = NEW;
+      Node<K> before, after;
+
+      Node(K key, Object element) {
+         this.key = key;
+         this.element = element;
+      }
+
+      @Override
+      public String toString() {
+         return "E [ k: " + key + ", e : " + element + " ]";
+      }
+   }
+
+   /**
+    * An access list, least recently used first. The list is circular around a
+    * sentinel, so linking and unlinking need no null checks.
+    *
+    * @author robin
+    *
+    */
+   private static final class AccessList<K> {
+      final Node<K> head = new Node<K>(null, null);
+      int size;
+
+      AccessList() {
+         head.before = head;
+         head.after = head;
+      }
+
+      Node<K> first() {
+         return head.after == head ? null : head.after;
+      }
+
+      void addLast(Node<K> node) {
+         node.after = head;
+         node.before = head.before;
+         head.before.after = node;
+         head.before = node;
+         size++;
+      }
+
+      void remove(Node<K> node) {
+         node.before.after = node.after;
+         node.after.before = node.before;
+         node.before = null;
+         node.after = null;
+         size--;
+      }
+
+      void moveToBack(Node<K> node) {
+         if (head.before != node) {
+            remove(node);
+            addLast(node);
+         }
+      }
+
+      void clear() {
+         head.before = head;
+         head.after = head;
+         size = 0;
+      }
+   }
+
+   private final ConcurrentChainHashTable<K, Node<K>> table;
+   private final int capacity;
+   private final int windowCapacity;
+   private final int protectedCapacity;
+
+   private final ReadBuffer readBuffer = new ReadBuffer();
+   private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<Runnable>();
+   private final AtomicInteger pendingWrites = new AtomicInteger();
+   private final StripedCounter hitCount = new StripedCounter();
+   private final StripedCounter missCount = new StripedCounter();
+
+   // guarded by the eviction lock
+   private final ReentrantLock evictionLock = new ReentrantLock();
+   private final FrequencySketch<K> sketch;
+   private final AccessList<K> window = new AccessList<K>();
+   private final AccessList<K> probation = new AccessList<K>();
+   private final AccessList<K> protectedList = new AccessList<K>();
+   private final Object[] readBatch = new Object[ReadBuffer.STRIPE_LENGTH * 4];
+   private int random = 0x9E3779B9;
+   private volatile long evictionCount;
+
+   /**
+    * Creates a cache that holds up to capacity entries.
+    *
+    * @param capacity
+    */
+   public ConcurrentTinyLfuCache(int capacity) {
+      if (capacity < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      this.capacity = capacity;
+      this.windowCapacity = Math.max(1, capacity / 100);
+      this.protectedCapacity = (int) ((capacity - windowCapacity) * 0.8);
+      this.table = new ConcurrentChainHashTable<K, Node<K>>((int) Math.ceil(capacity / LOAD_FACTOR));
+      this.sketch = new FrequencySketch<K>(capacity);
+   }
+
+   /**
+    * Method looks-up the key and records the hit. In case the key is not
+    * cached it will return null
+    *
+    * @param key
+    * @return E
+    */
+   @SuppressWarnings("unchecked")
+   public E get(K key) {
+      Node<K> node = table.lookUp(key);
+      if (node == null) {
+         missCount.increment();
+         return null;
+      }
+      hitCount.increment();
+      afterRead(node);
+      return (E) node.element;
+   }
+
+   /**
+    * Method will cache the value, replacing the value of a cached key in
+    * place. A new key goes into the window and may evict another entry, or
+    * itself, once the pending maintenance runs.
+    *
+    * @param key
+    * @param element
+    * @return E the old value
+    */
+   @SuppressWarnings("unchecked")
+   public E put(K key, E element) {
+      Node<K> node = table.lookUp(key);
+      if (node == null) {
+         Node<K> created = new Node<K>(key, element);
+         node = table.insertIfAbsent(key, created);
+         if (node == null) {
+            afterWrite(new AddTask(created));
+            return null;
+         }
+      }
+      E oldValue = (E) ELEMENT.getAndSet(node, element);
+      afterRead(node);
+      return oldValue;
+   }
+
+   /**
+    * Method will remove the key from the cache.
+    *
+    * @param key
+    */
+   public void invalidate(K key) {
+      Node<K> node = table.lookUp(key);
+      if (node != null && table.delete(key, node)) {
+         afterWrite(new RemovalTask(node));
+      }
+   }
+
+   /**
+    * Method will remove every entry from the cache. The counters and the
+    * frequencies are kept. Entries put while this runs may stay.
+    */
+   public void invalidateAll() {
+      evictionLock.lock();
+      try {
+         maintenance();
+         clear(window);
+         clear(probation);
+         clear(protectedList);
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   /**
+    * Method runs the pending maintenance now, instead of waiting for a buffer
+    * to fill. Afterwards the cache holds at most capacity entries, unless
+    * other threads keep writing.
+    */
+   public void cleanUp() {
+      evictionLock.lock();
+      try {
+         maintenance();
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   /**
+    * Returns the number of entries in the cache, which may briefly exceed the
+    * capacity until the pending maintenance runs.
+    *
+    * @return int value
+    */
+   public int count() {
+      return table.count();
+   }
+
+   /**
+    * Returns the maximum number of entries in the cache.
+    *
+    * @return int value
+    */
+   public int capacity() {
+      return capacity;
+   }
+
+   /**
+    * Returns the number of look-ups that found their key.
+    *
+    * @return long value
+    */
+   public long hitCount() {
+      return hitCount.sum();
+   }
+
+   /**
+    * Returns the number of look-ups that did not find their key.
+    *
+    * @return long value
+    */
+   public long missCount() {
+      return missCount.sum();
+   }
+
+   /**
+    * Returns the number of entries evicted to make room for new ones,
+    * including the new entries that were not admitted.
+    *
+    * @return long value
+    */
+   public long evictionCount() {
+      return evictionCount;
+   }
+
+   /**
+    * Returns the share of the look-ups that found their key, 0 before the
+    * first look-up.
+    *
+    * @return double value
+    */
+   public double hitRate() {
+      long hits = hitCount.sum();
+      long lookUps = hits + missCount.sum();
+      return lookUps == 0 ? 0 : (double) hits / lookUps;
+   }
+
+   /**
+    * Adds a new entry to the window.
+    */
+   private final class AddTask implements Runnable {
+      private final Node<K> node;
+
+      AddTask(Node<K> node) {
+         this.node = node;
+      }
+
+      @Override
+      public void run() {
+         if (node.region == NEW) { // not invalidated in the meantime
+            sketch.increment(node.key);
+            node.region = WINDOW;
+            window.addLast(node);
+         }
+      }
+   }
+
+   /**
+    * Unlinks an entry already deleted from the table.
+    */
+   private final class RemovalTask implements Runnable {
+      private final Node<K> node;
+
+      RemovalTask(Node<K> node) {
+         this.node = node;
+      }
+
+      @Override
+      public void run() {
+         unlink(node);
+         node.region = REMOVED;
+      }
+   }
+
+   private void afterRead(Node<K> node) {
+      if (readBuffer.offer(node)) {
+         tryMaintenance();
+      }
+   }
+
+   private void afterWrite(Runnable task) {
+      writeBuffer.add(task);
+      if (pendingWrites.incrementAndGet() > MAX_PENDING_WRITES) {
+         cleanUp(); // the writers outpace the maintenance - wait for it
+      } else {
+         tryMaintenance();
+      }
+   }
+
+   /**
+    * Method runs the maintenance unless another thread is running it, and
+    * again while writes queued up meanwhile would otherwise be left behind.
+    */
+   private void tryMaintenance() {
+      do {
+         if (!evictionLock.tryLock()) {
+            return;
+         }
+         try {
+            maintenance();
+         } finally {
+            evictionLock.unlock();
+         }
+      } while (pendingWrites.get() > 0);
+   }
+
+   private void maintenance() {
+      drainReadBuffer();
+      drainWriteBuffer();
+      evict();
+   }
+
+   @SuppressWarnings("unchecked")
+   private void drainReadBuffer() {
+      int drained;
+      do {
+         drained = readBuffer.drainTo(readBatch);
+         for (int i = 0; i < drained; i++) {
+            onAccess((Node<K>) readBatch[i]);
+            readBatch[i] = null;
+         }
+      } while (drained == readBatch.length);
+   }
+
+   private void drainWriteBuffer() {
+      Runnable task;
+      while ((task = writeBuffer.poll()) != null) {
+         task.run();
+         pendingWrites.decrementAndGet();
+      }
+   }
+
+   /**
+    * Method counts a hit in the sketch and moves the entry to the back of its
+    * region - from probation into the protected segment.
+    */
+   private void onAccess(Node<K> node) {
+      switch (node.region) {
+      case WINDOW:
+         window.moveToBack(node);
+         break;
+      case PROBATION:
+         probation.remove(node);
+         node.region = PROTECTED;
+         protectedList.addLast(node);
+         while (protectedList.size > protectedCapacity) {
+            Node<K> demoted = protectedList.first();
+            protectedList.remove(demoted);
+            demoted.region = PROBATION;
+            probation.addLast(demoted);
+         }
+         break;
+      case PROTECTED:
+         protectedList.moveToBack(node);
+         break;
+      default:
+         return; // not added yet, or already gone
+      }
+      sketch.increment(node.key);
+   }
+
+   /**
+    * Method moves the window overflow to the back of probation as candidates,
+    * then evicts until the cache fits - each time the less frequent of the
+    * first candidate and the probation's least recently used entry.
+    */
+   private void evict() {
+      Node<K> candidate = null;
+      while (window.size > windowCapacity) {
+         Node<K> node = window.first();
+         window.remove(node);
+         node.region = PROBATION;
+         probation.addLast(node);
+         if (candidate == null) {
+            candidate = node;
+         }
+      }
+      while (window.size + probation.size + protectedList.size > capacity) {
+         Node<K> victim = probation.first();
+         if (victim == null) {
+            victim = protectedList.size > 0 ? protectedList.first() : window.first();
+            evictNode(victim);
+         } else if (candidate == null) {
+            evictNode(victim);
+         } else if (candidate == victim) {
+            candidate = next(candidate);
+            evictNode(victim);
+         } else if (admit(candidate.key, victim.key)) {
+            evictNode(victim);
+         } else {
+            Node<K> next = next(candidate);
+            evictNode(candidate);
+            candidate = next;
+         }
+      }
+   }
+
+   /**
+    * Method decides whether the candidate replaces the victim. A warm
+    * candidate that is not more frequent still wins now and then, so that an
+    * attacker cannot keep a victim cached by inflating its frequency.
+    */
+   private boolean admit(K candidateKey, K victimKey) {
+      int candidateFrequency = sketch.frequency(candidateKey);
+      int victimFrequency = sketch.frequency(victimKey);
+      if (candidateFrequency > victimFrequency) {
+         return true;
+      }
+      if (candidateFrequency <= ADMIT_FREQUENCY) {
+         return false;
+      }
+      random ^= random << 13;
+      random ^= random >>> 17;
+      random ^= random << 5;
+      return (random & 127) == 0;
+   }
+
+   private Node<K> next(Node<K> node) {
+      return node.after == probation.head ? null : node.after;
+   }
+
+   private void evictNode(Node<K> node) {
+      unlink(node);
+      node.region = REMOVED;
+      if (table.delete(node.key, node)) {
+         evictionCount++; // only ever written under the lock
+      }
+   }
+
+   private void unlink(Node<K> node) {
+      switch (node.region) {
+      case WINDOW:
+         window.remove(node);
+         break;
+      case PROBATION:
+         probation.remove(node);
+         break;
+      case PROTECTED:
+         protectedList.remove(node);
+         break;
+      default:
+      }
+   }
+
+   private void clear(AccessList<K> list) {
+      for (Node<K> node = list.head.after; node != list.head; node = node.after) {
+         node.region = REMOVED;
+         table.delete(node.key, node);
+      }
+      list.clear();
+   }
+}
@@ -0,0 +1,403 @@
+package com.robin.ds.hashing;
+
+import java.util.Arrays;
+
+/**
+ * A hash table that uses bucketized cuckoo hashing. <blockquote>Every key has
+ * two candidate buckets, one from each hash function, and is always held in
+ * one of them. An insert that finds both buckets full kicks out one of the
+ * entries there and moves it to its other bucket, and so on.</blockquote>
+ * <p/>
+ * Each bucket holds 4 entries, which lets the table fill up to 90% of its
+ * slots. An entry that cannot be placed within a bounded number of kicks goes
+ * into a small stash; once the stash is full the table is grown. A look-up
+ * therefore reads at most two buckets and the stash, whatever the state of the
+ * table. Only keys sharing the same hashCode can make the stash grow past its
+ * usual size.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           the key
+ * @param <E>
+ *           the element
+ */
+public class CuckooHashTable<K, E> implements InstrumentedHashTable<K, E> {
+
+   private static final int BUCKET_SIZE = 4;
+   private static final int STASH_SIZE = 4;
+   private static final int MAX_KICKS = 500;
+   private static final double MAX_LOAD_FACTOR = 0.9;
+   // a second odd multiplier, independent of the golden ratio
+   private static final long SECOND_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+   // represents the null key, an empty slot holds null
+   private static final Object NULL_KEY = new Object();
+
+   private final IHashFunction<Object> hashFunction1;
+   private final IHashFunction<Object> hashFunction2;
+   private Object[] keys;
+   private Object[] elements;
+   private int buckets;
+   private Object[] stashKeys = new Object[STASH_SIZE];
+   private Object[] stashElements = new Object[STASH_SIZE];
+   private int stashCount;
+   private int count;
+   private int random = 0x2545F491; // drives the choice of the entry to kick
+   private HashTableStatistics statistics;
+
+   /**
+    * Creates a {@link CuckooHashTable} that can hold the specified number of
+    * entries before growing. Uses two Fibonacci hashes with different
+    * multipliers.
+    *
+    * @param size
+    */
+   public CuckooHashTable(int size) {
+      this(size, new FibonacciHash<Object>(1), new FibonacciHash<Object>(1, SECOND_MULTIPLIER));
+   }
+
+   /**
+    * Creates a CuckooHashTable using the passed hash functions, which should be
+    * independent of each other. Default access - can only be created within
+    * the package
+    *
+    * @param size
+    * @param hashFunction1
+    * @param hashFunction2
+    */
+   CuckooHashTable(int size, IHashFunction<Object> hashFunction1, IHashFunction<Object> hashFunction2) {
+      if (size < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      this.hashFunction1 = hashFunction1;
+      this.hashFunction2 = hashFunction2;
+      int minBuckets = (int) Math.ceil(size / (BUCKET_SIZE * MAX_LOAD_FACTOR));
+      init(FibonacciHash.powerOfTwoAtLeast(Math.max(2, minBuckets)));
+   }
+
+   /**
+    * Method looks-up the specified key value and returns the value associated.
+    * In case the key does not exists it will return null. At most two buckets
+    * and the stash are read.
+    */
+   @SuppressWarnings("unchecked")
+   public E lookUp(K key) {
+      Object k = maskNull(key);
+      int slot = slotInBucket(bucket1(k), k);
+      int bucketsRead = 1;
+      if (slot < 0) {
+         slot = slotInBucket(bucket2(k), k);
+         bucketsRead = 2;
+      }
+      if (slot >= 0) {
+         recordProbe(bucketsRead);
+         return (E) elements[slot];
+      }
+      int stashSlot = stashSlotOf(k);
+      recordProbe(stashCount > 0 ? 3 : 2); // the stash counts as a bucket
+      return stashSlot < 0 ? null : (E) stashElements[stashSlot];
+   }
+
+   @SuppressWarnings("unchecked")
+   public E insert(K key, E value) {
+      Object k = maskNull(key);
+      int slot = slotOf(k);
+      if (slot >= 0) {
+         E oldValue = (E) elements[slot];
+         elements[slot] = value;
+         return oldValue;
+      }
+      int stashSlot = stashSlotOf(k);
+      if (stashSlot >= 0) {
+         E oldValue = (E) stashElements[stashSlot];
+         stashElements[stashSlot] = value;
+         return oldValue;
+      }
+      if (count + 1 > buckets * BUCKET_SIZE * MAX_LOAD_FACTOR) {
+         grow();
+      }
+      place(k, value);
+      count++;
+      return null;
+   }
+
+   public void lookUpAll(K[] keys, E[] values) {
+      Batches.lookUpEach(this, keys, values);
+   }
+
+   public void insertAll(K[] keys, E[] values) {
+      Batches.insertEach(this, keys, values);
+   }
+
+   public void delete(K key) {
+      Object k = maskNull(key);
+      int slot = slotOf(k);
+      if (slot >= 0) {
+         keys[slot] = null;
+         elements[slot] = null;
+         count--;
+         if (stashCount > 0) {
+            drainStash(); // a slot has been freed for them
+         }
+         return;
+      }
+      int stashSlot = stashSlotOf(k);
+      if (stashSlot >= 0) {
+         stashKeys[stashSlot] = null;
+         stashElements[stashSlot] = null;
+         stashCount--;
+         count--;
+      }
+   }
+
+   public int count() {
+      return this.count;
+   }
+
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Returns the number of entries per slot, the stash not included.
+    */
+   public double loadFactor() {
+      return (double) count / keys.length;
+   }
+
+   /**
+    * Returns 0, a delete empties the slot of the entry.
+    */
+   public int tombstoneCount() {
+      return 0;
+   }
+
+   public void setStatistics(HashTableStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   /**
+    * Method places a new key, kicking entries to their other bucket as needed.
+    * The table is grown while the stash has no room for the entry left without
+    * a slot.
+    *
+    * @param key
+    * @param element
+    */
+   private void place(Object key, Object element) {
+      Object homeless = key;
+      Object homelessElement = element;
+      while (true) {
+         Object[] kicked = kick(homeless, homelessElement);
+         if (kicked == null) {
+            return;
+         }
+         homeless = kicked[0];
+         homelessElement = kicked[1];
+         if (stashCount < STASH_SIZE || count < buckets * BUCKET_SIZE / 2) {
+            // a sparse table that cannot place the entry is facing keys with
+            // the same hashCode, growing would not help
+            addToStash(homeless, homelessElement);
+            return;
+         }
+         grow();
+      }
+   }
+
+   /**
+    * Method puts the entry in a free slot of one of its buckets, or kicks out a
+    * randomly chosen entry and carries on placing that one in its other
+    * bucket.
+    *
+    * @param key
+    * @param element
+    * @return Object[] the key and element left without a slot, or null if
+    *         every entry was placed
+    */
+   private Object[] kick(Object key, Object element) {
+      int bucket = bucket1(key);
+      if (putInFreeSlot(bucket, key, element) || putInFreeSlot(bucket2(key), key, element)) {
+         return null;
+      }
+      for (int kicks = 0; kicks < MAX_KICKS; kicks++) {
+         int slot = bucket * BUCKET_SIZE + nextRandom() % BUCKET_SIZE;
+         Object victim = keys[slot];
+         Object victimElement = elements[slot];
+         keys[slot] = key;
+         elements[slot] = element;
+         key = victim;
+         element = victimElement;
+         bucket = otherBucket(key, bucket);
+         if (putInFreeSlot(bucket, key, element)) {
+            return null;
+         }
+      }
+      return new Object[] { key, element };
+   }
+
+   private boolean putInFreeSlot(int bucket, Object key, Object element) {
+      int start = bucket * BUCKET_SIZE;
+      for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+         if (keys[slot] == null) {
+            keys[slot] = key;
+            elements[slot] = element;
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Method will return the slot holding the key in one of its two buckets, or
+    * -1 if it is not there.
+    *
+    * @param key
+    * @return int value
+    */
+   private int slotOf(Object key) {
+      int slot = slotInBucket(bucket1(key), key);
+      return slot >= 0 ? slot : slotInBucket(bucket2(key), key);
+   }
+
+   private int slotInBucket(int bucket, Object key) {
+      int start = bucket * BUCKET_SIZE;
+      for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+         if (keys[slot] != null && key.equals(keys[slot])) {
+            return slot;
+         }
+      }
+      return -1;
+   }
+
+   private int stashSlotOf(Object key) {
+      if (stashCount == 0) {
+         return -1;
+      }
+      for (int i = 0; i < stashKeys.length; i++) {
+         if (stashKeys[i] != null && key.equals(stashKeys[i])) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   private void addToStash(Object key, Object element) {
+      if (stashCount == stashKeys.length) {
+         stashKeys = Arrays.copyOf(stashKeys, stashCount * 2);
+         stashElements = Arrays.copyOf(stashElements, stashCount * 2);
+      }
+      for (int i = 0; i < stashKeys.length; i++) {
+         if (stashKeys[i] == null) {
+            stashKeys[i] = key;
+            stashElements[i] = element;
+            stashCount++;
+            return;
+         }
+      }
+   }
+
+   /**
+    * Method moves the stashed entries that now fit into one of their buckets.
+    */
+   private void drainStash() {
+      for (int i = 0; i < stashKeys.length; i++) {
+         Object key = stashKeys[i];
+         if (key != null && (putInFreeSlot(bucket1(key), key, stashElements[i])
+               || putInFreeSlot(bucket2(key), key, stashElements[i]))) {
+            stashKeys[i] = null;
+            stashElements[i] = null;
+            stashCount--;
+         }
+      }
+   }
+
+   /**
+    * Method doubles the number of buckets and places all the entries again.
+    */
+   private void grow() {
+      long start = statistics == null ? 0 : System.nanoTime();
+      Object[] originalKeys = keys;
+      Object[] originalElements = elements;
+      Object[] originalStashKeys = stashKeys;
+      Object[] originalStashElements = stashElements;
+      init(buckets * 2);
+      for (int i = 0; i < originalKeys.length; i++) {
+         if (originalKeys[i] != null) {
+            reinsert(originalKeys[i], originalElements[i]);
+         }
+      }
+      for (int i = 0; i < originalStashKeys.length; i++) {
+         if (originalStashKeys[i] != null) {
+            reinsert(originalStashKeys[i], originalStashElements[i]);
+         }
+      }
+      if (statistics != null) {
+         statistics.recordRehash(start);
+      }
+   }
+
+   /**
+    * Method records the number of buckets read by a look-up, if statistics are
+    * attached.
+    *
+    * @param bucketsRead
+    */
+   private void recordProbe(int bucketsRead) {
+      if (statistics != null) {
+         statistics.recordProbe(bucketsRead);
+      }
+   }
+
+   private void reinsert(Object key, Object element) {
+      Object[] kicked = kick(key, element);
+      if (kicked != null) {
+         addToStash(kicked[0], kicked[1]);
+      }
+   }
+
+   private void init(int newBuckets) {
+      buckets = newBuckets;
+      keys = new Object[newBuckets * BUCKET_SIZE];
+      elements = new Object[newBuckets * BUCKET_SIZE];
+      stashKeys = new Object[STASH_SIZE];
+      stashElements = new Object[STASH_SIZE];
+      stashCount = 0;
+      hashFunction1.setHashLimit(newBuckets);
+      hashFunction2.setHashLimit(newBuckets);
+   }
+
+   private int bucket1(Object key) {
+      return nonNegative(hashFunction1.hash(key));
+   }
+
+   private int bucket2(Object key) {
+      return nonNegative(hashFunction2.hash(key));
+   }
+
+   private int nonNegative(int index) {
+      // a hash function passed in may keep the sign of hashCode()
+      return index < 0 ? index + buckets : index;
+   }
+
+   private int otherBucket(Object key, int bucket) {
+      int bucket1 = bucket1(key);
+      return bucket1 == bucket ? bucket2(key) : bucket1;
+   }
+
+   /**
+    * Method returns the next value of a xorshift generator, never negative.
+    *
+    * @return int value
+    */
+   private int nextRandom() {
+      random ^= random << 13;
+      random ^= random >>> 17;
+      random ^= random << 5;
+      return random & Integer.MAX_VALUE;
+   }
+
+   private static Object maskNull(Object key) {
+      return key == null ? NULL_KEY : key;
+   }
+}
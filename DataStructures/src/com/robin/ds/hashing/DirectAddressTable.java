@@ -16,6 +16,107 @@ public class DirectAddressTable<E> {
    private Object[] values;
    private int count;
 
+   /**
+    * A cursor over the occupied slots of the table. The key is the slot
+    * index, returned as an int so that nothing is boxed.
+    * 
+    * @author robin
+    * 
+    */
+   public class Cursor implements IntKeyCursor<E> {
+      private int index;
+      private int end;
+      private boolean onEntry;
+
+      Cursor(int from, int end) {
+         this.index = from - 1;
+         this.end = end;
+      }
+
+      /**
+       * Method moves the cursor to the next occupied slot.
+       * 
+       * @return boolean value, false once there are no entries left
+       */
+      public boolean advance() {
+         while (++index < end) {
+            if (values[index] != null) {
+               onEntry = true;
+               return true;
+            }
+         }
+         onEntry = false;
+         return false;
+      }
+
+      /**
+       * Returns the key of the entry the cursor is on.
+       * 
+       * @return int value
+       */
+      public int key() {
+         checkOnEntry();
+         return index;
+      }
+
+      /**
+       * Returns the element of the entry the cursor is on.
+       * 
+       * @return E
+       */
+      @SuppressWarnings("unchecked")
+      public E value() {
+         checkOnEntry();
+         return values[index] == NULL ? null : (E) values[index];
+      }
+
+      /**
+       * Method moves the cursor back before the first slot of the table.
+       */
+      public void reset() {
+         index = -1;
+         end = values.length;
+         onEntry = false;
+      }
+
+      /**
+       * Method hands the upper half of the slots that are left to a new
+       * cursor, which this cursor will then skip.
+       * 
+       * @return Cursor or null if too few slots are left
+       */
+      public Cursor trySplit() {
+         int from = index + 1;
+         if (end - from < MIN_SPLIT_SLOTS) {
+            return null;
+         }
+         int middle = (from + end) >>> 1;
+         Cursor split = new Cursor(middle, end);
+         end = middle;
+         return split;
+      }
+
+      /**
+       * Returns a {@link HashTableCursor} view of this cursor, so that the
+       * table can be scanned by a {@link ParallelScan}. Only the key is
+       * boxed.
+       * 
+       * @return HashTableCursor
+       */
+      public HashTableCursor<Integer, E> boxed() {
+         return new BoxedKeyCursor<E>(this);
+      }
+
+      private void checkOnEntry() {
+         if (!onEntry) {
+            throw new IllegalStateException("Cursor is not on an entry");
+         }
+      }
+   }
+
+   // a cursor is not split below this number of slots
+   private static final int MIN_SPLIT_SLOTS = 1024;
+
    /**
     * Constructor: Instance holds keys denoted by T[0,1..., keyMax-1], in which
     * each position, or slot, corresponds to a key in the universe U.
@@ -87,6 +188,15 @@ public class DirectAddressTable<E> {
       }
    }
 
+   /**
+    * Method returns a cursor positioned before the first slot of the table.
+    * 
+    * @return Cursor
+    */
+   public Cursor cursor() {
+      return new Cursor(0, values.length);
+   }
+
    /**
     * Method indicates if a slot is empty.
     * 
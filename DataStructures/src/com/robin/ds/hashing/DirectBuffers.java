@@ -0,0 +1,55 @@
+package com.robin.ds.hashing;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases the memory of direct (and mapped) buffers right away instead of
+ * waiting for the buffer objects to be collected. There is no public API for
+ * this before Java 14, so the JDK internals are reached by reflection: the
+ * Unsafe.invokeCleaner method on Java 9 and later, the buffer's cleaner on
+ * older releases. If neither can be used the memory is left to the collector.
+ *
+ * @author robin
+ *
+ */
+final class DirectBuffers {
+
+   private DirectBuffers() {
+   }
+
+   /**
+    * Method frees the memory of the passed direct buffer, which must not be
+    * used afterwards.
+    *
+    * @param buffer
+    */
+   static void free(ByteBuffer buffer) {
+      if (buffer == null || !buffer.isDirect()) {
+         return;
+      }
+      try {
+         Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+         Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+         Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+         theUnsafe.setAccessible(true);
+         invokeCleaner.invoke(theUnsafe.get(null), buffer);
+         return;
+      } catch (Exception e) {
+         // before Java 9, try the cleaner of the buffer
+      }
+      try {
+         Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+         cleanerMethod.setAccessible(true);
+         Object cleaner = cleanerMethod.invoke(buffer);
+         if (cleaner != null) {
+            Method clean = cleaner.getClass().getMethod("clean");
+            clean.setAccessible(true);
+            clean.invoke(cleaner);
+         }
+      } catch (Exception e) {
+         // left to the garbage collector
+      }
+   }
+}
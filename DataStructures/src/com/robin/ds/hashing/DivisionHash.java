@@ -7,7 +7,8 @@ package com.robin.ds.hashing;
  * 
  * @param <K>
  */
-public class DivisionHash<K> implements IHashFunction<K> {
+public class DivisionHash<K> implements IHashFunction<K>, IHashCodeFunction,
+      ICopyableFunction<DivisionHash<K>> {
 
    int divisor;
 
@@ -25,10 +26,14 @@ public class DivisionHash<K> implements IHashFunction<K> {
     */
    @Override
    public int hash(K key) {
-      if (key == null) {
-         return NULL_HASH;
-      }
-      return key.hashCode() % divisor;
+      return key == null ? NULL_HASH : hashOfCode(key.hashCode());
+   }
+
+   @Override
+   public int hashOfCode(int hashCode) {
+      int index = hashCode % divisor;
+      // the remainder keeps the sign of a negative hashCode
+      return index < 0 ? index + divisor : index;
    }
 
    @Override
@@ -37,4 +42,9 @@ public class DivisionHash<K> implements IHashFunction<K> {
       
    }
 
+   @Override
+   public DivisionHash<K> copy() {
+      return new DivisionHash<K>(divisor);
+   }
+
 }
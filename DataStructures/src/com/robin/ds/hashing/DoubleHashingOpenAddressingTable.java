@@ -15,6 +15,10 @@ package com.robin.ds.hashing;
 public class DoubleHashingOpenAddressingTable<K, E> extends AbstractArrayHashTable<K, E> {
 
    private int primeValBelowSize;
+   private int primeLength; // the table length primeValBelowSize was computed for
+   // the settings of the previous length, kept for the incremental rehash
+   private int otherPrimeValBelowSize;
+   private int otherLength;
 
    /**
     * Creates a {@link DoubleHashingOpenAddressingTable} with specified number
@@ -23,131 +27,159 @@ public class DoubleHashingOpenAddressingTable<K, E> extends AbstractArrayHashTab
     * @param size
     */
    public DoubleHashingOpenAddressingTable(int size) {
+      this(size, false);
+   }
+
+   /**
+    * Creates a {@link DoubleHashingOpenAddressingTable} with specified number
+    * of buckets, using the parallel arrays layout if requested. (Minimum size
+    * = 4)
+    * 
+    * @param size
+    * @param parallelArrays
+    *           - keeps the keys, elements and hashCodes in parallel arrays
+    *           instead of entry objects
+    */
+   public DoubleHashingOpenAddressingTable(int size, boolean parallelArrays) {
+      super(false, parallelArrays);
       if (size < 4) {
          throw new IllegalArgumentException("Invalid size input");
       }
-      values = new Object[size];
+      allocate(size);
       count = 0;
-      primeValBelowSize = computePrimeValueBelowLength(size);
+      updateRehashSettings(size);
    }
 
-   @SuppressWarnings("unchecked")
-   public E lookUp(K key) {
+   /**
+    * Method will return the index holding the key, or -1 if the key is not
+    * present.
+    * 
+    * @param key
+    * @param hash
+    * @return int value
+    */
+   protected int indexOf(K key, int hash) {
       if (count == 0) { // no entries in table
-         return null;
+         return -1;
       }
       int tableLen = values.length;
-      int hash1 = hashFn1(key);
-      int hash2 = hashFn2(key);
-      int i = 0;
-      E matchValue = null;
+      int hashCode = hashCodeOf(key, hash);
+      int hash1 = hashFn1(hashCode);
+      int hash2 = hashFn2(hashCode);
       // Case 2: - when table is full and the key not present
-      while (values[hash1] != null && i++ <= tableLen) {
-         if (DELETED.equals(values[hash1])) {
-            continue;// nothing to be done
-         }
-
-         K k = ((Entry) values[hash1]).key;
-         if (nullSafeEquals(key, k)) {
-            matchValue = ((Entry) values[hash1]).element;
-            break;
+      int i = 0;
+      for (; values[hash1] != null && i < tableLen; i++) {
+         if (values[hash1] != DELETED && matchesAt(hash1, key, hash)) {
+            recordProbe(i + 1);
+            return hash1;
          }
          // compute next offset
          hash1 = (hash1 + hash2) % tableLen;
       }
-      return matchValue;
+      recordProbe(Math.min(i + 1, tableLen));
+      return -1;
    }
 
-   public E insert(K key, E element) {
-      E oldValue = null;
-      try {
-         oldValue = insertEntry(key, element);
-      } catch (IllegalStateException illegalStateException) {
-         // need to rehash the table
-         rehash();
-         oldValue = insertEntry(key, element);
-      }
-      return oldValue;
+   @Override
+   protected int homeIndex(K key, int hash) {
+      return hashFn1(hashCodeOf(key, hash));
    }
 
-   @SuppressWarnings("unchecked")
-   public void delete(K key) {
-      if (count == 0) {
-         return; // table is empty
-      }
-      int tableLen = values.length;
-      int hash1 = hashFn1(key);
-      int hash2 = hashFn2(key);
-      int i = 0;
-      while (values[hash1] != null && i++ < tableLen) {
-         if (!DELETED.equals(values[hash1])) {
-            K k = ((Entry) values[hash1]).key;
-            if (nullSafeEquals(key, k)) {
-               values[hash1] = DELETED;
-               count--;
-               break;
-            }
-         }
-         // compute next offset
-         hash1 = (hash1 + hash2) % tableLen;
+   @Override
+   protected void updateRehashSettings(int newLength) {
+      if (newLength == otherLength) {
+         // switching back to the previous length - no need to search again
+         swapRehashSettings();
+      } else if (newLength != primeLength) {
+         otherLength = primeLength;
+         otherPrimeValBelowSize = primeValBelowSize;
+         primeLength = newLength;
+         primeValBelowSize = computePrimeValueBelowLength(newLength);
       }
    }
 
    @Override
-   protected void updateRehashSettings(int newLength) {
-      primeValBelowSize = computePrimeValueBelowLength(newLength);
+   protected void swapRehashSettings() {
+      int length = otherLength;
+      int prime = otherPrimeValBelowSize;
+      otherLength = primeLength;
+      otherPrimeValBelowSize = primeValBelowSize;
+      primeLength = length;
+      primeValBelowSize = prime;
    }
 
    /**
-    * Method will insert a value into the HashTable
+    * Method will insert a value into the HashTable. The first DELETED slot on
+    * the probe sequence is reused, once it is known that the key is not
+    * present further along the sequence.
     * 
     * @param key
     * @param element
+    * @param hash
     * @return
     */
-   @SuppressWarnings("unchecked")
-   private E insertEntry(K key, E element) throws IllegalStateException {
-      E oldValue = null;
+   protected E insertEntry(K key, E element, int hash) throws IllegalStateException {
       int tableLen = values.length;
-      int hash1 = hashFn1(key); // the first location to check
-      int hash2 = hashFn2(key); // the offset to use
+      int hashCode = hashCodeOf(key, hash);
+      int hash1 = hashFn1(hashCode); // the first location to check
+      int hash2 = hashFn2(hashCode); // the offset to use
+      int freeLocn = -1;
 
       // In this technique the offset is also dependent on the hash, unlike the
       // probe techniques where the offset only depends on loop index
-      int i = 0;
-      while (values[hash1] != null && values[hash1] != DELETED && i++ < tableLen) {
-         // check for an update case
-         Entry crtEntry = (Entry) values[hash1];
-         if (nullSafeEquals(key, crtEntry.key)) {
-            oldValue = crtEntry.element;
-            crtEntry.element = element;
-            return oldValue;// update complete
+      for (int i = 0; values[hash1] != null && i < tableLen; i++) {
+         if (values[hash1] == DELETED) {
+            if (freeLocn < 0) {
+               freeLocn = hash1;
+            }
+         } else if (matchesAt(hash1, key, hash)) {
+            // an update case
+            return replaceElementAt(hash1, element);// update complete
          }
          // else compute next offset
          hash1 = (hash1 + hash2) % tableLen;
       }
-      if (i >= tableLen) {
-         // the insertion did not happen
-         throw new IllegalStateException("Failed to insert - Rehash needed !!");
+      if (freeLocn < 0) {
+         if (values[hash1] != null) {
+            // the insertion did not happen
+            throw new IllegalStateException("Failed to insert - Rehash needed !!");
+         }
+         freeLocn = hash1;
       }
       // new object in a brand new location (null) or in a previously used
       // location (DELETED)
-      values[hash1] = new Entry(key, element); // insert the new value
+      if (values[freeLocn] == DELETED) {
+         tombstones--;
+      }
+      putAt(freeLocn, key, element, hash); // insert the new value
       count++;
       return null;
    }
 
    /**
-    * This will compute the first hash value.
+    * Method returns the hashCode of the key (0 for null), reusing the cached
+    * one of the parallel arrays layout. Both hash functions are computed from
+    * it, so hashCode() is called at most once per operation.
     * 
     * @param key
+    * @param hash
     * @return int value
     */
-   private int hashFn1(K key) {
-      if (null == key) {
-         return 0;
+   private int hashCodeOf(K key, int hash) {
+      if (cachesHashCodes() || key == null) {
+         return hash;
       }
-      int x = key.hashCode();
+      return key.hashCode();
+   }
+
+   /**
+    * This will compute the first hash value.
+    * 
+    * @param hashCode
+    * @return int value
+    */
+   private int hashFn1(int hashCode) {
+      int x = hashCode & Integer.MAX_VALUE; // keep the index positive
       int hash1OfX = x % values.length; // h1(k) = k%m ( m is size)
       return hash1OfX;
    }
@@ -156,14 +188,11 @@ public class DoubleHashingOpenAddressingTable<K, E> extends AbstractArrayHashTab
     * <blockquote>If a collision occurs, a second hash function is applied to x
     * and then multiplied by i.</blockquote>
     * 
-    * @param key
+    * @param hashCode
     * @return int value
     */
-   private int hashFn2(K key) {
-      if (null == key) {
-         return 0;
-      }
-      int x = key.hashCode(); // same hash value retrieved
+   private int hashFn2(int hashCode) {
+      int x = hashCode & Integer.MAX_VALUE; // same hash value retrieved
       int hash2OfX = 1 + (x % primeValBelowSize);
       return hash2OfX;
    }
@@ -175,7 +204,7 @@ public class DoubleHashingOpenAddressingTable<K, E> extends AbstractArrayHashTab
     * @return int value
     */
    private int computePrimeValueBelowLength(int size) {
-      for (int number = values.length - 1; number >= 1; number--) {
+      for (int number = size - 1; number >= 1; number--) {
          int factorialCount = 0;
          for (int divisor = 2; divisor <= (int) Math.sqrt(number); divisor++) {
             if (number % divisor == 0) {
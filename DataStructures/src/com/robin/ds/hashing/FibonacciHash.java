@@ -0,0 +1,87 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class represents the multiplication based hash technique done with integer
+ * arithmetic only (Fibonacci hashing). <blockquote>The key is multiplied by
+ * 2^64/phi, where phi is the golden ratio. The low 64 bits of the product hold
+ * the fractional part of k*A, and for a table of 2^p slots the top p bits of
+ * it give the index.</blockquote>
+ * <p/>
+ * Unlike {@link MultiplicationHash} no objects are created per call. For limits
+ * that are not a power of 2 the fraction is scaled to the limit with a second
+ * multiply instead of a division.
+ *
+ * @author robin
+ *
+ * @param <K>
+ */
+public class FibonacciHash<K> implements IHashFunction<K>, IHashCodeFunction,
+      ICopyableFunction<FibonacciHash<K>> {
+
+   // 2^64 / phi - [(root(5) -1)/2] suggested by Knuth, as a 64 bit fraction
+   static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+   private final long multiplier;
+   private int hashLimit;
+   private int shift; // 0 when the limit is not a power of 2
+
+   public FibonacciHash(int hashLimit) {
+      this(hashLimit, GOLDEN_RATIO);
+   }
+
+   /**
+    * Creates a hash that multiplies by the passed (odd) constant instead of the
+    * golden ratio. Default access - can only be created within the package
+    *
+    * @param hashLimit
+    * @param multiplier
+    */
+   FibonacciHash(int hashLimit, long multiplier) {
+      this.multiplier = multiplier;
+      setHashLimit(hashLimit);
+   }
+
+   @Override
+   public int hash(K key) {
+      return key == null ? NULL_HASH : hashOfCode(key.hashCode());
+   }
+
+   @Override
+   public int hashOfCode(int hashCode) {
+      long fraction = hashCode * multiplier; // mod 2^64 is free
+      if (shift != 0) {
+         return (int) (fraction >>> shift);
+      }
+      // scale the top 32 bits of the fraction to [0, hashLimit)
+      return (int) (((fraction >>> 32) * hashLimit) >>> 32);
+   }
+
+   @Override
+   public void setHashLimit(int hashLimit) {
+      if (hashLimit < 1) {
+         throw new IllegalArgumentException("Invalid hash limit");
+      }
+      this.hashLimit = hashLimit;
+      boolean powerOfTwo = hashLimit > 1 && (hashLimit & (hashLimit - 1)) == 0;
+      this.shift = powerOfTwo ? 64 - Integer.numberOfTrailingZeros(hashLimit) : 0;
+   }
+
+   @Override
+   public FibonacciHash<K> copy() {
+      return new FibonacciHash<K>(hashLimit, multiplier);
+   }
+
+   /**
+    * Method will return the smallest power of 2 that is not less than the
+    * passed size.
+    *
+    * @param size
+    * @return int value
+    */
+   static int powerOfTwoAtLeast(int size) {
+      if (size > 1 << 30) {
+         throw new IllegalArgumentException("Table size too large");
+      }
+      return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+   }
+}
@@ -0,0 +1,117 @@
+package com.robin.ds.hashing;
+
+/**
+ * A count-min sketch that estimates how often each key has been seen, in a
+ * fixed amount of memory. <blockquote>Each key is counted in 4 counters picked
+ * by 4 independent hashes, and its frequency is the smallest of them - the
+ * other keys sharing a counter can only make it larger.</blockquote>
+ * <p/>
+ * The counters are 4 bits wide, 16 to a long, and stop at 15. Once the number
+ * of increments reaches 10 times the number of tracked keys every counter is
+ * halved, so the sketch forgets keys that used to be popular. The 4 counters
+ * of a key sit in the same group of 4 within each long they use.
+ * <p/>
+ * The sketch is not thread-safe.
+ *
+ * @author robin
+ *
+ * @param <K>
+ */
+final class FrequencySketch<K> {
+
+   private static final long[] SEEDS = { 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL,
+         0xCBF29CE484222325L };
+   private static final long RESET_MASK = 0x7777777777777777L;
+   private static final int MAX_COUNT = 15;
+
+   private final long[] table;
+   private final int sampleSize;
+   private int size; // increments since the last reset
+
+   /**
+    * Creates a sketch sized for the passed number of keys.
+    *
+    * @param maximumSize
+    */
+   FrequencySketch(int maximumSize) {
+      if (maximumSize < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      table = new long[FibonacciHash.powerOfTwoAtLeast(Math.min(maximumSize, 1 << 30))];
+      sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+   }
+
+   /**
+    * Returns the estimated number of times the key has been seen, at most 15.
+    *
+    * @param key
+    * @return int value
+    */
+   int frequency(K key) {
+      int hash = spread(key);
+      int start = (hash & 3) << 2;
+      int frequency = MAX_COUNT;
+      for (int i = 0; i < 4; i++) {
+         int index = indexOf(hash, i);
+         int count = (int) (table[index] >>> ((start + i) << 2) & 0xF);
+         frequency = Math.min(frequency, count);
+      }
+      return frequency;
+   }
+
+   /**
+    * Method counts the key once more, halving every counter once enough keys
+    * have been counted.
+    *
+    * @param key
+    */
+   void increment(K key) {
+      int hash = spread(key);
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+         added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++size == sampleSize) {
+         reset();
+      }
+   }
+
+   private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xFL << offset;
+      if ((table[index] & mask) != mask) {
+         table[index] += 1L << offset;
+         return true;
+      }
+      return false;
+   }
+
+   private void reset() {
+      for (int i = 0; i < table.length; i++) {
+         table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      size >>>= 1;
+   }
+
+   /**
+    * Method returns the index of the long holding the i-th counter of the
+    * hash.
+    */
+   private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return (int) h & (table.length - 1);
+   }
+
+   /**
+    * Method mixes the bits of the hashCode, so that keys with nearby
+    * hashCodes use unrelated counters.
+    */
+   private static int spread(Object key) {
+      int x = key == null ? 0 : key.hashCode();
+      x = ((x >>> 16) ^ x) * 0x45D9F3B;
+      x = ((x >>> 16) ^ x) * 0x45D9F3B;
+      return (x >>> 16) ^ x;
+   }
+}
@@ -0,0 +1,366 @@
+package com.robin.ds.hashing;
+
+import java.util.Arrays;
+
+/**
+ * An immutable hash table built from the entries of another table, using a
+ * minimal perfect hash (CHD - compress, hash and displace). <blockquote>The
+ * keys are split into small buckets by their hash. Starting with the largest
+ * bucket, a seed is searched for each bucket that sends all of its keys to
+ * slots not taken yet; the seed is all that is stored for the
+ * bucket.</blockquote>
+ * <p/>
+ * Every key gets a slot of its own and there are as many slots as keys, so a
+ * look-up reads the bucket's seed and then exactly one slot. Each slot also
+ * has an 8 bit fingerprint of its key's hash, kept apart from the keys, which
+ * turns most misses away before a key is compared. A bucket holding
+ * a single key is simply given one of the free slots, which saves the search
+ * for the last few free slots.
+ * <p/>
+ * The perfect hash can only tell keys apart by their hashCode. A key sharing
+ * its hashCode with another key is kept in a small overflow table, which is
+ * only searched when the slot holds a different key with the same hashCode.
+ * <p/>
+ * Inserts and deletes throw an {@link UnsupportedOperationException}. All the
+ * fields are final and never change after construction, so the table can be
+ * read from any thread without locking.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           the key
+ * @param <E>
+ *           the element
+ */
+public final class FrozenHashTable<K, E> implements HashTable<K, E> {
+
+   // the average number of keys per bucket
+   private static final int KEYS_PER_BUCKET = 3;
+   private static final int MAX_SEED = 1 << 24;
+   private static final long SEED_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+   private final int[] seeds; // negative values give the slot directly
+   private final byte[] fingerprints; // 8 bits of the mixed hashCode of the key in each slot
+   private final Object[] entries; // the key of slot i at 2 * i, its element next to it
+   private final HashTable<K, E> overflow;
+   private final int count;
+   private final E nullElement;
+
+   /**
+    * Creates a {@link FrozenHashTable} holding the current entries of the
+    * passed table. Later changes to that table are not seen.
+    *
+    * @param table
+    */
+   @SuppressWarnings("unchecked")
+   public FrozenHashTable(IterableHashTable<K, E> table) {
+      Object[] allKeys = new Object[table.count()];
+      Object[] allElements = new Object[table.count()];
+      int keyCount = 0;
+      boolean nullKey = false;
+      E nullKeyElement = null;
+      HashTableCursor<K, E> cursor = table.cursor();
+      while (cursor.advance()) {
+         if (cursor.key() == null) {
+            nullKey = true;
+            nullKeyElement = cursor.value();
+         } else {
+            allKeys[keyCount] = cursor.key();
+            allElements[keyCount] = cursor.value();
+            keyCount++;
+         }
+      }
+      this.nullElement = nullKeyElement;
+      this.count = keyCount + (nullKey ? 1 : 0);
+
+      // sorting the entries by hashCode puts keys sharing one next to each
+      // other; all but the first go to the overflow table
+      long[] order = new long[keyCount];
+      for (int i = 0; i < keyCount; i++) {
+         order[i] = ((long) allKeys[i].hashCode() << 32) | i;
+      }
+      Arrays.sort(order);
+      int[] distinct = new int[keyCount];
+      int slots = 0;
+      HashTable<K, E> overflowTable = null;
+      for (int i = 0; i < keyCount; i++) {
+         if (i > 0 && (order[i] >> 32) == (order[i - 1] >> 32)) {
+            if (overflowTable == null) {
+               overflowTable = HashTableBuilder.getFibonacciBasedHashTable(16);
+            }
+            int index = (int) order[i];
+            overflowTable.insert((K) allKeys[index], (E) allElements[index]);
+         } else {
+            distinct[slots++] = (int) order[i];
+         }
+      }
+      this.overflow = overflowTable;
+
+      this.seeds = new int[Math.max(1, (slots + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET)];
+      this.fingerprints = new byte[slots];
+      this.entries = new Object[2 * slots];
+      int[] slotOf = placeAll(distinct, slots, allKeys);
+      for (int i = 0; i < slots; i++) {
+         int index = distinct[i];
+         int slot = slotOf[i];
+         fingerprints[slot] = (byte) mix(allKeys[index].hashCode());
+         entries[2 * slot] = allKeys[index];
+         entries[2 * slot + 1] = allElements[index];
+      }
+   }
+
+   /**
+    * Method looks-up the specified key value and returns the value associated.
+    * In case the key does not exists it will return null. Reads one seed and
+    * one slot.
+    */
+   @SuppressWarnings("unchecked")
+   public E lookUp(K key) {
+      if (key == null) {
+         return nullElement;
+      }
+      if (fingerprints.length == 0) {
+         return overflow == null ? null : overflow.lookUp(key);
+      }
+      int hash = key.hashCode();
+      long mixed = mix(hash);
+      int slot = slotOf(hash, mixed);
+      if (fingerprints[slot] != (byte) mixed) {
+         return null; // most misses stop here, without reading a key
+      }
+      if (key.equals(entries[2 * slot])) {
+         return (E) entries[2 * slot + 1];
+      }
+      return overflow == null ? null : overflow.lookUp(key);
+   }
+
+   /**
+    * Method finds the slot of every key of the batch first, reading one seed
+    * each, then compares each key with the key in its slot. The batch skips
+    * the fingerprint check of {@link #lookUp(Object)} - a key that does not
+    * match is looked up again, to search the overflow table.
+    */
+   @SuppressWarnings("unchecked")
+   public void lookUpAll(K[] batchKeys, E[] results) {
+      Batches.checkBatch(batchKeys, results);
+      if (fingerprints.length == 0) {
+         Batches.lookUpEach(this, batchKeys, results);
+         return;
+      }
+      int[] slots = new int[batchKeys.length];
+      for (int i = 0; i < batchKeys.length; i++) {
+         if (batchKeys[i] == null) {
+            slots[i] = -1;
+         } else {
+            int hash = batchKeys[i].hashCode();
+            slots[i] = slotOf(hash, mix(hash));
+         }
+      }
+      for (int i = 0; i < batchKeys.length; i++) {
+         int slot = slots[i];
+         if (slot < 0) {
+            results[i] = nullElement;
+         } else if (batchKeys[i].equals(entries[2 * slot])) {
+            results[i] = (E) entries[2 * slot + 1];
+         } else {
+            results[i] = lookUp(batchKeys[i]);
+         }
+      }
+   }
+
+   /**
+    * Throws an {@link UnsupportedOperationException}, the table is immutable.
+    */
+   public E insert(K key, E value) {
+      throw new UnsupportedOperationException("Table is frozen");
+   }
+
+   /**
+    * Throws an {@link UnsupportedOperationException}, the table is immutable.
+    */
+   public void insertAll(K[] keys, E[] values) {
+      throw new UnsupportedOperationException("Table is frozen");
+   }
+
+   /**
+    * Throws an {@link UnsupportedOperationException}, the table is immutable.
+    */
+   public void delete(K key) {
+      throw new UnsupportedOperationException("Table is frozen");
+   }
+
+   public int count() {
+      return this.count;
+   }
+
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Returns the number of keys kept in the overflow table, as they share
+    * their hashCode with another key.
+    *
+    * @return int value
+    */
+   public int overflowCount() {
+      return overflow == null ? 0 : overflow.count();
+   }
+
+   /**
+    * Method returns the slot of the key with the passed hashCode, if it is in
+    * the table.
+    *
+    * @param hash
+    * @param mixed
+    *           - the mixed hash
+    * @return int value
+    */
+   private int slotOf(int hash, long mixed) {
+      int seed = seeds[reduce(mixed, seeds.length)];
+      return seed < 0 ? -seed - 1 : slotFor(hash, seed, fingerprints.length);
+   }
+
+   /**
+    * Method finds a seed for every bucket, largest buckets first, and fills
+    * in the seeds array.
+    *
+    * @param distinct
+    *           - the indexes of the keys with distinct hashCodes
+    * @param slots
+    *           - the number of such keys, and of slots
+    * @param allKeys
+    * @return int[] the slot of each key of distinct
+    */
+   private int[] placeAll(int[] distinct, int slots, Object[] allKeys) {
+      int buckets = seeds.length;
+      int[] hashOf = new int[slots];
+      int[] bucketStart = new int[buckets + 1];
+      for (int i = 0; i < slots; i++) {
+         hashOf[i] = allKeys[distinct[i]].hashCode();
+         bucketStart[bucketOf(hashOf[i], buckets) + 1]++;
+      }
+      int maxBucketSize = 0;
+      for (int b = 0; b < buckets; b++) {
+         maxBucketSize = Math.max(maxBucketSize, bucketStart[b + 1]);
+         bucketStart[b + 1] += bucketStart[b];
+      }
+      // the keys of bucket b are members[bucketStart[b] .. bucketStart[b + 1])
+      int[] members = new int[slots];
+      int[] fill = Arrays.copyOf(bucketStart, buckets);
+      for (int i = 0; i < slots; i++) {
+         members[fill[bucketOf(hashOf[i], buckets)]++] = i;
+      }
+      // counting sort of the buckets by size, largest first
+      int[] sizeStart = new int[maxBucketSize + 2];
+      for (int b = 0; b < buckets; b++) {
+         sizeStart[maxBucketSize - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+      }
+      for (int s = 0; s <= maxBucketSize; s++) {
+         sizeStart[s + 1] += sizeStart[s];
+      }
+      int[] bySize = new int[buckets];
+      for (int b = 0; b < buckets; b++) {
+         bySize[sizeStart[maxBucketSize - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+      }
+
+      int[] slotOf = new int[slots];
+      boolean[] taken = new boolean[slots];
+      int[] candidate = new int[maxBucketSize];
+      int nextFree = 0;
+      for (int b : bySize) {
+         int start = bucketStart[b];
+         int size = bucketStart[b + 1] - start;
+         if (size == 0) {
+            break;
+         }
+         if (size == 1) {
+            while (taken[nextFree]) {
+               nextFree++;
+            }
+            taken[nextFree] = true;
+            slotOf[members[start]] = nextFree;
+            seeds[b] = -nextFree - 1;
+            continue;
+         }
+         int seed = 0;
+         while (!fits(members, start, size, hashOf, seed, taken, candidate)) {
+            if (++seed == MAX_SEED) {
+               throw new IllegalStateException("No seed found for a bucket of " + size + " keys");
+            }
+         }
+         for (int i = 0; i < size; i++) {
+            taken[candidate[i]] = true;
+            slotOf[members[start + i]] = candidate[i];
+         }
+         seeds[b] = seed;
+      }
+      return slotOf;
+   }
+
+   /**
+    * Method checks if the seed sends every key of the bucket to a distinct
+    * free slot, leaving the slots in candidate.
+    */
+   private static boolean fits(int[] members, int start, int size, int[] hashOf, int seed, boolean[] taken,
+         int[] candidate) {
+      for (int i = 0; i < size; i++) {
+         int slot = slotFor(hashOf[members[start + i]], seed, taken.length);
+         if (taken[slot]) {
+            return false;
+         }
+         for (int j = 0; j < i; j++) {
+            if (candidate[j] == slot) {
+               return false;
+            }
+         }
+         candidate[i] = slot;
+      }
+      return true;
+   }
+
+   /**
+    * Method maps the hash to a bucket. The hash is fully mixed rather than
+    * Fibonacci hashed: the search relies on bucket sizes that vary the way
+    * random ones do, and Fibonacci hashing spreads runs of keys so evenly
+    * that no bucket is left with a single key to fill the last free slots.
+    *
+    * @param hash
+    * @param buckets
+    * @return int value
+    */
+   private static int bucketOf(int hash, int buckets) {
+      return reduce(mix(hash), buckets);
+   }
+
+   private static int slotFor(int hash, int seed, int slots) {
+      return reduce(mix(hash + (seed + 1) * SEED_MULTIPLIER), slots);
+   }
+
+   /**
+    * Method mixes the bits of the value with the finalizer of MurmurHash3.
+    *
+    * @param x
+    * @return long value
+    */
+   private static long mix(long x) {
+      x ^= x >>> 33;
+      x *= 0xFF51AFD7ED558CCDL;
+      x ^= x >>> 33;
+      x *= 0xC4CEB9FE1A85EC53L;
+      x ^= x >>> 33;
+      return x;
+   }
+
+   /**
+    * Method maps the top 32 bits of the value onto [0, range) with a multiply
+    * and shift, instead of a division.
+    *
+    * @param value
+    * @param range
+    * @return int value
+    */
+   private static int reduce(long value, int range) {
+      return (int) (((value >>> 32) * range) >>> 32);
+   }
+}
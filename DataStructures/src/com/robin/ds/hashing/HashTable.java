@@ -30,6 +30,25 @@ public interface HashTable<K, E> {
     */
    public E insert(K key, E value);
 
+   /**
+    * Method looks-up all the specified keys, storing the value of keys[i] in
+    * values[i]. Tables that can hash the whole batch before reading their
+    * slots do so, letting the memory accesses of the batch overlap.
+    * 
+    * @param keys
+    * @param values
+    *           - receives the values, at least as long as keys
+    */
+   public void lookUpAll(K[] keys, E[] values);
+
+   /**
+    * Method will insert all the specified keys, keys[i] with values[i].
+    * 
+    * @param keys
+    * @param values
+    */
+   public void insertAll(K[] keys, E[] values);
+
    /**
     * Method will delete a value from the table, freeing up the slot.
     * 
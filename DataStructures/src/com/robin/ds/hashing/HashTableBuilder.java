@@ -6,6 +6,18 @@ public class HashTableBuilder {
       return new DirectAddressTable<E>(keyMax);
    }
 
+   /**
+    * Creates a DirectAddressTable that allocates its slots a page at a time,
+    * for large and sparse key ranges.
+    */
+   public static <E> PagedDirectAddressTable<E> createPagedDirectAddressTable(int keyMax) {
+      return new PagedDirectAddressTable<E>(keyMax);
+   }
+
+   public static <E> ConcurrentDirectAddressTable<E> createConcurrentDirectAddressTable(int keyMax) {
+      return new ConcurrentDirectAddressTable<E>(keyMax);
+   }
+
    public static <K, E> ChainHashTable<K, E> getDivisionBasedHashTable(int size) {
       IHashFunction<K> divisionHashFunction = new DivisionHash<K>(size);
       return new ChainHashTable<K, E>(size, divisionHashFunction);
@@ -16,20 +28,177 @@ public class HashTableBuilder {
       return new ChainHashTable<K, E>(size, multiplicationHashFunction);
    }
 
+   /**
+    * Creates a ChainHashTable using Fibonacci hashing, with the number of
+    * buckets rounded up to a power of 2.
+    */
+   public static <K, E> ChainHashTable<K, E> getFibonacciBasedHashTable(int size) {
+      if (size < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      int buckets = FibonacciHash.powerOfTwoAtLeast(size);
+      return new ChainHashTable<K, E>(buckets, new FibonacciHash<K>(buckets));
+   }
+
+   /**
+    * Creates a linear probing OpenAddressingTable using Fibonacci hashing on a
+    * power of 2 sized array.
+    */
    public static <K, E> OpenAddressingTable<K, E> getLinearProbeOpenAddressingTable(int size) {
-      IHashFunction<K> multiplicationHashFunction = new MultiplicationHash<K>(size);
+      IHashFunction<K> fibonacciHashFunction = new FibonacciHash<K>(size);
+      IProbeFunction probeFunction = new LinearProbing(size);
+      return new OpenAddressingTable<K, E>(size, fibonacciHashFunction, probeFunction, true);
+   }
+
+   /**
+    * Creates a linear probing OpenAddressingTable on a prime sized array, using
+    * the passed hash function.
+    */
+   public static <K, E> OpenAddressingTable<K, E> getLinearProbeOpenAddressingTable(int size,
+         IHashFunction<K> hashFunction) {
       IProbeFunction probeFunction = new LinearProbing(size);
-      return new OpenAddressingTable<K, E>(size, multiplicationHashFunction, probeFunction);
+      return new OpenAddressingTable<K, E>(size, hashFunction, probeFunction);
    }
 
+   /**
+    * Creates a linear probing OpenAddressingTable using Fibonacci hashing on a
+    * power of 2 sized array, which keeps its keys, elements and hashCodes in
+    * parallel arrays instead of entry objects.
+    */
+   public static <K, E> OpenAddressingTable<K, E> getLinearProbeParallelArrayTable(int size) {
+      IHashFunction<K> fibonacciHashFunction = new FibonacciHash<K>(size);
+      IProbeFunction probeFunction = new LinearProbing(size);
+      return new OpenAddressingTable<K, E>(size, fibonacciHashFunction, probeFunction, true, true);
+   }
+
+   /**
+    * Creates a quadratic probing OpenAddressingTable using Fibonacci hashing on
+    * a power of 2 sized array.
+    */
    public static <K, E> OpenAddressingTable<K, E> getQuadraticProbeOpenAddressingTable(int size) {
-      IHashFunction<K> multiplicationHashFunction = new MultiplicationHash<K>(size);
+      IHashFunction<K> fibonacciHashFunction = new FibonacciHash<K>(size);
+      IProbeFunction probeFunction = new QuadraticProbing(size);
+      return new OpenAddressingTable<K, E>(size, fibonacciHashFunction, probeFunction, true);
+   }
+
+   /**
+    * Creates a quadratic probing OpenAddressingTable on a prime sized array,
+    * using the passed hash function.
+    */
+   public static <K, E> OpenAddressingTable<K, E> getQuadraticProbeOpenAddressingTable(int size,
+         IHashFunction<K> hashFunction) {
       IProbeFunction probeFunction = new QuadraticProbing(size);
-      return new OpenAddressingTable<K, E>(size, multiplicationHashFunction, probeFunction);
+      return new OpenAddressingTable<K, E>(size, hashFunction, probeFunction);
+   }
+
+   /**
+    * Creates a RobinHoodOpenAddressingTable using Fibonacci hashing on a power
+    * of 2 sized array.
+    */
+   public static <K, E> RobinHoodOpenAddressingTable<K, E> getRobinHoodOpenAddressingTable(int size) {
+      IHashFunction<K> fibonacciHashFunction = new FibonacciHash<K>(size);
+      return new RobinHoodOpenAddressingTable<K, E>(size, fibonacciHashFunction, true);
+   }
+
+   /**
+    * Creates a RobinHoodOpenAddressingTable on a prime sized array, using the
+    * passed hash function.
+    */
+   public static <K, E> RobinHoodOpenAddressingTable<K, E> getRobinHoodOpenAddressingTable(int size,
+         IHashFunction<K> hashFunction) {
+      return new RobinHoodOpenAddressingTable<K, E>(size, hashFunction);
    }
 
    public static <K, E> DoubleHashingOpenAddressingTable<K, E> getDoubleHasingOpenAddressingTable(int size) {
       return new DoubleHashingOpenAddressingTable<K, E>(size);
    }
 
+   /**
+    * Creates a DoubleHashingOpenAddressingTable which keeps its keys, elements
+    * and hashCodes in parallel arrays instead of entry objects.
+    */
+   public static <K, E> DoubleHashingOpenAddressingTable<K, E> getDoubleHashingParallelArrayTable(int size) {
+      return new DoubleHashingOpenAddressingTable<K, E>(size, true);
+   }
+
+   public static <K, E> SwissHashTable<K, E> getSwissHashTable(int size) {
+      return new SwissHashTable<K, E>(size);
+   }
+
+   public static <K, E> CuckooHashTable<K, E> getCuckooHashTable(int size) {
+      return new CuckooHashTable<K, E>(size);
+   }
+
+   public static <K, E> ConcurrentChainHashTable<K, E> getConcurrentChainHashTable(int size) {
+      return new ConcurrentChainHashTable<K, E>(size);
+   }
+
+   public static <K, E> ConcurrentOpenAddressingTable<K, E> getConcurrentOpenAddressingTable(int size) {
+      return new ConcurrentOpenAddressingTable<K, E>(size);
+   }
+
+   public static <E> IntOpenAddressingTable<E> getIntOpenAddressingTable(int size) {
+      return new IntOpenAddressingTable<E>(size);
+   }
+
+   public static <E> LongOpenAddressingTable<E> getLongOpenAddressingTable(int size) {
+      return new LongOpenAddressingTable<E>(size);
+   }
+
+   public static <E> ByteKeyHashTable<E> getByteKeyHashTable(int size) {
+      return new ByteKeyHashTable<E>(size);
+   }
+
+   /**
+    * Creates a cache of up to capacity entries that evicts the least recently
+    * used one, see {@link LruCache}.
+    */
+   public static <K, E> LruCache<K, E> getLruCache(int capacity) {
+      return new LruCache<K, E>(capacity);
+   }
+
+   /**
+    * Creates a thread-safe cache of up to capacity entries that admits new
+    * entries by frequency, see {@link ConcurrentTinyLfuCache}.
+    */
+   public static <K, E> ConcurrentTinyLfuCache<K, E> getConcurrentTinyLfuCache(int capacity) {
+      return new ConcurrentTinyLfuCache<K, E>(capacity);
+   }
+
+   /**
+    * Returns a builder that picks the table layout for the expected workload,
+    * see {@link WorkloadHashTableBuilder}.
+    * 
+    * @param keyType
+    * @param expectedSize
+    *           - the number of entries the table should hold without a rehash
+    * @return WorkloadHashTableBuilder
+    */
+   public static <K> WorkloadHashTableBuilder<K> forWorkload(Class<K> keyType, int expectedSize) {
+      return new WorkloadHashTableBuilder<K>(keyType, expectedSize);
+   }
+
+   /**
+    * Returns an immutable copy of the passed table, which finds every key with
+    * a single probe, see {@link FrozenHashTable}.
+    * 
+    * @param table
+    * @return FrozenHashTable
+    */
+   public static <K, E> FrozenHashTable<K, E> freeze(IterableHashTable<K, E> table) {
+      return new FrozenHashTable<K, E>(table);
+   }
+
+   /**
+    * Attaches statistics to the passed table, which records its probe lengths
+    * and rehashes into them from then on.
+    * 
+    * @param table
+    * @return HashTableStatistics of the table
+    */
+   public static HashTableStatistics instrument(InstrumentedHashTable<?, ?> table) {
+      HashTableStatistics statistics = new HashTableStatistics(table);
+      table.setStatistics(statistics);
+      return statistics;
+   }
 }
@@ -0,0 +1,62 @@
+package com.robin.ds.hashing;
+
+/**
+ * A cursor over the entries of a hash table. <blockquote>The cursor starts
+ * before the first entry, {@link #advance()} moves it to the next entry and
+ * {@link #key()} and {@link #value()} read the entry it is on.</blockquote> No
+ * object is created per entry, and {@link #reset()} lets the same cursor scan
+ * the table again.
+ * <p/>
+ * A cursor can be split so that parts of the table are scanned in parallel,
+ * see {@link ParallelScan}. The table must not be changed while a cursor is
+ * in use.
+ * 
+ * @author robin
+ * 
+ * @param <K>
+ *           the key
+ * @param <E>
+ *           the element
+ */
+public interface HashTableCursor<K, E> {
+
+   /**
+    * Method moves the cursor to the next entry.
+    * 
+    * @return boolean value, false once there are no entries left
+    */
+   public boolean advance();
+
+   /**
+    * Returns the key of the entry the cursor is on.
+    * 
+    * @return K
+    * @throws IllegalStateException
+    *            if the cursor is not on an entry
+    */
+   public K key();
+
+   /**
+    * Returns the element of the entry the cursor is on.
+    * 
+    * @return E
+    * @throws IllegalStateException
+    *            if the cursor is not on an entry
+    */
+   public E value();
+
+   /**
+    * Method moves the cursor back before the first entry of the whole table,
+    * picking up the changes made to the table since the cursor was created.
+    */
+   public void reset();
+
+   /**
+    * Method hands part of the entries that are left to a new cursor, which
+    * this cursor will then skip.
+    * 
+    * @return HashTableCursor covering the split off part, or null if too few
+    *         entries are left to be worth splitting
+    */
+   public HashTableCursor<K, E> trySplit();
+}
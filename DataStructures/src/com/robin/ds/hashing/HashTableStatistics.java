@@ -0,0 +1,178 @@
+package com.robin.ds.hashing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics recorded by an {@link InstrumentedHashTable}. <blockquote>The
+ * probe length of a search is the number of slots, chain (or tree) entries,
+ * buckets or groups it had to read, depending on the layout of the
+ * table.</blockquote> Probe lengths are kept in a histogram, the longer ones
+ * all fall in its last bucket. The load factor and tombstone count are read
+ * from the table when asked for.
+ * <p/>
+ * The counters are atomic so that the concurrent tables can share them
+ * between threads, which makes them a point of contention - attach statistics
+ * to measure a table, not for good.
+ * 
+ * @author robin
+ * 
+ */
+public final class HashTableStatistics {
+
+   // probe lengths from this value up share the last bucket of the histogram
+   public static final int MAX_PROBE_LENGTH = 64;
+
+   private final InstrumentedHashTable<?, ?> table;
+   private final AtomicLongArray probeLengths = new AtomicLongArray(MAX_PROBE_LENGTH + 1);
+   private final AtomicLong rehashes = new AtomicLong();
+   private final AtomicLong rehashNanos = new AtomicLong();
+
+   /**
+    * Creates statistics for the passed table. Default access - use
+    * {@link HashTableBuilder#instrument(InstrumentedHashTable)}.
+    * 
+    * @param table
+    */
+   HashTableStatistics(InstrumentedHashTable<?, ?> table) {
+      this.table = table;
+   }
+
+   /**
+    * Method counts a search that read the passed number of slots.
+    * 
+    * @param length
+    */
+   void recordProbe(int length) {
+      probeLengths.incrementAndGet(Math.min(length, MAX_PROBE_LENGTH));
+   }
+
+   /**
+    * Method counts a rehash that was started at the passed
+    * {@link System#nanoTime()}.
+    * 
+    * @param startNanos
+    */
+   void recordRehash(long startNanos) {
+      rehashes.incrementAndGet();
+      rehashNanos.addAndGet(System.nanoTime() - startNanos);
+   }
+
+   /**
+    * Returns the number of searches by probe length, the last element counts
+    * the searches of {@value #MAX_PROBE_LENGTH} or more.
+    * 
+    * @return long[]
+    */
+   public long[] probeLengthHistogram() {
+      long[] histogram = new long[probeLengths.length()];
+      for (int i = 0; i < histogram.length; i++) {
+         histogram[i] = probeLengths.get(i);
+      }
+      return histogram;
+   }
+
+   /**
+    * Returns the number of searches recorded.
+    * 
+    * @return long value
+    */
+   public long probeCount() {
+      long probes = 0;
+      for (long searches : probeLengthHistogram()) {
+         probes += searches;
+      }
+      return probes;
+   }
+
+   /**
+    * Returns the mean probe length, counting the longest probes as
+    * {@value #MAX_PROBE_LENGTH}.
+    * 
+    * @return double value
+    */
+   public double meanProbeLength() {
+      long[] histogram = probeLengthHistogram();
+      long probes = 0;
+      long total = 0;
+      for (int length = 0; length < histogram.length; length++) {
+         probes += histogram[length];
+         total += length * histogram[length];
+      }
+      return probes == 0 ? 0 : (double) total / probes;
+   }
+
+   /**
+    * Returns the probe length that the passed share of the searches did not
+    * exceed.
+    * 
+    * @param percentile
+    *           - between 0 and 1
+    * @return int value
+    */
+   public int probeLengthPercentile(double percentile) {
+      if (percentile < 0 || percentile > 1) {
+         throw new IllegalArgumentException("Invalid percentile");
+      }
+      long[] histogram = probeLengthHistogram();
+      long probes = 0;
+      for (long searches : histogram) {
+         probes += searches;
+      }
+      long rank = (long) Math.ceil(percentile * probes);
+      long seen = 0;
+      for (int length = 0; length < histogram.length; length++) {
+         seen += histogram[length];
+         if (seen >= rank && seen > 0) {
+            return length;
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Returns the number of times the table was rehashed (grown, shrunk or
+    * rebuilt).
+    * 
+    * @return long value
+    */
+   public long rehashCount() {
+      return rehashes.get();
+   }
+
+   /**
+    * Returns the time spent rehashing, in nanoseconds. An incremental rehash
+    * only counts the time taken to start it.
+    * 
+    * @return long value
+    */
+   public long rehashNanos() {
+      return rehashNanos.get();
+   }
+
+   public double loadFactor() {
+      return table.loadFactor();
+   }
+
+   public int tombstoneCount() {
+      return table.tombstoneCount();
+   }
+
+   /**
+    * Method clears the probe lengths and rehash counters.
+    */
+   public void reset() {
+      for (int i = 0; i < probeLengths.length(); i++) {
+         probeLengths.set(i, 0);
+      }
+      rehashes.set(0);
+      rehashNanos.set(0);
+   }
+
+   @Override
+   public String toString() {
+      return String.format("probes: %d mean %.2f p99 %d, rehashes: %d in %.3f ms, load factor: %.3f, tombstones: %d",
+            probeCount(), meanProbeLength(), probeLengthPercentile(0.99), rehashCount(), rehashNanos() / 1e6,
+            loadFactor(), tombstoneCount());
+   }
+}
@@ -0,0 +1,23 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class represents a hash or probe function that can create an independent
+ * copy of itself. A table that rehashes incrementally searches the array being
+ * drained with a copy set to the old limit, so the function set to the new
+ * limit is not reset on every look-up.
+ *
+ * @author robin
+ *
+ * @param <T>
+ *           the type of the copy
+ */
+interface ICopyableFunction<T> {
+
+   /**
+    * Method will return a new function that behaves as this one, set to the
+    * same limit.
+    *
+    * @return T
+    */
+   T copy();
+}
@@ -0,0 +1,20 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class represents the work done for every entry of a scan.
+ * 
+ * @author robin
+ * 
+ * @param <K>
+ * @param <E>
+ */
+public interface IEntryVisitor<K, E> {
+
+   /**
+    * Method is called for every entry of the scan.
+    * 
+    * @param key
+    * @param value
+    */
+   void visit(K key, E value);
+}
@@ -0,0 +1,21 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class represents a hash function that only depends on the hashCode of the
+ * key. A table that has already read the hashCode can pass it instead of the
+ * key, so that hashCode() is not called again.
+ * 
+ * @author robin
+ * 
+ */
+interface IHashCodeFunction {
+
+   /**
+    * Method will return the same value as hash(key), for a key with the passed
+    * hashCode (0 for the null key).
+    * 
+    * @param hashCode
+    * @return int value
+    */
+   int hashOfCode(int hashCode);
+}
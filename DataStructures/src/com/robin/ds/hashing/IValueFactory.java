@@ -0,0 +1,20 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class creates the value of a key that is missing from a table.
+ * 
+ * @author robin
+ * 
+ * @param <E>
+ *           the Element/Value param
+ */
+public interface IValueFactory<E> {
+
+   /**
+    * Method returns the value for the passed key.
+    * 
+    * @param key
+    * @return E or null to leave the slot empty
+    */
+   E create(int key);
+}
@@ -0,0 +1,40 @@
+package com.robin.ds.hashing;
+
+/**
+ * A {@link HashTable} that can report {@link HashTableStatistics}. <blockquote>
+ * Nothing is recorded until statistics are attached, see
+ * {@link HashTableBuilder#instrument(InstrumentedHashTable)}; until then the
+ * table only pays for a null check on its probes and rehashes.</blockquote>
+ * 
+ * @author robin
+ * 
+ * @param <K>
+ *           the key
+ * @param <E>
+ *           the element
+ */
+public interface InstrumentedHashTable<K, E> extends HashTable<K, E> {
+
+   /**
+    * Method attaches the statistics the table records into, null stops the
+    * recording.
+    * 
+    * @param statistics
+    */
+   public void setStatistics(HashTableStatistics statistics);
+
+   /**
+    * Returns the number of entries per slot (or bucket) of the table.
+    * 
+    * @return double value
+    */
+   public double loadFactor();
+
+   /**
+    * Returns the number of slots marked as deleted, that probes still have to
+    * run through. Tables that do not mark deleted slots return 0.
+    * 
+    * @return int value
+    */
+   public int tombstoneCount();
+}
@@ -0,0 +1,24 @@
+package com.robin.ds.hashing;
+
+/**
+ * A cursor over a table whose keys are ints, returned unboxed. It has the
+ * methods of {@link HashTableCursor}, see {@link BoxedKeyCursor} for the view
+ * that can be passed to a {@link ParallelScan}.
+ * 
+ * @author robin
+ * 
+ * @param <E>
+ *           the element
+ */
+interface IntKeyCursor<E> {
+
+   boolean advance();
+
+   int key();
+
+   E value();
+
+   void reset();
+
+   IntKeyCursor<E> trySplit();
+}
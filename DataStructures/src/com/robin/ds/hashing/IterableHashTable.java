@@ -0,0 +1,22 @@
+package com.robin.ds.hashing;
+
+/**
+ * A {@link HashTable} whose entries can be scanned with a
+ * {@link HashTableCursor}.
+ * 
+ * @author robin
+ * 
+ * @param <K>
+ *           the Key param
+ * @param <E>
+ *           the Element/Value param
+ */
+public interface IterableHashTable<K, E> extends HashTable<K, E> {
+
+   /**
+    * Method returns a cursor positioned before the first entry of the table.
+    * 
+    * @return HashTableCursor
+    */
+   public HashTableCursor<K, E> cursor();
+}
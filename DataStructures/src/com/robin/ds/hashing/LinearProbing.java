@@ -7,21 +7,24 @@ package com.robin.ds.hashing;
  * preceded by i full slots gets filled next with probability (i+1)/m. Long runs
  * of occupied slots tend to get longer, and the average search time
  * increases.</blockquote>
+ * <p/>
+ * When the limit is a power of 2 the wrap around is done with a mask.
  * 
  * @author robin
  * 
  */
-public class LinearProbing implements IProbeFunction {
+public class LinearProbing implements IProbeFunction, ICopyableFunction<LinearProbing> {
 
    private int size;
+   private int mask; // size - 1 when size is a power of 2, else -1
 
    public LinearProbing(int size) {
-      this.size = size;
+      setProbeLimit(size);
    }
 
    @Override
    public int probeNext(int index) {
-      return (index + 1) % size;
+      return mask >= 0 ? (index + 1) & mask : (index + 1) % size;
    }
 
    @Override
@@ -32,6 +35,12 @@ public class LinearProbing implements IProbeFunction {
    @Override
    public void setProbeLimit(int limit) {
       this.size = limit;
+      this.mask = (limit & (limit - 1)) == 0 ? limit - 1 : -1;
+   }
+
+   @Override
+   public LinearProbing copy() {
+      return new LinearProbing(size);
    }
 
 }
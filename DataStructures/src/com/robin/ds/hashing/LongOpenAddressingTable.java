@@ -0,0 +1,193 @@
+package com.robin.ds.hashing;
+
+/**
+ * An open addressing table keyed by primitive long values. Keys are held in a
+ * long[] and the elements in a parallel Object[], so an insert neither boxes
+ * the key nor allocates an entry object. Keys are spread over a power of 2
+ * sized array with Fibonacci hashing and collisions are resolved using linear
+ * probing.
+ *
+ * @author robin
+ *
+ * @param <E>
+ *           the element
+ */
+public class LongOpenAddressingTable<E> {
+   // represents a null valued Element
+   private static final Object NULL = new Object();
+   private static final Object DELETED = new Object();
+
+   private long[] keys;
+   private Object[] values;
+   private int count;
+   private int usedSlots; // slots holding a value or a DELETED mark
+   private int shift; // keeps the top bits of the hash product
+
+   /**
+    * Creates a {@link LongOpenAddressingTable} that can hold the specified
+    * number of keys before growing.
+    *
+    * @param size
+    */
+   public LongOpenAddressingTable(int size) {
+      if (size < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      init(FibonacciHash.powerOfTwoAtLeast(2 * size));
+   }
+
+   /**
+    * Method looks-up the specified key value and returns the value associated.
+    * In case the key does not exists it will return null
+    *
+    * @param key
+    * @return E
+    */
+   @SuppressWarnings("unchecked")
+   public E lookUp(long key) {
+      int index = indexOf(key);
+      if (index < 0) {
+         return null;
+      }
+      Object value = values[index];
+      return value == NULL ? null : (E) value;
+   }
+
+   /**
+    * Method will insert a value in the table.
+    *
+    * @param key
+    * @param element
+    * @return E the old value
+    */
+   @SuppressWarnings("unchecked")
+   public E insert(long key, E element) {
+      Object value = element == null ? NULL : element;
+      int length = keys.length;
+      int probeLocn = hash(key);
+      int freeLocn = -1;
+      for (int i = 0; i < length; i++) {
+         Object current = values[probeLocn];
+         if (current == null) {
+            if (freeLocn < 0) {
+               freeLocn = probeLocn;
+            }
+            break; // key not present
+         } else if (current == DELETED) {
+            if (freeLocn < 0) {
+               freeLocn = probeLocn; // reuse the first deleted slot
+            }
+         } else if (keys[probeLocn] == key) {
+            values[probeLocn] = value; // update the existing key
+            return current == NULL ? null : (E) current;
+         }
+         probeLocn = probeNext(probeLocn);
+      }
+      if (values[freeLocn] == null) {
+         usedSlots++;
+      }
+      keys[freeLocn] = key;
+      values[freeLocn] = value;
+      count++;
+      if (usedSlots * 2 > length) {
+         rehash();
+      }
+      return null;
+   }
+
+   /**
+    * Method will delete a value from the table, freeing up the slot.
+    *
+    * @param key
+    */
+   public void delete(long key) {
+      int index = indexOf(key);
+      if (index >= 0) {
+         values[index] = DELETED;
+         count--;
+      }
+   }
+
+   /**
+    * Returns the number of items in the table.
+    *
+    * @return int value
+    */
+   public int count() {
+      return this.count;
+   }
+
+   /**
+    * Method checks if the table is empty.
+    *
+    * @return boolean value
+    */
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Method will return the slot holding the key or -1 if it is not present.
+    *
+    * @param key
+    * @return int value
+    */
+   private int indexOf(long key) {
+      if (count == 0) {
+         return -1;
+      }
+      int length = keys.length;
+      int probeLocn = hash(key);
+      for (int i = 0; i < length; i++) {
+         Object current = values[probeLocn];
+         if (current == null) {
+            break;// value not there
+         } else if (current != DELETED && keys[probeLocn] == key) {
+            return probeLocn;
+         }
+         probeLocn = probeNext(probeLocn);
+      }
+      return -1;
+   }
+
+   /**
+    * Method implements the (Fibonacci) Hashing method.
+    *
+    * @param key
+    * @return int value
+    */
+   private int hash(long key) {
+      return (int) ((key * FibonacciHash.GOLDEN_RATIO) >>> shift);
+   }
+
+   private int probeNext(int index) {
+      return (index + 1) & (keys.length - 1);
+   }
+
+   /**
+    * Method rebuilds the table once half of its slots are in use. The table
+    * is only grown when the live keys need the room, otherwise the rebuild
+    * just clears out the DELETED marks.
+    */
+   @SuppressWarnings("unchecked")
+   private void rehash() {
+      long[] originalKeys = keys;
+      Object[] originalValues = values;
+      int newLength = count * 4 > keys.length ? keys.length * 2 : keys.length;
+      init(newLength);
+      for (int i = 0; i < originalValues.length; i++) {
+         Object value = originalValues[i];
+         if (value != null && value != DELETED) {
+            insert(originalKeys[i], value == NULL ? null : (E) value);
+         }
+      }
+   }
+
+   private void init(int length) {
+      keys = new long[length];
+      values = new Object[length];
+      shift = 64 - Integer.numberOfTrailingZeros(length);
+      count = 0;
+      usedSlots = 0;
+   }
+}
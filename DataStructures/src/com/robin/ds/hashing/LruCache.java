@@ -0,0 +1,222 @@
+package com.robin.ds.hashing;
+
+/**
+ * A cache holding at most a fixed number of entries, which evicts the least
+ * recently used entry to make room for a new one. <blockquote>The entries are
+ * held in a {@link ChainHashTable} and are also linked, most recently used
+ * first, into a double linked access list. A hit moves its entry to the front
+ * of the list and an overflow evicts the entry at the back, both in O(1).
+ * </blockquote>
+ * <p/>
+ * A hit neither allocates nor resizes anything. The table is sized for the
+ * capacity up front, so it does not grow either. The hits, misses and
+ * evictions are counted. The cache is not thread-safe.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           Key - must be unique
+ * @param <E>
+ *           Element
+ */
+public class LruCache<K, E> {
+
+   private static final double LOAD_FACTOR = 0.75;
+
+   /**
+    * An entry of the access list. The list is circular around a sentinel, so
+    * linking and unlinking need no null checks.
+    *
+    * @author robin
+    *
+    */
+   private class Node {
+      K key;
+      E element;
+      Node before, after;
+
+      @Override
+      public String toString() {
+         return "E [ k: " + key + ", e : " + element + " ]";
+      }
+   }
+
+   private final ChainHashTable<K, Node> table;
+   private final Node head = new Node(); // after is the most recently used
+   private final int capacity;
+   private long hitCount;
+   private long missCount;
+   private long evictionCount;
+
+   /**
+    * Creates a cache that holds up to capacity entries.
+    *
+    * @param capacity
+    */
+   public LruCache(int capacity) {
+      if (capacity < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      this.capacity = capacity;
+      this.table = HashTableBuilder.getFibonacciBasedHashTable((int) Math.ceil(capacity / LOAD_FACTOR));
+      head.before = head;
+      head.after = head;
+   }
+
+   /**
+    * Method looks-up the key and marks its entry as the most recently used. In
+    * case the key is not cached it will return null
+    *
+    * @param key
+    * @return E
+    */
+   public E get(K key) {
+      Node node = table.lookUp(key);
+      if (node == null) {
+         missCount++;
+         return null;
+      }
+      hitCount++;
+      moveToFront(node);
+      return node.element;
+   }
+
+   /**
+    * Method will cache the value as the most recently used entry, evicting the
+    * least recently used entry if the cache is full.
+    *
+    * @param key
+    * @param element
+    * @return E the old value
+    */
+   public E put(K key, E element) {
+      Node node = table.lookUp(key);
+      if (node != null) {
+         E oldValue = node.element;
+         node.element = element;
+         moveToFront(node);
+         return oldValue;
+      }
+      if (table.count() == capacity) {
+         Node eldest = head.before;
+         unlink(eldest);
+         table.delete(eldest.key);
+         evictionCount++;
+      }
+      node = new Node();
+      node.key = key;
+      node.element = element;
+      table.insert(key, node);
+      linkFirst(node);
+      return null;
+   }
+
+   /**
+    * Method will remove the key from the cache.
+    *
+    * @param key
+    */
+   public void invalidate(K key) {
+      Node node = table.lookUp(key);
+      if (node != null) {
+         unlink(node);
+         table.delete(key);
+      }
+   }
+
+   /**
+    * Method will remove every entry from the cache. The counters are kept.
+    */
+   public void invalidateAll() {
+      for (Node node = head.after; node != head; node = node.after) {
+         table.delete(node.key);
+      }
+      head.before = head;
+      head.after = head;
+   }
+
+   /**
+    * Returns the number of entries in the cache.
+    *
+    * @return int value
+    */
+   public int count() {
+      return table.count();
+   }
+
+   /**
+    * Returns the maximum number of entries in the cache.
+    *
+    * @return int value
+    */
+   public int capacity() {
+      return capacity;
+   }
+
+   /**
+    * Returns the number of look-ups that found their key.
+    *
+    * @return long value
+    */
+   public long hitCount() {
+      return hitCount;
+   }
+
+   /**
+    * Returns the number of look-ups that did not find their key.
+    *
+    * @return long value
+    */
+   public long missCount() {
+      return missCount;
+   }
+
+   /**
+    * Returns the number of entries evicted to make room for new ones.
+    *
+    * @return long value
+    */
+   public long evictionCount() {
+      return evictionCount;
+   }
+
+   /**
+    * Returns the share of the look-ups that found their key, 0 before the
+    * first look-up.
+    *
+    * @return double value
+    */
+   public double hitRate() {
+      long lookUps = hitCount + missCount;
+      return lookUps == 0 ? 0 : (double) hitCount / lookUps;
+   }
+
+   /**
+    * Method returns the key of the least recently used entry - the next one to
+    * be evicted - or null if the cache is empty.
+    *
+    * @return K
+    */
+   public K eldestKey() {
+      return head.before == head ? null : head.before.key;
+   }
+
+   private void moveToFront(Node node) {
+      if (head.after != node) {
+         unlink(node);
+         linkFirst(node);
+      }
+   }
+
+   private void linkFirst(Node node) {
+      node.before = head;
+      node.after = head.after;
+      head.after.before = node;
+      head.after = node;
+   }
+
+   private void unlink(Node node) {
+      node.before.after = node.after;
+      node.after.before = node.before;
+   }
+}
@@ -0,0 +1,519 @@
+package com.robin.ds.hashing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A hash table that lives in files, so that it survives a restart of the JVM.
+ * <blockquote>The slots of an open addressing (linear probing) table are
+ * kept in an index file that is memory mapped. Each slot holds the hash of its
+ * key and the offset of the serialized key and element in an append-only data
+ * file.</blockquote>
+ * <p/>
+ * Opening an existing table only maps the index, the operating system pages
+ * it in as the slots are touched. The mapping is private (copy on write), so
+ * the changes only reach the index file at a checkpoint - {@link #force()},
+ * {@link #close()} or a rebuild of the index. A checkpoint forces the data
+ * file to disk, writes the whole index to a new file, forces it and replaces
+ * the old index with an atomic rename, which is made durable by forcing the
+ * directory. After a crash the table is therefore found as of the last
+ * checkpoint, and its slots only refer to records that were on disk before
+ * the index was. The space of replaced and deleted records is not reclaimed.
+ * <p/>
+ * Forcing a directory relies on the file system allowing it, as the Linux and
+ * macOS ones do.
+ * <p/>
+ * The hashCode of the keys must be the same in every JVM, as it is for String
+ * and the boxed primitives. The index is limited to 2^26 slots.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           the key
+ * @param <E>
+ *           the element
+ */
+public class MappedHashTable<K extends Serializable, E extends Serializable> implements InstrumentedHashTable<K, E>,
+      Closeable {
+
+   private static final int MAGIC = 0x48544231; // HTB1
+   private static final int HEADER_SIZE = 64;
+   private static final int SLOT_SIZE = 16; // offset, hash, length
+   private static final int MAX_CAPACITY = 1 << 26;
+   private static final int DATA_HEADER_SIZE = 8; // so that offset 0 can mean EMPTY
+   private static final long EMPTY = 0;
+   private static final long DELETED = -1;
+
+   // header fields
+   private static final int CAPACITY_OFFSET = 4;
+   private static final int COUNT_OFFSET = 8;
+   private static final int USED_SLOTS_OFFSET = 12;
+   private static final int DATA_END_OFFSET = 16;
+
+   private final Path indexPath;
+   private final Path dataPath;
+   private FileChannel dataChannel;
+   private MappedByteBuffer index;
+   private int capacity;
+   private int shift;
+   private int count;
+   private int usedSlots; // slots holding a record or a DELETED mark
+   private long dataEnd;
+   private HashTableStatistics statistics;
+
+   /**
+    * Opens the table kept in the specified files, creating them for the
+    * specified number of entries if they do not exist.
+    *
+    * @param indexPath
+    * @param dataPath
+    * @param size
+    */
+   public MappedHashTable(Path indexPath, Path dataPath, int size) {
+      if (size < 1 || size > MAX_CAPACITY / 2) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      this.indexPath = indexPath;
+      this.dataPath = dataPath;
+      try {
+         dataChannel = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+               StandardOpenOption.WRITE);
+         if (Files.exists(indexPath)) {
+            openIndex();
+         } else {
+            dataChannel.truncate(0);
+            dataChannel.write(ByteBuffer.allocate(DATA_HEADER_SIZE).putInt(0, MAGIC), 0);
+            dataEnd = DATA_HEADER_SIZE;
+            forceDirectory(dataPath); // the index will refer to the new data file
+            Path newIndexPath = newIndexPath();
+            createIndex(newIndexPath, FibonacciHash.powerOfTwoAtLeast(2 * size));
+            publish(newIndexPath);
+         }
+      } catch (IOException e) {
+         throw new IllegalStateException("Cannot open table " + indexPath, e);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   public E lookUp(K key) {
+      int slot = slotOf(key, hash(key));
+      return slot < 0 ? null : (E) readRecord(slot)[1];
+   }
+
+   @SuppressWarnings("unchecked")
+   public E insert(K key, E value) {
+      int hash = hash(key);
+      int slot = slotOf(key, hash);
+      E oldValue = null;
+      if (slot >= 0) {
+         oldValue = (E) readRecord(slot)[1];
+      } else {
+         if ((usedSlots + 1) * 2 > capacity) {
+            rehash();
+         }
+         slot = freeSlotFor(hash);
+         if (index.getLong(slotOffset(slot)) == EMPTY) {
+            usedSlots++;
+         }
+         count++;
+      }
+      byte[] record = serialize(key, value);
+      long offset = append(record);
+      int slotOffset = slotOffset(slot);
+      index.putInt(slotOffset + 8, hash);
+      index.putInt(slotOffset + 12, record.length);
+      index.putLong(slotOffset, offset);
+      writeHeader();
+      return oldValue;
+   }
+
+   public void lookUpAll(K[] keys, E[] values) {
+      Batches.lookUpEach(this, keys, values);
+   }
+
+   public void insertAll(K[] keys, E[] values) {
+      Batches.insertEach(this, keys, values);
+   }
+
+   public void delete(K key) {
+      int slot = slotOf(key, hash(key));
+      if (slot >= 0) {
+         index.putLong(slotOffset(slot), DELETED);
+         count--;
+         writeHeader();
+      }
+   }
+
+   public int count() {
+      return this.count;
+   }
+
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Returns the number of entries per slot of the index.
+    */
+   public double loadFactor() {
+      checkOpen();
+      return (double) count / capacity;
+   }
+
+   /**
+    * Returns the number of DELETED slots of the index.
+    */
+   public int tombstoneCount() {
+      checkOpen();
+      return usedSlots - count;
+   }
+
+   /**
+    * Method attaches statistics to the table, they are not kept in the files.
+    */
+   public void setStatistics(HashTableStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   /**
+    * Method writes all the changes made so far to the disk. Once it returns the
+    * table will be found in this state after a restart (a checkpoint). The
+    * whole index is written, not just the changed slots. If the checkpoint
+    * fails the table is left as it was and can still be used.
+    */
+   public void force() {
+      checkOpen();
+      Path newIndexPath = newIndexPath();
+      try {
+         try (FileChannel channel = FileChannel.open(newIndexPath, StandardOpenOption.CREATE,
+               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer slots = index.duplicate();
+            slots.clear();
+            while (slots.hasRemaining()) {
+               channel.write(slots);
+            }
+            channel.force(true);
+         }
+         publish(newIndexPath);
+      } catch (IOException e) {
+         throw new IllegalStateException("Cannot write table " + indexPath, e);
+      }
+   }
+
+   /**
+    * Method forces the changes to the disk and closes the files. The table can
+    * not be used afterwards.
+    */
+   public void close() {
+      if (index == null) {
+         return;
+      }
+      force();
+      DirectBuffers.free(index);
+      index = null;
+      try {
+         dataChannel.close();
+      } catch (IOException e) {
+         throw new IllegalStateException("Cannot close table " + indexPath, e);
+      }
+   }
+
+   /**
+    * Method will return the slot holding the key or -1 if it is not present.
+    *
+    * @param key
+    * @param hash
+    * @return int value
+    */
+   private int slotOf(K key, int hash) {
+      checkOpen();
+      int mask = capacity - 1;
+      int slot = home(hash);
+      int i = 0;
+      for (; i < capacity; i++) {
+         int slotOffset = slotOffset(slot);
+         long offset = index.getLong(slotOffset);
+         if (offset == EMPTY) {
+            break; // key not present
+         }
+         // only the records with the same hash are read from the data file
+         if (offset != DELETED && index.getInt(slotOffset + 8) == hash && nullSafeEquals(key, readRecord(slot)[0])) {
+            recordProbe(i + 1);
+            return slot;
+         }
+         slot = (slot + 1) & mask;
+      }
+      recordProbe(Math.min(i + 1, capacity));
+      return -1;
+   }
+
+   private int freeSlotFor(int hash) {
+      return freeSlotFor(index, capacity, shift, hash);
+   }
+
+   private static int freeSlotFor(ByteBuffer index, int capacity, int shift, int hash) {
+      int mask = capacity - 1;
+      int slot = home(hash, shift);
+      while (index.getLong(slotOffset(slot)) > 0) {
+         slot = (slot + 1) & mask; // skip the live records
+      }
+      return slot;
+   }
+
+   /**
+    * Method rebuilds the index in a new file and publishes it, which makes the
+    * rebuild a checkpoint too. The current index stays in use until the new
+    * one has replaced it.
+    */
+   private void rehash() {
+      long start = statistics == null ? 0 : System.nanoTime();
+      int newCapacity = count * 4 > capacity ? capacity * 2 : capacity;
+      if (newCapacity > MAX_CAPACITY) {
+         throw new IllegalStateException("Table is full");
+      }
+      Path newIndexPath = newIndexPath();
+      try {
+         createIndex(newIndexPath, newCapacity);
+         publish(newIndexPath);
+      } catch (IOException e) {
+         throw new IllegalStateException("Cannot rebuild table " + indexPath, e);
+      }
+      if (statistics != null) {
+         statistics.recordRehash(start);
+      }
+   }
+
+   private void recordProbe(int length) {
+      if (statistics != null) {
+         statistics.recordProbe(length);
+      }
+   }
+
+   /**
+    * Method writes an index of the specified number of slots to the passed
+    * file and forces it to the disk. The index holds the live records of the
+    * current index, if there is one, and no DELETED slots.
+    *
+    * @param path
+    * @param newCapacity
+    * @throws IOException
+    */
+   private void createIndex(Path path, int newCapacity) throws IOException {
+      int newShift = shiftOf(newCapacity);
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+         // the mapping extends the file with zeros, i.e. EMPTY slots
+         MappedByteBuffer newIndex = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+         try {
+            for (int slot = 0; index != null && slot < capacity; slot++) {
+               int slotOffset = slotOffset(slot);
+               long offset = index.getLong(slotOffset);
+               if (offset > 0) {
+                  int hash = index.getInt(slotOffset + 8);
+                  int newSlotOffset = slotOffset(freeSlotFor(newIndex, newCapacity, newShift, hash));
+                  newIndex.putLong(newSlotOffset, offset);
+                  newIndex.putInt(newSlotOffset + 8, hash);
+                  newIndex.putInt(newSlotOffset + 12, index.getInt(slotOffset + 12));
+               }
+            }
+            writeHeader(newIndex, newCapacity, count);
+            // a channel is not guaranteed to write what was put into a mapping
+            newIndex.force();
+            channel.force(true);
+         } finally {
+            DirectBuffers.free(newIndex);
+         }
+      }
+   }
+
+   /**
+    * Method makes the index written and forced to the passed file the index of
+    * the table. The data file is forced first, so the index never reaches the
+    * disk before the records it refers to. The table switches to the new index
+    * only once it is in place, so a failure leaves the table as it was.
+    *
+    * @param newIndexPath
+    * @throws IOException
+    */
+   private void publish(Path newIndexPath) throws IOException {
+      dataChannel.force(false);
+      Files.move(newIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      forceDirectory(indexPath);
+      openIndex();
+   }
+
+   /**
+    * Method forces the directory holding the passed file, so that a file
+    * created or renamed in it is still found after a crash.
+    *
+    * @param path
+    * @throws IOException
+    */
+   private static void forceDirectory(Path path) throws IOException {
+      try (FileChannel directory = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+         directory.force(true);
+      }
+   }
+
+   /**
+    * Method maps the index file and checks it against the data file, the
+    * mapping replaces the current one only if the check passes.
+    *
+    * @throws IOException
+    */
+   private void openIndex() throws IOException {
+      MappedByteBuffer newIndex;
+      try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+         // the mapping stays valid once the channel is closed
+         newIndex = channel.map(MapMode.PRIVATE, 0, channel.size());
+      }
+      if (newIndex.getInt(0) != MAGIC) {
+         throw new IOException("Not a hash table index");
+      }
+      ByteBuffer dataHeader = ByteBuffer.allocate(DATA_HEADER_SIZE);
+      if (dataChannel.size() < DATA_HEADER_SIZE || dataChannel.read(dataHeader, 0) < 4
+            || dataHeader.getInt(0) != MAGIC) {
+         throw new IOException("Not a hash table data file " + dataPath);
+      }
+      long newDataEnd = newIndex.getLong(DATA_END_OFFSET);
+      if (newDataEnd < DATA_HEADER_SIZE || newDataEnd > dataChannel.size()) {
+         throw new IOException("The index refers beyond the end of " + dataPath);
+      }
+      MappedByteBuffer oldIndex = index;
+      index = newIndex;
+      capacity = index.getInt(CAPACITY_OFFSET);
+      shift = shiftOf(capacity);
+      count = index.getInt(COUNT_OFFSET);
+      usedSlots = index.getInt(USED_SLOTS_OFFSET);
+      dataEnd = newDataEnd;
+      if (oldIndex != null) {
+         DirectBuffers.free(oldIndex);
+      }
+   }
+
+   private Path newIndexPath() {
+      return indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+   }
+
+   private void writeHeader() {
+      writeHeader(index, capacity, usedSlots);
+   }
+
+   private void writeHeader(ByteBuffer index, int capacity, int usedSlots) {
+      index.putInt(0, MAGIC);
+      index.putInt(CAPACITY_OFFSET, capacity);
+      index.putInt(COUNT_OFFSET, count);
+      index.putInt(USED_SLOTS_OFFSET, usedSlots);
+      index.putLong(DATA_END_OFFSET, dataEnd);
+   }
+
+   /**
+    * Method appends the record at the end of the data written so far. Anything
+    * beyond that end was left by a run that did not update the index.
+    *
+    * @param record
+    * @return long the offset of the record
+    */
+   private long append(byte[] record) {
+      long offset = dataEnd;
+      try {
+         ByteBuffer buffer = ByteBuffer.wrap(record);
+         while (buffer.hasRemaining()) {
+            dataChannel.write(buffer, offset + buffer.position());
+         }
+      } catch (IOException e) {
+         throw new IllegalStateException("Cannot write table " + dataPath, e);
+      }
+      dataEnd += record.length;
+      return offset;
+   }
+
+   /**
+    * Method reads the key and the element held in the slot.
+    *
+    * @param slot
+    * @return Object[] the key and the element
+    */
+   private Object[] readRecord(int slot) {
+      int slotOffset = slotOffset(slot);
+      long offset = index.getLong(slotOffset);
+      int length = index.getInt(slotOffset + 12);
+      try {
+         if (offset < DATA_HEADER_SIZE || length < 0 || offset + length > dataEnd) {
+            throw new IOException("Slot " + slot + " refers beyond the end of " + dataPath);
+         }
+         ByteBuffer buffer = ByteBuffer.allocate(length);
+         while (buffer.hasRemaining()) {
+            if (dataChannel.read(buffer, offset + buffer.position()) < 0) {
+               throw new IOException("Record beyond the end of " + dataPath);
+            }
+         }
+         try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.array()))) {
+            return new Object[] { in.readObject(), in.readObject() };
+         }
+      } catch (IOException | ClassNotFoundException e) {
+         throw new IllegalStateException("Cannot read table " + dataPath, e);
+      }
+   }
+
+   private static byte[] serialize(Object key, Object value) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+         out.writeObject(key);
+         out.writeObject(value);
+      } catch (IOException e) {
+         throw new IllegalArgumentException("Cannot serialize " + key, e);
+      }
+      return bytes.toByteArray();
+   }
+
+   private int hash(K key) {
+      return key == null ? 0 : key.hashCode();
+   }
+
+   /**
+    * Method implements the (Fibonacci) Hashing method.
+    *
+    * @param hash
+    * @return int value
+    */
+   private int home(int hash) {
+      return home(hash, shift);
+   }
+
+   private static int home(int hash, int shift) {
+      return (int) ((hash * FibonacciHash.GOLDEN_RATIO) >>> shift);
+   }
+
+   private static int shiftOf(int capacity) {
+      return 64 - Integer.numberOfTrailingZeros(capacity);
+   }
+
+   private static int slotOffset(int slot) {
+      return HEADER_SIZE + slot * SLOT_SIZE;
+   }
+
+   private void checkOpen() {
+      if (index == null) {
+         throw new IllegalStateException("Table is closed");
+      }
+   }
+
+   private static boolean nullSafeEquals(Object value1, Object value2) {
+      return (value1 == null && value2 == null) || (value1 != null && value1.equals(value2));
+   }
+}
@@ -10,14 +10,17 @@ import java.math.MathContext;
  * 
  * @param <K>
  */
-public class MultiplicationHash<K> implements IHashFunction<K> {
+public class MultiplicationHash<K> implements IHashFunction<K>, IHashCodeFunction,
+      ICopyableFunction<MultiplicationHash<K>> {
 
    private BigDecimal constant; // in the range of (0,1)
    // 0.6180339887 - [(root(5) -1)/2]suggested by Knuth
    private BigDecimal multiplicand;
+   private int hashLimit;
 
    public MultiplicationHash(int multiplicand) {
       this.multiplicand = new BigDecimal(multiplicand); // this naming is ok
+      this.hashLimit = multiplicand;
       constant = new BigDecimal("0.6180339887");
    }
 
@@ -29,19 +32,31 @@ public class MultiplicationHash<K> implements IHashFunction<K> {
     */
    @Override
    public int hash(K key) {
-      if (key == null) {
-         return NULL_HASH;
-      }
+      return key == null ? NULL_HASH : hashOfCode(key.hashCode());
+   }
+
+   @Override
+   public int hashOfCode(int hashCode) {
       // Multiply key by Constant
       // Take the decimal part of the product (hence the modulo 1 operation)
       // Multiply this with the multiplicand parameter
-      return new BigDecimal(key.hashCode()).multiply(constant, MathContext.DECIMAL32)
+      int index = new BigDecimal(hashCode).multiply(constant, MathContext.DECIMAL32)
             .remainder(new BigDecimal("1").multiply(multiplicand, MathContext.DECIMAL32)).intValue();
+      // a negative hashCode gives a negative remainder, and the rounding to 7
+      // digits can leave a large limit slightly too big
+      index %= hashLimit;
+      return index < 0 ? index + hashLimit : index;
    }
 
    @Override
    public void setHashLimit(int hashLimit) {
       this.multiplicand = new BigDecimal(hashLimit);
+      this.hashLimit = hashLimit;
+   }
+
+   @Override
+   public MultiplicationHash<K> copy() {
+      return new MultiplicationHash<K>(hashLimit);
    }
 
 }
@@ -0,0 +1,93 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class represents the MurmurHash3 x64 128 bit hash, of which the first 64
+ * bits are used. <blockquote>The input is read in blocks of 16 bytes into two
+ * 64 bit halves, which are mixed into each other and run through the fmix64
+ * finalizer at the end.</blockquote>
+ * <p/>
+ * The result matches the low half of the reference MurmurHash3_x64_128 for the
+ * same bytes and seed.
+ *
+ * @author robin
+ *
+ * @param <K>
+ */
+public class Murmur3Hash<K> extends AbstractHash64<K> implements ICopyableFunction<Murmur3Hash<K>> {
+
+   private static final long C1 = 0x87C37B91114253D5L;
+   private static final long C2 = 0x4CF5AD432745937FL;
+
+   public Murmur3Hash(int hashLimit) {
+      this(hashLimit, 0);
+   }
+
+   public Murmur3Hash(int hashLimit, long seed) {
+      super(hashLimit, seed);
+   }
+
+   @Override
+   public Murmur3Hash<K> copy() {
+      return new Murmur3Hash<K>(hashLimit(), seed);
+   }
+
+   @Override
+   public long hashLong(long value) {
+      return finish(seed ^ mixK1(value), seed, 8);
+   }
+
+   @Override
+   long hash(Input input, Object data, int offset, int length) {
+      long h1 = seed;
+      long h2 = seed;
+      int index = offset;
+      int end = offset + length;
+      for (; index <= end - 16; index += 16) {
+         h1 ^= mixK1(input.getLong(data, index));
+         h1 = Long.rotateLeft(h1, 27) + h2;
+         h1 = h1 * 5 + 0x52DCE729;
+         h2 ^= mixK2(input.getLong(data, index + 8));
+         h2 = Long.rotateLeft(h2, 31) + h1;
+         h2 = h2 * 5 + 0x38495AB5;
+      }
+      int tail = end - index;
+      if (tail > 8) {
+         h2 ^= mixK2(input.getPartial(data, index + 8, tail - 8));
+      }
+      if (tail > 0) {
+         h1 ^= mixK1(input.getPartial(data, index, Math.min(tail, 8)));
+      }
+      return finish(h1, h2, length);
+   }
+
+   private static long finish(long h1, long h2, int length) {
+      h1 ^= length;
+      h2 ^= length;
+      h1 += h2;
+      h2 += h1;
+      return fmix64(h1) + fmix64(h2);
+   }
+
+   private static long mixK1(long k1) {
+      return Long.rotateLeft(k1 * C1, 31) * C2;
+   }
+
+   private static long mixK2(long k2) {
+      return Long.rotateLeft(k2 * C2, 33) * C1;
+   }
+
+   /**
+    * Method runs the value through the MurmurHash3 finalizer, which makes
+    * every bit of the result depend on every bit of the value.
+    *
+    * @param value
+    * @return long value
+    */
+   static long fmix64(long value) {
+      value ^= value >>> 33;
+      value *= 0xFF51AFD7ED558CCDL;
+      value ^= value >>> 33;
+      value *= 0xC4CEB9FE1A85EC53L;
+      return value ^ value >>> 33;
+   }
+}
@@ -0,0 +1,408 @@
+package com.robin.ds.hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An open addressing table keyed by primitive long values that stores fixed
+ * width records outside of the java heap. <blockquote>Each slot holds the 8
+ * byte key followed by the record, in direct {@link ByteBuffer}s of up to 1GB
+ * each (chunks).</blockquote> Whatever the number of entries, the heap only
+ * holds the chunk buffers, so there are no per entry headers and nothing for
+ * the collector to trace.
+ * <p/>
+ * Keys are spread with Fibonacci hashing and collisions are resolved with
+ * linear probing. Deletes shift the following entries of the run back, so the
+ * table needs no DELETED marks. Key 0 marks an empty slot, the record of key 0
+ * itself is kept on the side.
+ * <p/>
+ * The memory is only released by {@link #close()}, the table can not be used
+ * after it is closed.
+ *
+ * @author robin
+ *
+ */
+public class OffHeapHashTable {
+
+   private static final int KEY_SIZE = 8;
+   private static final int MAX_CHUNK_BYTES = 1 << 30;
+   private static final double MAX_LOAD_FACTOR = 0.75;
+
+   private final int recordSize;
+   private final int slotSize;
+   private ByteBuffer[] chunks;
+   private int chunkShift; // slots per chunk is 2^chunkShift
+   private int capacity; // slots, a power of 2
+   private int shift; // keeps the top bits of the hash product
+   private int count;
+   private boolean hasZeroKey;
+   private ByteBuffer zeroKeyRecord;
+   private boolean closed;
+
+   /**
+    * Creates a {@link OffHeapHashTable} that can hold the specified number of
+    * records of recordSize bytes before growing.
+    *
+    * @param size
+    * @param recordSize
+    */
+   public OffHeapHashTable(int size, int recordSize) {
+      if (size < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      if (recordSize < 1 || recordSize > MAX_CHUNK_BYTES / 2) {
+         throw new IllegalArgumentException("Invalid record size");
+      }
+      this.recordSize = recordSize;
+      this.slotSize = KEY_SIZE + recordSize;
+      this.zeroKeyRecord = allocate(recordSize);
+      init(FibonacciHash.powerOfTwoAtLeast((int) Math.min(1 << 30, (long) Math.ceil(size / MAX_LOAD_FACTOR))));
+   }
+
+   /**
+    * Method looks-up the specified key and copies its record into the passed
+    * array.
+    *
+    * @param key
+    * @param record
+    *           - receives the record, at least recordSize long
+    * @return boolean value indicating if the key was found
+    */
+   public boolean lookUp(long key, byte[] record) {
+      checkRecord(record);
+      if (key == 0) {
+         if (hasZeroKey) {
+            readRecord(zeroKeyRecord, 0, record);
+         }
+         return hasZeroKey;
+      }
+      int slot = slotOf(key);
+      if (slot < 0) {
+         return false;
+      }
+      readRecord(chunk(slot), offset(slot) + KEY_SIZE, record);
+      return true;
+   }
+
+   /**
+    * Method looks-up the specified key and returns the long held in the first
+    * 8 bytes of its record.
+    *
+    * @param key
+    * @param missingValue
+    *           - returned when the key is not present
+    * @return long value
+    */
+   public long lookUp(long key, long missingValue) {
+      checkLongRecord();
+      if (key == 0) {
+         return hasZeroKey ? zeroKeyRecord.getLong(0) : missingValue;
+      }
+      int slot = slotOf(key);
+      return slot < 0 ? missingValue : chunk(slot).getLong(offset(slot) + KEY_SIZE);
+   }
+
+   /**
+    * Method will insert the record for the key, replacing the record already
+    * held for it.
+    *
+    * @param key
+    * @param record
+    *           - the first recordSize bytes are stored
+    * @return boolean value indicating if a record was replaced
+    */
+   public boolean insert(long key, byte[] record) {
+      checkRecord(record);
+      if (key == 0) {
+         writeRecord(zeroKeyRecord, 0, record);
+         return addZeroKey();
+      }
+      int slot = claimSlot(key);
+      boolean replaced = slot >= 0;
+      slot = replaced ? slot : ~slot;
+      writeRecord(chunk(slot), offset(slot) + KEY_SIZE, record);
+      return replaced;
+   }
+
+   /**
+    * Method will insert the long as the first 8 bytes of the key's record.
+    *
+    * @param key
+    * @param value
+    * @return boolean value indicating if a record was replaced
+    */
+   public boolean insert(long key, long value) {
+      checkLongRecord();
+      if (key == 0) {
+         zeroKeyRecord.putLong(0, value);
+         return addZeroKey();
+      }
+      int slot = claimSlot(key);
+      boolean replaced = slot >= 0;
+      slot = replaced ? slot : ~slot;
+      chunk(slot).putLong(offset(slot) + KEY_SIZE, value);
+      return replaced;
+   }
+
+   /**
+    * Method will delete the key, shifting the following entries of the run
+    * back into the freed slot.
+    *
+    * @param key
+    */
+   public void delete(long key) {
+      checkOpen();
+      if (key == 0) {
+         if (hasZeroKey) {
+            hasZeroKey = false;
+            count--;
+         }
+         return;
+      }
+      int slot = slotOf(key);
+      if (slot < 0) {
+         return;
+      }
+      int mask = capacity - 1;
+      int free = slot;
+      for (int next = (free + 1) & mask;; next = (next + 1) & mask) {
+         long nextKey = keyAt(next);
+         if (nextKey == 0) {
+            break;
+         }
+         int home = hash(nextKey);
+         // move the entry back unless its home lies after the free slot
+         if (((next - home) & mask) >= ((next - free) & mask)) {
+            copySlot(chunk(next), offset(next), chunk(free), offset(free));
+            free = next;
+         }
+      }
+      chunk(free).putLong(offset(free), 0);
+      count--;
+   }
+
+   /**
+    * Returns the number of items in the table.
+    *
+    * @return int value
+    */
+   public int count() {
+      return this.count;
+   }
+
+   /**
+    * Method checks if the table is empty.
+    *
+    * @return boolean value
+    */
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Returns the number of bytes the table holds outside of the heap.
+    *
+    * @return long value
+    */
+   public long offHeapBytes() {
+      checkOpen();
+      long bytes = recordSize;
+      for (ByteBuffer chunk : chunks) {
+         bytes += chunk.capacity();
+      }
+      return bytes;
+   }
+
+   /**
+    * Method releases the memory of the table. Any later call fails with an
+    * {@link IllegalStateException}.
+    */
+   public void close() {
+      if (closed) {
+         return;
+      }
+      closed = true;
+      for (ByteBuffer chunk : chunks) {
+         DirectBuffers.free(chunk);
+      }
+      DirectBuffers.free(zeroKeyRecord);
+      chunks = null;
+      zeroKeyRecord = null;
+      count = 0;
+   }
+
+   /**
+    * Method will return the slot holding the key or -1 if it is not present.
+    *
+    * @param key
+    *           - a non zero key
+    * @return int value
+    */
+   private int slotOf(long key) {
+      checkOpen();
+      int mask = capacity - 1;
+      for (int slot = hash(key);; slot = (slot + 1) & mask) {
+         long slotKey = keyAt(slot);
+         if (slotKey == key) {
+            return slot;
+         } else if (slotKey == 0) {
+            return -1;
+         }
+      }
+   }
+
+   /**
+    * Method returns the slot holding the key, or the complement (~) of the
+    * slot the key has been given when it is new.
+    *
+    * @param key
+    *           - a non zero key
+    * @return int value
+    */
+   private int claimSlot(long key) {
+      int slot = slotOf(key);
+      if (slot >= 0) {
+         return slot;
+      }
+      if (count + 1 > capacity * MAX_LOAD_FACTOR) {
+         if (capacity == 1 << 30) {
+            if (count + 1 >= capacity) {
+               throw new IllegalStateException("Table is full");
+            }
+         } else {
+            rehash(capacity * 2);
+         }
+      }
+      slot = emptySlotFor(key);
+      chunk(slot).putLong(offset(slot), key);
+      count++;
+      return ~slot;
+   }
+
+   private int emptySlotFor(long key) {
+      int mask = capacity - 1;
+      int slot = hash(key);
+      while (keyAt(slot) != 0) {
+         slot = (slot + 1) & mask;
+      }
+      return slot;
+   }
+
+   private boolean addZeroKey() {
+      if (hasZeroKey) {
+         return true;
+      }
+      hasZeroKey = true;
+      count++;
+      return false;
+   }
+
+   /**
+    * Method moves all entries into new chunks of the specified number of slots
+    * and releases the old chunks.
+    *
+    * @param newCapacity
+    */
+   private void rehash(int newCapacity) {
+      ByteBuffer[] originalChunks = chunks;
+      int originalChunkShift = chunkShift;
+      int originalCapacity = capacity;
+      int originalCount = count;
+      init(newCapacity);
+      int chunkMask = (1 << originalChunkShift) - 1;
+      for (int slot = 0; slot < originalCapacity; slot++) {
+         ByteBuffer chunk = originalChunks[slot >>> originalChunkShift];
+         int offset = (slot & chunkMask) * slotSize;
+         long key = chunk.getLong(offset);
+         if (key != 0) {
+            int newSlot = emptySlotFor(key);
+            copySlot(chunk, offset, chunk(newSlot), offset(newSlot));
+         }
+      }
+      count = originalCount;
+      for (ByteBuffer chunk : originalChunks) {
+         DirectBuffers.free(chunk);
+      }
+   }
+
+   private void init(int newCapacity) {
+      int slotsPerChunk = Integer.highestOneBit(MAX_CHUNK_BYTES / slotSize);
+      slotsPerChunk = Math.min(slotsPerChunk, newCapacity);
+      chunkShift = Integer.numberOfTrailingZeros(slotsPerChunk);
+      chunks = new ByteBuffer[newCapacity / slotsPerChunk];
+      for (int i = 0; i < chunks.length; i++) {
+         // allocateDirect zeroes the memory, so every key starts out empty
+         chunks[i] = allocate(slotsPerChunk * slotSize);
+      }
+      capacity = newCapacity;
+      shift = 64 - Integer.numberOfTrailingZeros(newCapacity);
+      count = hasZeroKey ? 1 : 0;
+   }
+
+   private static ByteBuffer allocate(int bytes) {
+      return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+   }
+
+   private ByteBuffer chunk(int slot) {
+      return chunks[slot >>> chunkShift];
+   }
+
+   private int offset(int slot) {
+      return (slot & ((1 << chunkShift) - 1)) * slotSize;
+   }
+
+   private long keyAt(int slot) {
+      return chunk(slot).getLong(offset(slot));
+   }
+
+   /**
+    * Method implements the (Fibonacci) Hashing method.
+    *
+    * @param key
+    * @return int value
+    */
+   private int hash(long key) {
+      // a table of a single slot would need a shift of 64, which java ignores
+      return capacity == 1 ? 0 : (int) ((key * FibonacciHash.GOLDEN_RATIO) >>> shift);
+   }
+
+   private void copySlot(ByteBuffer from, int fromOffset, ByteBuffer to, int toOffset) {
+      int i = 0;
+      for (; i + 8 <= slotSize; i += 8) {
+         to.putLong(toOffset + i, from.getLong(fromOffset + i));
+      }
+      for (; i < slotSize; i++) {
+         to.put(toOffset + i, from.get(fromOffset + i));
+      }
+   }
+
+   private void readRecord(ByteBuffer chunk, int offset, byte[] record) {
+      chunk.position(offset); // the other accesses are absolute
+      chunk.get(record, 0, recordSize);
+   }
+
+   private void writeRecord(ByteBuffer chunk, int offset, byte[] record) {
+      chunk.position(offset);
+      chunk.put(record, 0, recordSize);
+   }
+
+   private void checkRecord(byte[] record) {
+      checkOpen();
+      if (record == null || record.length < recordSize) {
+         throw new IllegalArgumentException("Invalid record");
+      }
+   }
+
+   private void checkLongRecord() {
+      checkOpen();
+      if (recordSize < 8) {
+         throw new IllegalStateException("Records are smaller than a long");
+      }
+   }
+
+   private void checkOpen() {
+      if (closed) {
+         throw new IllegalStateException("Table is closed");
+      }
+   }
+}
@@ -14,6 +14,13 @@ public class OpenAddressingTable<K, E> extends AbstractArrayHashTable<K, E> {
 
    private IProbeFunction probeFunction;
    private IHashFunction<K> hashFunction;
+   private IHashCodeFunction hashCodeFunction; // null unless it only uses hashCode()
+   private int limit; // the limit the functions are set to
+   // copies of the functions set to the previous length, kept for the
+   // incremental rehash - null if the functions cannot be copied
+   private IProbeFunction otherProbeFunction;
+   private IHashFunction<K> otherHashFunction;
+   private int otherLimit;
 
    /**
     * Creates a {@link OpenAddressingTable} with specified number of buckets.
@@ -38,90 +45,87 @@ public class OpenAddressingTable<K, E> extends AbstractArrayHashTable<K, E> {
     *           - the type of Hashing function available for use.
     */
    OpenAddressingTable(int size, IHashFunction<K> hashFunction, IProbeFunction probeFunction) {
+      this(size, hashFunction, probeFunction, false);
+   }
+
+   /**
+    * Creates a OpenAddressingTable with specified number of buckets, sized to
+    * a power of 2 if requested. Default access - can only be created within
+    * the package
+    * 
+    * @param size
+    * @param hashFunction
+    * @param probeFunction
+    * @param powerOfTwoLength
+    */
+   OpenAddressingTable(int size, IHashFunction<K> hashFunction, IProbeFunction probeFunction,
+         boolean powerOfTwoLength) {
+      this(size, hashFunction, probeFunction, powerOfTwoLength, false);
+   }
+
+   /**
+    * Creates a OpenAddressingTable with specified number of buckets, sized to
+    * a power of 2 and using the parallel arrays layout if requested. Default
+    * access - can only be created within the package
+    * 
+    * @param size
+    * @param hashFunction
+    * @param probeFunction
+    * @param powerOfTwoLength
+    * @param parallelArrays
+    *           - keeps the keys, elements and hashCodes in parallel arrays
+    *           instead of entry objects
+    */
+   OpenAddressingTable(int size, IHashFunction<K> hashFunction, IProbeFunction probeFunction,
+         boolean powerOfTwoLength, boolean parallelArrays) {
+      super(powerOfTwoLength, parallelArrays);
       if (size < 1) {
          throw new IllegalArgumentException("Invalid size input");
       }
-      int tableSize = findPrimeBiggerThan(2 * size);
+      int tableSize = tableLengthFor(2 * size);
       hashFunction.setHashLimit(tableSize);
       probeFunction.setProbeLimit(tableSize);
       init(tableSize, hashFunction, probeFunction);
    }
 
    /**
-    * Method looks-up the specified key value and returns the value associated.
-    * In case the key does not exists it will return null
+    * Method will return the index holding the key, or -1 if the key is not
+    * present.
     * 
     * @param key
-    * @return E
+    * @param hash
+    * @return int value
     */
-   @SuppressWarnings("unchecked")
-   public E lookUp(K key) {
+   protected int indexOf(K key, int hash) {
       if (count == 0) { // no entries in table
-         return null;
+         return -1;
       }
       int length = values.length;
-      int probeLocn = hash(key);
+      int probeLocn = homeIndex(key, hash);
       probeFunction.initializeProbe();
-      for (int i = 0; i < length; i++) {
+      int i = 0;
+      for (; i < length; i++) {
          if (values[probeLocn] == null) {
             break;// value not there
          } else if (values[probeLocn] == DELETED) {
             // ignore a deleted mark
-         } else if ((key == null && ((Entry) values[probeLocn]).key == null)
-               || (key != null && key.equals(((Entry) values[probeLocn]).key))) {
-            return ((Entry) values[probeLocn]).element;
+         } else if (matchesAt(probeLocn, key, hash)) {
+            recordProbe(i + 1);
+            return probeLocn;
          }
          probeLocn = probeFunction.probeNext(probeLocn);
       }
-      return null;
-   }
-
-   /**
-    * Method will insert a value in the table.
-    * 
-    * @param key
-    * @param element
-    * @return E the old value
-    */
-   public E insert(K key, E element) {
-      // System.out.println("Count of elements is " + count +
-      // " in aray of size " + values.length);
-      E oldValue = null;
-      try {
-         oldValue = insertEntry(key, element);
-      } catch (IllegalStateException illegalStateException) {
-         // need to rehash the table
-         rehash();
-         oldValue = insertEntry(key, element);
-      }
-      return oldValue;
+      recordProbe(Math.min(i + 1, length));
+      return -1;
    }
 
    /**
-    * Method will delete a value from the table, freeing up the slot.
-    * 
-    * @param key
+    * Method derives the home index from the cached hashCode when the hash
+    * function allows it, instead of calling hashCode() again.
     */
-   @SuppressWarnings("unchecked")
-   public void delete(K key) {
-      if (count == 0) {
-         return; // table is empty
-      }
-      int length = values.length;
-      int probeLocn = hash(key);
-      probeFunction.initializeProbe();
-      for (int i = 0; i < length; i++) {
-         if (values[probeLocn] == null) {
-            break;// value not there
-         } else if (values[probeLocn] == DELETED) {
-            // DELETED instance must be ignore
-         } else if ((key == null && ((Entry) values[probeLocn]).key == null)
-               || (key != null && key.equals(((Entry) values[probeLocn]).key))) {
-            values[probeLocn] = DELETED;
-            count--;// value found
-         }// DELETED instance must be ignore
-         probeLocn = this.probeFunction.probeNext(probeLocn);
-      }
+   @Override
+   protected int homeIndex(K key, int hash) {
+      return hashCodeFunction != null && cachesHashCodes() ? hashCodeFunction.hashOfCode(hash) : hash(key);
    }
 
    /**
@@ -136,9 +140,41 @@ public class OpenAddressingTable<K, E> extends AbstractArrayHashTable<K, E> {
    
    @Override
    protected void updateRehashSettings(int newLength) {
+      if (newLength == limit) {
+         return;
+      }
+      if (otherHashFunction != null) {
+         // the functions in use are kept for the previous length
+         swapFunctions();
+      }
+      otherLimit = limit;
+      limit = newLength;
       probeFunction.setProbeLimit(newLength);
       hashFunction.setHashLimit(newLength);
-      
+   }
+
+   @Override
+   protected void swapRehashSettings() {
+      int previousLimit = otherLimit;
+      otherLimit = limit;
+      limit = previousLimit;
+      if (otherHashFunction != null) {
+         swapFunctions();
+      } else {
+         // functions that cannot be copied are reset instead
+         probeFunction.setProbeLimit(limit);
+         hashFunction.setHashLimit(limit);
+      }
+   }
+
+   private void swapFunctions() {
+      IProbeFunction probe = probeFunction;
+      IHashFunction<K> hash = hashFunction;
+      probeFunction = otherProbeFunction;
+      hashFunction = otherHashFunction;
+      otherProbeFunction = probe;
+      otherHashFunction = hash;
+      hashCodeFunction = hashFunction instanceof IHashCodeFunction ? (IHashCodeFunction) hashFunction : null;
    }
 
    /**
@@ -151,48 +187,60 @@ public class OpenAddressingTable<K, E> extends AbstractArrayHashTable<K, E> {
    private void init(int size, IHashFunction<K> hashFunction, IProbeFunction probeFunction) {
       this.probeFunction = probeFunction;
       this.hashFunction = hashFunction;
-      values = new Object[size];
+      if (hashFunction instanceof IHashCodeFunction) {
+         this.hashCodeFunction = (IHashCodeFunction) hashFunction;
+      }
+      this.limit = size;
+      this.otherProbeFunction = copyOf(probeFunction);
+      this.otherHashFunction = otherProbeFunction == null ? null : copyOf(hashFunction);
+      if (otherHashFunction == null) {
+         otherProbeFunction = null;
+      }
+      allocate(size);
       count = 0;
    }
 
    /**
-    * Method will insert a value into the HashTable
+    * Method will insert a value into the HashTable. The first DELETED slot on
+    * the probe sequence is reused, once it is known that the key is not
+    * present further along the sequence.
     * 
     * @param key
     * @param element
+    * @param hash
     * @return
     */
-   @SuppressWarnings("unchecked")
-   private E insertEntry(K key, E element) throws IllegalStateException {
-      E oldValue = null;
-      boolean insertDone = false;
+   protected E insertEntry(K key, E element, int hash) throws IllegalStateException {
+      int freeLocn = -1;
       int length = values.length;
       probeFunction.initializeProbe();
-      int probeLocn = hash(key);
-      for (int i = 0; i < length;) {
-         if (values[probeLocn] == null || values[probeLocn] == DELETED) {
-            // insert the entry in this location
-            values[probeLocn] = new Entry(key, element);
-            count++;
-            insertDone = true;
-            break;
-         } else if (nullSafeEquals(key, ((Entry) values[probeLocn]).key)) {
-            Entry entry = ((Entry) values[probeLocn]);
+      int probeLocn = homeIndex(key, hash);
+      for (int i = 0; i < length; i++) {
+         if (values[probeLocn] == null) {
+            if (freeLocn < 0) {
+               freeLocn = probeLocn;
+            }
+            break; // key not present
+         } else if (values[probeLocn] == DELETED) {
+            if (freeLocn < 0) {
+               freeLocn = probeLocn;
+            }
+         } else if (matchesAt(probeLocn, key, hash)) {
             // update the entry as key already exists
-            oldValue = entry.element;
-            entry.element = element;
-            insertDone = true;
-            break;
-         } else {
-            i++; // continue looking
+            return replaceElementAt(probeLocn, element);
          }
          probeLocn = probeFunction.probeNext(probeLocn);
       }
-      if (!insertDone) {
+      if (freeLocn < 0) {
          throw new IllegalStateException("Failed to insert - Rehash needed !!");
       }
-      return oldValue;
+      // insert the entry in this location
+      if (values[freeLocn] == DELETED) {
+         tombstones--;
+      }
+      putAt(freeLocn, key, element, hash);
+      count++;
+      return null;
    }
 
-
 }
@@ -0,0 +1,327 @@
+package com.robin.ds.hashing;
+
+/**
+ * A Direct Address Table for large, sparse key ranges - holds a set of values
+ * whose keys are unique values in the range of 0 to keyMax-1. <blockquote>The
+ * slots are split into pages of a fixed power of 2 size. A page is only
+ * allocated by the first insert into it, and is freed again once its last
+ * value is deleted.</blockquote>
+ * <p/>
+ * Up front only the page directory is allocated - a reference and a count per
+ * page. The table saves memory over the {@link DirectAddressTable} when the
+ * live keys are clustered; keys spread evenly over the whole range end up
+ * allocating every page.
+ *
+ * @author robin
+ *
+ * @param <E>
+ *           the Elements in the Table
+ */
+public class PagedDirectAddressTable<E> {
+   // represents a null valued Element
+   private static final Object NULL = new Object();
+
+   private static final int DEFAULT_PAGE_SIZE = 4096;
+
+   private final Object[][] pages;
+   private final int[] pageCounts;
+   private final int keyMax;
+   private final int pageShift;
+   private final int pageMask;
+   private int count;
+   private int allocatedPages;
+
+   /**
+    * A cursor over the occupied slots of the table, skipping the pages that
+    * are not allocated. The key is returned as an int so that nothing is
+    * boxed.
+    *
+    * @author robin
+    *
+    */
+   public class Cursor implements IntKeyCursor<E> {
+      private int index;
+      private int end;
+      private boolean onEntry;
+
+      Cursor(int from, int end) {
+         this.index = from - 1;
+         this.end = end;
+      }
+
+      /**
+       * Method moves the cursor to the next occupied slot.
+       *
+       * @return boolean value, false once there are no entries left
+       */
+      public boolean advance() {
+         while (index < end - 1) { // index + 1 could overflow
+            index++;
+            Object[] page = pages[index >>> pageShift];
+            if (page == null) {
+               // jump to the last slot of the page, the loop steps past it
+               index = Math.min(index | pageMask, end - 1);
+            } else if (page[index & pageMask] != null) {
+               onEntry = true;
+               return true;
+            }
+         }
+         index = end;
+         onEntry = false;
+         return false;
+      }
+
+      /**
+       * Returns the key of the entry the cursor is on.
+       *
+       * @return int value
+       */
+      public int key() {
+         checkOnEntry();
+         return index;
+      }
+
+      /**
+       * Returns the element of the entry the cursor is on.
+       *
+       * @return E
+       */
+      @SuppressWarnings("unchecked")
+      public E value() {
+         checkOnEntry();
+         Object value = pages[index >>> pageShift][index & pageMask];
+         return value == NULL ? null : (E) value;
+      }
+
+      /**
+       * Method moves the cursor back before the first slot of the table.
+       */
+      public void reset() {
+         index = -1;
+         end = keyMax;
+         onEntry = false;
+      }
+
+      /**
+       * Method hands the upper half of the slots that are left to a new
+       * cursor, which this cursor will then skip. The split falls on a page
+       * boundary.
+       *
+       * @return Cursor or null if less than two pages are left
+       */
+      public Cursor trySplit() {
+         int from = index + 1;
+         int middle = (int) (((long) from + end) >>> 1) & ~pageMask;
+         if (middle <= from || middle >= end) {
+            return null;
+         }
+         Cursor split = new Cursor(middle, end);
+         end = middle;
+         return split;
+      }
+
+      /**
+       * Returns a {@link HashTableCursor} view of this cursor, so that the
+       * table can be scanned by a {@link ParallelScan}. Only the key is
+       * boxed.
+       *
+       * @return HashTableCursor
+       */
+      public HashTableCursor<Integer, E> boxed() {
+         return new BoxedKeyCursor<E>(this);
+      }
+
+      private void checkOnEntry() {
+         if (!onEntry) {
+            throw new IllegalStateException("Cursor is not on an entry");
+         }
+      }
+   }
+
+   /**
+    * Constructor: Instance holds keys denoted by T[0,1..., keyMax-1], in pages
+    * of 4096 slots.
+    *
+    * @param keyMax
+    */
+   public PagedDirectAddressTable(int keyMax) {
+      this(keyMax, DEFAULT_PAGE_SIZE);
+   }
+
+   /**
+    * Constructor: Instance holds keys denoted by T[0,1..., keyMax-1], in pages
+    * of the specified number of slots.
+    *
+    * @param keyMax
+    * @param pageSize
+    *           - a power of 2
+    */
+   public PagedDirectAddressTable(int keyMax, int pageSize) {
+      if (keyMax < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      if (pageSize < 1 || Integer.bitCount(pageSize) != 1) {
+         throw new IllegalArgumentException("Invalid page size");
+      }
+      this.keyMax = keyMax;
+      this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+      this.pageMask = pageSize - 1;
+      int pageTotal = (int) ((keyMax + (long) pageMask) >>> pageShift);
+      this.pages = new Object[pageTotal][];
+      this.pageCounts = new int[pageTotal];
+   }
+
+   /**
+    * Method looks-up the specified key value and returns the value there. In
+    * case the key is invalid (key<0 or key> keyMax-1) it will throw an
+    * {@link IllegalArgumentException}
+    *
+    * @param key
+    * @return E
+    * @throws IllegalArgumentException
+    */
+   @SuppressWarnings("unchecked")
+   public E lookUp(int key) throws IllegalArgumentException {
+      if (validKey(key)) {
+         Object[] page = pages[key >>> pageShift];
+         if (page == null) {
+            return null;
+         }
+         Object value = page[key & pageMask];
+         return value == NULL ? null : (E) value;
+      } else {
+         throw new IllegalArgumentException("lookUp performed at invalid location");
+      }
+   }
+
+   /**
+    * Method will insert a value in the table, allocating the page of the key
+    * if needed.
+    *
+    * @param value
+    * @param key
+    * @return E
+    */
+   @SuppressWarnings("unchecked")
+   public E insert(E value, int key) throws IllegalArgumentException {
+      if (validKey(key)) {
+         int pageIndex = key >>> pageShift;
+         Object[] page = pages[pageIndex];
+         if (page == null) {
+            page = new Object[pageLength(pageIndex)];
+            pages[pageIndex] = page;
+            allocatedPages++;
+         }
+         E oldValue = (E) page[key & pageMask];
+         page[key & pageMask] = value == null ? NULL : value;
+         if (null == oldValue) {
+            count++; // a slot has been occupied
+            pageCounts[pageIndex]++;
+         }
+         return oldValue == NULL ? null : oldValue;
+      } else {
+         throw new IllegalArgumentException("insert performed at invalid location");
+      }
+   }
+
+   /**
+    * Method will delete a value from the table, freeing up the slot. The page
+    * is freed once it holds no value.
+    *
+    * @param key
+    */
+   public void delete(int key) throws IllegalArgumentException {
+      if (validKey(key)) {
+         int pageIndex = key >>> pageShift;
+         Object[] page = pages[pageIndex];
+         if (page == null || page[key & pageMask] == null) {
+            return;
+         }
+         page[key & pageMask] = null;
+         count--; // a slot has been freed
+         if (--pageCounts[pageIndex] == 0) {
+            pages[pageIndex] = null;
+            allocatedPages--;
+         }
+      } else {
+         throw new IllegalArgumentException("delete performed at invalid location");
+      }
+   }
+
+   /**
+    * Method returns a cursor positioned before the first slot of the table.
+    *
+    * @return Cursor
+    */
+   public Cursor cursor() {
+      return new Cursor(0, keyMax);
+   }
+
+   /**
+    * Method indicates if a slot is empty.
+    *
+    * @param key
+    * @return boolean value.
+    */
+   public boolean isSlotEmpty(int key) {
+      Object[] page = pages[key >>> pageShift];
+      return page == null || page[key & pageMask] == null;
+   }
+
+   /**
+    * Method returns the size of the table.
+    *
+    * @return int value
+    */
+   public int size() {
+      return keyMax;
+   }
+
+   /**
+    * Method gives a count of the free slots in the table.
+    *
+    * @return int value
+    */
+   public int emptySlotCount() {
+      return keyMax - count;
+   }
+
+   /**
+    * Method returns the number of pages allocated.
+    *
+    * @return int value
+    */
+   public int allocatedPageCount() {
+      return allocatedPages;
+   }
+
+   /**
+    * Method returns the number of slots in a page.
+    *
+    * @return int value
+    */
+   public int pageSize() {
+      return pageMask + 1;
+   }
+
+   /**
+    * Method returns the number of slots of the page, the last page only
+    * covers the keys up to keyMax.
+    *
+    * @param pageIndex
+    * @return int value
+    */
+   private int pageLength(int pageIndex) {
+      return (int) Math.min(pageMask + 1, keyMax - ((long) pageIndex << pageShift));
+   }
+
+   /**
+    * Method will indicate if a key is invalid.
+    *
+    * @param key
+    * @return boolean value.
+    */
+   private boolean validKey(int key) {
+      return key >= 0 && key < keyMax;
+   }
+}
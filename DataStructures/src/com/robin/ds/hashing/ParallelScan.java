@@ -0,0 +1,74 @@
+package com.robin.ds.hashing;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scans the entries of a table on several threads. <blockquote>The cursor is
+ * split until its parts are too small to split further, and the parts are
+ * scanned as fork/join tasks.</blockquote> The visitor is called from several
+ * threads at once, so it must be thread safe, and the table must not be
+ * changed until the scan has completed.
+ * 
+ * @author robin
+ * 
+ */
+public final class ParallelScan {
+
+   private static final ForkJoinPool POOL = new ForkJoinPool();
+
+   private ParallelScan() {
+   }
+
+   /**
+    * Method calls the visitor for every entry left in the cursor, using the
+    * shared pool.
+    * 
+    * @param cursor
+    * @param visitor
+    */
+   public static <K, E> void forEach(HashTableCursor<K, E> cursor, IEntryVisitor<K, E> visitor) {
+      forEach(cursor, visitor, POOL);
+   }
+
+   /**
+    * Method calls the visitor for every entry left in the cursor, using the
+    * passed pool.
+    * 
+    * @param cursor
+    * @param visitor
+    * @param pool
+    */
+   public static <K, E> void forEach(HashTableCursor<K, E> cursor, IEntryVisitor<K, E> visitor, ForkJoinPool pool) {
+      pool.invoke(new ScanTask<K, E>(cursor, visitor));
+   }
+
+   /**
+    * Scans one part of the table, splitting it first if it is large.
+    * 
+    * @author robin
+    * 
+    */
+   @SuppressWarnings("serial")
+   private static class ScanTask<K, E> extends RecursiveAction {
+      private final HashTableCursor<K, E> cursor;
+      private final IEntryVisitor<K, E> visitor;
+
+      ScanTask(HashTableCursor<K, E> cursor, IEntryVisitor<K, E> visitor) {
+         this.cursor = cursor;
+         this.visitor = visitor;
+      }
+
+      @Override
+      protected void compute() {
+         HashTableCursor<K, E> split = cursor.trySplit();
+         if (split != null) {
+            invokeAll(new ScanTask<K, E>(split, visitor), new ScanTask<K, E>(cursor, visitor));
+            return;
+         }
+         while (cursor.advance()) {
+            visitor.visit(cursor.key(), cursor.value());
+         }
+      }
+   }
+}
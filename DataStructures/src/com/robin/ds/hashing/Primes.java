@@ -0,0 +1,36 @@
+package com.robin.ds.hashing;
+
+/**
+ * Helper used by the hashing tables to size their arrays with prime lengths.
+ * 
+ * @author robin
+ * 
+ */
+final class Primes {
+
+   private Primes() {
+   }
+
+   /**
+    * Method will return a prime number that occurs after the passed parameter
+    * 
+    * @param i
+    * @return int value
+    */
+   static int nextPrime(int i) {
+      int number = i + 1;
+      while (true) {
+         boolean hasfactorial = false;
+         for (int divisor = 2; divisor <= (int) Math.sqrt(number); divisor++) {
+            if (number % divisor == 0) {
+               hasfactorial = true;
+               break;
+            }
+         }
+         if (!hasfactorial) {
+            return number; // a prime number
+         }
+         number++;// try next number
+      }
+   }
+}
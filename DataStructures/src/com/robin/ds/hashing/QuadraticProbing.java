@@ -12,17 +12,22 @@ package com.robin.ds.hashing;
  * property leads to a milder form of clustering, called secondary clustering.
  * As in linear probing, the initial probe determines the entire sequence, and
  * so only m distinct probe sequences are used.</blockquote>
+ * <p/>
+ * When the limit is a power of 2 the steps grow by 1, 2, 3 ... instead, so
+ * that the triangular offsets <code>H + i(i+1)/2</code> visit every slot of the
+ * table, and the wrap around is done with a mask.
  * 
  * @author robin
  * 
  */
-public class QuadraticProbing implements IProbeFunction {
+public class QuadraticProbing implements IProbeFunction, ICopyableFunction<QuadraticProbing> {
 
    private int size;
+   private int mask; // size - 1 when size is a power of 2, else -1
    private int incr = 0;
 
    public QuadraticProbing(int size) {
-      this.size = size;
+      setProbeLimit(size);
    }
 
    /**
@@ -35,6 +40,10 @@ public class QuadraticProbing implements IProbeFunction {
 
    @Override
    public int probeNext(int index) {
+      if (mask >= 0) {
+         incr++;
+         return (index + incr) & mask;
+      }
       int incrSqr = (incr + 1) * (incr + 1);
       int nextLocn = (index + incrSqr) % size;
       incr++;
@@ -58,6 +67,12 @@ public class QuadraticProbing implements IProbeFunction {
    @Override
    public void setProbeLimit(int limit) {
       this.size = limit;
+      this.mask = (limit & (limit - 1)) == 0 ? limit - 1 : -1;
+   }
+
+   @Override
+   public QuadraticProbing copy() {
+      return new QuadraticProbing(size);
    }
 
 }
@@ -0,0 +1,88 @@
+package com.robin.ds.hashing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lossy buffer that many threads can record reads into without taking a
+ * lock, drained by a single thread at a time. <blockquote>Each thread offers
+ * into one of several small ring buffers (stripes), picked from its id. An
+ * offer that finds its stripe full, or loses the race for the next slot, is
+ * dropped rather than retried.</blockquote>
+ * <p/>
+ * Dropping is fine for what the buffer records - which entries were read, to
+ * keep a cache's access order and frequencies roughly up to date. The write
+ * and the read count of each stripe are kept a cache line apart.
+ *
+ * @author robin
+ *
+ */
+final class ReadBuffer {
+
+   static final int STRIPE_LENGTH = 16; // a power of 2
+   private static final int PADDING = 8; // longs per 64 byte cache line
+
+   private final AtomicReferenceArray<Object> slots;
+   private final AtomicLongArray counts; // the write and read count of each stripe
+   private final int mask;
+
+   ReadBuffer() {
+      int stripes = FibonacciHash.powerOfTwoAtLeast(Math.min(64, Runtime.getRuntime().availableProcessors() * 4));
+      slots = new AtomicReferenceArray<Object>(stripes * STRIPE_LENGTH);
+      counts = new AtomicLongArray(stripes * 2 * PADDING);
+      mask = stripes - 1;
+   }
+
+   /**
+    * Method records the element, unless its stripe is full.
+    *
+    * @param element
+    * @return boolean value, true when the stripe is full and should be drained
+    */
+   boolean offer(Object element) {
+      int stripe = stripe();
+      int writeIndex = stripe * 2 * PADDING;
+      long tail = counts.get(writeIndex);
+      long head = counts.get(writeIndex + PADDING);
+      if (tail - head >= STRIPE_LENGTH) {
+         return true; // dropped
+      }
+      if (counts.compareAndSet(writeIndex, tail, tail + 1)) {
+         slots.lazySet(stripe * STRIPE_LENGTH + (int) (tail & (STRIPE_LENGTH - 1)), element);
+         return tail + 1 - head >= STRIPE_LENGTH;
+      }
+      return false; // another thread took the slot, the read is dropped
+   }
+
+   /**
+    * Method moves up to sink.length recorded elements into the sink. Only one
+    * thread may drain at a time.
+    *
+    * @param sink
+    * @return int value - the number of elements moved
+    */
+   int drainTo(Object[] sink) {
+      int drained = 0;
+      for (int stripe = 0; stripe <= mask && drained < sink.length; stripe++) {
+         int readIndex = stripe * 2 * PADDING + PADDING;
+         long head = counts.get(readIndex);
+         long tail = counts.get(readIndex - PADDING);
+         for (; head < tail && drained < sink.length; head++) {
+            int slot = stripe * STRIPE_LENGTH + (int) (head & (STRIPE_LENGTH - 1));
+            Object element = slots.get(slot);
+            if (element == null) {
+               break; // the slot is taken but not written yet
+            }
+            slots.lazySet(slot, null);
+            sink[drained++] = element;
+         }
+         counts.lazySet(readIndex, head);
+      }
+      return drained;
+   }
+
+   private int stripe() {
+      long id = Thread.currentThread().getId();
+      return (int) ((id * FibonacciHash.GOLDEN_RATIO) >>> 32) & mask;
+   }
+}
@@ -0,0 +1,259 @@
+package com.robin.ds.hashing;
+
+/**
+ * An open addressing table that uses linear probing with the Robin Hood
+ * insertion policy. <blockquote>Every entry remembers how far it sits from its
+ * home slot (its probe distance). An insert that meets an entry closer to home
+ * than itself takes the slot and carries on inserting the displaced
+ * entry.</blockquote>
+ * <p/>
+ * Keeping the probe distances even means that a look-up can stop as soon as it
+ * meets an entry that is closer to home than the key being searched. Deletes
+ * shift the following entries of the run back by one slot, so the table does
+ * not need DELETED marks.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           the key
+ * @param <E>
+ *           the element
+ */
+public class RobinHoodOpenAddressingTable<K, E> extends AbstractArrayHashTable<K, E> {
+
+   // beyond this the probe distances grow quickly
+   private static final double MAX_LOAD_FACTOR = 0.9;
+
+   /**
+    * Entry that also records its distance from the home slot.
+    *
+    * @author robin
+    *
+    */
+   private class RobinHoodEntry extends Entry {
+      int probeDistance;
+
+      public RobinHoodEntry(K key, E element) {
+         super(key, element);
+      }
+   }
+
+   private IHashFunction<K> hashFunction;
+   private int limit; // the limit the hash function is set to
+   // a copy of the hash function set to the previous length, kept for the
+   // incremental rehash - null if the function cannot be copied
+   private IHashFunction<K> otherHashFunction;
+   private int otherLimit;
+
+   /**
+    * Creates a {@link RobinHoodOpenAddressingTable} with specified number of
+    * buckets. Uses Division Hashing Technique.
+    *
+    * @param size
+    */
+   public RobinHoodOpenAddressingTable(int size) {
+      this(size, new DivisionHash<K>(size));
+   }
+
+   /**
+    * Creates a RobinHoodOpenAddressingTable with specified number of buckets
+    * Default access - can only be created within the package
+    *
+    * @param size
+    * @param hashFunction
+    *           - the type of Hashing function available for use.
+    */
+   RobinHoodOpenAddressingTable(int size, IHashFunction<K> hashFunction) {
+      this(size, hashFunction, false);
+   }
+
+   /**
+    * Creates a RobinHoodOpenAddressingTable with specified number of buckets,
+    * sized to a power of 2 if requested. Default access - can only be created
+    * within the package
+    *
+    * @param size
+    * @param hashFunction
+    * @param powerOfTwoLength
+    */
+   RobinHoodOpenAddressingTable(int size, IHashFunction<K> hashFunction, boolean powerOfTwoLength) {
+      super(powerOfTwoLength);
+      if (size < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      int tableSize = tableLengthFor(2 * size);
+      hashFunction.setHashLimit(tableSize);
+      this.hashFunction = hashFunction;
+      this.otherHashFunction = copyOf(hashFunction);
+      this.limit = tableSize;
+      allocate(tableSize);
+      count = 0;
+   }
+
+   /**
+    * Method will insert a value into the HashTable, displacing the entries that
+    * are closer to their home slot than the one being placed.
+    *
+    * @param key
+    * @param element
+    * @param hash
+    *           - unused, the entry layout caches no hashCodes
+    * @return E the old value
+    */
+   @SuppressWarnings("unchecked")
+   protected E insertEntry(K key, E element, int hash) {
+      int length = values.length;
+      int index = hash(key);
+      RobinHoodEntry pending = null; // the entry being placed
+      int distance = 0;
+      while (values[index] != null) {
+         RobinHoodEntry crtEntry = (RobinHoodEntry) values[index];
+         if (pending == null && nullSafeEquals(key, crtEntry.key)) {
+            E oldValue = crtEntry.element;
+            crtEntry.element = element;
+            return oldValue;// update complete
+         }
+         if (crtEntry.probeDistance < distance) {
+            // the key would have been met by now, so it is a new entry - take
+            // the slot of the richer entry and carry on placing that one
+            if (pending == null) {
+               pending = new RobinHoodEntry(key, element);
+            }
+            pending.probeDistance = distance;
+            values[index] = pending;
+            pending = crtEntry;
+            distance = crtEntry.probeDistance;
+         }
+         index = probeNext(index, length);
+         distance++;
+      }
+      if (pending == null) {
+         pending = new RobinHoodEntry(key, element);
+      }
+      pending.probeDistance = distance;
+      values[index] = pending;
+      count++;
+      return null;
+   }
+
+   /**
+    * Method frees the slot by shifting the entries following it in the run
+    * back by one slot (backward shift deletion).
+    *
+    * @param index
+    */
+   @Override
+   @SuppressWarnings("unchecked")
+   protected void removeAt(int index) {
+      int length = values.length;
+      int next = probeNext(index, length);
+      while (values[next] != null && ((RobinHoodEntry) values[next]).probeDistance > 0) {
+         RobinHoodEntry moved = (RobinHoodEntry) values[next];
+         moved.probeDistance--;
+         values[index] = moved;
+         index = next;
+         next = probeNext(next, length);
+      }
+      values[index] = null;
+   }
+
+   /**
+    * The table is grown before it gets too full for the probe distances to stay
+    * short.
+    */
+   @Override
+   protected boolean needsRehash() {
+      return count + 1 > values.length * MAX_LOAD_FACTOR;
+   }
+
+   @Override
+   protected int homeIndex(K key, int hash) {
+      return hash(key);
+   }
+
+   @Override
+   protected void updateRehashSettings(int newLength) {
+      if (newLength == limit) {
+         return;
+      }
+      if (otherHashFunction != null) {
+         // the function in use is kept for the previous length
+         swapFunctions();
+      }
+      otherLimit = limit;
+      limit = newLength;
+      hashFunction.setHashLimit(newLength);
+   }
+
+   @Override
+   protected void swapRehashSettings() {
+      int previousLimit = otherLimit;
+      otherLimit = limit;
+      limit = previousLimit;
+      if (otherHashFunction != null) {
+         swapFunctions();
+      } else {
+         hashFunction.setHashLimit(limit); // a function that cannot be copied is reset instead
+      }
+   }
+
+   private void swapFunctions() {
+      IHashFunction<K> hash = hashFunction;
+      hashFunction = otherHashFunction;
+      otherHashFunction = hash;
+   }
+
+   /**
+    * Method will return the slot holding the key or -1 if it is not present.
+    * The search ends early once the probe distance of the key exceeds that of
+    * the entry in the slot.
+    *
+    * @param key
+    * @param hash
+    *           - unused, the entry layout caches no hashCodes
+    * @return int value
+    */
+   @SuppressWarnings("unchecked")
+   protected int indexOf(K key, int hash) {
+      if (count == 0) {
+         return -1;
+      }
+      int length = values.length;
+      int index = hash(key);
+      int distance = 0;
+      for (; values[index] != null; distance++) {
+         if (values[index] == DELETED) {
+            // only met in the array being drained by an incremental rehash
+            index = probeNext(index, length);
+            continue;
+         }
+         RobinHoodEntry crtEntry = (RobinHoodEntry) values[index];
+         if (crtEntry.probeDistance < distance) {
+            break; // the key would have been placed before this entry
+         }
+         if (nullSafeEquals(key, crtEntry.key)) {
+            recordProbe(distance + 1);
+            return index;
+         }
+         index = probeNext(index, length);
+      }
+      recordProbe(distance + 1);
+      return -1;
+   }
+
+   /**
+    * Method implements the Hashing method
+    *
+    * @param key
+    * @return int value
+    */
+   private int hash(K key) {
+      int index = hashFunction.hash(key);
+      // the division and multiplication hashes keep the sign of hashCode()
+      return index < 0 ? index + values.length : index;
+   }
+
+   private int probeNext(int index, int length) {
+      return index + 1 == length ? 0 : index + 1;
+   }
+}
@@ -0,0 +1,58 @@
+package com.robin.ds.hashing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can update without contending on a single
+ * value. <blockquote>Each thread adds into one of several cells, picked from
+ * its id, and the value is the sum of the cells.</blockquote> The cells are
+ * spread a cache line apart so that the threads do not share lines.
+ * 
+ * @author robin
+ * 
+ */
+class StripedCounter {
+
+   private static final int PADDING = 8; // longs per 64 byte cache line
+
+   private final AtomicLongArray cells;
+   private final int mask;
+
+   StripedCounter() {
+      int stripes = FibonacciHash.powerOfTwoAtLeast(Runtime.getRuntime().availableProcessors() * 2);
+      cells = new AtomicLongArray(stripes * PADDING);
+      mask = stripes - 1;
+   }
+
+   void increment() {
+      add(1);
+   }
+
+   void decrement() {
+      add(-1);
+   }
+
+   void add(long delta) {
+      cells.getAndAdd(cellIndex(), delta);
+   }
+
+   /**
+    * Method returns the sum of the cells. It is exact when no update is in
+    * progress.
+    * 
+    * @return long value
+    */
+   long sum() {
+      long sum = 0;
+      for (int i = 0; i < cells.length(); i += PADDING) {
+         sum += cells.get(i);
+      }
+      return sum;
+   }
+
+   private int cellIndex() {
+      long id = Thread.currentThread().getId();
+      int stripe = (int) ((id * FibonacciHash.GOLDEN_RATIO) >>> 32) & mask;
+      return stripe * PADDING;
+   }
+}
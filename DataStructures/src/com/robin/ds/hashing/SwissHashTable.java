@@ -0,0 +1,356 @@
+package com.robin.ds.hashing;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing table that keeps a control byte per slot, in the style of
+ * the SwissTable. <blockquote>The slots are split into groups of 8. The
+ * control byte of a slot is EMPTY, DELETED or holds 7 bits of the key's hash
+ * (its tag). A probe reads the 8 control bytes of a group as one long and finds
+ * the slots with a matching tag, or an EMPTY slot, with a few word wide
+ * operations (SWAR).</blockquote>
+ * <p/>
+ * Keys and elements sit in parallel arrays without an entry object, and a key
+ * is only compared when its tag matches, so a probe rarely touches the key
+ * objects. The groups are probed in a triangular sequence, which visits every
+ * group of a power of 2 sized table.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           the key
+ * @param <E>
+ *           the element
+ */
+public class SwissHashTable<K, E> implements InstrumentedHashTable<K, E> {
+
+   private static final int GROUP_SIZE = 8;
+   private static final long EMPTY = 0x80L;
+   private static final long DELETED = 0xFEL;
+   private static final long LSBS = 0x0101010101010101L;
+   private static final long MSBS = 0x8080808080808080L;
+   private static final long ALL_EMPTY = EMPTY * LSBS;
+   // the group index is taken from the bits above the tag
+   private static final int GROUP_SHIFT = 37;
+   private static final int TAG_SHIFT = 24;
+
+   // represents the null key
+   private static final Object NULL_KEY = new Object();
+
+   private long[] control; // 8 control bytes per long, slot i in byte i % 8
+   private Object[] keys;
+   private Object[] elements;
+   private int groupMask;
+   private int count;
+   private int growthLeft; // EMPTY slots that may still be filled
+   private HashTableStatistics statistics;
+
+   /**
+    * Creates a {@link SwissHashTable} that can hold the specified number of
+    * entries before growing.
+    *
+    * @param size
+    */
+   public SwissHashTable(int size) {
+      if (size < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      int minSlots = (int) Math.ceil(size * 8.0 / 7);
+      init(FibonacciHash.powerOfTwoAtLeast((minSlots + GROUP_SIZE - 1) / GROUP_SIZE));
+   }
+
+   @SuppressWarnings("unchecked")
+   public E lookUp(K key) {
+      int index = indexOf(maskNull(key));
+      return index < 0 ? null : (E) elements[index];
+   }
+
+   @SuppressWarnings("unchecked")
+   public E insert(K key, E value) {
+      Object k = maskNull(key);
+      long spread = spread(k);
+      int index = indexOf(k, spread);
+      if (index >= 0) {
+         E oldValue = (E) elements[index];
+         elements[index] = value;
+         return oldValue;
+      }
+      if (growthLeft == 0) {
+         rehash();
+      }
+      place(k, value, spread);
+      count++;
+      return null;
+   }
+
+   /**
+    * Method loads the control word of the first group probed for every key of
+    * the batch in a first pass, these loads do not depend on each other and
+    * can overlap. A second pass settles the keys found in (or missing from)
+    * that group, the others are looked up one at a time.
+    */
+   @SuppressWarnings("unchecked")
+   public void lookUpAll(K[] batchKeys, E[] results) {
+      Batches.checkBatch(batchKeys, results);
+      long[] spreads = new long[batchKeys.length];
+      long[] groups = new long[batchKeys.length];
+      for (int i = 0; i < batchKeys.length; i++) {
+         spreads[i] = spread(maskNull(batchKeys[i]));
+         groups[i] = control[groupOf(spreads[i])];
+      }
+      for (int i = 0; i < batchKeys.length; i++) {
+         Object key = maskNull(batchKeys[i]);
+         long ctrl = groups[i];
+         int base = groupOf(spreads[i]) * GROUP_SIZE;
+         int index = -1;
+         for (long match = matchTag(ctrl, tag(spreads[i])); match != 0; match &= match - 1) {
+            int slot = base + (Long.numberOfTrailingZeros(match) >>> 3);
+            if (keys[slot] != null && key.equals(keys[slot])) {
+               index = slot;
+               break;
+            }
+         }
+         if (index < 0 && matchEmpty(ctrl) == 0) {
+            index = indexOf(key, spreads[i]); // carries on into the next groups
+         } else {
+            recordProbe(1);
+         }
+         results[i] = index < 0 ? null : (E) elements[index];
+      }
+   }
+
+   public void insertAll(K[] keys, E[] values) {
+      Batches.insertEach(this, keys, values);
+   }
+
+   /**
+    * Method will delete a value from the table. The slot is marked EMPTY again
+    * when its group still has an EMPTY slot, as no probe can have gone past
+    * such a group; otherwise it is marked DELETED.
+    */
+   public void delete(K key) {
+      int index = indexOf(maskNull(key));
+      if (index < 0) {
+         return;
+      }
+      keys[index] = null;
+      elements[index] = null;
+      long group = control[index / GROUP_SIZE];
+      if (matchEmpty(group) != 0) {
+         setControl(index, EMPTY);
+         growthLeft++;
+      } else {
+         setControl(index, DELETED);
+      }
+      count--;
+   }
+
+   public int count() {
+      return this.count;
+   }
+
+   public boolean isEmpty() {
+      return count() == 0;
+   }
+
+   /**
+    * Returns the number of entries per slot.
+    */
+   public double loadFactor() {
+      return (double) count / keys.length;
+   }
+
+   /**
+    * Returns the number of DELETED slots. Every slot taken by an entry or a
+    * DELETED mark has used up one slot of growth.
+    */
+   public int tombstoneCount() {
+      return maxLoad(groupMask + 1) - growthLeft - count;
+   }
+
+   public void setStatistics(HashTableStatistics statistics) {
+      this.statistics = statistics;
+   }
+
+   private int indexOf(Object key) {
+      return indexOf(key, spread(key));
+   }
+
+   /**
+    * Method will return the slot holding the key or -1 if it is not present.
+    *
+    * @param key
+    * @param spread
+    *           the spread hash of the key
+    * @return int value
+    */
+   private int indexOf(Object key, long spread) {
+      if (count == 0) {
+         return -1;
+      }
+      long tag = tag(spread);
+      int group = groupOf(spread);
+      for (int step = 0; step <= groupMask; step++) {
+         long ctrl = control[group];
+         for (long match = matchTag(ctrl, tag); match != 0; match &= match - 1) {
+            int index = group * GROUP_SIZE + (Long.numberOfTrailingZeros(match) >>> 3);
+            Object slotKey = keys[index];
+            // matchTag can report a false positive next to a real match
+            if (slotKey != null && key.equals(slotKey)) {
+               recordProbe(step + 1);
+               return index;
+            }
+         }
+         if (matchEmpty(ctrl) != 0) {
+            recordProbe(step + 1);
+            return -1;
+         }
+         group = (group + step + 1) & groupMask;
+      }
+      recordProbe(groupMask + 1);
+      return -1;
+   }
+
+   /**
+    * Method puts a new key in the first EMPTY or DELETED slot of its probe
+    * sequence.
+    *
+    * @param key
+    * @param element
+    * @param spread
+    */
+   private void place(Object key, Object element, long spread) {
+      int group = groupOf(spread);
+      for (int step = 0;; step++) {
+         long free = control[group] & MSBS; // EMPTY or DELETED
+         if (free != 0) {
+            int index = group * GROUP_SIZE + (Long.numberOfTrailingZeros(free) >>> 3);
+            if (controlAt(index) == EMPTY) {
+               growthLeft--;
+            }
+            setControl(index, tag(spread));
+            keys[index] = key;
+            elements[index] = element;
+            return;
+         }
+         group = (group + step + 1) & groupMask;
+      }
+   }
+
+   /**
+    * Method rebuilds the table once no EMPTY slot may be filled. The table is
+    * only grown when the live keys need the room, otherwise the rebuild just
+    * clears out the DELETED marks.
+    */
+   private void rehash() {
+      long start = statistics == null ? 0 : System.nanoTime();
+      long[] originalControl = control;
+      Object[] originalKeys = keys;
+      Object[] originalElements = elements;
+      int groups = groupMask + 1;
+      init(count * 2 > maxLoad(groups) ? groups * 2 : groups);
+      for (int i = 0; i < originalKeys.length; i++) {
+         long ctrl = (originalControl[i / GROUP_SIZE] >>> (8 * (i % GROUP_SIZE))) & 0xFF;
+         if ((ctrl & EMPTY) == 0) { // a full slot
+            place(originalKeys[i], originalElements[i], spread(originalKeys[i]));
+            count++;
+         }
+      }
+      if (statistics != null) {
+         statistics.recordRehash(start);
+      }
+   }
+
+   /**
+    * Method records the number of groups read by a search, if statistics are
+    * attached.
+    *
+    * @param groups
+    */
+   private void recordProbe(int groups) {
+      if (statistics != null) {
+         statistics.recordProbe(groups);
+      }
+   }
+
+   private void init(int groups) {
+      if (groups > (1 << 30) / GROUP_SIZE) {
+         throw new IllegalArgumentException("Table size too large");
+      }
+      control = new long[groups];
+      Arrays.fill(control, ALL_EMPTY);
+      keys = new Object[groups * GROUP_SIZE];
+      elements = new Object[groups * GROUP_SIZE];
+      groupMask = groups - 1;
+      count = 0;
+      growthLeft = maxLoad(groups);
+   }
+
+   /**
+    * Returns the number of slots that may be filled, 7/8 of the table.
+    *
+    * @param groups
+    * @return int value
+    */
+   private static int maxLoad(int groups) {
+      return groups * (GROUP_SIZE - 1);
+   }
+
+   private long controlAt(int index) {
+      return (control[index / GROUP_SIZE] >>> (8 * (index % GROUP_SIZE))) & 0xFF;
+   }
+
+   private void setControl(int index, long value) {
+      int shift = 8 * (index % GROUP_SIZE);
+      int group = index / GROUP_SIZE;
+      control[group] = (control[group] & ~(0xFFL << shift)) | (value << shift);
+   }
+
+   /**
+    * Method returns a word with the top bit set in every byte of the group
+    * that equals the tag.
+    *
+    * @param group
+    * @param tag
+    * @return long value
+    */
+   private static long matchTag(long group, long tag) {
+      long x = group ^ (LSBS * tag);
+      return (x - LSBS) & ~x & MSBS;
+   }
+
+   /**
+    * Method returns a word with the top bit set in every EMPTY byte of the
+    * group. EMPTY is the only control byte with the top bit set and bit 1
+    * clear.
+    *
+    * @param group
+    * @return long value
+    */
+   private static long matchEmpty(long group) {
+      return group & ~(group << 6) & MSBS;
+   }
+
+   /**
+    * Method spreads the bits of the key's hashCode over a long (Fibonacci
+    * hashing), the group and the tag are taken from separate bits of it.
+    *
+    * @param key
+    * @return long value
+    */
+   private static long spread(Object key) {
+      return key.hashCode() * FibonacciHash.GOLDEN_RATIO;
+   }
+
+   private int groupOf(long spread) {
+      return (int) (spread >>> GROUP_SHIFT) & groupMask;
+   }
+
+   private static long tag(long spread) {
+      return (spread >>> TAG_SHIFT) & 0x7F;
+   }
+
+   private static Object maskNull(Object key) {
+      return key == null ? NULL_KEY : key;
+   }
+}
@@ -0,0 +1,157 @@
+package com.robin.ds.hashing;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Picks the hash table that suits an expected workload, instead of having to
+ * choose one of the {@link HashTableBuilder} factory methods. It is created by
+ * {@link HashTableBuilder#forWorkload(Class, int)}, e.g.
+ * <code>HashTableBuilder.forWorkload(String.class, 100000).readRatio(0.9).build()</code>
+ * <p/>
+ * The table is chosen as follows:
+ * <ul>
+ * <li>keys of a type whose hashCode is not known to be well spread go to a
+ * {@link ChainHashTable}, as it turns long collision chains into trees</li>
+ * <li>frequent deletes go to a {@link RobinHoodOpenAddressingTable}, as its
+ * backward shift deletion leaves no DELETED slots behind</li>
+ * <li>read heavy workloads go to a {@link SwissHashTable}, which compares a
+ * key only when 7 bits of its hash match</li>
+ * <li>anything else goes to a linear probing {@link OpenAddressingTable}
+ * using parallel arrays, which has the cheapest insert</li>
+ * </ul>
+ * Every table uses Fibonacci hashing on a power of 2 sized array and is sized
+ * so that the expected number of entries fits without a rehash. An open
+ * addressing table is kept at most half full, which is where linear probing
+ * runs stay short.
+ *
+ * @author robin
+ *
+ * @param <K>
+ *           the key
+ */
+public final class WorkloadHashTableBuilder<K> {
+
+   /**
+    * The table layouts the builder chooses from.
+    */
+   public enum Layout {
+      CHAIN, ROBIN_HOOD, SWISS, LINEAR_PROBING
+   }
+
+   // deletes above this share of the operations go to Robin Hood hashing
+   private static final double DELETE_HEAVY_RATIO = 0.1;
+   // look-ups above this share of the operations go to the swiss table
+   private static final double READ_HEAVY_RATIO = 0.75;
+   private static final double CHAIN_LOAD_FACTOR = 0.75;
+
+   // key types with a hashCode that spreads well after Fibonacci hashing
+   private static final Set<Class<?>> WELL_HASHED_KEYS = new HashSet<Class<?>>(Arrays.<Class<?>> asList(
+         Integer.class, Long.class, Short.class, Byte.class, Character.class, String.class, Double.class,
+         Float.class));
+
+   private final Class<K> keyType;
+   private final int expectedSize;
+   private double readRatio = 0.5;
+   private double deleteRatio = 0;
+
+   /**
+    * Default access - created through {@link HashTableBuilder}.
+    *
+    * @param keyType
+    * @param expectedSize
+    */
+   WorkloadHashTableBuilder(Class<K> keyType, int expectedSize) {
+      if (keyType == null) {
+         throw new IllegalArgumentException("Invalid key type");
+      }
+      if (expectedSize < 1) {
+         throw new IllegalArgumentException("Invalid size input");
+      }
+      this.keyType = keyType;
+      this.expectedSize = expectedSize;
+   }
+
+   /**
+    * Sets the share of the operations that are look-ups, 0.5 by default.
+    *
+    * @param readRatio
+    *           - between 0 and 1
+    * @return this builder
+    */
+   public WorkloadHashTableBuilder<K> readRatio(double readRatio) {
+      checkRatio(readRatio);
+      this.readRatio = readRatio;
+      return this;
+   }
+
+   /**
+    * Sets the share of the operations that are deletes, 0 by default. The
+    * look-ups and deletes together make up at most all the operations, the
+    * rest are inserts - this is checked once the layout is chosen, so the
+    * ratios can be set in any order.
+    *
+    * @param deleteRatio
+    *           - between 0 and 1
+    * @return this builder
+    */
+   public WorkloadHashTableBuilder<K> deleteRatio(double deleteRatio) {
+      checkRatio(deleteRatio);
+      this.deleteRatio = deleteRatio;
+      return this;
+   }
+
+   /**
+    * Returns the layout the workload calls for.
+    *
+    * @return Layout
+    * @throws IllegalArgumentException
+    *            when the look-ups and deletes add up to more than all the
+    *            operations
+    */
+   public Layout layout() {
+      if (readRatio + deleteRatio > 1) {
+         throw new IllegalArgumentException("Invalid ratios");
+      }
+      if (!hasWellSpreadHashCode()) {
+         return Layout.CHAIN;
+      }
+      if (deleteRatio >= DELETE_HEAVY_RATIO) {
+         return Layout.ROBIN_HOOD;
+      }
+      if (readRatio >= READ_HEAVY_RATIO) {
+         return Layout.SWISS;
+      }
+      return Layout.LINEAR_PROBING;
+   }
+
+   /**
+    * Creates an empty table of the chosen layout, sized for the expected
+    * number of entries.
+    *
+    * @return InstrumentedHashTable
+    */
+   public <E> InstrumentedHashTable<K, E> build() {
+      switch (layout()) {
+      case CHAIN:
+         return HashTableBuilder.getFibonacciBasedHashTable((int) Math.ceil(expectedSize / CHAIN_LOAD_FACTOR));
+      case ROBIN_HOOD:
+         return HashTableBuilder.getRobinHoodOpenAddressingTable(expectedSize);
+      case SWISS:
+         return HashTableBuilder.getSwissHashTable(expectedSize);
+      default:
+         return HashTableBuilder.getLinearProbeParallelArrayTable(expectedSize);
+      }
+   }
+
+   private boolean hasWellSpreadHashCode() {
+      return WELL_HASHED_KEYS.contains(keyType) || keyType.isEnum();
+   }
+
+   private static void checkRatio(double ratio) {
+      if (!(ratio >= 0 && ratio <= 1)) {
+         throw new IllegalArgumentException("Invalid ratios");
+      }
+   }
+}
@@ -0,0 +1,109 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class represents wyhash (final version 3). <blockquote>The input is read 16
+ * bytes at a time, and each pair of 64 bit words is folded by a 128 bit
+ * multiply whose halves are xor-ed together. Keys of up to 16 bytes are done
+ * with a single multiply.</blockquote>
+ * <p/>
+ * The result matches the reference wyhash final 3 with its default secret for
+ * the same bytes and seed. The 128 bit product is built from 32 bit halves, as
+ * there is no unsigned multiply high in Java 7.
+ *
+ * @author robin
+ *
+ * @param <K>
+ */
+public class WyHash<K> extends AbstractHash64<K> implements ICopyableFunction<WyHash<K>> {
+
+   private static final long SECRET0 = 0xA0761D6478BD642FL;
+   private static final long SECRET1 = 0xE7037ED1A0B428DBL;
+   private static final long SECRET2 = 0x8EBC6AF09C88C6E3L;
+   private static final long SECRET3 = 0x589965CC75374CC3L;
+
+   public WyHash(int hashLimit) {
+      this(hashLimit, 0);
+   }
+
+   public WyHash(int hashLimit, long seed) {
+      super(hashLimit, seed);
+   }
+
+   @Override
+   public WyHash<K> copy() {
+      return new WyHash<K>(hashLimit(), seed);
+   }
+
+   @Override
+   public long hashLong(long value) {
+      // the two 4 byte words of an 8 byte key, read in both orders
+      long a = Long.rotateLeft(value, 32);
+      return mix(SECRET1 ^ 8, mix(a ^ SECRET1, value ^ seed ^ SECRET0));
+   }
+
+   @Override
+   long hash(Input input, Object data, int offset, int length) {
+      long state = seed ^ SECRET0;
+      long a;
+      long b;
+      if (length <= 16) {
+         if (length >= 4) {
+            int middle = (length >>> 3) << 2;
+            int last = offset + length - 4;
+            a = input.getInt(data, offset) << 32 | input.getInt(data, offset + middle);
+            b = input.getInt(data, last) << 32 | input.getInt(data, last - middle);
+         } else if (length > 0) {
+            a = input.getByte(data, offset) << 16 | input.getByte(data, offset + (length >>> 1)) << 8
+                  | input.getByte(data, offset + length - 1);
+            b = 0;
+         } else {
+            a = 0;
+            b = 0;
+         }
+      } else {
+         int index = offset;
+         int left = length;
+         if (left > 48) {
+            long see1 = state;
+            long see2 = state;
+            do {
+               state = mix(input.getLong(data, index) ^ SECRET1, input.getLong(data, index + 8) ^ state);
+               see1 = mix(input.getLong(data, index + 16) ^ SECRET2, input.getLong(data, index + 24) ^ see1);
+               see2 = mix(input.getLong(data, index + 32) ^ SECRET3, input.getLong(data, index + 40) ^ see2);
+               index += 48;
+               left -= 48;
+            } while (left > 48);
+            state ^= see1 ^ see2;
+         }
+         while (left > 16) {
+            state = mix(input.getLong(data, index) ^ SECRET1, input.getLong(data, index + 8) ^ state);
+            index += 16;
+            left -= 16;
+         }
+         a = input.getLong(data, index + left - 16);
+         b = input.getLong(data, index + left - 8);
+      }
+      return mix(SECRET1 ^ length, mix(a ^ SECRET1, b ^ state));
+   }
+
+   /**
+    * Method multiplies the two values into 128 bits and returns the xor of the
+    * low and the high 64 bits.
+    *
+    * @param x
+    * @param y
+    * @return long value
+    */
+   static long mix(long x, long y) {
+      long xLow = x & 0xFFFFFFFFL;
+      long xHigh = x >>> 32;
+      long yLow = y & 0xFFFFFFFFL;
+      long yHigh = y >>> 32;
+      long lowLow = xLow * yLow;
+      long highLow = xHigh * yLow;
+      // cannot overflow 64 unsigned bits
+      long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + xLow * yHigh;
+      long high = xHigh * yHigh + (highLow >>> 32) + (cross >>> 32);
+      return x * y ^ high;
+   }
+}
@@ -0,0 +1,101 @@
+package com.robin.ds.hashing;
+
+/**
+ * Class represents the XXH64 hash of xxHash. <blockquote>The input is read in
+ * stripes of 32 bytes by four independent accumulators, which are merged and
+ * then run through a final avalanche.</blockquote>
+ * <p/>
+ * The result matches the reference XXH64 for the same bytes and seed.
+ *
+ * @author robin
+ *
+ * @param <K>
+ */
+public class XxHash64<K> extends AbstractHash64<K> implements ICopyableFunction<XxHash64<K>> {
+
+   private static final long PRIME1 = 0x9E3779B185EBCA87L;
+   private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+   private static final long PRIME3 = 0x165667B19E3779F9L;
+   private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+   private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+   public XxHash64(int hashLimit) {
+      this(hashLimit, 0);
+   }
+
+   public XxHash64(int hashLimit, long seed) {
+      super(hashLimit, seed);
+   }
+
+   @Override
+   public XxHash64<K> copy() {
+      return new XxHash64<K>(hashLimit(), seed);
+   }
+
+   @Override
+   public long hashLong(long value) {
+      long hash = seed + PRIME5 + 8;
+      hash ^= round(0, value);
+      return avalanche(Long.rotateLeft(hash, 27) * PRIME1 + PRIME4);
+   }
+
+   @Override
+   long hash(Input input, Object data, int offset, int length) {
+      int index = offset;
+      int end = offset + length;
+      long hash;
+      if (length >= 32) {
+         long v1 = seed + PRIME1 + PRIME2;
+         long v2 = seed + PRIME2;
+         long v3 = seed;
+         long v4 = seed - PRIME1;
+         for (; index <= end - 32; index += 32) {
+            v1 = round(v1, input.getLong(data, index));
+            v2 = round(v2, input.getLong(data, index + 8));
+            v3 = round(v3, input.getLong(data, index + 16));
+            v4 = round(v4, input.getLong(data, index + 24));
+         }
+         hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12)
+               + Long.rotateLeft(v4, 18);
+         hash = mergeRound(hash, v1);
+         hash = mergeRound(hash, v2);
+         hash = mergeRound(hash, v3);
+         hash = mergeRound(hash, v4);
+      } else {
+         hash = seed + PRIME5;
+      }
+      hash += length;
+      for (; index <= end - 8; index += 8) {
+         hash ^= round(0, input.getLong(data, index));
+         hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+      }
+      if (index <= end - 4) {
+         hash ^= input.getInt(data, index) * PRIME1;
+         hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+         index += 4;
+      }
+      for (; index < end; index++) {
+         hash ^= input.getByte(data, index) * PRIME5;
+         hash = Long.rotateLeft(hash, 11) * PRIME1;
+      }
+      return avalanche(hash);
+   }
+
+   private static long round(long accumulator, long input) {
+      accumulator += input * PRIME2;
+      return Long.rotateLeft(accumulator, 31) * PRIME1;
+   }
+
+   private static long mergeRound(long hash, long accumulator) {
+      hash ^= round(0, accumulator);
+      return hash * PRIME1 + PRIME4;
+   }
+
+   private static long avalanche(long hash) {
+      hash ^= hash >>> 33;
+      hash *= PRIME2;
+      hash ^= hash >>> 29;
+      hash *= PRIME3;
+      return hash ^ hash >>> 32;
+   }
+}
@@ -0,0 +1,282 @@
+package test.robin.ds.hashing;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import com.robin.ds.hashing.ConcurrentTinyLfuCache;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.LruCache;
+
+import test.robin.ds.hashing.HashTableBenchmark.GcSnapshot;
+
+/**
+ * Benchmark for the caches, replaying key traces of three shapes:
+ * <ul>
+ * <li>zipf - the popularity of the k-th most popular key falls off as 1/k^s</li>
+ * <li>loop - the same 5% of the keys over and over, in order</li>
+ * <li>scan - zipf look-ups, with every other block of 10000 replaced by keys
+ * never seen before</li>
+ * </ul>
+ * It is not a unit test - run it passing the number of distinct keys, the
+ * length of the traces, the skew s and the most threads, e.g.
+ * <code>java -Xmx3g test.robin.ds.hashing.CacheBenchmark 1000000 10000000 0.99 4</code>
+ * <p/>
+ * Each cache is read through - a miss puts the key - with a capacity of 0.1%,
+ * 1% and 10% of the keys. The hits only runs replay a trace of cached keys, to
+ * show what a hit allocates. The throughput runs share one cache between
+ * 1, 2, 4... threads replaying the zipf trace, comparing the concurrent cache
+ * with a synchronized LRU cache.
+ *
+ * @author robin
+ *
+ */
+public class CacheBenchmark {
+
+   private static final double[] CAPACITY_SHARES = { 0.001, 0.01, 0.1 };
+   private static final double LOOP_SHARE = 0.05;
+   private static final int SCAN_BLOCK = 10000;
+
+   /**
+    * The operations the benchmark needs, so that every cache runs the same
+    * loop.
+    */
+   interface Cache {
+      Integer get(Integer key);
+
+      void put(Integer key, Integer value);
+
+      double hitRate();
+   }
+
+   public static void main(String[] args) throws InterruptedException {
+      int keys = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+      int length = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+      double skew = args.length > 2 ? Double.parseDouble(args[2]) : 0.99;
+      int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+      Integer[] zipf = zipfTrace(keys, length, skew, new Random(42));
+      System.out.printf("%d keys, %d look-ups, skew %.2f%n", keys, length, skew);
+      compare("zipf", zipf, keys);
+      compare("loop", loopTrace((int) (keys * LOOP_SHARE), length), keys);
+      compare("scan", scanTrace(zipf, keys), keys);
+
+      int capacity = (int) (keys * CAPACITY_SHARES[1]);
+      Integer[] hits = new Integer[length];
+      for (int i = 0; i < length; i++) {
+         hits[i] = i % capacity;
+      }
+      Cache lru = lru(capacity);
+      Cache tinyLfu = tinyLfu(capacity);
+      for (int i = 0; i < capacity; i++) {
+         lru.put(hits[i], i);
+         tinyLfu.put(hits[i], i);
+      }
+      run("lru " + capacity + " hits only", lru, hits);
+      run("tinylfu " + capacity + " hits only", tinyLfu, hits);
+
+      for (int threads = 1; threads <= maxThreads; threads *= 2) {
+         throughput("synchronized lru " + capacity, synchronizedLru(capacity), zipf, threads);
+         throughput("tinylfu " + capacity, tinyLfu(capacity), zipf, threads);
+      }
+   }
+
+   static void compare(String shape, Integer[] trace, int keys) {
+      for (double share : CAPACITY_SHARES) {
+         int capacity = Math.max(1, (int) (keys * share));
+         run(shape + " lru " + capacity, lru(capacity), trace);
+         run(shape + " tinylfu " + capacity, tinyLfu(capacity), trace);
+      }
+   }
+
+   static void run(String label, Cache cache, Integer[] trace) {
+      GcSnapshot gc = new GcSnapshot();
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      for (Integer key : trace) {
+         if (cache.get(key) == null) {
+            cache.put(key, key);
+         }
+      }
+      long elapsed = System.nanoTime() - start;
+      double bytesPerOp = (double) (allocatedBytes() - allocated) / trace.length;
+      System.out.printf("%-32s hit rate %6.2f%% %8.1f ns/op %8.1f bytes/op  gc: %5d collections %7d ms%n", label,
+            100 * cache.hitRate(), (double) elapsed / trace.length, bytesPerOp, gc.collections(), gc.millis());
+   }
+
+   /**
+    * Method replays the trace on the passed number of threads sharing the
+    * cache, each starting at a different offset, and prints the look-ups per
+    * second of all of them.
+    */
+   static void throughput(String label, final Cache cache, final Integer[] trace, int threads)
+         throws InterruptedException {
+      final CountDownLatch start = new CountDownLatch(1);
+      Thread[] workers = new Thread[threads];
+      for (int t = 0; t < threads; t++) {
+         final int offset = (int) ((long) trace.length * t / threads);
+         workers[t] = new Thread() {
+            @Override
+            public void run() {
+               try {
+                  start.await();
+               } catch (InterruptedException e) {
+                  return;
+               }
+               for (int i = 0; i < trace.length; i++) {
+                  Integer key = trace[(offset + i) % trace.length];
+                  if (cache.get(key) == null) {
+                     cache.put(key, key);
+                  }
+               }
+            }
+         };
+         workers[t].start();
+      }
+      long begin = System.nanoTime();
+      start.countDown();
+      for (Thread worker : workers) {
+         worker.join();
+      }
+      long elapsed = System.nanoTime() - begin;
+      System.out.printf("%-32s %2d threads %8.2f M ops/s hit rate %6.2f%%%n", label, threads,
+            (double) trace.length * threads * 1000 / elapsed, 100 * cache.hitRate());
+   }
+
+   static Cache lru(int capacity) {
+      final LruCache<Integer, Integer> cache = HashTableBuilder.getLruCache(capacity);
+      return new Cache() {
+         public Integer get(Integer key) {
+            return cache.get(key);
+         }
+
+         public void put(Integer key, Integer value) {
+            cache.put(key, value);
+         }
+
+         public double hitRate() {
+            return cache.hitRate();
+         }
+      };
+   }
+
+   static Cache synchronizedLru(int capacity) {
+      final LruCache<Integer, Integer> cache = HashTableBuilder.getLruCache(capacity);
+      return new Cache() {
+         public synchronized Integer get(Integer key) {
+            return cache.get(key);
+         }
+
+         public synchronized void put(Integer key, Integer value) {
+            cache.put(key, value);
+         }
+
+         public synchronized double hitRate() {
+            return cache.hitRate();
+         }
+      };
+   }
+
+   static Cache tinyLfu(int capacity) {
+      final ConcurrentTinyLfuCache<Integer, Integer> cache = HashTableBuilder.getConcurrentTinyLfuCache(capacity);
+      return new Cache() {
+         public Integer get(Integer key) {
+            return cache.get(key);
+         }
+
+         public void put(Integer key, Integer value) {
+            cache.put(key, value);
+         }
+
+         public double hitRate() {
+            return cache.hitRate();
+         }
+      };
+   }
+
+   /**
+    * Method builds a trace cycling through the keys [0, keys) in order.
+    *
+    * @param keys
+    * @param length
+    * @return Integer[]
+    */
+   static Integer[] loopTrace(int keys, int length) {
+      Integer[] boxed = new Integer[keys];
+      for (int i = 0; i < keys; i++) {
+         boxed[i] = i;
+      }
+      Integer[] trace = new Integer[length];
+      for (int i = 0; i < length; i++) {
+         trace[i] = boxed[i % keys];
+      }
+      return trace;
+   }
+
+   /**
+    * Method copies the zipf trace, replacing every other block of look-ups by
+    * a scan of keys from keys upwards, each used once.
+    *
+    * @param zipf
+    * @param keys
+    * @return Integer[]
+    */
+   static Integer[] scanTrace(Integer[] zipf, int keys) {
+      Integer[] trace = zipf.clone();
+      int next = keys;
+      for (int i = SCAN_BLOCK; i < trace.length; i += 2 * SCAN_BLOCK) {
+         for (int j = i; j < Math.min(trace.length, i + SCAN_BLOCK); j++) {
+            trace[j] = next++;
+         }
+      }
+      return trace;
+   }
+
+   /**
+    * Method draws a trace of keys in [0, keys) from a Zipf distribution with
+    * the passed skew. The ranks are mapped to keys through a random
+    * permutation, so the popular keys are not neighbours. The keys are boxed
+    * up front so that replaying the trace does not allocate.
+    *
+    * @param keys
+    * @param length
+    * @param skew
+    * @param random
+    * @return Integer[]
+    */
+   static Integer[] zipfTrace(int keys, int length, double skew, Random random) {
+      double[] cumulative = new double[keys];
+      double total = 0;
+      for (int rank = 0; rank < keys; rank++) {
+         total += 1 / Math.pow(rank + 1, skew);
+         cumulative[rank] = total;
+      }
+      Integer[] keyOfRank = new Integer[keys];
+      for (int i = 0; i < keys; i++) {
+         int j = random.nextInt(i + 1);
+         keyOfRank[i] = keyOfRank[j];
+         keyOfRank[j] = i;
+      }
+      Integer[] trace = new Integer[length];
+      for (int i = 0; i < length; i++) {
+         int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+         trace[i] = keyOfRank[rank < 0 ? -rank - 1 : rank];
+      }
+      return trace;
+   }
+
+   /**
+    * Returns the bytes allocated by the current thread so far, or 0 where the
+    * JVM does not count them.
+    *
+    * @return long value
+    */
+   static long allocatedBytes() {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+         return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+      return 0;
+   }
+}
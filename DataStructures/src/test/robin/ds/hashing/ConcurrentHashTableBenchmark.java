@@ -0,0 +1,159 @@
+package test.robin.ds.hashing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import com.robin.ds.hashing.HashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+
+/**
+ * Multi threaded benchmark for the thread safe hash tables. It is not a unit
+ * test - run it passing the number of entries and optionally the operations
+ * per thread, e.g.
+ * <code>java -Xmx4g test.robin.ds.hashing.ConcurrentHashTableBenchmark 1000000</code>
+ * <p/>
+ * Each table is run with 1, 4, 16 and 32 threads, with a read heavy (90%
+ * look-ups) and a write heavy (50% inserts and deletes) mix of operations.
+ *
+ * @author robin
+ *
+ */
+public class ConcurrentHashTableBenchmark {
+
+   private static final int[] THREAD_COUNTS = { 1, 4, 16, 32 };
+   private static final int[] READ_PERCENTS = { 90, 50 };
+
+   /**
+    * Creates the table under test.
+    *
+    * @author robin
+    *
+    */
+   interface TableFactory {
+      HashTable<Integer, Integer> create(int entries);
+   }
+
+   public static void main(String[] args) throws InterruptedException {
+      int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+      int operations = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+      for (int readPercent : READ_PERCENTS) {
+         for (int threads : THREAD_COUNTS) {
+            run("global lock chain", new TableFactory() {
+               @Override
+               public HashTable<Integer, Integer> create(int entries) {
+                  return new SynchronizedHashTable<>(HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(entries));
+               }
+            }, entries, threads, operations, readPercent);
+            run("concurrent chain", new TableFactory() {
+               @Override
+               public HashTable<Integer, Integer> create(int entries) {
+                  return HashTableBuilder.getConcurrentChainHashTable(entries);
+               }
+            }, entries, threads, operations, readPercent);
+            run("lock free open addressing", new TableFactory() {
+               @Override
+               public HashTable<Integer, Integer> create(int entries) {
+                  return HashTableBuilder.getConcurrentOpenAddressingTable(entries);
+               }
+            }, entries, threads, operations, readPercent);
+         }
+      }
+   }
+
+   static void run(String label, TableFactory factory, int entries, int threads, final int operations,
+         final int readPercent) throws InterruptedException {
+      final HashTable<Integer, Integer> table = factory.create(entries);
+      for (int i = 0; i < entries; i += 2) {
+         table.insert(i, i); // half of the key range is present
+      }
+      final int keyRange = entries;
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Thread> workers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+         final long seed = t;
+         Thread worker = new Thread() {
+            @Override
+            public void run() {
+               Random random = new Random(seed);
+               long sink = 0;
+               try {
+                  start.await();
+               } catch (InterruptedException e) {
+                  return;
+               }
+               for (int i = 0; i < operations; i++) {
+                  int key = random.nextInt(keyRange);
+                  int choice = random.nextInt(100);
+                  if (choice < readPercent) {
+                     Integer value = table.lookUp(key);
+                     sink += value == null ? 0 : value;
+                  } else if ((choice & 1) == 0) {
+                     table.insert(key, key);
+                  } else {
+                     table.delete(key);
+                  }
+               }
+               if (sink == 42) {
+                  System.out.println();
+               }
+            }
+         };
+         worker.start();
+         workers.add(worker);
+      }
+      long begin = System.nanoTime();
+      start.countDown();
+      for (Thread worker : workers) {
+         worker.join();
+      }
+      long elapsed = System.nanoTime() - begin;
+      long total = (long) threads * operations;
+      System.out.printf("%-28s %3d%% reads %2d threads %12.0f ops/s%n", label, readPercent, threads,
+            total * 1e9 / elapsed);
+   }
+
+   /**
+    * Wraps a table with one lock around every operation - what the callers
+    * had to do before the concurrent table.
+    *
+    * @author robin
+    *
+    */
+   static class SynchronizedHashTable<K, E> implements HashTable<K, E> {
+      private final HashTable<K, E> table;
+
+      SynchronizedHashTable(HashTable<K, E> table) {
+         this.table = table;
+      }
+
+      public synchronized E lookUp(K key) {
+         return table.lookUp(key);
+      }
+
+      public synchronized E insert(K key, E value) {
+         return table.insert(key, value);
+      }
+
+      public synchronized void lookUpAll(K[] keys, E[] values) {
+         table.lookUpAll(keys, values);
+      }
+
+      public synchronized void insertAll(K[] keys, E[] values) {
+         table.insertAll(keys, values);
+      }
+
+      public synchronized void delete(K key) {
+         table.delete(key);
+      }
+
+      public synchronized int count() {
+         return table.count();
+      }
+
+      public synchronized boolean isEmpty() {
+         return table.isEmpty();
+      }
+   }
+}
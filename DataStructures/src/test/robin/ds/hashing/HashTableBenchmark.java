@@ -0,0 +1,882 @@
+package test.robin.ds.hashing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.robin.ds.hashing.AbstractArrayHashTable;
+import com.robin.ds.hashing.ByteKeyHashTable;
+import com.robin.ds.hashing.ChainHashTable;
+import com.robin.ds.hashing.CuckooHashTable;
+import com.robin.ds.hashing.DirectAddressTable;
+import com.robin.ds.hashing.DivisionHash;
+import com.robin.ds.hashing.DoubleHashingOpenAddressingTable;
+import com.robin.ds.hashing.FibonacciHash;
+import com.robin.ds.hashing.FrozenHashTable;
+import com.robin.ds.hashing.HashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.HashTableStatistics;
+import com.robin.ds.hashing.IHashFunction;
+import com.robin.ds.hashing.IntOpenAddressingTable;
+import com.robin.ds.hashing.LongOpenAddressingTable;
+import com.robin.ds.hashing.MappedHashTable;
+import com.robin.ds.hashing.MultiplicationHash;
+import com.robin.ds.hashing.Murmur3Hash;
+import com.robin.ds.hashing.OffHeapHashTable;
+import com.robin.ds.hashing.OpenAddressingTable;
+import com.robin.ds.hashing.PagedDirectAddressTable;
+import com.robin.ds.hashing.SwissHashTable;
+import com.robin.ds.hashing.WyHash;
+import com.robin.ds.hashing.XxHash64;
+
+/**
+ * Simple benchmark harness for the hash tables. It is not a unit test - run it
+ * with a large heap, passing the scenario to run and optionally the number of
+ * entries, e.g.
+ * <code>java -Xmx4g test.robin.ds.hashing.HashTableBenchmark primitive 10000000</code>
+ *
+ * @author robin
+ *
+ */
+public class HashTableBenchmark {
+
+   private static final int LOOKUPS = 5000000;
+
+   public static void main(String[] args) {
+      String scenario = args.length > 0 ? args[0] : "primitive";
+      int entries = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+      switch (scenario) {
+      case "primitive":
+         primitive(entries);
+         break;
+      case "churn":
+         churn(entries);
+         break;
+      case "rehash":
+         rehash(entries);
+         break;
+      case "hash":
+         hashFunctions(entries);
+         break;
+      case "latency":
+         lookUpLatency(entries);
+         break;
+      case "offheap":
+         offHeap(entries);
+         break;
+      case "restart":
+         restart(entries);
+         break;
+      case "batch":
+         batch(entries);
+         break;
+      case "collisions":
+         collisions(entries);
+         break;
+      case "growth":
+         growth(entries);
+         break;
+      case "statistics":
+         statistics(entries);
+         break;
+      case "frozen":
+         frozen(entries);
+         break;
+      case "paged":
+         paged(entries);
+         break;
+      case "layout":
+         layout(entries);
+         break;
+      case "hash64":
+         hash64(entries);
+         break;
+      case "bytekeys":
+         byteKeys(entries);
+         break;
+      default:
+         throw new IllegalArgumentException("Unknown scenario " + scenario);
+      }
+   }
+
+   /**
+    * Compares the generic {@link OpenAddressingTable} against the
+    * {@link IntOpenAddressingTable} for int keys.
+    *
+    * @param entries
+    */
+   static void primitive(int entries) {
+      int[] probes = randomKeys(entries, LOOKUPS);
+
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      OpenAddressingTable<Integer, Integer> generic = new OpenAddressingTable<>(entries);
+      for (int i = 0; i < entries; i++) {
+         generic.insert(i, i);
+      }
+      report("generic insert", entries, start, gc);
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      long sink = 0;
+      for (int key : probes) {
+         sink += generic.lookUp(key);
+      }
+      report("generic lookUp", probes.length, start, gc);
+      generic = null;
+
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      IntOpenAddressingTable<Integer> primitive = new IntOpenAddressingTable<>(entries);
+      Integer value = Integer.valueOf(1);
+      for (int i = 0; i < entries; i++) {
+         primitive.insert(i, value);
+      }
+      report("int insert", entries, start, gc);
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      for (int key : probes) {
+         sink += primitive.lookUp(key);
+      }
+      report("int lookUp", probes.length, start, gc);
+      System.out.println("(sink " + sink + ")");
+   }
+
+   /**
+    * Runs delete/insert churn against the linear, quadratic, double hashing,
+    * Robin Hood and Swiss tables and then times look-ups of present and absent
+    * keys.
+    *
+    * @param entries
+    */
+   static void churn(int entries) {
+      churn("linear", HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(entries), entries);
+      churn("quadratic", HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(entries), entries);
+      churn("double hashing", HashTableBuilder.<Integer, Integer> getDoubleHasingOpenAddressingTable(entries), entries);
+      churn("robin hood", HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(entries), entries);
+      churn("swiss", HashTableBuilder.<Integer, Integer> getSwissHashTable(entries), entries);
+   }
+
+   static void churn(String label, HashTable<Integer, Integer> table, int entries) {
+      for (int i = 0; i < entries; i++) {
+         table.insert(i, i);
+      }
+      Random random = new Random(42);
+      int nextKey = entries;
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      for (int i = 0; i < entries; i++) {
+         // replace a random live key with a fresh one
+         table.delete(nextKey - entries + random.nextInt(entries));
+         table.insert(nextKey++, i);
+      }
+      report(label + " churn", entries, start, gc);
+      if (table instanceof AbstractArrayHashTable) {
+         System.out.printf("%-36s %10.3f%n", label + " tombstone ratio",
+               ((AbstractArrayHashTable<Integer, Integer>) table).tombstoneRatio());
+      }
+      int[] probes = randomKeys(2 * entries, Math.min(LOOKUPS, 10 * entries));
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      long sink = 0;
+      for (int key : probes) {
+         Integer value = table.lookUp(key);
+         sink += value == null ? 0 : value;
+      }
+      report(label + " lookUp", probes.length, start, gc);
+      System.out.println("(sink " + sink + ")");
+   }
+
+   /**
+    * Compares the insert latency of the stop-the-world and the incremental
+    * rehash, growing the tables from a small initial size.
+    *
+    * @param entries
+    */
+   static void rehash(int entries) {
+      for (boolean incremental : new boolean[] { false, true }) {
+         String mode = incremental ? " incremental" : " stop-the-world";
+         AbstractArrayHashTable<Integer, Integer> linear = new OpenAddressingTable<>(16);
+         linear.setIncrementalRehash(incremental);
+         insertLatency("linear" + mode, linear, entries);
+         AbstractArrayHashTable<Integer, Integer> doubleHashing = new DoubleHashingOpenAddressingTable<>(16);
+         doubleHashing.setIncrementalRehash(incremental);
+         insertLatency("double hashing" + mode, doubleHashing, entries);
+      }
+   }
+
+   static void insertLatency(String label, HashTable<Integer, Integer> table, int entries) {
+      long[] latencies = new long[entries];
+      GcSnapshot gc = new GcSnapshot();
+      for (int i = 0; i < entries; i++) {
+         long start = System.nanoTime();
+         table.insert(i, i);
+         latencies[i] = System.nanoTime() - start;
+      }
+      reportLatencies(label + " insert", latencies);
+      // the largest latencies include these pauses
+      System.out.println("   gc: " + gc.collections() + " collections " + gc.millis() + " ms");
+   }
+
+   static void reportLatencies(String label, long[] latencies) {
+      Arrays.sort(latencies);
+      int n = latencies.length;
+      System.out.printf("%-36s p50 %7d ns  p99 %7d ns  p99.9 %8d ns  p99.99 %9d ns  max %10d ns%n", label,
+            latencies[n / 2], latencies[(int) (n * 0.99)], latencies[(int) (n * 0.999)],
+            latencies[(int) (n * 0.9999)], latencies[n - 1]);
+   }
+
+   /**
+    * Compares the throughput of each table type with the BigDecimal based
+    * {@link MultiplicationHash} (before) and the Fibonacci hash on power of 2
+    * tables that the builder now defaults to (after).
+    *
+    * @param entries
+    */
+   static void hashFunctions(int entries) {
+      throughput("chain multiplication", HashTableBuilder.<Integer, Integer> getMultiplicationBasedHashTable(entries),
+            entries);
+      throughput("chain fibonacci", HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(entries), entries);
+      throughput("linear multiplication", HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(
+            entries, new MultiplicationHash<Integer>(entries)), entries);
+      throughput("linear fibonacci", HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(entries),
+            entries);
+      throughput("quadratic multiplication", HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(
+            entries, new MultiplicationHash<Integer>(entries)), entries);
+      throughput("quadratic fibonacci",
+            HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(entries), entries);
+      throughput("robin hood multiplication", HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(
+            entries, new MultiplicationHash<Integer>(entries)), entries);
+      throughput("robin hood fibonacci", HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(entries),
+            entries);
+   }
+
+   /**
+    * Compares the raw speed of every hash function on Long, String and byte[]
+    * keys, and then the throughput of a linear probing table over the first
+    * 20000 Long ids, which are all multiples of 1024 - the division hash
+    * cannot spread them.
+    *
+    * @param entries
+    */
+   static void hash64(int entries) {
+      Long[] longs = new Long[entries];
+      String[] strings = new String[entries];
+      byte[][] bytes = new byte[entries][];
+      Random random = new Random(42);
+      for (int i = 0; i < entries; i++) {
+         longs[i] = (long) i << 10;
+         strings[i] = "customer-" + random.nextInt();
+         bytes[i] = new byte[64];
+         random.nextBytes(bytes[i]);
+      }
+      List<IHashFunction<Object>> hashes = new ArrayList<>();
+      hashes.add(new DivisionHash<Object>(entries));
+      hashes.add(new MultiplicationHash<Object>(entries));
+      hashes.add(new FibonacciHash<Object>(entries));
+      hashes.add(new Murmur3Hash<Object>(entries));
+      hashes.add(new XxHash64<Object>(entries));
+      hashes.add(new WyHash<Object>(entries));
+      for (IHashFunction<Object> hash : hashes) {
+         String name = hash.getClass().getSimpleName();
+         hashSpeed(name + " Long", hash, longs);
+         hashSpeed(name + " String", hash, strings);
+         hashSpeed(name + " byte[64]", hash, bytes);
+      }
+      Long[] ids = Arrays.copyOf(longs, Math.min(entries, 20000));
+      for (IHashFunction<Object> hash : hashes) {
+         hash.setHashLimit(16);
+         OpenAddressingTable<Object, Long> table = HashTableBuilder.getLinearProbeOpenAddressingTable(16, hash);
+         hashedThroughput(hash.getClass().getSimpleName() + " table", table, ids);
+      }
+   }
+
+   static void hashSpeed(String label, IHashFunction<Object> hash, Object[] keys) {
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      long sink = 0;
+      for (int round = 0; round < 4; round++) {
+         for (Object key : keys) {
+            sink += hash.hash(key);
+         }
+      }
+      report(label, 4 * keys.length, start, gc);
+      System.out.println("(sink " + sink + ")");
+   }
+
+   static void hashedThroughput(String label, HashTable<Object, Long> table, Long[] keys) {
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      for (Long key : keys) {
+         table.insert(key, key);
+      }
+      report(label + " insert", keys.length, start, gc);
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      long sink = 0;
+      for (Long key : keys) {
+         sink += table.lookUp(key);
+      }
+      report(label + " lookUp", keys.length, start, gc);
+      System.out.println("(sink " + sink + ")");
+   }
+
+   /**
+    * Compares looking up keys that arrive as slices of a byte[] buffer - by
+    * decoding a String per look-up into a table of String keys, and in place
+    * with the {@link ByteKeyHashTable}.
+    *
+    * @param entries
+    */
+   static void byteKeys(int entries) {
+      Random random = new Random(42);
+      String[] keys = new String[entries];
+      for (int i = 0; i < entries; i++) {
+         keys[i] = "x-request-" + Integer.toHexString(random.nextInt());
+      }
+      // the "network buffer" - the keys of the requests, one after the other
+      int[] offsets = new int[LOOKUPS + 1];
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for (int i = 0; i < LOOKUPS; i++) {
+         byte[] key = keys[random.nextInt(entries)].getBytes(StandardCharsets.UTF_8);
+         out.write(key, 0, key.length);
+         offsets[i + 1] = out.size();
+      }
+      byte[] buffer = out.toByteArray();
+
+      OpenAddressingTable<String, Integer> strings = HashTableBuilder.getLinearProbeOpenAddressingTable(entries);
+      ByteKeyHashTable<Integer> bytes = HashTableBuilder.getByteKeyHashTable(entries);
+      for (int i = 0; i < entries; i++) {
+         strings.insert(keys[i], i);
+         bytes.insert(keys[i], i);
+      }
+      for (int round = 0; round < 2; round++) {
+         GcSnapshot gc = new GcSnapshot();
+         long start = System.nanoTime();
+         long sink = 0;
+         for (int i = 0; i < LOOKUPS; i++) {
+            String key = new String(buffer, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+            sink += strings.lookUp(key);
+         }
+         report("String decode lookUp", LOOKUPS, start, gc);
+         gc = new GcSnapshot();
+         start = System.nanoTime();
+         for (int i = 0; i < LOOKUPS; i++) {
+            sink += bytes.lookUp(buffer, offsets[i], offsets[i + 1] - offsets[i]);
+         }
+         report("byte slice lookUp", LOOKUPS, start, gc);
+         System.out.println("(sink " + sink + ")");
+      }
+   }
+
+   /**
+    * Compares the look-up latency distribution of the open addressing tables
+    * and the {@link CuckooHashTable}. The tables are filled to the size they
+    * were created for and then churned, so that the probing tables carry their
+    * DELETED marks. Once the double hashing table has no empty slots left its
+    * misses scan the whole table, so keep the entries small (20000 or so).
+    *
+    * @param entries
+    */
+   static void lookUpLatency(int entries) {
+      lookUpLatency("linear", HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(entries), entries);
+      lookUpLatency("quadratic", HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(entries),
+            entries);
+      lookUpLatency("double hashing", HashTableBuilder.<Integer, Integer> getDoubleHasingOpenAddressingTable(entries),
+            entries);
+      lookUpLatency("robin hood", HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(entries),
+            entries);
+      lookUpLatency("cuckoo", HashTableBuilder.<Integer, Integer> getCuckooHashTable(entries), entries);
+      lookUpLatency("swiss", HashTableBuilder.<Integer, Integer> getSwissHashTable(entries), entries);
+   }
+
+   static void lookUpLatency(String label, HashTable<Integer, Integer> table, int entries) {
+      Random random = new Random(42);
+      for (int i = 0; i < entries; i++) {
+         table.insert(i, i);
+      }
+      for (int i = 0; i < entries; i++) {
+         table.delete(random.nextInt(entries + i));
+         table.insert(entries + i, i);
+      }
+      // half of the probes miss
+      int[] probes = randomKeys(4 * entries, Math.min(LOOKUPS, 10 * entries));
+      long[] latencies = new long[probes.length];
+      long sink = 0;
+      GcSnapshot gc = new GcSnapshot();
+      for (int i = 0; i < probes.length; i++) {
+         long start = System.nanoTime();
+         Integer value = table.lookUp(probes[i]);
+         latencies[i] = System.nanoTime() - start;
+         sink += value == null ? 0 : value;
+      }
+      reportLatencies(label + " lookUp", latencies);
+      System.out.println("   gc: " + gc.collections() + " collections " + gc.millis() + " ms (sink " + sink + ")");
+   }
+
+   /**
+    * Compares the heap taken by the {@link LongOpenAddressingTable} with boxed
+    * Long values and the {@link OffHeapHashTable} for long to long entries,
+    * along with the collector work and the look-up cost.
+    *
+    * @param entries
+    */
+   static void offHeap(int entries) {
+      int[] probes = randomKeys(entries, LOOKUPS);
+      long heapBefore = usedHeap();
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      LongOpenAddressingTable<Long> onHeap = new LongOpenAddressingTable<>(entries);
+      for (int i = 0; i < entries; i++) {
+         onHeap.insert(i + 1, Long.valueOf(i));
+      }
+      report("on heap insert", entries, start, gc);
+      System.out.println("   heap: " + (usedHeap() - heapBefore) / (1 << 20) + " MB");
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      long sink = 0;
+      for (int key : probes) {
+         sink += onHeap.lookUp(key + 1);
+      }
+      report("on heap lookUp", probes.length, start, gc);
+      onHeap = null;
+
+      heapBefore = usedHeap();
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      OffHeapHashTable offHeap = new OffHeapHashTable(entries, 8);
+      for (int i = 0; i < entries; i++) {
+         offHeap.insert(i + 1, i);
+      }
+      report("off heap insert", entries, start, gc);
+      System.out.println("   heap: " + (usedHeap() - heapBefore) / (1 << 20) + " MB, off heap: "
+            + offHeap.offHeapBytes() / (1 << 20) + " MB");
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      for (int key : probes) {
+         sink += offHeap.lookUp(key + 1, 0L);
+      }
+      report("off heap lookUp", probes.length, start, gc);
+      offHeap.close();
+      System.out.println("(sink " + sink + ")");
+   }
+
+   /**
+    * Compares rebuilding an in memory table on start up with re-opening a
+    * {@link MappedHashTable} that was written by an earlier run.
+    *
+    * @param entries
+    */
+   static void restart(int entries) {
+      int[] probes = randomKeys(entries, Math.min(LOOKUPS, entries));
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      HashTable<String, Integer> rebuilt = HashTableBuilder.getFibonacciBasedHashTable(entries);
+      for (int i = 0; i < entries; i++) {
+         rebuilt.insert("key" + i, i);
+      }
+      report("rebuild in memory", entries, start, gc);
+      rebuilt = null;
+
+      try {
+         Path dir = Files.createTempDirectory("mapped");
+         Path indexPath = dir.resolve("table.index");
+         Path dataPath = dir.resolve("table.data");
+         MappedHashTable<String, Integer> table = new MappedHashTable<>(indexPath, dataPath, entries);
+         gc = new GcSnapshot();
+         start = System.nanoTime();
+         for (int i = 0; i < entries; i++) {
+            table.insert("key" + i, i);
+         }
+         table.close();
+         report("mapped build and close", entries, start, gc);
+
+         gc = new GcSnapshot();
+         start = System.nanoTime();
+         table = new MappedHashTable<>(indexPath, dataPath, entries);
+         System.out.printf("%-36s %10.3f ms%n", "mapped re-open", (System.nanoTime() - start) / 1e6);
+         start = System.nanoTime();
+         long sink = 0;
+         for (int key : probes) {
+            sink += table.lookUp("key" + key);
+         }
+         report("mapped lookUp after re-open", probes.length, start, gc);
+         table.close();
+         Files.delete(indexPath);
+         Files.delete(dataPath);
+         Files.delete(dir);
+         System.out.println("(sink " + sink + ")");
+      } catch (IOException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * Compares looking keys up one at a time with {@link HashTable#lookUpAll}
+    * for batch sizes from 16 to 4096. The tables should be well beyond the
+    * size of the caches for the overlap of the memory accesses to show.
+    *
+    * @param entries
+    */
+   static void batch(int entries) {
+      batch("chain", HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(entries), entries);
+      batch("linear", HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(entries), entries);
+      batch("robin hood", HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(entries), entries);
+      batch("swiss", HashTableBuilder.<Integer, Integer> getSwissHashTable(entries), entries);
+   }
+
+   static void batch(String label, HashTable<Integer, Integer> table, int entries) {
+      int[] keys = randomKeys(Integer.MAX_VALUE, entries);
+      for (int key : keys) {
+         table.insert(key, key);
+      }
+      Integer[] probes = new Integer[LOOKUPS];
+      Random random = new Random(7);
+      for (int i = 0; i < probes.length; i++) {
+         probes[i] = keys[random.nextInt(entries)];
+      }
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      long sink = 0;
+      for (Integer key : probes) {
+         sink += table.lookUp(key);
+      }
+      report(label + " lookUp", probes.length, start, gc);
+      for (int batchSize = 16; batchSize <= 4096; batchSize *= 4) {
+         Integer[] batchKeys = new Integer[batchSize];
+         Integer[] values = new Integer[batchSize];
+         int batches = probes.length / batchSize;
+         gc = new GcSnapshot();
+         start = System.nanoTime();
+         for (int b = 0; b < batches; b++) {
+            System.arraycopy(probes, b * batchSize, batchKeys, 0, batchSize);
+            table.lookUpAll(batchKeys, values);
+            sink += values[0];
+         }
+         report(label + " lookUpAll " + batchSize, batches * batchSize, start, gc);
+      }
+      System.out.println("(sink " + sink + ")");
+   }
+
+   /**
+    * Times inserts and look-ups of keys that all share one hashCode, against
+    * the chain table (whose crowded bucket is turned into a tree) and the
+    * linear probing table. Use a power of 2 for the number of entries, about
+    * 65536.
+    *
+    * @param entries
+    */
+   static void collisions(int entries) {
+      String[] keys = TestChainHashTable.collidingStrings(entries);
+      collisions("chain", HashTableBuilder.<String, Integer> getFibonacciBasedHashTable(entries), keys);
+      collisions("linear", HashTableBuilder.<String, Integer> getLinearProbeOpenAddressingTable(entries), keys);
+   }
+
+   static void collisions(String label, HashTable<String, Integer> table, String[] keys) {
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      for (int i = 0; i < keys.length; i++) {
+         table.insert(keys[i], i);
+      }
+      report(label + " colliding insert", keys.length, start, gc);
+      Random random = new Random(42);
+      int lookUps = Math.min(LOOKUPS, 4 * keys.length);
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      long sink = 0;
+      for (int i = 0; i < lookUps; i++) {
+         sink += table.lookUp(keys[random.nextInt(keys.length)]);
+      }
+      report(label + " colliding lookUp", lookUps, start, gc);
+      System.out.println("(sink " + sink + ")");
+   }
+
+   /**
+    * Prints throughput curves of chain tables that start with 16 buckets, for
+    * 1000 entries and each power of 10 up to the passed number of entries (and
+    * that number itself). The table either grows stop-the-world, grows
+    * incrementally or keeps its 16 buckets; the fixed table is only run up to
+    * 1000000 entries.
+    *
+    * @param entries
+    */
+   static void growth(int entries) {
+      for (long size = 1000; size <= entries; size = size * 10 > entries && size < entries ? entries : size * 10) {
+         int n = (int) size;
+         ChainHashTable<Integer, Integer> table = HashTableBuilder.getFibonacciBasedHashTable(16);
+         throughput("chain growing " + n, table, n);
+         table = null;
+         table = HashTableBuilder.getFibonacciBasedHashTable(16);
+         table.setIncrementalRehash(true);
+         throughput("chain incremental " + n, table, n);
+         table = null;
+         if (n <= 1000000) {
+            table = HashTableBuilder.getFibonacciBasedHashTable(16);
+            table.setLoadFactors(0, Double.POSITIVE_INFINITY);
+            throughput("chain fixed " + n, table, n);
+            table = null;
+         }
+      }
+   }
+
+   /**
+    * Runs the same workload on tables without and with statistics attached,
+    * to show what the instrumentation costs, and prints the statistics
+    * gathered.
+    *
+    * @param entries
+    */
+   static void statistics(int entries) {
+      throughput("linear", HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(16), entries);
+      OpenAddressingTable<Integer, Integer> linear = HashTableBuilder.getLinearProbeOpenAddressingTable(16);
+      HashTableStatistics statistics = HashTableBuilder.instrument(linear);
+      throughput("linear instrumented", linear, entries);
+      System.out.println(statistics);
+      linear = null;
+      throughput("swiss", HashTableBuilder.<Integer, Integer> getSwissHashTable(16), entries);
+      SwissHashTable<Integer, Integer> swiss = HashTableBuilder.getSwissHashTable(16);
+      statistics = HashTableBuilder.instrument(swiss);
+      throughput("swiss instrumented", swiss, entries);
+      System.out.println(statistics);
+   }
+
+   /**
+    * Compares the look-ups of a {@link FrozenHashTable} against the mutable
+    * tables holding the same random keys, half of the look-ups miss. Also
+    * reports the time taken to freeze the table and the heap used by each.
+    *
+    * @param entries
+    */
+   static void frozen(int entries) {
+      int[] keys = randomKeys(Integer.MAX_VALUE, 2 * entries);
+      Integer[] present = new Integer[entries];
+      for (int i = 0; i < entries; i++) {
+         present[i] = keys[i];
+      }
+      long baseline = usedHeap(); // the keys themselves are not counted
+      frozenLookUp("chain", fill(HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(entries), present),
+            keys, baseline);
+      frozenLookUp("linear",
+            fill(HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(entries), present), keys,
+            baseline);
+      frozenLookUp("swiss", fill(HashTableBuilder.<Integer, Integer> getSwissHashTable(entries), present), keys,
+            baseline);
+      OpenAddressingTable<Integer, Integer> linear = fill(
+            HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(entries), present);
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      FrozenHashTable<Integer, Integer> frozen = HashTableBuilder.freeze(linear);
+      report("freeze", entries, start, gc);
+      linear = null;
+      frozenLookUp("frozen", frozen, keys, baseline);
+   }
+
+   /**
+    * Compares the entry object layout of the array tables against the
+    * parallel arrays layout - heap used, insert and lookUp times.
+    *
+    * @param entries
+    */
+   static void layout(int entries) {
+      int[] keys = randomKeys(Integer.MAX_VALUE, 2 * entries);
+      Integer[] present = new Integer[entries];
+      for (int i = 0; i < entries; i++) {
+         present[i] = keys[i];
+      }
+      long baseline = usedHeap();
+      layout("linear entries", HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(entries),
+            present, keys, baseline);
+      layout("linear parallel", HashTableBuilder.<Integer, Integer> getLinearProbeParallelArrayTable(entries),
+            present, keys, baseline);
+      layout("double entries", HashTableBuilder.<Integer, Integer> getDoubleHasingOpenAddressingTable(entries),
+            present, keys, baseline);
+      layout("double parallel", HashTableBuilder.<Integer, Integer> getDoubleHashingParallelArrayTable(entries),
+            present, keys, baseline);
+   }
+
+   static void layout(String label, HashTable<Integer, Integer> table, Integer[] present, int[] keys,
+         long baseline) {
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      fill(table, present);
+      report(label + " insert", present.length, start, gc);
+      frozenLookUp(label, table, keys, baseline);
+   }
+
+   static <T extends HashTable<Integer, Integer>> T fill(T table, Integer[] keys) {
+      for (Integer key : keys) {
+         table.insert(key, key);
+      }
+      return table;
+   }
+
+   static void frozenLookUp(String label, HashTable<Integer, Integer> table, int[] keys, long baseline) {
+      System.out.printf("%-36s %10d MB%n", label + " heap", (usedHeap() - baseline) >> 20);
+      Random random = new Random(7);
+      int[] probes = new int[LOOKUPS];
+      for (int i = 0; i < probes.length; i++) {
+         probes[i] = keys[random.nextInt(keys.length)];
+      }
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      long sink = 0;
+      for (int key : probes) {
+         Integer value = table.lookUp(key);
+         sink += value == null ? 1 : value;
+      }
+      report(label + " lookUp", probes.length, start, gc);
+      System.out.println("(sink " + sink + ")");
+   }
+
+   /**
+    * Compares the heap used by the flat and the paged direct address tables
+    * holding the passed number of keys, out of 2^28 keys - the largest flat
+    * table a 3g heap can hold. The keys are either spread evenly or clustered
+    * in runs of 1000. The paged table is also run on the full int key range.
+    *
+    * @param entries
+    */
+   static void paged(int entries) {
+      int keyMax = 1 << 28;
+      int[] spread = randomKeys(keyMax, entries);
+      int[] clustered = new int[entries];
+      Random random = new Random(42);
+      for (int i = 0; i < entries; i += 1000) {
+         int start = random.nextInt(keyMax - 1000);
+         for (int j = i; j < Math.min(entries, i + 1000); j++) {
+            clustered[j] = start + j - i;
+         }
+      }
+      long baseline = usedHeap();
+      DirectAddressTable<Integer> flat = HashTableBuilder.createDirectAddressTable(keyMax);
+      for (int key : clustered) {
+         flat.insert(key, key);
+      }
+      System.out.printf("%-36s %10d MB%n", "flat 2^28 heap", (usedHeap() - baseline) >> 20);
+      directLookUp("flat 2^28 clustered", flat, null, clustered);
+      flat = null;
+      pagedRun("paged 2^28 spread", new PagedDirectAddressTable<Integer>(keyMax), spread, baseline);
+      pagedRun("paged 2^28 clustered", new PagedDirectAddressTable<Integer>(keyMax), clustered, baseline);
+      int[] wide = new int[entries];
+      for (int i = 0; i < entries; i++) {
+         wide[i] = clustered[i] * 7; // runs of 1000 keys spread over the int range
+      }
+      pagedRun("paged 2^31 clustered", new PagedDirectAddressTable<Integer>(Integer.MAX_VALUE), wide, baseline);
+   }
+
+   static void pagedRun(String label, PagedDirectAddressTable<Integer> table, int[] keys, long baseline) {
+      for (int key : keys) {
+         table.insert(key, key);
+      }
+      System.out.printf("%-36s %10d MB %8d pages%n", label + " heap", (usedHeap() - baseline) >> 20,
+            table.allocatedPageCount());
+      directLookUp(label, null, table, keys);
+   }
+
+   static void directLookUp(String label, DirectAddressTable<Integer> flat, PagedDirectAddressTable<Integer> paged,
+         int[] keys) {
+      Random random = new Random(7);
+      int[] probes = new int[LOOKUPS];
+      for (int i = 0; i < probes.length; i++) {
+         probes[i] = keys[random.nextInt(keys.length)];
+      }
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      long sink = 0;
+      for (int key : probes) {
+         sink += flat != null ? flat.lookUp(key) : paged.lookUp(key);
+      }
+      report(label + " lookUp", probes.length, start, gc);
+      System.out.println("(sink " + sink + ")");
+   }
+
+   static long usedHeap() {
+      System.gc();
+      Runtime runtime = Runtime.getRuntime();
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+   static void throughput(String label, HashTable<Integer, Integer> table, int entries) {
+      int[] keys = randomKeys(Integer.MAX_VALUE, entries);
+      GcSnapshot gc = new GcSnapshot();
+      long start = System.nanoTime();
+      for (int key : keys) {
+         table.insert(key, key);
+      }
+      report(label + " insert", entries, start, gc);
+      gc = new GcSnapshot();
+      start = System.nanoTime();
+      long sink = 0;
+      for (int round = 0; round < 4; round++) {
+         for (int key : keys) {
+            sink += table.lookUp(key);
+         }
+      }
+      report(label + " lookUp", 4 * entries, start, gc);
+      System.out.println("(sink " + sink + ")");
+   }
+
+   static int[] randomKeys(int bound, int size) {
+      Random random = new Random(42);
+      int[] keys = new int[size];
+      for (int i = 0; i < size; i++) {
+         keys[i] = random.nextInt(bound);
+      }
+      return keys;
+   }
+
+   static void report(String label, int operations, long startNanos, GcSnapshot gc) {
+      long elapsed = System.nanoTime() - startNanos;
+      System.out.printf("%-36s %10d ops %10.1f ns/op  gc: %5d collections %7d ms%n", label, operations,
+            (double) elapsed / operations, gc.collections(), gc.millis());
+   }
+
+   /**
+    * Captures the collector counters so the GC work done by a phase can be
+    * reported.
+    *
+    * @author robin
+    *
+    */
+   static class GcSnapshot {
+      private final long collections;
+      private final long millis;
+
+      GcSnapshot() {
+         System.gc();
+         collections = totalCollections();
+         millis = totalMillis();
+      }
+
+      long collections() {
+         return totalCollections() - collections;
+      }
+
+      long millis() {
+         return totalMillis() - millis;
+      }
+
+      private static long totalCollections() {
+         long total = 0;
+         for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, bean.getCollectionCount());
+         }
+         return total;
+      }
+
+      private static long totalMillis() {
+         long total = 0;
+         for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, bean.getCollectionTime());
+         }
+         return total;
+      }
+   }
+}
@@ -0,0 +1,94 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.AbstractArrayHashTable;
+import com.robin.ds.hashing.HashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.OpenAddressingTable;
+
+public class TestBatchOperations {
+
+   private static List<HashTable<Integer, Integer>> tables() {
+      List<HashTable<Integer, Integer>> tables = new ArrayList<>();
+      tables.add(HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getDoubleHasingOpenAddressingTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getLinearProbeParallelArrayTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getDoubleHashingParallelArrayTable(5));
+      tables.add(HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getSwissHashTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getCuckooHashTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getConcurrentChainHashTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getConcurrentOpenAddressingTable(4));
+      return tables;
+   }
+
+   @Test
+   public void batchesMatchSingleOperations() {
+      Random random = new Random(3);
+      for (HashTable<Integer, Integer> table : tables()) {
+         Map<Integer, Integer> expected = new HashMap<>();
+         for (int round = 0; round < 50; round++) {
+            Integer[] keys = new Integer[random.nextInt(300)];
+            Integer[] values = new Integer[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+               keys[i] = random.nextInt(5000); // repeats within a batch too
+               values[i] = random.nextInt();
+               expected.put(keys[i], values[i]);
+            }
+            table.insertAll(keys, values);
+            for (int i = 0; i < 50; i++) {
+               int key = random.nextInt(5000);
+               table.delete(key);
+               expected.remove(key);
+            }
+            assertEquals(table.getClass().getSimpleName(), expected.size(), table.count());
+         }
+         Integer[] keys = new Integer[6000];
+         Integer[] expectedValues = new Integer[keys.length];
+         for (int i = 0; i < keys.length; i++) {
+            keys[i] = i - 500; // includes absent keys
+            expectedValues[i] = expected.get(keys[i]);
+         }
+         Integer[] values = new Integer[keys.length];
+         table.lookUpAll(keys, values);
+         assertArrayEquals(table.getClass().getSimpleName(), expectedValues, values);
+      }
+   }
+
+   @Test
+   public void lookUpAllDuringIncrementalRehash() {
+      AbstractArrayHashTable<Integer, Integer> table = new OpenAddressingTable<>(16);
+      table.setIncrementalRehash(true);
+      int key = 0;
+      while (!table.isRehashInProgress()) {
+         table.insert(key, key);
+         key++;
+      }
+      Integer[] keys = new Integer[key + 10];
+      Integer[] values = new Integer[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = i;
+      }
+      table.lookUpAll(keys, values);
+      for (int i = 0; i < keys.length; i++) {
+         assertEquals(i < key ? Integer.valueOf(i) : null, values[i]);
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void shortValues() {
+      HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(4).lookUpAll(new Integer[2], new Integer[1]);
+   }
+}
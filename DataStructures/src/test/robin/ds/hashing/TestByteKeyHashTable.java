@@ -0,0 +1,181 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.ByteKeyHashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+
+public class TestByteKeyHashTable {
+
+   @Test
+   public void create() {
+      ByteKeyHashTable<String> table = HashTableBuilder.getByteKeyHashTable(4);
+      assertTrue(table.isEmpty());
+      assertEquals(0, table.count());
+      assertNull(table.lookUp(new byte[] { 1 }));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new ByteKeyHashTable<String>(0);
+   }
+
+   @Test
+   public void insertDeleteLookUp() {
+      ByteKeyHashTable<String> table = new ByteKeyHashTable<>(4);
+      assertNull(table.insert(bytes("GET"), "get"));
+      assertNull(table.insert(bytes("POST"), null));
+      assertNull(table.insert(new byte[0], "empty"));
+      assertEquals(3, table.count());
+      assertEquals("get", table.lookUp(bytes("GET")));
+      assertNull(table.lookUp(bytes("POST")));
+      assertEquals("empty", table.lookUp(new byte[0]));
+      assertNull(table.lookUp(bytes("GE")));
+
+      assertEquals("get", table.insert(bytes("GET"), "GET"));
+      assertEquals(3, table.count());
+      table.delete(bytes("GET"));
+      table.delete(bytes("GET"));
+      table.delete(bytes("PUT")); // not present
+      assertNull(table.lookUp(bytes("GET")));
+      assertEquals(2, table.count());
+      assertNull(table.insert(bytes("GET"), "again"));
+      assertEquals("again", table.lookUp(bytes("GET")));
+   }
+
+   @Test
+   public void slicesAreLookedUpInPlace() {
+      ByteKeyHashTable<Integer> table = new ByteKeyHashTable<>(4);
+      byte[] request = bytes("GET /index.html HTTP/1.1");
+      table.insert(request, 0, 3, 1);
+      table.insert(request, 4, 11, 2);
+      table.insert(request, 16, 8, 3);
+      // the table holds copies, the buffer can be reused
+      byte[] other = bytes("xx/index.htmlHTTP/1.1GETyy");
+      Arrays.fill(request, (byte) 0);
+      assertEquals(Integer.valueOf(2), table.lookUp(other, 2, 11));
+      assertEquals(Integer.valueOf(3), table.lookUp(other, 13, 8));
+      assertEquals(Integer.valueOf(1), table.lookUp(other, 21, 3));
+      assertNull(table.lookUp(other, 21, 4));
+      table.delete(other, 2, 11);
+      assertNull(table.lookUp(bytes("/index.html")));
+   }
+
+   @Test
+   public void byteBuffers() {
+      ByteKeyHashTable<Integer> table = new ByteKeyHashTable<>(4);
+      ByteBuffer heap = ByteBuffer.wrap(bytes("--alpha--beta"));
+      heap.position(2).limit(7);
+      table.insert(heap, 1);
+      assertEquals(2, heap.position()); // left as it was
+      ByteBuffer direct = ByteBuffer.allocateDirect(16);
+      direct.put(bytes("beta"));
+      direct.flip();
+      table.insert(direct, 2);
+      assertEquals(0, direct.position());
+      assertEquals(Integer.valueOf(2), table.lookUp(bytes("beta")));
+
+      ByteBuffer slice = ByteBuffer.wrap(bytes("--alpha--beta"), 9, 4).slice(); // an array offset
+      assertEquals(Integer.valueOf(2), table.lookUp(slice));
+      direct.clear();
+      direct.put(bytes("alpha")).flip();
+      assertEquals(Integer.valueOf(1), table.lookUp(direct));
+      assertEquals(Integer.valueOf(1), table.lookUp(direct.asReadOnlyBuffer()));
+      table.delete(direct);
+      assertNull(table.lookUp(bytes("alpha")));
+      table.delete(slice);
+      assertTrue(table.isEmpty());
+   }
+
+   @Test
+   public void charSequencesMatchTheirUtf8Bytes() {
+      ByteKeyHashTable<String> table = new ByteKeyHashTable<>(4);
+      String[] keys = { "plain", "caf\u00e9", "\u20ac100", "\ud83d\ude00 smile", "" };
+      for (String key : keys) {
+         table.insert(key.getBytes(StandardCharsets.UTF_8), key);
+      }
+      for (String key : keys) {
+         assertEquals(key, table.lookUp(key));
+         assertEquals(key, table.lookUp(new StringBuilder(key)));
+      }
+      String lone = "bad\ud800";
+      table.insert(lone, "lone");
+      assertEquals("lone", table.lookUp(lone.getBytes(StandardCharsets.UTF_8)));
+      table.delete("caf\u00e9");
+      assertNull(table.lookUp("caf\u00e9"));
+      assertEquals(keys.length, table.count());
+   }
+
+   @Test
+   public void growAndChurn() {
+      ByteKeyHashTable<Integer> table = new ByteKeyHashTable<>(4);
+      Map<String, Integer> expected = new HashMap<>();
+      Random random = new Random(9);
+      for (int i = 0; i < 50000; i++) {
+         String key = "key-" + random.nextInt(5000);
+         if (random.nextInt(3) == 0) {
+            table.delete(key);
+            expected.remove(key);
+         } else {
+            assertEquals(expected.put(key, i), table.insert(key, i));
+         }
+         assertEquals(expected.size(), table.count());
+      }
+      for (int i = 0; i < 5000; i++) {
+         assertEquals(expected.get("key-" + i), table.lookUp("key-" + i));
+      }
+   }
+
+   @Test
+   public void deletedKeysAreCompacted() {
+      ByteKeyHashTable<Integer> table = new ByteKeyHashTable<>(1000);
+      for (int i = 0; i < 100000; i++) {
+         table.insert("session-" + i, i);
+         if (i >= 1000) {
+            table.delete("session-" + (i - 1000));
+         }
+      }
+      assertEquals(1000, table.count());
+      // over 1MB of keys were inserted, the rehashes keep only the live ones
+      assertTrue(table.keyBytes() <= 2 * 65536);
+      assertEquals(Integer.valueOf(99999), table.lookUp("session-99999"));
+   }
+
+   @Test
+   public void largeKeys() {
+      ByteKeyHashTable<Integer> table = new ByteKeyHashTable<>(4);
+      byte[][] keys = new byte[20][];
+      Random random = new Random(3);
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = new byte[i * 10000];
+         random.nextBytes(keys[i]);
+         table.insert(keys[i], i);
+      }
+      for (int i = 0; i < keys.length; i++) {
+         assertEquals(Integer.valueOf(i), table.lookUp(keys[i]));
+      }
+      keys[5][4999] ^= 1;
+      assertFalse(Integer.valueOf(5).equals(table.lookUp(keys[5])));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidRange() {
+      new ByteKeyHashTable<String>(4).lookUp(new byte[4], 2, 3);
+   }
+
+   private static byte[] bytes(String string) {
+      return string.getBytes(StandardCharsets.US_ASCII);
+   }
+}
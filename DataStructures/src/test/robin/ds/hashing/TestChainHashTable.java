@@ -5,9 +5,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
 import org.junit.Test;
 
 import com.robin.ds.hashing.ChainHashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.HashTableCursor;
 
 public class TestChainHashTable {
 
@@ -87,4 +93,197 @@ public class TestChainHashTable {
       assertEquals("4", dat.lookUp(44));
    }
 
+   @Test
+   public void collidingComparableKeys() {
+      String[] keys = collidingStrings(1024);
+      ChainHashTable<String, Integer> dat = new ChainHashTable<>(16);
+      for (int i = 0; i < keys.length; i++) {
+         assertNull(dat.insert(keys[i], i));
+      }
+      dat.insert(null, -1);
+      assertEquals(keys.length + 1, dat.count());
+      for (int i = 0; i < keys.length; i++) {
+         assertEquals(Integer.valueOf(i), dat.lookUp(keys[i]));
+      }
+      assertEquals(Integer.valueOf(-1), dat.lookUp(null));
+      assertNull(dat.lookUp(keys[0] + "Aa"));
+      assertEquals(Integer.valueOf(5), dat.insert(keys[5], 50));
+      assertEquals(Integer.valueOf(50), dat.lookUp(keys[5]));
+   }
+
+   @Test
+   public void collidingKeysShrinkBackToChain() {
+      ChainHashTable<Collider, Integer> dat = new ChainHashTable<>(4);
+      for (int round = 0; round < 3; round++) {
+         for (int i = 0; i < 40; i++) {
+            dat.insert(new Collider(i), i);
+         }
+         assertEquals(40, dat.count());
+         for (int i = 39; i >= 0; i--) {
+            assertEquals(Integer.valueOf(i), dat.lookUp(new Collider(i)));
+            dat.delete(new Collider(i));
+            assertNull(dat.lookUp(new Collider(i)));
+            assertEquals(i, dat.count());
+            for (int j = 0; j < i; j++) {
+               assertEquals(Integer.valueOf(j), dat.lookUp(new Collider(j)));
+            }
+         }
+      }
+   }
+
+   @Test
+   public void collidingKeysMatchMap() {
+      Random random = new Random(11);
+      ChainHashTable<Collider, Integer> dat = new ChainHashTable<>(8);
+      Map<Collider, Integer> expected = new HashMap<>();
+      for (int i = 0; i < 20000; i++) {
+         Collider key = new Collider(random.nextInt(200));
+         if (random.nextInt(3) == 0) {
+            dat.delete(key);
+            expected.remove(key);
+         } else {
+            assertEquals(expected.put(key, i), dat.insert(key, i));
+         }
+         assertEquals(expected.size(), dat.count());
+      }
+      for (int i = 0; i < 200; i++) {
+         assertEquals(expected.get(new Collider(i)), dat.lookUp(new Collider(i)));
+      }
+      int entries = 0;
+      HashTableCursor<Collider, Integer> cursor = dat.cursor();
+      while (cursor.advance()) {
+         assertEquals(expected.get(cursor.key()), cursor.value());
+         entries++;
+      }
+      assertEquals(expected.size(), entries);
+   }
+
+   @Test
+   public void growsWithLoad() {
+      ChainHashTable<Integer, Integer> dat = new ChainHashTable<>(4);
+      for (int i = -5000; i < 5000; i++) {
+         dat.insert(i, i);
+      }
+      assertEquals(10000, dat.count());
+      assertTrue(dat.bucketCount() >= 10000 / 0.75);
+      for (int i = -5000; i < 5000; i++) {
+         assertEquals(Integer.valueOf(i), dat.lookUp(i));
+      }
+   }
+
+   @Test
+   public void shrinksWhenAllowed() {
+      ChainHashTable<Integer, Integer> dat = new ChainHashTable<>(8);
+      dat.setLoadFactors(0.1, 1);
+      for (int i = 0; i < 10000; i++) {
+         dat.insert(i, i);
+      }
+      int grown = dat.bucketCount();
+      assertTrue(grown >= 10000);
+      for (int i = 0; i < 9990; i++) {
+         dat.delete(i);
+      }
+      assertTrue(dat.bucketCount() < grown / 100);
+      assertTrue(dat.bucketCount() >= 8);
+      for (int i = 9990; i < 10000; i++) {
+         assertEquals(Integer.valueOf(i), dat.lookUp(i));
+      }
+      for (int i = 9990; i < 10000; i++) {
+         dat.delete(i);
+      }
+      assertEquals(8, dat.bucketCount());
+   }
+
+   @Test
+   public void fixedSize() {
+      ChainHashTable<Integer, Integer> dat = new ChainHashTable<>(16);
+      dat.setLoadFactors(0, Double.POSITIVE_INFINITY);
+      for (int i = 0; i < 1000; i++) {
+         dat.insert(i, i);
+      }
+      assertEquals(16, dat.bucketCount());
+      assertEquals(Integer.valueOf(999), dat.lookUp(999));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidLoadFactors() {
+      new ChainHashTable<Integer, Integer>(4).setLoadFactors(0.5, 1);
+   }
+
+   @Test
+   public void incrementalResizeMatchesMap() {
+      Random random = new Random(5);
+      ChainHashTable<Integer, Integer> dat = HashTableBuilder.getFibonacciBasedHashTable(4);
+      dat.setLoadFactors(0.1, 0.75);
+      dat.setIncrementalRehash(true);
+      Map<Integer, Integer> expected = new HashMap<>();
+      boolean sawMigration = false;
+      for (int i = 0; i < 200000; i++) {
+         // grow for a while, then shrink
+         int key = random.nextInt(i < 100000 ? 50000 : 60000);
+         if (i < 100000 ? random.nextInt(4) == 0 : random.nextInt(4) != 0) {
+            dat.delete(key);
+            expected.remove(key);
+         } else {
+            assertEquals(expected.put(key, i), dat.insert(key, i));
+         }
+         sawMigration |= dat.isRehashInProgress();
+         assertEquals(expected.size(), dat.count());
+         if (i % 997 == 0) {
+            int entries = 0;
+            HashTableCursor<Integer, Integer> cursor = dat.cursor();
+            while (cursor.advance()) {
+               assertEquals(expected.get(cursor.key()), cursor.value());
+               entries++;
+            }
+            assertEquals(expected.size(), entries);
+         }
+      }
+      assertTrue(sawMigration);
+      for (int i = 0; i < 60000; i++) {
+         assertEquals(expected.get(i), dat.lookUp(i));
+      }
+   }
+
+   /**
+    * Returns strings built from "Aa" and "BB", which all have the same
+    * hashCode.
+    * 
+    * @param count
+    *           - a power of 2
+    * @return String[]
+    */
+   static String[] collidingStrings(int count) {
+      int length = Integer.numberOfTrailingZeros(count);
+      String[] strings = new String[count];
+      for (int i = 0; i < count; i++) {
+         StringBuilder builder = new StringBuilder();
+         for (int bit = 0; bit < length; bit++) {
+            builder.append((i >>> bit & 1) == 0 ? "Aa" : "BB");
+         }
+         strings[i] = builder.toString();
+      }
+      return strings;
+   }
+
+   /**
+    * Key that is not {@link Comparable}, whose hashCode only takes 3 values.
+    */
+   static class Collider {
+      private final int id;
+
+      Collider(int id) {
+         this.id = id;
+      }
+
+      @Override
+      public int hashCode() {
+         return id % 3;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         return obj instanceof Collider && ((Collider) obj).id == id;
+      }
+   }
 }
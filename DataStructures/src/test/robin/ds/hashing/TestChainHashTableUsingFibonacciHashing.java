@@ -0,0 +1,120 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.ChainHashTable;
+import com.robin.ds.hashing.FibonacciHash;
+import com.robin.ds.hashing.HashTableBuilder;
+
+public class TestChainHashTableUsingFibonacciHashing {
+
+   @Test
+   public void create() {
+      ChainHashTable<Integer, String> dat = HashTableBuilder.getFibonacciBasedHashTable(4);
+      assertTrue(0 == dat.count());
+      assertTrue(dat.isEmpty());
+   }
+
+   @Test
+   public void lookUp() {
+      ChainHashTable<String, Integer> dat = HashTableBuilder.getFibonacciBasedHashTable(4);
+      dat.insert("1", 1);
+      dat.insert("2", 2);
+      dat.insert("3", 1);
+      assertEquals(null, dat.lookUp(null));
+      dat.insert(null, 0);
+      assertEquals(Integer.valueOf(1), dat.lookUp("3"));
+      assertEquals(Integer.valueOf(2), dat.lookUp("2"));
+      assertEquals(Integer.valueOf(1), dat.lookUp("1"));
+      assertEquals(Integer.valueOf(0), dat.lookUp(null));
+   }
+
+   @Test
+   public void insertDeleteLookUp() {
+      ChainHashTable<Integer, String> dat = HashTableBuilder.getFibonacciBasedHashTable(4);
+      assertTrue(dat.isEmpty());
+      String oldVal = dat.insert(3, "Value3");
+      assertNull(oldVal);
+      assertFalse(dat.isEmpty());
+      assertEquals(1, dat.count());
+
+      oldVal = dat.insert(3, null);
+      assertEquals("Value3", oldVal);
+      assertEquals(1, dat.count());
+
+      oldVal = dat.insert(3, "Value33");
+      assertEquals(null, oldVal);
+      assertEquals(1, dat.count());
+
+      dat.delete(100);
+      assertEquals(1, dat.count());
+      dat.delete(3);
+      assertEquals(0, dat.count());
+      dat.delete(3);
+      assertEquals(0, dat.count());
+
+      dat = HashTableBuilder.getFibonacciBasedHashTable(1);
+      dat.insert(1, "1");
+      dat.insert(2, "2");
+      dat.insert(3, "3");
+      dat.insert(4, "4");
+      assertEquals(4, dat.count());
+
+      dat.delete(4);
+      assertEquals(3, dat.count());
+      assertEquals(null, dat.lookUp(4));
+      assertEquals("3", dat.lookUp(3));
+
+      dat.insert(44, "4");
+      assertEquals(4, dat.count());
+
+      dat.delete(1);
+      assertEquals(3, dat.count());
+      assertEquals("3", dat.lookUp(3));
+      assertEquals("2", dat.lookUp(2));
+
+      dat.delete(3);
+      assertEquals(2, dat.count());
+      assertEquals("2", dat.lookUp(2));
+      assertEquals("4", dat.lookUp(44));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      HashTableBuilder.getFibonacciBasedHashTable(0);
+   }
+
+   @Test
+   public void hashWithinLimit() {
+      int[] limits = { 1, 2, 7, 16, 97, 1024, 1 << 30, Integer.MAX_VALUE };
+      for (int limit : limits) {
+         FibonacciHash<Integer> hash = new FibonacciHash<>(limit);
+         for (int key = -1000; key < 1000; key++) {
+            int index = hash.hash(key * 7919);
+            assertTrue(index >= 0 && index < limit);
+         }
+         int index = hash.hash(Integer.MIN_VALUE);
+         assertTrue(index >= 0 && index < limit);
+         assertEquals(0, hash.hash(null));
+      }
+   }
+
+   @Test
+   public void sequentialKeysSpread() {
+      // consecutive keys are spread evenly over a power of 2 table
+      FibonacciHash<Integer> hash = new FibonacciHash<>(1024);
+      int[] bucketSizes = new int[1024];
+      for (int key = 0; key < 1024; key++) {
+         bucketSizes[hash.hash(key)]++;
+      }
+      for (int bucketSize : bucketSizes) {
+         assertTrue(bucketSize <= 2);
+      }
+   }
+
+}
@@ -0,0 +1,154 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.ConcurrentChainHashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+
+import test.robin.ds.hashing.TestOpenAddressingHashTable.BadHashObject;
+
+public class TestConcurrentChainHashTable {
+
+   private static final int THREADS = 8;
+
+   @Test
+   public void create() {
+      ConcurrentChainHashTable<Integer, String> table = HashTableBuilder.getConcurrentChainHashTable(4);
+      assertTrue(table.isEmpty());
+      assertNull(table.lookUp(9));
+      table.delete(9);
+      assertEquals(0, table.count());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new ConcurrentChainHashTable<>(0);
+   }
+
+   @Test
+   public void insertDeleteLookUp() {
+      ConcurrentChainHashTable<BadHashObject, String> table = new ConcurrentChainHashTable<>(1, 1);
+      BadHashObject obj1 = new BadHashObject();
+      BadHashObject obj2 = new BadHashObject();
+      BadHashObject obj3 = new BadHashObject();
+      assertNull(table.insert(obj1, "1"));
+      table.insert(obj2, "2");
+      table.insert(obj3, "3");
+      table.insert(null, "null");
+      assertFalse(table.isEmpty());
+      assertEquals(4, table.count());
+
+      assertEquals("2", table.insert(obj2, "22"));
+      assertEquals("22", table.insertIfAbsent(obj2, "222"));
+      assertEquals("22", table.lookUp(obj2));
+      assertEquals(4, table.count());
+
+      table.delete(obj2); // middle of the chain
+      assertEquals(3, table.count());
+      assertNull(table.lookUp(obj2));
+      assertEquals("1", table.lookUp(obj1));
+      assertEquals("3", table.lookUp(obj3));
+      assertEquals("null", table.lookUp(null));
+
+      assertFalse(table.delete(obj1, "other"));
+      assertTrue(table.delete(obj1, "1"));
+      assertNull(table.insertIfAbsent(obj1, "11"));
+      assertEquals("11", table.lookUp(obj1));
+      assertEquals(3, table.count());
+   }
+
+   @Test
+   public void concurrentInsertsAndDeletes() throws InterruptedException {
+      final ConcurrentChainHashTable<Integer, Integer> table = new ConcurrentChainHashTable<>(1, 4);
+      final int perThread = 20000;
+      runThreads(new Work() {
+         @Override
+         public void run(int thread) {
+            for (int i = 0; i < perThread; i++) {
+               int key = thread * perThread + i;
+               table.insert(key, key);
+               if (i % 2 == 1) {
+                  table.delete(key - 1);
+               }
+            }
+         }
+      });
+      assertEquals(THREADS * perThread / 2, table.count());
+      for (int key = 0; key < THREADS * perThread; key++) {
+         assertEquals(key % 2 == 1 ? Integer.valueOf(key) : null, table.lookUp(key));
+      }
+   }
+
+   @Test
+   public void readersNeverMissStableKeys() throws InterruptedException {
+      final ConcurrentChainHashTable<Integer, Integer> table = new ConcurrentChainHashTable<>(1, 2);
+      final int stable = 1000;
+      for (int key = 0; key < stable; key++) {
+         table.insert(key, key);
+      }
+      final AtomicBoolean failed = new AtomicBoolean();
+      runThreads(new Work() {
+         @Override
+         public void run(int thread) {
+            if (thread % 2 == 0) {
+               // writers force resizes and chain copies around the stable keys
+               for (int i = 0; i < 20000; i++) {
+                  int key = stable + thread * 20000 + i;
+                  table.insert(key, key);
+                  table.delete(key);
+                  table.insert(key, key);
+               }
+            } else {
+               for (int i = 0; i < 200000; i++) {
+                  int key = i % stable;
+                  if (!Integer.valueOf(key).equals(table.lookUp(key))) {
+                     failed.set(true);
+                  }
+               }
+            }
+         }
+      });
+      assertFalse(failed.get());
+      assertEquals(stable + THREADS / 2 * 20000, table.count());
+   }
+
+   interface Work {
+      void run(int thread);
+   }
+
+   static void runThreads(final Work work) throws InterruptedException {
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+         final int thread = t;
+         Thread worker = new Thread() {
+            @Override
+            public void run() {
+               try {
+                  start.await();
+               } catch (InterruptedException e) {
+                  return;
+               }
+               work.run(thread);
+            }
+         };
+         worker.start();
+         threads.add(worker);
+      }
+      start.countDown();
+      for (Thread worker : threads) {
+         worker.join();
+      }
+   }
+
+}
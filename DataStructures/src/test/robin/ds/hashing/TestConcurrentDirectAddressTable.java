@@ -0,0 +1,163 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.ConcurrentDirectAddressTable;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.IValueFactory;
+
+import test.robin.ds.hashing.TestConcurrentChainHashTable.Work;
+
+public class TestConcurrentDirectAddressTable {
+
+   @Test
+   public void create() {
+      ConcurrentDirectAddressTable<String> dat = HashTableBuilder.createConcurrentDirectAddressTable(4);
+      assertTrue(dat.isSlotEmpty(0));
+      assertEquals(4, dat.emptySlotCount());
+      assertEquals(4, dat.size());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new ConcurrentDirectAddressTable<>(0);
+   }
+
+   @Test
+   public void insertDeleteLookUp() {
+      ConcurrentDirectAddressTable<String> dat = new ConcurrentDirectAddressTable<>(4);
+      assertNull(dat.insert("1", 1));
+      dat.insert(null, 0);
+      assertEquals("1", dat.insert("11", 1));
+      assertEquals("11", dat.lookUp(1));
+      assertNull(dat.lookUp(0));
+      assertFalse(dat.isSlotEmpty(0));
+      assertEquals(2, dat.emptySlotCount());
+      dat.delete(0);
+      dat.delete(0);
+      assertTrue(dat.isSlotEmpty(0));
+      assertEquals(3, dat.emptySlotCount());
+   }
+
+   @Test
+   public void compareAndInsert() {
+      ConcurrentDirectAddressTable<String> dat = new ConcurrentDirectAddressTable<>(4);
+      assertFalse(dat.compareAndInsert("a", "b", 1));
+      assertTrue(dat.compareAndInsert(null, "a", 1)); // an empty slot
+      assertEquals(3, dat.emptySlotCount());
+      assertFalse(dat.compareAndInsert(null, "b", 1));
+      assertTrue(dat.compareAndInsert(new String("a"), "b", 1));
+      assertEquals("b", dat.lookUp(1));
+      assertTrue(dat.compareAndInsert("b", null, 1));
+      assertTrue(dat.compareAndInsert(null, "c", 1)); // a slot holding null
+      assertEquals(3, dat.emptySlotCount());
+      assertFalse(dat.delete("b", 1));
+      assertTrue(dat.delete("c", 1));
+      assertFalse(dat.delete(null, 1));
+      assertEquals(4, dat.emptySlotCount());
+   }
+
+   @Test
+   public void insertIfAbsent() {
+      ConcurrentDirectAddressTable<String> dat = new ConcurrentDirectAddressTable<>(4);
+      assertNull(dat.insertIfAbsent("a", 2));
+      assertEquals("a", dat.insertIfAbsent("b", 2));
+      assertEquals("a", dat.lookUp(2));
+      assertEquals(3, dat.emptySlotCount());
+   }
+
+   @Test
+   public void computeIfAbsent() {
+      ConcurrentDirectAddressTable<String> dat = new ConcurrentDirectAddressTable<>(4);
+      final AtomicInteger calls = new AtomicInteger();
+      IValueFactory<String> factory = new IValueFactory<String>() {
+         public String create(int key) {
+            calls.incrementAndGet();
+            return key == 3 ? null : "v" + key;
+         }
+      };
+      assertEquals("v1", dat.computeIfAbsent(1, factory));
+      assertEquals("v1", dat.computeIfAbsent(1, factory));
+      assertEquals(1, calls.get());
+      assertNull(dat.computeIfAbsent(3, factory));
+      assertTrue(dat.isSlotEmpty(3));
+      dat.insert(null, 2);
+      assertNull(dat.computeIfAbsent(2, factory)); // a slot holding null is not absent
+      assertEquals(2, calls.get());
+   }
+
+   @Test
+   public void concurrentUpdatesKeepTheCount() throws InterruptedException {
+      final ConcurrentDirectAddressTable<Integer> dat = new ConcurrentDirectAddressTable<>(100000);
+      TestConcurrentChainHashTable.runThreads(new Work() {
+         public void run(int thread) {
+            for (int i = 0; i < 100000; i++) {
+               int key = (i * 31 + thread * 7) % 100000;
+               switch ((i + thread) % 4) {
+               case 0:
+                  dat.insert(i, key);
+                  break;
+               case 1:
+                  dat.insertIfAbsent(i, key);
+                  break;
+               case 2:
+                  dat.delete(key);
+                  break;
+               default:
+                  Integer current = dat.lookUp(key);
+                  dat.compareAndInsert(current, i, key);
+               }
+            }
+         }
+      });
+      int occupied = 0;
+      for (int key = 0; key < dat.size(); key++) {
+         if (!dat.isSlotEmpty(key)) {
+            occupied++;
+         }
+      }
+      assertEquals(dat.size() - occupied, dat.emptySlotCount());
+   }
+
+   @Test
+   public void computeIfAbsentRace() throws InterruptedException {
+      final ConcurrentDirectAddressTable<Object> dat = new ConcurrentDirectAddressTable<>(1000);
+      final AtomicReferenceArray<Object> seen = new AtomicReferenceArray<>(8 * 1000);
+      TestConcurrentChainHashTable.runThreads(new Work() {
+         public void run(final int thread) {
+            for (int key = 0; key < 1000; key++) {
+               seen.set(thread * 1000 + key, dat.computeIfAbsent(key, new IValueFactory<Object>() {
+                  public Object create(int key) {
+                     return new Object();
+                  }
+               }));
+            }
+         }
+      });
+      for (int key = 0; key < 1000; key++) {
+         for (int thread = 0; thread < 8; thread++) {
+            assertSame(dat.lookUp(key), seen.get(thread * 1000 + key));
+         }
+      }
+      assertEquals(0, dat.emptySlotCount());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void insertInvalid() {
+      new ConcurrentDirectAddressTable<String>(2).insertIfAbsent("a", 2);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void lookUpInvalid() {
+      new ConcurrentDirectAddressTable<String>(2).lookUp(-1);
+   }
+}
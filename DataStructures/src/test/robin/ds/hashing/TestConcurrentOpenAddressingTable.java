@@ -0,0 +1,194 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.ConcurrentOpenAddressingTable;
+import com.robin.ds.hashing.HashTableBuilder;
+
+import test.robin.ds.hashing.TestConcurrentChainHashTable.Work;
+import test.robin.ds.hashing.TestOpenAddressingHashTable.BadHashObject;
+
+public class TestConcurrentOpenAddressingTable {
+
+   private static final int THREADS = 8;
+
+   @Test
+   public void create() {
+      ConcurrentOpenAddressingTable<Integer, String> table = HashTableBuilder.getConcurrentOpenAddressingTable(4);
+      assertTrue(table.isEmpty());
+      assertNull(table.lookUp(9));
+      table.delete(9);
+      assertEquals(0, table.count());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new ConcurrentOpenAddressingTable<>(0);
+   }
+
+   @Test
+   public void insertDeleteLookUp() {
+      ConcurrentOpenAddressingTable<BadHashObject, String> table = new ConcurrentOpenAddressingTable<>(1);
+      BadHashObject obj1 = new BadHashObject();
+      BadHashObject obj2 = new BadHashObject();
+      BadHashObject obj3 = new BadHashObject();
+      assertNull(table.insert(obj1, "1"));
+      table.insert(obj2, "2");
+      table.insert(obj3, "3");
+      table.insert(null, "null");
+      assertEquals(4, table.count());
+
+      assertEquals("2", table.insert(obj2, "22"));
+      assertEquals("22", table.insertIfAbsent(obj2, "222"));
+      assertEquals("22", table.lookUp(obj2));
+
+      table.delete(obj2);
+      assertEquals(3, table.count());
+      assertNull(table.lookUp(obj2));
+      assertEquals("1", table.lookUp(obj1));
+      assertEquals("3", table.lookUp(obj3));
+      assertEquals("null", table.lookUp(null));
+
+      assertFalse(table.delete(obj1, "other"));
+      assertTrue(table.delete(obj1, "1"));
+      assertFalse(table.delete(obj1, "1"));
+      assertNull(table.insertIfAbsent(obj1, "11"));
+      assertEquals("11", table.lookUp(obj1));
+      assertEquals(3, table.count());
+
+      table.insert(obj3, null);
+      assertNull(table.lookUp(obj3));
+      assertEquals(3, table.count());
+   }
+
+   @Test
+   public void growsAndDropsTombstones() {
+      ConcurrentOpenAddressingTable<Integer, Integer> table = new ConcurrentOpenAddressingTable<>(1);
+      for (int i = 0; i < 100000; i++) {
+         table.insert(i, i);
+         if (i % 3 == 0) {
+            table.delete(i);
+         }
+      }
+      for (int i = 0; i < 100000; i++) {
+         assertEquals(i % 3 == 0 ? null : Integer.valueOf(i), table.lookUp(i));
+      }
+      assertEquals(100000 - 33334, table.count());
+   }
+
+   @Test
+   public void concurrentInsertsAndDeletes() throws InterruptedException {
+      final ConcurrentOpenAddressingTable<Integer, Integer> table = new ConcurrentOpenAddressingTable<>(1);
+      final int perThread = 20000;
+      TestConcurrentChainHashTable.runThreads(new Work() {
+         @Override
+         public void run(int thread) {
+            for (int i = 0; i < perThread; i++) {
+               int key = thread * perThread + i;
+               table.insert(key, key);
+               if (i % 2 == 1) {
+                  table.delete(key - 1);
+               }
+            }
+         }
+      });
+      assertEquals(THREADS * perThread / 2, table.count());
+      for (int key = 0; key < THREADS * perThread; key++) {
+         assertEquals(key % 2 == 1 ? Integer.valueOf(key) : null, table.lookUp(key));
+      }
+   }
+
+   @Test
+   public void insertIfAbsentHasOneWinner() throws InterruptedException {
+      final ConcurrentOpenAddressingTable<Integer, Integer> table = new ConcurrentOpenAddressingTable<>(1);
+      final int keys = 20000;
+      final AtomicInteger wins = new AtomicInteger();
+      TestConcurrentChainHashTable.runThreads(new Work() {
+         @Override
+         public void run(int thread) {
+            for (int key = 0; key < keys; key++) {
+               if (table.insertIfAbsent(key, thread) == null) {
+                  wins.incrementAndGet();
+               }
+            }
+         }
+      });
+      assertEquals(keys, wins.get());
+      assertEquals(keys, table.count());
+   }
+
+   /**
+    * Linearizability checks while the table keeps resizing: keys that are
+    * never deleted must always be found, and since every key has a single
+    * writer that only increases its value, no reader may see a value go
+    * backwards.
+    */
+   @Test
+   public void linearizableUnderResize() throws InterruptedException {
+      final ConcurrentOpenAddressingTable<Integer, Integer> table = new ConcurrentOpenAddressingTable<>(1);
+      final int stable = 500;
+      final int owned = 64; // keys per writer
+      final int rounds = 2000;
+      for (int key = 0; key < stable; key++) {
+         table.insert(-key - 1, key);
+      }
+      final AtomicBoolean failed = new AtomicBoolean();
+      final AtomicBoolean writing = new AtomicBoolean(true);
+      final AtomicInteger writers = new AtomicInteger(THREADS / 2);
+      TestConcurrentChainHashTable.runThreads(new Work() {
+         @Override
+         public void run(int thread) {
+            if (thread % 2 == 0) {
+               int base = thread * 1000000;
+               for (int round = 1; round <= rounds; round++) {
+                  for (int i = 0; i < owned; i++) {
+                     table.insert(base + i, round);
+                  }
+                  // churn fresh keys to force resizes and tombstones
+                  for (int i = 0; i < 8; i++) {
+                     int key = base + owned + round * 8 + i;
+                     table.insert(key, key);
+                     table.delete(key);
+                  }
+               }
+               if (writers.decrementAndGet() == 0) {
+                  writing.set(false);
+               }
+            } else {
+               int[] lastSeen = new int[THREADS * owned];
+               int step = 0;
+               while (writing.get()) {
+                  int key = step++ % stable;
+                  if (!Integer.valueOf(key).equals(table.lookUp(-key - 1))) {
+                     failed.set(true);
+                  }
+                  for (int writer = 0; writer < THREADS; writer += 2) {
+                     int i = step % owned;
+                     Integer value = table.lookUp(writer * 1000000 + i);
+                     int seen = value == null ? 0 : value;
+                     if (seen < lastSeen[writer * owned + i]) {
+                        failed.set(true);
+                     }
+                     lastSeen[writer * owned + i] = seen;
+                  }
+               }
+            }
+         }
+      });
+      assertFalse(failed.get());
+      assertEquals(stable + THREADS / 2 * owned, table.count());
+      for (int writer = 0; writer < THREADS; writer += 2) {
+         for (int i = 0; i < owned; i++) {
+            assertEquals(Integer.valueOf(rounds), table.lookUp(writer * 1000000 + i));
+         }
+      }
+   }
+}
@@ -0,0 +1,180 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.ConcurrentTinyLfuCache;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.LruCache;
+
+public class TestConcurrentTinyLfuCache {
+
+   @Test
+   public void create() {
+      ConcurrentTinyLfuCache<Integer, String> cache = HashTableBuilder.getConcurrentTinyLfuCache(4);
+      assertEquals(0, cache.count());
+      assertEquals(4, cache.capacity());
+      assertEquals(0, cache.hitRate(), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new ConcurrentTinyLfuCache<Integer, String>(0);
+   }
+
+   @Test
+   public void putAndGet() {
+      ConcurrentTinyLfuCache<String, Integer> cache = new ConcurrentTinyLfuCache<>(10);
+      assertNull(cache.put("a", 1));
+      assertNull(cache.put(null, 2));
+      assertEquals(Integer.valueOf(1), cache.put("a", 11));
+      assertEquals(Integer.valueOf(11), cache.get("a"));
+      assertEquals(Integer.valueOf(2), cache.get(null));
+      assertNull(cache.get("b"));
+      assertEquals(2, cache.count());
+      assertEquals(2, cache.hitCount());
+      assertEquals(1, cache.missCount());
+      assertEquals(2.0 / 3, cache.hitRate(), 1e-9);
+      assertEquals(0, cache.evictionCount());
+   }
+
+   @Test
+   public void invalidate() {
+      ConcurrentTinyLfuCache<Integer, Integer> cache = new ConcurrentTinyLfuCache<>(5);
+      for (int i = 0; i < 5; i++) {
+         cache.put(i, i);
+      }
+      cache.invalidate(0);
+      cache.invalidate(7); // not cached
+      assertEquals(4, cache.count());
+      assertNull(cache.get(0));
+      cache.put(5, 5); // fits in the freed slot
+      cache.cleanUp();
+      assertEquals(0, cache.evictionCount());
+      assertEquals(5, cache.count());
+      cache.invalidateAll();
+      assertEquals(0, cache.count());
+      assertNull(cache.get(1));
+      for (int i = 0; i < 8; i++) {
+         cache.put(i, i);
+      }
+      cache.cleanUp();
+      assertEquals(5, cache.count());
+      assertEquals(3, cache.evictionCount());
+   }
+
+   @Test
+   public void staysWithinCapacity() {
+      ConcurrentTinyLfuCache<Integer, Integer> cache = new ConcurrentTinyLfuCache<>(100);
+      Random random = new Random(5);
+      for (int i = 0; i < 100000; i++) {
+         Integer key = random.nextInt(1000);
+         if (cache.get(key) == null) {
+            cache.put(key, key);
+         }
+         assertTrue(cache.count() <= 100); // a single thread always gets the lock
+      }
+      assertEquals(100, cache.count());
+      assertEquals(cache.missCount() - 100, cache.evictionCount());
+   }
+
+   @Test
+   public void capacityOfOne() {
+      ConcurrentTinyLfuCache<Integer, Integer> cache = new ConcurrentTinyLfuCache<>(1);
+      for (int i = 0; i < 10; i++) {
+         cache.put(i, i);
+         assertEquals(1, cache.count());
+      }
+   }
+
+   @Test
+   public void scanDoesNotFlushPopularKeys() {
+      final int capacity = 100;
+      ConcurrentTinyLfuCache<Integer, Integer> cache = new ConcurrentTinyLfuCache<>(capacity);
+      LruCache<Integer, Integer> lru = new LruCache<>(capacity);
+      for (int round = 0; round < 5; round++) {
+         for (int key = 0; key < 50; key++) {
+            readThrough(cache, lru, key);
+         }
+      }
+      for (int key = 1000; key < 11000; key++) { // each key once
+         readThrough(cache, lru, key);
+      }
+      cache.cleanUp();
+      int cached = 0, lruCached = 0;
+      for (int key = 0; key < 50; key++) {
+         cached += cache.get(key) == null ? 0 : 1;
+         lruCached += lru.get(key) == null ? 0 : 1;
+      }
+      assertEquals(0, lruCached);
+      // the key left in the window when the scan starts only reaches probation,
+      // and ages out as the sketch halves its counters
+      assertTrue("popular keys cached " + cached, cached >= 49);
+   }
+
+   @Test
+   public void frequentKeysReplaceStaleOnes() {
+      ConcurrentTinyLfuCache<Integer, Integer> cache = new ConcurrentTinyLfuCache<>(100);
+      for (int key = 0; key < 100; key++) {
+         cache.put(key, key);
+      }
+      for (int round = 0; round < 4; round++) { // a new hot set
+         for (int key = 1000; key < 1100; key++) {
+            if (cache.get(key) == null) {
+               cache.put(key, key);
+            }
+         }
+      }
+      cache.cleanUp();
+      int cached = 0;
+      for (int key = 1000; key < 1100; key++) {
+         cached += cache.get(key) == null ? 0 : 1;
+      }
+      assertTrue("hot keys cached " + cached, cached >= 90);
+   }
+
+   @Test
+   public void concurrentReadThrough() throws Exception {
+      final ConcurrentTinyLfuCache<Integer, String> cache = new ConcurrentTinyLfuCache<>(500);
+      TestConcurrentChainHashTable.runThreads(new TestConcurrentChainHashTable.Work() {
+         @Override
+         public void run(int thread) {
+            Random random = new Random(thread);
+            for (int i = 0; i < 50000; i++) {
+               Integer key = random.nextInt(2000);
+               String value = cache.get(key);
+               if (value == null) {
+                  cache.put(key, String.valueOf(key));
+               } else {
+                  assertEquals(String.valueOf(key), value);
+               }
+               if (random.nextInt(100) == 0) {
+                  cache.invalidate(key);
+               }
+            }
+         }
+      });
+      cache.cleanUp();
+      assertTrue(cache.count() <= 500);
+      assertEquals(8 * 50000, cache.hitCount() + cache.missCount());
+      for (int key = 0; key < 2000; key++) {
+         String value = cache.get(key);
+         assertTrue(value == null || value.equals(String.valueOf(key)));
+      }
+   }
+
+   private static void readThrough(ConcurrentTinyLfuCache<Integer, Integer> cache, LruCache<Integer, Integer> lru,
+         Integer key) {
+      if (cache.get(key) == null) {
+         cache.put(key, key);
+      }
+      if (lru.get(key) == null) {
+         lru.put(key, key);
+      }
+   }
+}
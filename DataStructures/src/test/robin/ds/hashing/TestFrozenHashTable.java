@@ -0,0 +1,157 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.FrozenHashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.IterableHashTable;
+import com.robin.ds.hashing.OpenAddressingTable;
+
+public class TestFrozenHashTable {
+
+   @Test
+   public void freezeFindsEveryKey() {
+      for (int size : new int[] { 1, 2, 3, 10, 1000, 100000 }) {
+         IterableHashTable<Integer, Integer> table = HashTableBuilder.getLinearProbeOpenAddressingTable(16);
+         for (int i = 0; i < size; i++) {
+            table.insert(i * 7919, i);
+         }
+         FrozenHashTable<Integer, Integer> frozen = HashTableBuilder.freeze(table);
+         assertEquals(size, frozen.count());
+         assertEquals(0, frozen.overflowCount());
+         for (int i = 0; i < size; i++) {
+            assertEquals(Integer.valueOf(i), frozen.lookUp(i * 7919));
+            assertNull(frozen.lookUp(i * 7919 + 1));
+         }
+         assertNull(frozen.lookUp(null));
+      }
+   }
+
+   @Test
+   public void freezeChainTable() {
+      IterableHashTable<String, Integer> table = HashTableBuilder.getFibonacciBasedHashTable(16);
+      for (int i = 0; i < 5000; i++) {
+         table.insert("key" + i, i);
+      }
+      table.insert(null, -1);
+      FrozenHashTable<String, Integer> frozen = HashTableBuilder.freeze(table);
+      assertEquals(5001, frozen.count());
+      for (int i = 0; i < 5000; i++) {
+         assertEquals(Integer.valueOf(i), frozen.lookUp("key" + i));
+      }
+      assertEquals(Integer.valueOf(-1), frozen.lookUp(null));
+      assertNull(frozen.lookUp("key5000"));
+   }
+
+   @Test
+   public void sharedHashCodesGoToOverflow() {
+      String[] keys = TestChainHashTable.collidingStrings(256); // all share one hashCode
+      IterableHashTable<Object, Integer> table = HashTableBuilder.getFibonacciBasedHashTable(16);
+      for (int i = 0; i < keys.length; i++) {
+         table.insert(keys[i], i);
+      }
+      for (int i = 0; i < 30; i++) {
+         table.insert(new TestChainHashTable.Collider(i), 1000 + i);
+      }
+      FrozenHashTable<Object, Integer> frozen = HashTableBuilder.freeze(table);
+      assertEquals(286, frozen.count());
+      assertEquals(286 - 4, frozen.overflowCount());
+      for (int i = 0; i < keys.length; i++) {
+         assertEquals(Integer.valueOf(i), frozen.lookUp(keys[i]));
+      }
+      for (int i = 0; i < 30; i++) {
+         assertEquals(Integer.valueOf(1000 + i), frozen.lookUp(new TestChainHashTable.Collider(i)));
+      }
+      assertNull(frozen.lookUp(new TestChainHashTable.Collider(30)));
+   }
+
+   @Test
+   public void frozenTableIsACopy() {
+      OpenAddressingTable<Integer, Integer> table = HashTableBuilder.getLinearProbeOpenAddressingTable(16);
+      table.insert(1, 1);
+      FrozenHashTable<Integer, Integer> frozen = HashTableBuilder.freeze(table);
+      table.insert(2, 2);
+      table.delete(1);
+      assertEquals(Integer.valueOf(1), frozen.lookUp(1));
+      assertNull(frozen.lookUp(2));
+      assertEquals(1, frozen.count());
+   }
+
+   @Test
+   public void emptyTable() {
+      FrozenHashTable<Integer, Integer> frozen = HashTableBuilder
+            .freeze(HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(4));
+      assertTrue(frozen.isEmpty());
+      assertNull(frozen.lookUp(1));
+      Integer[] results = new Integer[1];
+      frozen.lookUpAll(new Integer[] { 1 }, results);
+      assertNull(results[0]);
+   }
+
+   @Test
+   public void lookUpAll() {
+      IterableHashTable<Integer, Integer> table = HashTableBuilder.getFibonacciBasedHashTable(16);
+      for (int i = 0; i < 1000; i++) {
+         table.insert(i, i * 2);
+      }
+      table.insert(null, 7);
+      FrozenHashTable<Integer, Integer> frozen = HashTableBuilder.freeze(table);
+      Integer[] keys = new Integer[2000];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = i;
+      }
+      keys[1999] = null;
+      Integer[] results = new Integer[keys.length];
+      frozen.lookUpAll(keys, results);
+      for (int i = 0; i < 1000; i++) {
+         assertEquals(Integer.valueOf(i * 2), results[i]);
+      }
+      for (int i = 1000; i < 1999; i++) {
+         assertNull(results[i]);
+      }
+      assertEquals(Integer.valueOf(7), results[1999]);
+   }
+
+   @Test
+   public void concurrentReads() throws InterruptedException {
+      IterableHashTable<Integer, Integer> table = HashTableBuilder.getFibonacciBasedHashTable(16);
+      for (int i = 0; i < 10000; i++) {
+         table.insert(i, i);
+      }
+      final FrozenHashTable<Integer, Integer> frozen = HashTableBuilder.freeze(table);
+      final AtomicInteger failures = new AtomicInteger();
+      Thread[] readers = new Thread[4];
+      for (int t = 0; t < readers.length; t++) {
+         readers[t] = new Thread() {
+            public void run() {
+               for (int i = 0; i < 10000; i++) {
+                  if (!Integer.valueOf(i).equals(frozen.lookUp(i))) {
+                     failures.incrementAndGet();
+                  }
+               }
+            }
+         };
+         readers[t].start();
+      }
+      for (Thread reader : readers) {
+         reader.join();
+      }
+      assertEquals(0, failures.get());
+   }
+
+   @Test(expected = UnsupportedOperationException.class)
+   public void insert() {
+      HashTableBuilder.freeze(HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(4)).insert(1, 1);
+   }
+
+   @Test(expected = UnsupportedOperationException.class)
+   public void delete() {
+      HashTableBuilder.freeze(HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(4)).delete(1);
+   }
+}
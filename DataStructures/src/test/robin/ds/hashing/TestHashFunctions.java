@@ -0,0 +1,250 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.AbstractHash64;
+import com.robin.ds.hashing.DivisionHash;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.IHashFunction;
+import com.robin.ds.hashing.Murmur3Hash;
+import com.robin.ds.hashing.OpenAddressingTable;
+import com.robin.ds.hashing.RobinHoodOpenAddressingTable;
+import com.robin.ds.hashing.WyHash;
+import com.robin.ds.hashing.XxHash64;
+
+public class TestHashFunctions {
+
+   private static List<AbstractHash64<Object>> hashes(int hashLimit) {
+      return Arrays.<AbstractHash64<Object>> asList(new Murmur3Hash<Object>(hashLimit),
+            new XxHash64<Object>(hashLimit), new WyHash<Object>(hashLimit));
+   }
+
+   @Test
+   public void referenceValues() {
+      byte[] empty = new byte[0];
+      assertEquals(0L, new Murmur3Hash<Object>(16).hash64(empty));
+      assertEquals(0xEF46DB3751D8E999L, new XxHash64<Object>(16).hash64(empty));
+      assertEquals(0x42BC986DC5EEC4D3L, new WyHash<Object>(16).hash64(empty));
+
+      byte[] fox = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII);
+      assertEquals(0xE34BBC7BBC071B6CL, new Murmur3Hash<Object>(16).hash64(fox));
+      assertEquals(0xD24EC4F1A98C6E5BL, new XxHash64<Object>(16).hash64(ascii("a")));
+      assertEquals(0x44BC2CF5AD770999L, new XxHash64<Object>(16).hash64(ascii("abc")));
+      assertEquals(0x84508DC903C31551L, new WyHash<Object>(16, 1).hash64(ascii("a")));
+      assertEquals(0x0BC54887CFC9ECB1L, new WyHash<Object>(16, 2).hash64(ascii("abc")));
+      assertEquals(0x6E2FF3298208A67CL, new WyHash<Object>(16, 3).hash64(ascii("message digest")));
+   }
+
+   @Test
+   public void longInputs() {
+      byte[] data = new byte[100];
+      for (int i = 0; i < data.length; i++) {
+         data[i] = (byte) (i * 31 + 7);
+      }
+      int[] lengths = { 17, 49, 100 };
+      long[][] expected = { { 0xEB322F84309DE524L, 0xFE9F0FEB7EEEDC09L, 0x98E612960370AD65L },
+            { 0x4F3EC791C0DEC2E6L, 0x9F787017DE727118L, 0xADE897EACF7ED0C2L },
+            { 0x024E0B490A12C598L, 0xEFA0AD2D3E70C151L, 0x9C4E5C45A25DC8D9L } };
+      for (int i = 0; i < lengths.length; i++) {
+         List<AbstractHash64<Object>> hashes = hashes(16);
+         for (int h = 0; h < hashes.size(); h++) {
+            assertEquals(expected[i][h], hashes.get(h).hash64(Arrays.copyOf(data, lengths[i])));
+         }
+      }
+      assertEquals(0xB2B140A7FDE9C8CDL, new Murmur3Hash<Object>(16, 42).hash64(data));
+      assertEquals(0x90C54D51A572AA5BL, new XxHash64<Object>(16, 42).hash64(data));
+      assertEquals(0x50F5F10F73A0A672L, new WyHash<Object>(16, 42).hash64(data));
+   }
+
+   @Test
+   public void specializationsMatchTheBytes() {
+      Random random = new Random(11);
+      for (AbstractHash64<Object> hash : hashes(16)) {
+         for (int length = 0; length < 70; length++) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+               chars[i] = (char) random.nextInt(0x10000);
+            }
+            String string = new String(chars);
+            byte[] utf16 = new byte[length * 2];
+            ByteBuffer.wrap(utf16).order(ByteOrder.LITTLE_ENDIAN).asCharBuffer().put(chars);
+            assertEquals(hash.hashBytes(utf16, 0, utf16.length), hash.hash64(string));
+            assertEquals(hash.hash64(string), hash.hash64(new StringBuilder(string)));
+
+            byte[] padded = new byte[utf16.length + 5];
+            System.arraycopy(utf16, 0, padded, 3, utf16.length);
+            assertEquals(hash.hash64(utf16), hash.hashBytes(padded, 3, utf16.length));
+         }
+         for (int i = 0; i < 1000; i++) {
+            long value = random.nextLong();
+            byte[] bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+            assertEquals(hash.hash64(bytes), hash.hashLong(value));
+            assertEquals(hash.hashLong(value), hash.hash64(Long.valueOf(value)));
+         }
+         assertEquals(hash.hashLong(12345), hash.hash64(Integer.valueOf(12345)));
+      }
+   }
+
+   @Test
+   public void hashWithinLimit() {
+      Random random = new Random(5);
+      for (int limit : new int[] { 1, 2, 7, 1000, 1024, Integer.MAX_VALUE }) {
+         for (AbstractHash64<Object> hash : hashes(limit)) {
+            for (int i = 0; i < 1000; i++) {
+               int index = hash.hash(random.nextLong());
+               assertTrue(index >= 0 && index < limit);
+            }
+            hash.setHashLimit(3);
+            for (int i = 0; i < 100; i++) {
+               int index = hash.hash("key" + i);
+               assertTrue(index >= 0 && index < 3);
+            }
+            assertEquals(IHashFunction.NULL_HASH, hash.hash(null));
+         }
+      }
+   }
+
+   @Test
+   public void seedsChangeTheHash() {
+      assertNotEquals(new Murmur3Hash<Object>(16).hashLong(1), new Murmur3Hash<Object>(16, 1).hashLong(1));
+      assertNotEquals(new XxHash64<Object>(16).hashLong(1), new XxHash64<Object>(16, 1).hashLong(1));
+      assertNotEquals(new WyHash<Object>(16).hashLong(1), new WyHash<Object>(16, 1).hashLong(1));
+   }
+
+   @Test
+   public void sequentialLongsSpreadEvenly() {
+      int buckets = 1024;
+      Long[] keys = new Long[64 * buckets];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = (long) i * buckets; // every id a multiple of the table size
+      }
+      // the division hash only sees the low bits, which never change
+      assertEquals(keys.length, maxLoad(new DivisionHash<Long>(buckets), keys, buckets));
+      for (AbstractHash64<Object> hash : hashes(buckets)) {
+         assertUniform(hash, keys, buckets);
+      }
+      for (AbstractHash64<Object> hash : hashes(1000)) {
+         assertUniform(hash, keys, 1000);
+      }
+   }
+
+   @Test
+   public void sharedHashCodesSpreadEvenly() {
+      String[] keys = TestChainHashTable.collidingStrings(8192); // all share one hashCode
+      assertEquals(keys.length, maxLoad(new DivisionHash<String>(256), keys, 256));
+      for (AbstractHash64<Object> hash : hashes(256)) {
+         assertUniform(hash, keys, 256);
+         Set<Long> distinct = new HashSet<>();
+         for (String key : keys) {
+            distinct.add(hash.hash64(key));
+         }
+         assertEquals(keys.length, distinct.size());
+      }
+   }
+
+   @Test
+   public void avalanche() {
+      Random random = new Random(17);
+      for (AbstractHash64<Object> hash : hashes(16)) {
+         // flipping any one input bit should flip about half the output bits
+         for (int bit = 0; bit < 64; bit++) {
+            long flipped = 0;
+            for (int i = 0; i < 1000; i++) {
+               long value = random.nextLong();
+               flipped += Long.bitCount(hash.hashLong(value) ^ hash.hashLong(value ^ 1L << bit));
+            }
+            assertFlipRate(hash, flipped / (1000 * 64.0));
+         }
+         byte[] bytes = new byte[37];
+         for (int bit = 0; bit < bytes.length * 8; bit++) {
+            long flipped = 0;
+            for (int i = 0; i < 200; i++) {
+               random.nextBytes(bytes);
+               long before = hash.hash64(bytes);
+               bytes[bit >>> 3] ^= 1 << (bit & 7);
+               flipped += Long.bitCount(before ^ hash.hash64(bytes));
+            }
+            assertFlipRate(hash, flipped / (200 * 64.0));
+         }
+      }
+   }
+
+   @Test
+   public void tablesUseTheHash() {
+      OpenAddressingTable<Long, Long> linear = HashTableBuilder.getLinearProbeOpenAddressingTable(16,
+            new XxHash64<Long>(16));
+      RobinHoodOpenAddressingTable<String, Long> robinHood = HashTableBuilder.getRobinHoodOpenAddressingTable(16,
+            new WyHash<String>(16));
+      OpenAddressingTable<Long, Long> murmur = HashTableBuilder.getLinearProbeOpenAddressingTable(17,
+            new Murmur3Hash<Long>(17));
+      for (long i = 0; i < 10000; i++) {
+         linear.insert(i << 32, i);
+         robinHood.insert("id" + i, i);
+         murmur.insert(i << 32, i);
+      }
+      for (long i = 0; i < 10000; i++) {
+         assertEquals(Long.valueOf(i), linear.lookUp(i << 32));
+         assertEquals(Long.valueOf(i), robinHood.lookUp("id" + i));
+         assertEquals(Long.valueOf(i), murmur.lookUp(i << 32));
+      }
+      assertEquals(10000, linear.count());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidLimit() {
+      new XxHash64<Object>(0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidRange() {
+      new WyHash<Object>(16).hashBytes(new byte[4], 2, 3);
+   }
+
+   private static byte[] ascii(String string) {
+      return string.getBytes(StandardCharsets.US_ASCII);
+   }
+
+   private static <K> int maxLoad(IHashFunction<K> hash, K[] keys, int buckets) {
+      int[] counts = new int[buckets];
+      int max = 0;
+      for (K key : keys) {
+         max = Math.max(max, ++counts[hash.hash(key)]);
+      }
+      return max;
+   }
+
+   /**
+    * Asserts the chi-squared statistic of the bucket counts is within 6
+    * standard deviations of what a uniform hash gives.
+    */
+   private static void assertUniform(AbstractHash64<Object> hash, Object[] keys, int buckets) {
+      int[] counts = new int[buckets];
+      for (Object key : keys) {
+         counts[hash.hash(key)]++;
+      }
+      double expected = (double) keys.length / buckets;
+      double chiSquared = 0;
+      for (int count : counts) {
+         chiSquared += (count - expected) * (count - expected) / expected;
+      }
+      double limit = (buckets - 1) + 6 * Math.sqrt(2.0 * (buckets - 1));
+      assertTrue(hash.getClass().getSimpleName() + " chi-squared " + chiSquared, chiSquared < limit);
+   }
+
+   private static void assertFlipRate(AbstractHash64<Object> hash, double rate) {
+      assertTrue(hash.getClass().getSimpleName() + " flip rate " + rate, rate > 0.45 && rate < 0.55);
+   }
+}
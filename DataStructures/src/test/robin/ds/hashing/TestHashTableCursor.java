@@ -0,0 +1,215 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.AbstractArrayHashTable;
+import com.robin.ds.hashing.DirectAddressTable;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.HashTableCursor;
+import com.robin.ds.hashing.IEntryVisitor;
+import com.robin.ds.hashing.IterableHashTable;
+import com.robin.ds.hashing.OpenAddressingTable;
+import com.robin.ds.hashing.PagedDirectAddressTable;
+import com.robin.ds.hashing.ParallelScan;
+
+public class TestHashTableCursor {
+
+   private static List<IterableHashTable<Integer, Integer>> tables() {
+      return tables(4);
+   }
+
+   private static List<IterableHashTable<Integer, Integer>> tables(int size) {
+      List<IterableHashTable<Integer, Integer>> tables = new ArrayList<>();
+      tables.add(HashTableBuilder.<Integer, Integer> getDivisionBasedHashTable(size));
+      tables.add(HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(size));
+      tables.add(HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(size));
+      tables.add(HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(size));
+      tables.add(HashTableBuilder.<Integer, Integer> getDoubleHasingOpenAddressingTable(size));
+      tables.add(HashTableBuilder.<Integer, Integer> getLinearProbeParallelArrayTable(size));
+      tables.add(HashTableBuilder.<Integer, Integer> getDoubleHashingParallelArrayTable(size));
+      tables.add(HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(size));
+      return tables;
+   }
+
+   @Test
+   public void cursorSeesEveryEntryOnce() {
+      for (IterableHashTable<Integer, Integer> table : tables()) {
+         for (int i = 0; i < 5000; i++) {
+            table.insert(i, i * 3);
+         }
+         for (int i = 0; i < 5000; i += 3) {
+            table.delete(i); // leaves DELETED slots behind
+         }
+         Map<Integer, Integer> seen = new HashMap<>();
+         HashTableCursor<Integer, Integer> cursor = table.cursor();
+         while (cursor.advance()) {
+            assertNull(seen.put(cursor.key(), cursor.value()));
+         }
+         assertEquals(table.count(), seen.size());
+         for (Map.Entry<Integer, Integer> entry : seen.entrySet()) {
+            assertTrue(entry.getKey() % 3 != 0);
+            assertEquals(Integer.valueOf(entry.getKey() * 3), entry.getValue());
+         }
+         assertFalse(cursor.advance());
+      }
+   }
+
+   @Test
+   public void cursorDuringIncrementalRehash() {
+      AbstractArrayHashTable<Integer, Integer> table = new OpenAddressingTable<>(16);
+      table.setIncrementalRehash(true);
+      int key = 0;
+      while (!table.isRehashInProgress()) {
+         table.insert(key, key);
+         key++;
+      }
+      HashTableCursor<Integer, Integer> cursor = table.cursor();
+      int entries = 0;
+      long sum = 0;
+      while (cursor.advance()) {
+         entries++;
+         sum += cursor.key();
+      }
+      assertEquals(key, entries);
+      assertEquals((long) key * (key - 1) / 2, sum);
+   }
+
+   @Test
+   public void splitsCoverTheTable() {
+      // the chain tables do not grow, so they are created with enough buckets
+      for (IterableHashTable<Integer, Integer> table : tables(20000)) {
+         for (int i = 0; i < 20000; i++) {
+            table.insert(i, i);
+         }
+         List<HashTableCursor<Integer, Integer>> parts = new ArrayList<>();
+         parts.add(table.cursor());
+         for (int i = 0; i < parts.size(); i++) {
+            HashTableCursor<Integer, Integer> split = parts.get(i).trySplit();
+            if (split != null) {
+               parts.add(split);
+               i--;
+            }
+         }
+         assertTrue(parts.size() > 1);
+         boolean[] seen = new boolean[20000];
+         for (HashTableCursor<Integer, Integer> part : parts) {
+            while (part.advance()) {
+               assertFalse(seen[part.key()]);
+               seen[part.key()] = true;
+            }
+         }
+         for (boolean entry : seen) {
+            assertTrue(entry);
+         }
+      }
+   }
+
+   @Test
+   public void parallelScan() {
+      for (IterableHashTable<Integer, Integer> table : tables()) {
+         for (int i = 0; i < 50000; i++) {
+            table.insert(i, i);
+         }
+         final AtomicLong sum = new AtomicLong();
+         ParallelScan.forEach(table.cursor(), new IEntryVisitor<Integer, Integer>() {
+            public void visit(Integer key, Integer value) {
+               sum.addAndGet(value);
+            }
+         });
+         assertEquals(50000L * 49999 / 2, sum.get());
+      }
+   }
+
+   @Test
+   public void resetPicksUpChanges() {
+      IterableHashTable<Integer, Integer> table = HashTableBuilder.getLinearProbeOpenAddressingTable(4);
+      table.insert(1, 1);
+      HashTableCursor<Integer, Integer> cursor = table.cursor();
+      assertTrue(cursor.advance());
+      assertFalse(cursor.advance());
+      for (int i = 2; i < 100; i++) {
+         table.insert(i, i); // grows the table
+      }
+      cursor.reset();
+      int entries = 0;
+      while (cursor.advance()) {
+         entries++;
+      }
+      assertEquals(99, entries);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void keyBeforeAdvance() {
+      HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(4).cursor().key();
+   }
+
+   @Test
+   public void directAddressTableCursor() {
+      DirectAddressTable<String> table = HashTableBuilder.createDirectAddressTable(5000);
+      table.insert("a", 7);
+      table.insert(null, 12);
+      table.insert("b", 4999);
+      DirectAddressTable<String>.Cursor cursor = table.cursor();
+      assertTrue(cursor.advance());
+      assertEquals(7, cursor.key());
+      assertEquals("a", cursor.value());
+      assertTrue(cursor.advance());
+      assertEquals(12, cursor.key());
+      assertNull(cursor.value());
+      DirectAddressTable<String>.Cursor split = cursor.trySplit();
+      assertNotNull(split);
+      assertFalse(cursor.advance());
+      assertTrue(split.advance());
+      assertEquals(4999, split.key());
+      assertFalse(split.advance());
+      cursor.reset();
+      int entries = 0;
+      while (cursor.advance()) {
+         entries++;
+      }
+      assertEquals(3, entries);
+   }
+
+   @Test
+   public void directAddressTableParallelScan() {
+      DirectAddressTable<Integer> table = HashTableBuilder.createDirectAddressTable(100000);
+      PagedDirectAddressTable<Integer> paged = HashTableBuilder.createPagedDirectAddressTable(1 << 20);
+      long expected = 0;
+      for (int key = 0; key < 100000; key += 3) {
+         table.insert(key, key);
+         paged.insert(key * 10, key); // 25 pages, most of them filled
+         expected += key;
+      }
+      HashTableCursor<Integer, Integer> cursor = table.cursor().boxed();
+      assertNotNull(cursor.trySplit()); // the view splits with the cursor
+      assertEquals(expected, parallelKeySum(table.cursor().boxed()));
+      assertEquals(expected, parallelKeySum(paged.cursor().boxed()));
+   }
+
+   /**
+    * Method scans the cursor in parallel, checking that each value is its key
+    * scaled by 1 or 10, and returns the sum of the keys.
+    */
+   private static long parallelKeySum(HashTableCursor<Integer, Integer> cursor) {
+      final AtomicLong sum = new AtomicLong();
+      ParallelScan.forEach(cursor, new IEntryVisitor<Integer, Integer>() {
+         public void visit(Integer key, Integer value) {
+            assertTrue(value.intValue() == key || value.intValue() == key * 10);
+            sum.addAndGet(key);
+         }
+      });
+      return sum.get();
+   }
+}
@@ -0,0 +1,125 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.HashTableStatistics;
+import com.robin.ds.hashing.InstrumentedHashTable;
+import com.robin.ds.hashing.MappedHashTable;
+import com.robin.ds.hashing.OpenAddressingTable;
+
+public class TestHashTableStatistics {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   private List<InstrumentedHashTable<Integer, Integer>> tables() throws IOException {
+      List<InstrumentedHashTable<Integer, Integer>> tables = new ArrayList<>();
+      tables.add(HashTableBuilder.<Integer, Integer> getFibonacciBasedHashTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getDoubleHasingOpenAddressingTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getSwissHashTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getCuckooHashTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getConcurrentChainHashTable(4));
+      tables.add(HashTableBuilder.<Integer, Integer> getConcurrentOpenAddressingTable(4));
+      Path dir = folder.getRoot().toPath();
+      tables.add(new MappedHashTable<Integer, Integer>(dir.resolve("table.index"), dir.resolve("table.data"), 4));
+      return tables;
+   }
+
+   @Test
+   public void recordsProbesAndRehashes() throws IOException {
+      for (InstrumentedHashTable<Integer, Integer> table : tables()) {
+         HashTableStatistics statistics = HashTableBuilder.instrument(table);
+         for (int i = 0; i < 2000; i++) {
+            table.insert(i, i);
+         }
+         statistics.reset();
+         for (int i = 0; i < 4000; i++) {
+            table.lookUp(i);
+         }
+         String name = table.getClass().getSimpleName();
+         assertEquals(name, 4000, statistics.probeCount());
+         Integer[] batch = new Integer[20];
+         for (int i = 0; i < batch.length; i++) {
+            batch[i] = i * 200; // half of them present
+         }
+         table.lookUpAll(batch, new Integer[batch.length]);
+         assertEquals(name, 4020, statistics.probeCount());
+         long[] histogram = statistics.probeLengthHistogram();
+         assertEquals(name, HashTableStatistics.MAX_PROBE_LENGTH + 1, histogram.length);
+         assertTrue(name, statistics.meanProbeLength() > 0);
+         assertTrue(name, statistics.probeLengthPercentile(0.5) <= statistics.probeLengthPercentile(0.99));
+         assertTrue(name, statistics.loadFactor() > 0 && statistics.loadFactor() <= 1);
+         for (int i = 2000; i < 20000; i++) {
+            table.insert(i, i);
+         }
+         assertTrue(name, statistics.rehashCount() > 0);
+         assertTrue(name, statistics.rehashNanos() > 0);
+         if (table instanceof MappedHashTable) {
+            ((MappedHashTable<Integer, Integer>) table).close();
+         }
+      }
+   }
+
+   @Test
+   public void tombstones() {
+      OpenAddressingTable<Integer, Integer> table = HashTableBuilder.getLinearProbeOpenAddressingTable(64);
+      HashTableStatistics statistics = HashTableBuilder.instrument(table);
+      for (int i = 0; i < 10; i++) {
+         table.insert(i, i);
+      }
+      table.delete(1);
+      table.delete(2);
+      assertEquals(2, statistics.tombstoneCount());
+      InstrumentedHashTable<Integer, Integer> swiss = HashTableBuilder.getSwissHashTable(64);
+      statistics = HashTableBuilder.instrument(swiss);
+      for (int i = 0; i < 10; i++) {
+         swiss.insert(i, i);
+      }
+      swiss.delete(1);
+      assertTrue(statistics.tombstoneCount() >= 0 && statistics.tombstoneCount() <= 1);
+   }
+
+   @Test
+   public void detachStopsRecording() {
+      InstrumentedHashTable<Integer, Integer> table = HashTableBuilder.getFibonacciBasedHashTable(16);
+      HashTableStatistics statistics = HashTableBuilder.instrument(table);
+      table.insert(1, 1);
+      table.lookUp(1);
+      long probes = statistics.probeCount();
+      table.setStatistics(null);
+      table.lookUp(1);
+      table.lookUp(2);
+      assertEquals(probes, statistics.probeCount());
+   }
+
+   @Test
+   public void percentiles() {
+      InstrumentedHashTable<Integer, Integer> table = HashTableBuilder.getFibonacciBasedHashTable(16);
+      HashTableStatistics statistics = HashTableBuilder.instrument(table);
+      assertEquals(0, statistics.probeLengthPercentile(0.99));
+      table.insert(1, 1);
+      statistics.reset(); // the insert searched the empty chain
+      table.lookUp(1); // a chain of one entry
+      assertEquals(1, statistics.probeLengthPercentile(1));
+      assertEquals(1.0, statistics.meanProbeLength(), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidPercentile() {
+      HashTableBuilder.instrument(HashTableBuilder.<Integer, Integer> getSwissHashTable(4)).probeLengthPercentile(2);
+   }
+}
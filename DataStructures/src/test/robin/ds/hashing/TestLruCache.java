@@ -0,0 +1,120 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.LruCache;
+
+public class TestLruCache {
+
+   @Test
+   public void create() {
+      LruCache<Integer, String> cache = HashTableBuilder.getLruCache(4);
+      assertEquals(0, cache.count());
+      assertEquals(4, cache.capacity());
+      assertNull(cache.eldestKey());
+      assertEquals(0, cache.hitRate(), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new LruCache<Integer, String>(0);
+   }
+
+   @Test
+   public void evictsLeastRecentlyUsed() {
+      LruCache<String, Integer> cache = new LruCache<>(3);
+      cache.put("a", 1);
+      cache.put("b", 2);
+      cache.put("c", 3);
+      assertEquals("a", cache.eldestKey());
+      assertEquals(Integer.valueOf(1), cache.get("a")); // b is now the eldest
+      assertEquals("b", cache.eldestKey());
+      assertNull(cache.put("d", 4));
+      assertEquals(3, cache.count());
+      assertNull(cache.get("b"));
+      assertEquals(Integer.valueOf(3), cache.get("c"));
+      assertEquals(Integer.valueOf(4), cache.put("d", 44)); // an update does not evict
+      assertEquals(1, cache.evictionCount());
+      assertEquals("a", cache.eldestKey());
+      cache.put("e", 5);
+      assertNull(cache.get("a"));
+      assertEquals(2, cache.evictionCount());
+      assertEquals(2, cache.hitCount());
+      assertEquals(2, cache.missCount());
+      assertEquals(0.5, cache.hitRate(), 0);
+   }
+
+   @Test
+   public void nullKeysAndValues() {
+      LruCache<String, String> cache = new LruCache<>(2);
+      cache.put(null, "null");
+      cache.put("a", null);
+      assertEquals("null", cache.get(null));
+      assertNull(cache.get("a"));
+      assertEquals(2, cache.hitCount()); // a cached null is a hit
+      cache.put("b", "b");
+      assertNull(cache.get(null));
+      assertEquals(1, cache.missCount());
+   }
+
+   @Test
+   public void invalidate() {
+      LruCache<Integer, Integer> cache = new LruCache<>(3);
+      for (int i = 0; i < 3; i++) {
+         cache.put(i, i);
+      }
+      cache.invalidate(0);
+      cache.invalidate(7); // not cached
+      assertEquals(2, cache.count());
+      assertEquals(Integer.valueOf(1), cache.eldestKey());
+      cache.put(3, 3); // fits in the freed slot
+      assertEquals(0, cache.evictionCount());
+      cache.invalidateAll();
+      assertEquals(0, cache.count());
+      assertNull(cache.eldestKey());
+      assertNull(cache.get(1));
+      for (int i = 0; i < 5; i++) {
+         cache.put(i, i);
+      }
+      assertEquals(3, cache.count());
+      assertEquals(2, cache.evictionCount());
+   }
+
+   @Test
+   public void matchesAccessOrderedMap() {
+      final int capacity = 100;
+      LruCache<Integer, Integer> cache = new LruCache<>(capacity);
+      @SuppressWarnings("serial")
+      Map<Integer, Integer> expected = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+         protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+            return size() > capacity;
+         }
+      };
+      Random random = new Random(13);
+      for (int i = 0; i < 100000; i++) {
+         Integer key = random.nextInt(300);
+         switch (random.nextInt(5)) {
+         case 0:
+            cache.invalidate(key);
+            expected.remove(key);
+            break;
+         case 1:
+         case 2:
+            assertEquals(expected.put(key, i), cache.put(key, i));
+            break;
+         default:
+            assertEquals(expected.get(key), cache.get(key));
+         }
+         assertEquals(expected.size(), cache.count());
+      }
+      assertEquals(expected.keySet().iterator().next(), cache.eldestKey());
+   }
+}
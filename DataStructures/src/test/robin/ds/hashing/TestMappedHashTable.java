@@ -0,0 +1,170 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.robin.ds.hashing.MappedHashTable;
+
+public class TestMappedHashTable {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   private MappedHashTable<String, Integer> open(int size) throws IOException {
+      Path dir = folder.getRoot().toPath();
+      return new MappedHashTable<>(dir.resolve("table.index"), dir.resolve("table.data"), size);
+   }
+
+   @Test
+   public void create() throws IOException {
+      MappedHashTable<String, Integer> table = open(4);
+      assertTrue(table.isEmpty());
+      assertNull(table.lookUp("a"));
+      table.delete("a");
+      assertEquals(0, table.count());
+      table.close();
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() throws IOException {
+      open(0);
+   }
+
+   @Test
+   public void insertDeleteLookUp() throws IOException {
+      MappedHashTable<String, Integer> table = open(4);
+      assertNull(table.insert("a", 1));
+      table.insert("b", 2);
+      table.insert(null, 3);
+      assertEquals(3, table.count());
+      assertEquals(Integer.valueOf(2), table.insert("b", 22));
+      assertEquals(Integer.valueOf(22), table.lookUp("b"));
+      assertEquals(Integer.valueOf(3), table.lookUp(null));
+      table.delete("b");
+      assertNull(table.lookUp("b"));
+      assertEquals(Integer.valueOf(1), table.lookUp("a"));
+      assertEquals(2, table.count());
+      table.insert("a", null);
+      assertNull(table.lookUp("a"));
+      assertEquals(2, table.count());
+      table.close();
+   }
+
+   @Test
+   public void reopenAfterClose() throws IOException {
+      MappedHashTable<String, Integer> table = open(4);
+      for (int i = 0; i < 1000; i++) {
+         table.insert("key" + i, i); // rebuilds the index a few times
+      }
+      for (int i = 0; i < 1000; i += 2) {
+         table.delete("key" + i);
+      }
+      table.close();
+
+      table = open(4);
+      assertEquals(500, table.count());
+      for (int i = 0; i < 1000; i++) {
+         assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), table.lookUp("key" + i));
+      }
+      table.insert("key0", 0);
+      assertEquals(501, table.count());
+      table.close();
+   }
+
+   @Test
+   public void reopenAfterForce() throws IOException {
+      MappedHashTable<String, Integer> table = open(4);
+      table.insert("a", 1);
+      table.force();
+      // a second instance sees the checkpoint without the first being closed
+      MappedHashTable<String, Integer> reopened = open(4);
+      assertEquals(Integer.valueOf(1), reopened.lookUp("a"));
+      reopened.close();
+      table.close();
+   }
+
+   @Test
+   public void crashLosesOnlyChangesAfterCheckpoint() throws IOException {
+      MappedHashTable<String, Integer> table = open(4);
+      table.insert("a", 1);
+      table.insert("b", 2);
+      table.force();
+      table.insert("c", 3);
+      table.delete("a");
+      table.insert("b", 22);
+      // a second instance opened without a checkpoint sees the files as a
+      // restart after a crash would
+      MappedHashTable<String, Integer> recovered = open(4);
+      assertEquals(2, recovered.count());
+      assertEquals(Integer.valueOf(1), recovered.lookUp("a"));
+      assertEquals(Integer.valueOf(2), recovered.lookUp("b"));
+      assertNull(recovered.lookUp("c"));
+      recovered.insert("d", 4); // appends over the records of the lost changes
+      recovered.close();
+      table = open(4);
+      assertEquals(Integer.valueOf(4), table.lookUp("d"));
+      assertEquals(Integer.valueOf(2), table.lookUp("b"));
+      table.close();
+   }
+
+   @Test
+   public void failedCheckpointKeepsTable() throws IOException {
+      MappedHashTable<String, Integer> table = open(4);
+      table.insert("a", 1);
+      Path newIndexPath = folder.getRoot().toPath().resolve("table.index.tmp");
+      Files.createDirectory(newIndexPath); // the new index cannot be written
+      try {
+         table.force();
+         fail();
+      } catch (IllegalStateException e) {
+         // the table keeps its index
+      }
+      assertEquals(Integer.valueOf(1), table.lookUp("a"));
+      table.insert("b", 2);
+      Files.delete(newIndexPath);
+      table.close();
+      table = open(4);
+      assertEquals(2, table.count());
+      assertEquals(Integer.valueOf(2), table.lookUp("b"));
+      table.close();
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void dataFileChecked() throws IOException {
+      open(4).close();
+      Files.write(folder.getRoot().toPath().resolve("table.data"), new byte[8]);
+      open(4);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void truncatedDataFileChecked() throws IOException {
+      MappedHashTable<String, Integer> table = open(4);
+      table.insert("a", 1);
+      table.close();
+      try (FileChannel data = FileChannel.open(folder.getRoot().toPath().resolve("table.data"),
+            StandardOpenOption.WRITE)) {
+         data.truncate(10);
+      }
+      open(4);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void closed() throws IOException {
+      MappedHashTable<String, Integer> table = open(4);
+      table.close();
+      table.close();
+      table.lookUp("a");
+   }
+}
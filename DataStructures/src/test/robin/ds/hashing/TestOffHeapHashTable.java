@@ -0,0 +1,107 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.OffHeapHashTable;
+
+public class TestOffHeapHashTable {
+
+   @Test
+   public void create() {
+      OffHeapHashTable table = new OffHeapHashTable(4, 8);
+      assertTrue(table.isEmpty());
+      assertEquals(-1, table.lookUp(9, -1));
+      table.delete(9);
+      assertEquals(0, table.count());
+      table.close();
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalidSize() {
+      new OffHeapHashTable(0, 8);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalidRecordSize() {
+      new OffHeapHashTable(4, 0);
+   }
+
+   @Test
+   public void insertDeleteLookUpRecords() {
+      OffHeapHashTable table = new OffHeapHashTable(2, 3);
+      byte[] record = new byte[3];
+      assertFalse(table.insert(5, new byte[] { 1, 2, 3 }));
+      assertFalse(table.insert(0, new byte[] { 4, 5, 6 })); // the empty slot marker
+      assertFalse(table.insert(-7, new byte[] { 7, 8, 9 }));
+      assertTrue(table.insert(5, new byte[] { 10, 11, 12 }));
+      assertEquals(3, table.count());
+
+      assertTrue(table.lookUp(5, record));
+      assertArrayEquals(new byte[] { 10, 11, 12 }, record);
+      assertTrue(table.lookUp(0, record));
+      assertArrayEquals(new byte[] { 4, 5, 6 }, record);
+      assertTrue(table.lookUp(-7, record));
+      assertArrayEquals(new byte[] { 7, 8, 9 }, record);
+
+      table.delete(0);
+      table.delete(5);
+      assertFalse(table.lookUp(0, record));
+      assertFalse(table.lookUp(5, record));
+      assertTrue(table.lookUp(-7, record));
+      assertEquals(1, table.count());
+      table.close();
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void shortRecord() {
+      OffHeapHashTable table = new OffHeapHashTable(2, 3);
+      table.insert(1, new byte[2]);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void longValuesNeedLongRecords() {
+      OffHeapHashTable table = new OffHeapHashTable(2, 4);
+      table.insert(1, 1L);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void closed() {
+      OffHeapHashTable table = new OffHeapHashTable(2, 8);
+      table.insert(1, 1L);
+      table.close();
+      table.close();
+      table.lookUp(1, 0L);
+   }
+
+   @Test
+   public void matchesHashMapUnderRandomOperations() {
+      OffHeapHashTable table = new OffHeapHashTable(1, 12);
+      Map<Long, Long> expected = new HashMap<>();
+      Random random = new Random(7);
+      for (int i = 0; i < 200000; i++) {
+         // a narrow key range gives long runs for the backward shift
+         long key = random.nextInt(20000) - 10000;
+         if (random.nextInt(3) == 0) {
+            table.delete(key);
+            expected.remove(key);
+         } else {
+            assertEquals(expected.put(key, (long) i) != null, table.insert(key, (long) i));
+         }
+      }
+      assertEquals(expected.size(), table.count());
+      for (long key = -10000; key < 10000; key++) {
+         Long value = expected.get(key);
+         assertEquals(value == null ? -1 : value.longValue(), table.lookUp(key, -1));
+      }
+      table.close();
+   }
+}
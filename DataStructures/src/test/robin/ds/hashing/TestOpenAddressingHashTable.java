@@ -5,9 +5,17 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
 import org.junit.Test;
 
+import com.robin.ds.hashing.AbstractArrayHashTable;
+import com.robin.ds.hashing.DivisionHash;
+import com.robin.ds.hashing.DoubleHashingOpenAddressingTable;
 import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.MultiplicationHash;
 import com.robin.ds.hashing.OpenAddressingTable;
 
 public class TestOpenAddressingHashTable {
@@ -63,11 +71,228 @@ public class TestOpenAddressingHashTable {
       lookUp(table2, 4);
    }
 
+   @Test
+   public void parallelArrays() {
+      OpenAddressingTable<BadHashObject, String> table1 = HashTableBuilder.getLinearProbeParallelArrayTable(4);
+      insertDeleteLookUp(table1, 4);
+
+      OpenAddressingTable<BadHashObject, Integer> table2 = HashTableBuilder.getLinearProbeParallelArrayTable(4);
+      lookUp(table2, 4);
+
+      OpenAddressingTable<String, String> table3 = HashTableBuilder.getLinearProbeParallelArrayTable(4);
+      table3.insert(null, "null");
+      table3.insert("a", null);
+      assertEquals("null", table3.lookUp(null));
+      assertNull(table3.lookUp("a"));
+      assertEquals(2, table3.count());
+      table3.delete(null);
+      assertNull(table3.lookUp(null));
+      assertEquals(1, table3.count());
+   }
+
+   @Test
+   public void doubleHashingParallelArraysWithNullKey() {
+      DoubleHashingOpenAddressingTable<String, String> table = HashTableBuilder.getDoubleHashingParallelArrayTable(5);
+      table.insert(null, "null");
+      for (int i = 0; i < 100; i++) {
+         table.insert("key" + i, "value" + i);
+      }
+      assertEquals("null", table.lookUp(null));
+      for (int i = 0; i < 100; i += 2) {
+         table.delete("key" + i);
+      }
+      assertEquals(51, table.count());
+      for (int i = 0; i < 100; i++) {
+         assertEquals(i % 2 == 0 ? null : "value" + i, table.lookUp("key" + i));
+      }
+   }
+
+   @Test
+   public void parallelArraysCompareHashCodesFirst() {
+      DoubleHashingOpenAddressingTable<Object, Integer> table = HashTableBuilder.getDoubleHashingParallelArrayTable(23);
+      final int[] equalsCalls = new int[1];
+      for (int i = 0; i < 6; i++) {
+         // every key has the same first hash, but only two share a hashCode
+         final int hash = i < 2 ? 0 : i * 23;
+         table.insert(new Object() {
+            public int hashCode() {
+               return hash;
+            }
+
+            public boolean equals(Object other) {
+               equalsCalls[0]++;
+               return this == other;
+            }
+         }, i);
+      }
+      assertEquals(6, table.count());
+      assertTrue(equalsCalls[0] <= 1);
+   }
+
+   @Test
+   public void parallelArraysReadHashCodeOncePerOperation() {
+      hashCodeCalls(HashTableBuilder.<CountingKey, Integer> getLinearProbeParallelArrayTable(4));
+      hashCodeCalls(HashTableBuilder.<CountingKey, Integer> getDoubleHashingParallelArrayTable(4));
+      AbstractArrayHashTable<CountingKey, Integer> incremental = HashTableBuilder.getLinearProbeParallelArrayTable(4);
+      incremental.setIncrementalRehash(true);
+      hashCodeCalls(incremental);
+   }
+
+   private void hashCodeCalls(AbstractArrayHashTable<CountingKey, Integer> table) {
+      CountingKey.calls = 0;
+      CountingKey[] keys = new CountingKey[1000];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = new CountingKey(i);
+         table.insert(keys[i], i); // grows the table a few times
+      }
+      assertEquals(1000, CountingKey.calls);
+      for (int i = 0; i < keys.length; i++) {
+         assertEquals(Integer.valueOf(i), table.lookUp(keys[i]));
+      }
+      assertEquals(2000, CountingKey.calls);
+      table.delete(keys[0]);
+      assertEquals(2001, CountingKey.calls);
+   }
+
+   /**
+    * A key that counts the calls to hashCode().
+    */
+   static class CountingKey {
+      static int calls;
+      private final int id;
+
+      CountingKey(int id) {
+         this.id = id;
+      }
+
+      @Override
+      public int hashCode() {
+         calls++;
+         return id;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         return obj instanceof CountingKey && ((CountingKey) obj).id == id;
+      }
+   }
+
    @Test(expected = IllegalArgumentException.class)
    public void createInvalid() {
       new OpenAddressingTable<>(0);
    }
 
+   @Test
+   public void incrementalRehash() {
+      incrementalRehash(new OpenAddressingTable<Integer, Integer>(2));
+      incrementalRehash(HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(2));
+      incrementalRehash(HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(2));
+      incrementalRehash(new DoubleHashingOpenAddressingTable<Integer, Integer>(4));
+      incrementalRehash(HashTableBuilder.<Integer, Integer> getRobinHoodOpenAddressingTable(2));
+      incrementalRehash(HashTableBuilder.<Integer, Integer> getLinearProbeParallelArrayTable(2));
+      incrementalRehash(new DoubleHashingOpenAddressingTable<Integer, Integer>(4, true));
+      incrementalRehash(HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(2,
+            new MultiplicationHash<Integer>(2)));
+      // a subclass is not copied, its limit is reset around each search of the old array
+      incrementalRehash(HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(2,
+            new DivisionHash<Integer>(2) {
+            }));
+   }
+
+   @Test
+   public void reinsertAfterDeletedSlot() {
+      OpenAddressingTable<BadHashObject, String> table = new OpenAddressingTable<>(4);
+      BadHashObject obj1 = new BadHashObject();
+      BadHashObject obj2 = new BadHashObject();
+      table.insert(obj1, "1");
+      table.insert(obj2, "2");
+      table.delete(obj1);
+      // obj2 sits behind the DELETED slot and must be updated, not duplicated
+      assertEquals("2", table.insert(obj2, "22"));
+      assertEquals(1, table.count());
+      table.delete(obj2);
+      assertNull(table.lookUp(obj2));
+      assertTrue(table.isEmpty());
+   }
+
+   @Test
+   public void tombstonesAreCounted() {
+      OpenAddressingTable<Integer, Integer> table = HashTableBuilder.getLinearProbeOpenAddressingTable(64);
+      for (int i = 0; i < 10; i++) {
+         table.insert(i, i);
+      }
+      table.delete(3);
+      table.delete(4);
+      table.delete(100); // not present
+      assertEquals(2, table.tombstoneCount());
+      assertTrue(table.tombstoneRatio() > 0 && table.tombstoneRatio() <= 2.0 / 64);
+      table.insert(3, 3); // reuses a DELETED slot
+      assertEquals(1, table.tombstoneCount());
+   }
+
+   @Test
+   public void churnKeepsTombstonesBounded() {
+      churnKeepsTombstonesBounded(HashTableBuilder.<Integer, Integer> getLinearProbeOpenAddressingTable(1024));
+      churnKeepsTombstonesBounded(HashTableBuilder.<Integer, Integer> getQuadraticProbeOpenAddressingTable(1024));
+      churnKeepsTombstonesBounded(new DoubleHashingOpenAddressingTable<Integer, Integer>(1031));
+      churnKeepsTombstonesBounded(HashTableBuilder.<Integer, Integer> getLinearProbeParallelArrayTable(1024));
+      churnKeepsTombstonesBounded(new DoubleHashingOpenAddressingTable<Integer, Integer>(1031, true));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidTombstoneRatio() {
+      new OpenAddressingTable<Integer, Integer>(4).setMaxTombstoneRatio(0);
+   }
+
+   private void churnKeepsTombstonesBounded(AbstractArrayHashTable<Integer, Integer> table) {
+      table.setMaxTombstoneRatio(0.2);
+      Map<Integer, Integer> expected = new HashMap<>();
+      Random random = new Random(7);
+      int nextKey = 0;
+      for (; nextKey < 500; nextKey++) {
+         table.insert(nextKey, nextKey);
+         expected.put(nextKey, nextKey);
+      }
+      for (int i = 0; i < 50000; i++) {
+         // replace a random live key with a fresh one
+         Integer victim = nextKey - 500 + random.nextInt(500);
+         table.delete(victim);
+         expected.remove(victim);
+         table.insert(nextKey, i);
+         expected.put(nextKey++, i);
+         assertTrue(table.tombstoneRatio() <= 0.2);
+      }
+      assertEquals(expected.size(), table.count());
+      for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+         assertEquals(entry.getValue(), table.lookUp(entry.getKey()));
+      }
+      assertNull(table.lookUp(-1));
+   }
+
+   private void incrementalRehash(AbstractArrayHashTable<Integer, Integer> table) {
+      table.setIncrementalRehash(true);
+      Map<Integer, Integer> expected = new HashMap<>();
+      Random random = new Random(3);
+      boolean sawRehash = false;
+      for (int i = 0; i < 5000; i++) {
+         Integer key = random.nextInt(2000);
+         if (random.nextInt(4) == 0) {
+            table.delete(key);
+            expected.remove(key);
+         } else {
+            assertEquals(expected.put(key, i), table.insert(key, i));
+         }
+         sawRehash |= table.isRehashInProgress();
+         assertEquals(expected.size(), table.count());
+         Integer probe = random.nextInt(2000);
+         assertEquals(expected.get(probe), table.lookUp(probe));
+      }
+      assertTrue(sawRehash);
+      for (int key = 0; key < 2000; key++) {
+         assertEquals(expected.get(key), table.lookUp(key));
+      }
+   }
+
    private void create(OpenAddressingTable<Integer, String> table) {
       assertTrue(0 == table.count());
       assertTrue(table.isEmpty());
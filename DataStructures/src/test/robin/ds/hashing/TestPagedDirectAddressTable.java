@@ -0,0 +1,131 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.PagedDirectAddressTable;
+
+public class TestPagedDirectAddressTable {
+
+   @Test
+   public void create() {
+      PagedDirectAddressTable<String> dat = new PagedDirectAddressTable<>(4);
+      assertTrue(dat.isSlotEmpty(0));
+      assertEquals(4, dat.emptySlotCount());
+      assertEquals(4, dat.size());
+      assertEquals(0, dat.allocatedPageCount());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new PagedDirectAddressTable<>(0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalidPageSize() {
+      new PagedDirectAddressTable<>(100, 48);
+   }
+
+   @Test
+   public void lookUp() {
+      PagedDirectAddressTable<String> dat = new PagedDirectAddressTable<>(4);
+      dat.insert("1", 1);
+      dat.insert("2", 2);
+      dat.insert("1", 3);
+      dat.insert(null, 0);
+      assertEquals("1", dat.lookUp(3));
+      assertEquals("2", dat.lookUp(2));
+      assertEquals("1", dat.lookUp(1));
+      assertEquals(null, dat.lookUp(0));
+   }
+
+   @Test
+   public void slotCount() {
+      PagedDirectAddressTable<String> dat = new PagedDirectAddressTable<>(4);
+      assertTrue(dat.isSlotEmpty(3));
+      String oldVal = dat.insert("Value3", 3);
+      assertNull(oldVal);
+      assertFalse(dat.isSlotEmpty(3));
+      assertEquals(3, dat.emptySlotCount());
+
+      oldVal = dat.insert(null, 3);
+      assertEquals("Value3", oldVal);
+      assertEquals(3, dat.emptySlotCount());
+
+      dat.delete(3);
+      assertEquals(4, dat.emptySlotCount());
+      dat.delete(3);
+      assertEquals(4, dat.emptySlotCount());
+   }
+
+   @Test
+   public void pagesAllocatedAndFreed() {
+      PagedDirectAddressTable<String> dat = new PagedDirectAddressTable<>(Integer.MAX_VALUE, 256);
+      assertNull(dat.lookUp(1000000));
+      dat.insert("a", 1000000);
+      dat.insert("b", 1000001);
+      dat.insert("c", Integer.MAX_VALUE - 1);
+      assertEquals(2, dat.allocatedPageCount());
+      assertEquals("a", dat.lookUp(1000000));
+      assertEquals("c", dat.lookUp(Integer.MAX_VALUE - 1));
+      assertNull(dat.lookUp(1000002));
+      dat.delete(1000000);
+      assertEquals(2, dat.allocatedPageCount());
+      dat.delete(1000001);
+      assertEquals(1, dat.allocatedPageCount());
+      assertTrue(dat.isSlotEmpty(1000001));
+      assertNull(dat.lookUp(1000001));
+      dat.delete(1000001); // on a freed page
+      assertEquals(Integer.MAX_VALUE - 1, dat.emptySlotCount());
+   }
+
+   @Test
+   public void cursorSkipsMissingPages() {
+      PagedDirectAddressTable<Integer> dat = HashTableBuilder.createPagedDirectAddressTable(Integer.MAX_VALUE);
+      int[] keys = { 3, 4095, 4096, 70000000, Integer.MAX_VALUE - 1 };
+      for (int key : keys) {
+         dat.insert(key * 2, key);
+      }
+      PagedDirectAddressTable<Integer>.Cursor cursor = dat.cursor();
+      for (int key : keys) {
+         assertTrue(cursor.advance());
+         assertEquals(key, cursor.key());
+         assertEquals(Integer.valueOf(key * 2), cursor.value());
+      }
+      assertFalse(cursor.advance());
+      assertFalse(cursor.advance());
+      cursor.reset();
+      PagedDirectAddressTable<Integer>.Cursor split = cursor.trySplit();
+      assertNotNull(split);
+      int entries = 0;
+      while (cursor.advance()) {
+         entries++;
+      }
+      while (split.advance()) {
+         entries++;
+      }
+      assertEquals(keys.length, entries);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void deleteInvalid() {
+      PagedDirectAddressTable<String> dat = new PagedDirectAddressTable<>(2);
+      dat.delete(3);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void lookUpInvalid() {
+      PagedDirectAddressTable<Integer> dat = new PagedDirectAddressTable<>(2);
+      dat.lookUp(-3);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void insertInvalid() {
+      PagedDirectAddressTable<BigDecimal> dat = new PagedDirectAddressTable<>(5000);
+      dat.insert(BigDecimal.ZERO, 5000);
+   }
+}
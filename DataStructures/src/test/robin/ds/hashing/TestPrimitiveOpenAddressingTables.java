@@ -0,0 +1,126 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.IntOpenAddressingTable;
+import com.robin.ds.hashing.LongOpenAddressingTable;
+
+public class TestPrimitiveOpenAddressingTables {
+
+   @Test
+   public void create() {
+      IntOpenAddressingTable<String> ints = HashTableBuilder.getIntOpenAddressingTable(4);
+      assertTrue(ints.isEmpty());
+      assertEquals(null, ints.lookUp(9));
+      ints.delete(9);
+      assertEquals(0, ints.count());
+
+      LongOpenAddressingTable<String> longs = HashTableBuilder.getLongOpenAddressingTable(4);
+      assertTrue(longs.isEmpty());
+      assertEquals(null, longs.lookUp(9L));
+      longs.delete(9L);
+      assertEquals(0, longs.count());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new IntOpenAddressingTable<>(0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalidLong() {
+      new LongOpenAddressingTable<>(0);
+   }
+
+   @Test
+   public void insertDeleteLookUpInt() {
+      IntOpenAddressingTable<String> dat = new IntOpenAddressingTable<>(2);
+      String oldVal = dat.insert(3, "Value3");
+      assertNull(oldVal);
+      assertFalse(dat.isEmpty());
+      assertEquals(1, dat.count());
+
+      oldVal = dat.insert(3, null);
+      assertEquals("Value3", oldVal);
+      assertEquals(1, dat.count());
+      assertNull(dat.lookUp(3));
+
+      oldVal = dat.insert(3, "Value33");
+      assertEquals(null, oldVal);
+      assertEquals(1, dat.count());
+
+      dat.insert(-7, "negative");
+      dat.insert(Integer.MIN_VALUE, "min");
+      dat.insert(Integer.MAX_VALUE, "max");
+      assertEquals(4, dat.count());
+      assertEquals("negative", dat.lookUp(-7));
+      assertEquals("min", dat.lookUp(Integer.MIN_VALUE));
+      assertEquals("max", dat.lookUp(Integer.MAX_VALUE));
+
+      dat.delete(100);
+      assertEquals(4, dat.count());
+      dat.delete(3);
+      assertEquals(3, dat.count());
+      assertNull(dat.lookUp(3));
+      dat.delete(3);
+      assertEquals(3, dat.count());
+   }
+
+   @Test
+   public void insertDeleteLookUpLong() {
+      LongOpenAddressingTable<String> dat = new LongOpenAddressingTable<>(2);
+      long big = 1L << 40;
+      dat.insert(big, "big");
+      dat.insert(big + 1, "big1");
+      dat.insert(-big, "-big");
+      dat.insert(Long.MIN_VALUE, "min");
+      assertEquals(4, dat.count());
+      assertEquals("big", dat.lookUp(big));
+      assertEquals("big1", dat.lookUp(big + 1));
+      assertEquals("-big", dat.lookUp(-big));
+      assertEquals("min", dat.lookUp(Long.MIN_VALUE));
+      assertNull(dat.lookUp(0L));
+
+      assertEquals("big", dat.insert(big, "again"));
+      dat.delete(-big);
+      assertEquals(3, dat.count());
+      assertNull(dat.lookUp(-big));
+      assertEquals("again", dat.lookUp(big));
+   }
+
+   @Test
+   public void churnAgainstHashMap() {
+      Random random = new Random(7);
+      IntOpenAddressingTable<Integer> ints = new IntOpenAddressingTable<>(1);
+      LongOpenAddressingTable<Integer> longs = new LongOpenAddressingTable<>(1);
+      Map<Integer, Integer> expected = new HashMap<>();
+      for (int i = 0; i < 20000; i++) {
+         int key = random.nextInt(500) - 250;
+         if (random.nextInt(3) == 0) {
+            ints.delete(key);
+            longs.delete(key * 1000000007L);
+            expected.remove(key);
+         } else {
+            assertEquals(expected.put(key, i), ints.insert(key, i));
+            longs.insert(key * 1000000007L, i);
+         }
+         assertEquals(expected.size(), ints.count());
+         assertEquals(expected.size(), longs.count());
+      }
+      for (int key = -250; key < 250; key++) {
+         assertEquals(expected.get(key), ints.lookUp(key));
+         assertEquals(expected.get(key), longs.lookUp(key * 1000000007L));
+      }
+   }
+
+}
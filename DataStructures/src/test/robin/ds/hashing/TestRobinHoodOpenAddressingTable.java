@@ -0,0 +1,97 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.RobinHoodOpenAddressingTable;
+
+import test.robin.ds.hashing.TestOpenAddressingHashTable.BadHashObject;
+
+public class TestRobinHoodOpenAddressingTable {
+
+   @Test
+   public void create() {
+      RobinHoodOpenAddressingTable<Integer, String> table = HashTableBuilder.getRobinHoodOpenAddressingTable(4);
+      assertTrue(table.isEmpty());
+      assertNull(table.lookUp(9));
+      table.delete(9);
+      assertEquals(0, table.count());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new RobinHoodOpenAddressingTable<>(0);
+   }
+
+   @Test
+   public void insertDeleteLookUp() {
+      RobinHoodOpenAddressingTable<BadHashObject, String> table = new RobinHoodOpenAddressingTable<>(2);
+      BadHashObject obj1 = new BadHashObject();
+      BadHashObject obj2 = new BadHashObject();
+      BadHashObject obj3 = new BadHashObject();
+      BadHashObject obj4 = new BadHashObject();
+
+      assertNull(table.insert(obj1, "1"));
+      table.insert(obj2, "2");
+      table.insert(obj3, "3");
+      table.insert(null, "null");
+      table.insert(obj4, "4");
+      assertFalse(table.isEmpty());
+      assertEquals(5, table.count());
+
+      assertEquals("2", table.insert(obj2, "22"));
+      assertEquals(5, table.count());
+
+      table.delete(obj1); // head of the run - the rest shifts back
+      assertEquals(4, table.count());
+      assertNull(table.lookUp(obj1));
+      assertEquals("22", table.lookUp(obj2));
+      assertEquals("3", table.lookUp(obj3));
+      assertEquals("4", table.lookUp(obj4));
+      assertEquals("null", table.lookUp(null));
+
+      table.delete(null);
+      table.delete(obj3);
+      assertEquals(2, table.count());
+      assertEquals("22", table.lookUp(obj2));
+      assertEquals("4", table.lookUp(obj4));
+      assertNull(table.lookUp(new BadHashObject()));
+   }
+
+   @Test
+   public void churnAgainstHashMap() {
+      Random random = new Random(11);
+      RobinHoodOpenAddressingTable<Integer, Integer> division = new RobinHoodOpenAddressingTable<>(1);
+      RobinHoodOpenAddressingTable<Integer, Integer> multiplication = HashTableBuilder
+            .getRobinHoodOpenAddressingTable(1);
+      Map<Integer, Integer> expected = new HashMap<>();
+      for (int i = 0; i < 20000; i++) {
+         Integer key = random.nextInt(400) - 200;
+         if (random.nextInt(3) == 0) {
+            division.delete(key);
+            multiplication.delete(key);
+            expected.remove(key);
+         } else {
+            Integer oldValue = expected.put(key, i);
+            assertEquals(oldValue, division.insert(key, i));
+            assertEquals(oldValue, multiplication.insert(key, i));
+         }
+         assertEquals(expected.size(), division.count());
+         assertEquals(expected.size(), multiplication.count());
+      }
+      for (int key = -200; key < 200; key++) {
+         assertEquals(expected.get(key), division.lookUp(key));
+         assertEquals(expected.get(key), multiplication.lookUp(key));
+      }
+   }
+
+}
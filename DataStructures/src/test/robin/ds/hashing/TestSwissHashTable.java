@@ -0,0 +1,91 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.SwissHashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+
+import test.robin.ds.hashing.TestOpenAddressingHashTable.BadHashObject;
+
+public class TestSwissHashTable {
+
+   @Test
+   public void create() {
+      SwissHashTable<Integer, String> table = HashTableBuilder.getSwissHashTable(4);
+      assertTrue(table.isEmpty());
+      assertNull(table.lookUp(9));
+      table.delete(9);
+      assertEquals(0, table.count());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void createInvalid() {
+      new SwissHashTable<>(0);
+   }
+
+   @Test
+   public void insertDeleteLookUp() {
+      SwissHashTable<Integer, String> table = new SwissHashTable<>(4);
+      assertNull(table.insert(1, "1"));
+      table.insert(2, "2");
+      table.insert(null, "null");
+      assertEquals(3, table.count());
+      assertEquals("2", table.insert(2, "22"));
+      assertEquals("22", table.lookUp(2));
+      assertEquals("null", table.lookUp(null));
+      table.delete(2);
+      table.delete(2);
+      assertNull(table.lookUp(2));
+      assertEquals("1", table.lookUp(1));
+      assertEquals(2, table.count());
+      table.insert(1, null);
+      assertNull(table.lookUp(1));
+      assertEquals(2, table.count());
+   }
+
+   @Test
+   public void sameHashCodeKeysSpillOverGroups() {
+      SwissHashTable<BadHashObject, Integer> table = new SwissHashTable<>(4);
+      BadHashObject[] keys = new BadHashObject[40];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = new BadHashObject();
+         table.insert(keys[i], i);
+      }
+      assertEquals(keys.length, table.count());
+      for (int i = 0; i < keys.length; i += 2) {
+         table.delete(keys[i]);
+      }
+      for (int i = 0; i < keys.length; i++) {
+         assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), table.lookUp(keys[i]));
+      }
+      assertEquals(keys.length / 2, table.count());
+   }
+
+   @Test
+   public void matchesHashMapUnderRandomOperations() {
+      SwissHashTable<Integer, Integer> table = new SwissHashTable<>(1);
+      Map<Integer, Integer> expected = new HashMap<>();
+      Random random = new Random(7);
+      for (int i = 0; i < 200000; i++) {
+         int key = random.nextInt(50000);
+         if (random.nextInt(2) == 0) { // enough deletes to leave DELETED marks
+            table.delete(key);
+            expected.remove(key);
+         } else {
+            assertEquals(expected.put(key, i), table.insert(key, i));
+         }
+      }
+      assertEquals(expected.size(), table.count());
+      for (int key = 0; key < 50000; key++) {
+         assertEquals(expected.get(key), table.lookUp(key));
+      }
+   }
+}
@@ -0,0 +1,109 @@
+package test.robin.ds.hashing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.robin.ds.hashing.ChainHashTable;
+import com.robin.ds.hashing.HashTableBuilder;
+import com.robin.ds.hashing.HashTableStatistics;
+import com.robin.ds.hashing.InstrumentedHashTable;
+import com.robin.ds.hashing.OpenAddressingTable;
+import com.robin.ds.hashing.RobinHoodOpenAddressingTable;
+import com.robin.ds.hashing.SwissHashTable;
+import com.robin.ds.hashing.WorkloadHashTableBuilder;
+import com.robin.ds.hashing.WorkloadHashTableBuilder.Layout;
+
+public class TestWorkloadHashTableBuilder {
+
+   private static class Point {
+      private final int x;
+      private final int y;
+
+      Point(int x, int y) {
+         this.x = x;
+         this.y = y;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         return obj instanceof Point && ((Point) obj).x == x && ((Point) obj).y == y;
+      }
+
+      @Override
+      public int hashCode() {
+         return x + y; // collides along every diagonal
+      }
+   }
+
+   @Test
+   public void picksLayout() {
+      assertEquals(Layout.LINEAR_PROBING, HashTableBuilder.forWorkload(Integer.class, 100).layout());
+      assertEquals(Layout.SWISS, HashTableBuilder.forWorkload(String.class, 100).readRatio(0.9).layout());
+      assertEquals(Layout.ROBIN_HOOD,
+            HashTableBuilder.forWorkload(Long.class, 100).readRatio(0.8).deleteRatio(0.2).layout());
+      assertEquals(Layout.CHAIN, HashTableBuilder.forWorkload(Point.class, 100).readRatio(0.9).layout());
+      assertEquals(Layout.SWISS, HashTableBuilder.forWorkload(Layout.class, 100).readRatio(1).layout());
+   }
+
+   @Test
+   public void buildsChosenTable() {
+      assertTrue(HashTableBuilder.forWorkload(Integer.class, 100).build() instanceof OpenAddressingTable);
+      assertTrue(HashTableBuilder.forWorkload(String.class, 100).readRatio(0.9).build() instanceof SwissHashTable);
+      assertTrue(HashTableBuilder.forWorkload(String.class, 100).deleteRatio(0.5)
+            .build() instanceof RobinHoodOpenAddressingTable);
+      assertTrue(HashTableBuilder.forWorkload(Point.class, 100).build() instanceof ChainHashTable);
+   }
+
+   @Test
+   public void presizedTablesDoNotRehash() {
+      int size = 10000;
+      for (double readRatio : new double[] { 0, 0.5, 0.9 }) {
+         for (double deleteRatio : new double[] { 0, 0.1 }) {
+            WorkloadHashTableBuilder<Integer> builder = HashTableBuilder.forWorkload(Integer.class, size)
+                  .readRatio(readRatio).deleteRatio(deleteRatio);
+            InstrumentedHashTable<Integer, Integer> table = builder.build();
+            HashTableStatistics statistics = HashTableBuilder.instrument(table);
+            for (int i = 0; i < size; i++) {
+               assertNull(table.insert(i, i));
+            }
+            assertEquals(builder.layout().toString(), 0, statistics.rehashCount());
+            assertEquals(size, table.count());
+         }
+      }
+      WorkloadHashTableBuilder<Point> builder = HashTableBuilder.forWorkload(Point.class, size);
+      InstrumentedHashTable<Point, Integer> table = builder.build();
+      HashTableStatistics statistics = HashTableBuilder.instrument(table);
+      for (int i = 0; i < size; i++) {
+         table.insert(new Point(i % 100, i / 100), i);
+      }
+      assertEquals(0, statistics.rehashCount());
+      assertEquals(Integer.valueOf(4321), table.lookUp(new Point(21, 43)));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidSize() {
+      HashTableBuilder.forWorkload(Integer.class, 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidRatios() {
+      HashTableBuilder.forWorkload(Integer.class, 10).readRatio(0.8).deleteRatio(0.3).layout();
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void invalidRatio() {
+      HashTableBuilder.forWorkload(Integer.class, 10).readRatio(1.5);
+   }
+
+   @Test
+   public void ratiosInAnyOrder() {
+      // the default read ratio of 0.5 must not clash with the delete ratio
+      assertEquals(Layout.ROBIN_HOOD,
+            HashTableBuilder.forWorkload(Integer.class, 10).deleteRatio(0.6).readRatio(0.3).layout());
+      assertTrue(HashTableBuilder.forWorkload(Integer.class, 10).deleteRatio(0.6).readRatio(0.3)
+            .build() instanceof RobinHoodOpenAddressingTable);
+   }
+}